@@ -1,14 +1,65 @@
 package com.tricolori.backend.config;
 
+import com.tricolori.backend.service.UpstreamMetrics;
+import com.tricolori.backend.util.CircuitBreaker;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class RestTemplateConfig {
 
+    // outbound client for OSRM and Nominatim, pooled and bounded so a slow upstream can't pin our threads
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(
+        UpstreamMetrics upstreamMetrics,
+        @Value("${http.client.max-connections:50}") int maxConnections,
+        @Value("${http.client.max-connections-per-host:10}") int maxConnectionsPerHost,
+        @Value("${http.client.connect-timeout-ms:2000}") long connectTimeoutMs,
+        @Value("${http.client.read-timeout-ms:5000}") long readTimeoutMs,
+        @Value("${http.client.idle-timeout-seconds:30}") long idleTimeoutSeconds
+    ) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxConnections)
+            .setMaxConnPerRoute(maxConnectionsPerHost)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .setTimeToLive(TimeValue.ofMinutes(5))
+                .build())
+            .build();
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                // waiting for a free pooled connection counts against the connect timeout
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .build())
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.ofSeconds(idleTimeoutSeconds))
+            .build();
+
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        restTemplate.getInterceptors().add(upstreamMetrics);
+        return restTemplate;
+    }
+
+    @Bean
+    public CircuitBreaker osrmCircuitBreaker(
+        @Value("${osrm.circuit.failure-threshold:5}") int failureThreshold,
+        @Value("${osrm.circuit.open-seconds:30}") long openSeconds
+    ) {
+        return new CircuitBreaker(failureThreshold, openSeconds * 1000);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,27 @@
+package com.tricolori.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class RideOrderExecutorConfig {
+
+    // bounded so a slow routing service queues orders instead of piling up threads
+    @Bean
+    public ThreadPoolTaskExecutor rideOrderExecutor(
+        @Value("${ride.order.executor.core-size:4}") int coreSize,
+        @Value("${ride.order.executor.max-size:16}") int maxSize,
+        @Value("${ride.order.executor.queue-capacity:200}") int queueCapacity
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ride-order-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
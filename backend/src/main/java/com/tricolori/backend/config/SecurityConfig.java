@@ -53,7 +53,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/v1/profiles/**").authenticated()
                     .requestMatchers("/api/v1/rides/*/rate").hasRole("PASSENGER")
                 .requestMatchers("/api/v1/change-requests/**").authenticated().requestMatchers("/api/v1/rides/*/track").authenticated()
-                .requestMatchers("/api/v1/vehicles/active").permitAll()
+                .requestMatchers("/api/v1/vehicles/active", "/api/v1/vehicles/active/changes").permitAll()
                 .requestMatchers("/api/v1/rides/history/driver/**").hasRole("DRIVER")
                 .requestMatchers("/api/v1/rides/*/details/driver").hasRole("DRIVER")
                 .requestMatchers("/api/v1/reports/**").authenticated()
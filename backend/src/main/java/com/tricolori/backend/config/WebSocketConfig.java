@@ -1,6 +1,7 @@
 package com.tricolori.backend.config;
 
 import com.tricolori.backend.security.JwtUtil;
+import com.tricolori.backend.security.RideSubscriptionInterceptor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
@@ -25,6 +26,7 @@ import java.util.List;
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final JwtUtil jwtUtil;
+    private final RideSubscriptionInterceptor rideSubscriptionInterceptor;
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
@@ -63,6 +65,6 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
                 return message;
             }
-        });
+        }, rideSubscriptionInterceptor);
     }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.tricolori.backend.controller;
+
+import com.tricolori.backend.dto.cache.CacheStatsResponse;
+import com.tricolori.backend.dto.cache.GeocodingCacheStatsResponse;
+import com.tricolori.backend.dto.dispatch.DispatchMetricsResponse;
+import com.tricolori.backend.dto.geocoding.NominatimStatsResponse;
+import com.tricolori.backend.service.DispatchMetrics;
+import com.tricolori.backend.service.GeocodingCache;
+import com.tricolori.backend.service.GeocodingService;
+import com.tricolori.backend.dto.upstream.UpstreamMetricsResponse;
+import com.tricolori.backend.service.RouteCache;
+import com.tricolori.backend.service.UpstreamMetrics;
+import com.tricolori.backend.util.CircuitBreaker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/metrics")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class MetricsController {
+
+    private final RouteCache routeCache;
+    private final GeocodingCache geocodingCache;
+    private final GeocodingService geocodingService;
+    private final UpstreamMetrics upstreamMetrics;
+    private final CircuitBreaker osrmCircuitBreaker;
+    private final DispatchMetrics dispatchMetrics;
+
+    @GetMapping("/route-cache")
+    public ResponseEntity<CacheStatsResponse> getRouteCacheStats() {
+        return ResponseEntity.ok(routeCache.stats());
+    }
+
+    @GetMapping("/geocoding-cache")
+    public ResponseEntity<GeocodingCacheStatsResponse> getGeocodingCacheStats() {
+        return ResponseEntity.ok(geocodingCache.stats());
+    }
+
+    @GetMapping("/nominatim")
+    public ResponseEntity<NominatimStatsResponse> getNominatimStats() {
+        return ResponseEntity.ok(geocodingService.getNominatimStats());
+    }
+
+    @GetMapping("/upstreams")
+    public ResponseEntity<UpstreamMetricsResponse> getUpstreamMetrics() {
+        return ResponseEntity.ok(new UpstreamMetricsResponse(upstreamMetrics.snapshot(), osrmCircuitBreaker.getState()));
+    }
+
+    @GetMapping("/dispatch")
+    public ResponseEntity<DispatchMetricsResponse> getDispatchMetrics() {
+        return ResponseEntity.ok(dispatchMetrics.snapshot());
+    }
+}
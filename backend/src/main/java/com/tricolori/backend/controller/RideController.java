@@ -4,10 +4,16 @@ import com.tricolori.backend.dto.history.AdminRideHistoryResponse;
 import com.tricolori.backend.dto.ride.*;
 import com.tricolori.backend.entity.Location;
 import com.tricolori.backend.entity.Person;
+import com.tricolori.backend.service.AsyncRideOrderService;
 import com.tricolori.backend.service.AuthService;
 import com.tricolori.backend.service.InconsistencyReportService;
 import com.tricolori.backend.service.ReviewService;
+import com.tricolori.backend.service.RideEstimationService;
 import com.tricolori.backend.service.RideService;
+import com.tricolori.backend.service.RideTelemetryLog;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -15,14 +21,18 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.http.HttpStatus;
 
 import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/v1/rides")
@@ -30,9 +40,13 @@ import java.util.List;
 public class RideController {
 
     private final RideService rideService;
+    private final AsyncRideOrderService asyncRideOrderService;
     private final ReviewService reviewService;
     private final InconsistencyReportService inconsistencyReportService;
     private final AuthService authenticationService;
+    private final RideEstimationService rideEstimationService;
+    private final RideTelemetryLog rideTelemetryLog;
+    private final ObjectMapper objectMapper;
 
     @PutMapping("/{id}/cancel")
     @PreAuthorize("hasAnyRole('DRIVER', 'PASSENGER')")
@@ -77,6 +91,25 @@ public class RideController {
         return ResponseEntity.ok(detail);
     }
 
+    // every recorded position of the ride, one JSON object per line, streamed as it is read
+    @GetMapping(value = "/{id}/telemetry", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> getRideTelemetry(@PathVariable Long id) {
+        ObjectWriter writer = objectMapper.writerFor(TelemetryPoint.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        StreamingResponseBody body = out -> {
+            try (Stream<TelemetryPoint> points = rideTelemetryLog.replay(id)) {
+                Iterator<TelemetryPoint> iterator = points.iterator();
+                while (iterator.hasNext()) {
+                    writer.writeValue(out, iterator.next());
+                    out.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     @PutMapping("/stop")
     @PreAuthorize("hasRole('DRIVER')")
     public ResponseEntity<StopRideResponse> stopRide(
@@ -87,11 +120,14 @@ public class RideController {
         return ResponseEntity.ok(rideService.stopRide(person, request));
     }
 
-    // passenger or driver can track current ride
+    // passenger or driver can track current ride, zoom adds the route geometry simplified for that map zoom
     @GetMapping("/{id}/track")
     @PreAuthorize("hasAnyRole('PASSENGER', 'DRIVER')")
-    public ResponseEntity<RideTrackingResponse> trackRide(@PathVariable Long id) {
-        RideTrackingResponse response = rideService.trackRide(id);
+    public ResponseEntity<RideTrackingResponse> trackRide(
+        @PathVariable Long id,
+        @RequestParam(required = false) Integer zoom
+    ) {
+        RideTrackingResponse response = rideService.trackRide(id, zoom);
         return ResponseEntity.ok(response);
     }
 
@@ -228,6 +264,12 @@ public class RideController {
         return ResponseEntity.ok(response);
     }
 
+    // price per vehicle type and duration of a route, open to unregistered users
+    @PostMapping("/estimate")
+    public ResponseEntity<RideEstimationResponse> estimate(@Valid @RequestBody RideEstimationRequest request) {
+        return ResponseEntity.ok(rideEstimationService.estimate(request));
+    }
+
     @PostMapping("/order")
     @PreAuthorize("hasRole('PASSENGER')")
     public ResponseEntity<Long> order(
@@ -239,6 +281,18 @@ public class RideController {
         );
     }
 
+    // the assignment or rejection is pushed to /user/queue/ride-updates
+    @PostMapping("/order/async")
+    @PreAuthorize("hasRole('PASSENGER')")
+    public ResponseEntity<Long> orderAsync(
+        @AuthenticationPrincipal Person passenger,
+        @RequestBody OrderRequest request
+    ) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(
+            asyncRideOrderService.order(passenger, request)
+        );
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('PASSENGER', 'DRIVER', 'ADMIN')")
     public ResponseEntity<RideAssignmentResponse> getRideAssignment(
@@ -262,8 +316,10 @@ public class RideController {
 
     @GetMapping("/ongoing")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<RideTrackingResponse>> getAllOngoingRides() {
-        List<RideTrackingResponse> ongoingRides = rideService.getAllOngoingRides();
+    public ResponseEntity<List<RideTrackingResponse>> getAllOngoingRides(
+        @RequestParam(required = false) Integer zoom
+    ) {
+        List<RideTrackingResponse> ongoingRides = rideService.getAllOngoingRides(zoom);
         return ResponseEntity.ok(ongoingRides);
     }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.tricolori.backend.controller;
+
+import java.security.Principal;
+
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Controller;
+
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.service.RideService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drivers stream their position to /app/rides/{rideId}/location over the /ws session, which is
+ * authenticated once at CONNECT instead of on every PUT. Passengers and admins receive the
+ * positions on /topic/rides/{rideId}/location, see RideSubscriptionInterceptor.
+ */
+@Controller
+@RequiredArgsConstructor
+@Slf4j
+public class RideLocationController {
+
+    private final RideService rideService;
+
+    @MessageMapping("/rides/{rideId}/location")
+    public void streamLocation(@DestinationVariable Long rideId, @Payload Location location, Principal principal) {
+        if (principal == null) {
+            throw new AccessDeniedException("unauthorized");
+        }
+
+        rideService.streamVehicleLocation(rideId, principal.getName(), location.getLatitude(), location.getLongitude());
+    }
+
+    @MessageExceptionHandler
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public String handleError(RuntimeException e) {
+        log.warn("Location frame rejected: {}", e.getMessage());
+        return e.getMessage();
+    }
+}
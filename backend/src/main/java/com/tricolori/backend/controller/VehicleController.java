@@ -1,6 +1,8 @@
 package com.tricolori.backend.controller;
 
 import com.tricolori.backend.service.VehicleService;
+import com.tricolori.backend.dto.vehicle.MapBounds;
+import com.tricolori.backend.dto.vehicle.VehicleFeedResponse;
 import com.tricolori.backend.dto.vehicle.VehicleLocationResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -16,18 +18,36 @@ public class VehicleController {
 
     private final VehicleService vehicleService;
 
-    // get all active vehicles to display on home page
+    // get all active vehicles to display on home page, only the ones in the map bounds when all four are given
     @GetMapping("/active")
-    public ResponseEntity<List<VehicleLocationResponse>> getAllActiveVehicles() {
-        List<VehicleLocationResponse> vehicles = vehicleService.getAllActiveVehicles();
+    public ResponseEntity<List<VehicleLocationResponse>> getAllActiveVehicles(
+            @RequestParam(required = false) Double minLat,
+            @RequestParam(required = false) Double minLng,
+            @RequestParam(required = false) Double maxLat,
+            @RequestParam(required = false) Double maxLng
+    ) {
+        List<VehicleLocationResponse> vehicles = vehicleService.getAllActiveVehicles(
+                MapBounds.of(minLat, minLng, maxLat, maxLng)
+        );
         return ResponseEntity.ok(vehicles);
     }
 
+    // vehicles changed since the version of the previous response, all of them without `since`
+    @GetMapping("/active/changes")
+    public ResponseEntity<VehicleFeedResponse> getActiveVehicleChanges(
+            @RequestParam(required = false) Long since,
+            @RequestParam(required = false) Double minLat,
+            @RequestParam(required = false) Double minLng,
+            @RequestParam(required = false) Double maxLat,
+            @RequestParam(required = false) Double maxLng
+    ) {
+        return ResponseEntity.ok(vehicleService.getVehicleFeed(since, MapBounds.of(minLat, minLng, maxLat, maxLng)));
+    }
+
     // get real time location of a vehicle for tracking
     @GetMapping("/{id}/location")
     public ResponseEntity<VehicleLocationResponse> getVehicleLocation(@PathVariable Long id) {
-
-        return ResponseEntity.ok().build();
+        return ResponseEntity.ok(vehicleService.getVehicleLocation(id));
     }
 
     // update vehicle location (for driver simulation/testing)
@@ -0,0 +1,13 @@
+package com.tricolori.backend.dto.cache;
+
+public record CacheStatsResponse(
+    long hits,
+    long misses,
+    double hitRatio,
+    int size
+) {
+    public static CacheStatsResponse of(long hits, long misses, int size) {
+        long lookups = hits + misses;
+        return new CacheStatsResponse(hits, misses, lookups == 0 ? 0 : (double) hits / lookups, size);
+    }
+}
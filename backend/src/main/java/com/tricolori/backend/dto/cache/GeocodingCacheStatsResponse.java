@@ -0,0 +1,6 @@
+package com.tricolori.backend.dto.cache;
+
+public record GeocodingCacheStatsResponse(
+    CacheStatsResponse forward,
+    CacheStatsResponse reverse
+) {}
@@ -0,0 +1,17 @@
+package com.tricolori.backend.dto.dispatch;
+
+import java.util.Map;
+
+import com.tricolori.backend.util.Histogram;
+
+public record DispatchMetricsResponse(
+    Histogram.Snapshot totalMicros,
+    Map<String, StageMetrics> stages,
+    Map<String, Long> outcomes
+) {
+    public record StageMetrics(
+        Histogram.Snapshot micros,
+        Histogram.Snapshot candidatesIn,
+        Histogram.Snapshot candidatesOut
+    ) {}
+}
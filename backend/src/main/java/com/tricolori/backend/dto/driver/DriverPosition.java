@@ -0,0 +1,9 @@
+package com.tricolori.backend.dto.driver;
+
+public record DriverPosition(
+        Long driverId,
+        Long vehicleId,
+        Double latitude,
+        Double longitude
+) {
+}
@@ -0,0 +1,43 @@
+package com.tricolori.backend.dto.driver;
+
+import java.time.LocalDateTime;
+
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.enums.RideStatus;
+
+public record DriverRideWindow(
+        Long rideId,
+        Long driverId,
+        RideStatus status,
+        LocalDateTime createdAt,
+        LocalDateTime scheduledFor,
+        LocalDateTime startTime,
+        Long estimatedTimeSeconds,
+        Double destinationLatitude,
+        Double destinationLongitude
+) {
+
+    /** Ongoing rides start when the driver started them, scheduled ones at the scheduled time */
+    public LocalDateTime start() {
+        if (status == RideStatus.ONGOING && startTime != null) {
+            return startTime;
+        }
+        if (scheduledFor != null) {
+            return scheduledFor;
+        }
+        // We are waiting for driver to start this ride...
+        return createdAt;
+    }
+
+    public LocalDateTime estimatedEnd() {
+        long seconds = estimatedTimeSeconds != null ? estimatedTimeSeconds : 0L;
+        return start().plusSeconds(seconds);
+    }
+
+    public Location destination() {
+        if (destinationLatitude == null || destinationLongitude == null) {
+            return null;
+        }
+        return new Location(destinationLongitude, destinationLatitude);
+    }
+}
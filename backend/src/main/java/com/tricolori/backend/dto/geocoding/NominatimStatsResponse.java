@@ -0,0 +1,8 @@
+package com.tricolori.backend.dto.geocoding;
+
+public record NominatimStatsResponse(
+    int queued,
+    long requests,
+    long rejected,
+    long coalesced
+) {}
@@ -0,0 +1,11 @@
+package com.tricolori.backend.dto.osrm;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class OSRMTableResponse {
+    private String code;
+    private List<List<Double>> durations; // in seconds, null where there is no route
+}
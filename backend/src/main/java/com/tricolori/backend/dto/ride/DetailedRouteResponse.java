@@ -21,4 +21,5 @@ public class DetailedRouteResponse {
     private List<Stop> stops;              // Intermediate stops only
     private Double distanceKm;
     private Integer estimatedTimeSeconds;
+    private String geometry;               // encoded polyline, only when a map zoom is requested
 }
\ No newline at end of file
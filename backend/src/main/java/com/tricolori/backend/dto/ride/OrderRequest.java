@@ -10,4 +10,6 @@ public class OrderRequest {
     private RidePreferences preferences;
     private LocalDateTime createdAt;
     private String[] trackers;
+    // quote from /rides/estimate, its route is reused when it matches this order's route
+    private String quoteId;
 }
@@ -25,6 +25,8 @@ public class RideDetailResponse {
     private String status;
     private Double totalPrice;
     private Double distance;
+    // km of the recorded GPS track, only in the admin details
+    private Double drivenDistance;
     private Integer duration;
     private LocalDateTime createdAt;
     private LocalDateTime acceptedAt;
@@ -1,8 +1,18 @@
 package com.tricolori.backend.dto.ride;
 
-import jakarta.validation.constraints.NotBlank;
+import java.util.List;
 
+import com.tricolori.backend.entity.Stop;
+
+import jakarta.validation.constraints.NotNull;
+
+// same route shape as an order, so the quote can be reused when the order follows
 public record RideEstimationRequest(
-    @NotBlank String pickupAddress,
-    @NotBlank String destinationAddress
-) {}
+    @NotNull Stop pickup,
+    @NotNull Stop destination,
+    List<Stop> stops
+) {
+    public RideRoute toRoute() {
+        return new RideRoute(pickup, destination, stops);
+    }
+}
@@ -1,15 +1,22 @@
 package com.tricolori.backend.dto.ride;
 
+import java.time.LocalDateTime;
+import java.util.Map;
+
 import com.tricolori.backend.entity.Stop;
+import com.tricolori.backend.enums.VehicleType;
 
 public record RideEstimationResponse(
 
+        String quoteId,             // pass as OrderRequest.quoteId to order this route
+        LocalDateTime validUntil,
+
         Stop pickupStop,
         Stop destinationStop,
 
         Long estimatedTimeSeconds, // e.g. 900 (15 min)
         Double estimatedDistanceKm, // e.g. 5.2
-        Double estimatedPrice,      // e.g. 650.00
+        Map<VehicleType, Double> prices, // e.g. STANDARD: 650.00
 
         String routeGeometry
-) {}
\ No newline at end of file
+) {}
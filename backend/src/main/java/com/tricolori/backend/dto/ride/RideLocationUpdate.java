@@ -0,0 +1,12 @@
+package com.tricolori.backend.dto.ride;
+
+import java.time.LocalDateTime;
+
+// pushed to /topic/rides/{rideId}/location on every position of the ride's vehicle
+public record RideLocationUpdate(
+    Long rideId,
+    Long vehicleId,
+    double latitude,
+    double longitude,
+    LocalDateTime timestamp
+) {}
@@ -18,5 +18,7 @@ public record RideTrackingResponse(
         LocalDateTime startTime,
         Double price,
         DriverDto driver,
-        List<PassengerDto> passengers
+        List<PassengerDto> passengers,
+        // along the route from the vehicle's last position, null before the first one
+        Double remainingDistanceKm
 ) {}
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.tricolori.backend.dto.ride;
+
+// vehicle of a ride and the driver allowed to report its position
+public record RideVehicle(
+    Long vehicleId,
+    String driverEmail
+) {}
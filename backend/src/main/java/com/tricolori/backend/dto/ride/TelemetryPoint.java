@@ -0,0 +1,10 @@
+package com.tricolori.backend.dto.ride;
+
+import java.time.Instant;
+
+// one recorded position of a ride's vehicle, see RideTelemetryLog
+public record TelemetryPoint(
+    Instant timestamp,
+    double latitude,
+    double longitude
+) {}
@@ -0,0 +1,13 @@
+package com.tricolori.backend.dto.route;
+
+import java.util.List;
+
+import com.tricolori.backend.entity.Stop;
+import com.tricolori.backend.infrastructure.presentation.dtos.Route.OSRMResult;
+
+// located stops and the routing result, before anything is saved
+public record PlannedRoute(
+        List<Stop> stops,
+        OSRMResult result
+) {
+}
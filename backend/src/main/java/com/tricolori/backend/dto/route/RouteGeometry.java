@@ -0,0 +1,7 @@
+package com.tricolori.backend.dto.route;
+
+public record RouteGeometry(
+        Long id,
+        String geometry
+) {
+}
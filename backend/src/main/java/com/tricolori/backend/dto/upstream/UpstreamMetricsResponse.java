@@ -0,0 +1,16 @@
+package com.tricolori.backend.dto.upstream;
+
+import java.util.Map;
+
+import com.tricolori.backend.util.CircuitBreaker;
+import com.tricolori.backend.util.Histogram;
+
+public record UpstreamMetricsResponse(
+    Map<String, UpstreamStats> upstreams,
+    CircuitBreaker.State osrmCircuit
+) {
+    public record UpstreamStats(
+        Histogram.Snapshot latencyMicros,
+        long errors
+    ) {}
+}
@@ -0,0 +1,26 @@
+package com.tricolori.backend.dto.vehicle;
+
+// viewport of a map, corners in degrees
+public record MapBounds(
+        double minLatitude,
+        double minLongitude,
+        double maxLatitude,
+        double maxLongitude
+) {
+
+    /** Bounds from optional request parameters, null unless all four are given */
+    public static MapBounds of(Double minLatitude, Double minLongitude, Double maxLatitude, Double maxLongitude) {
+        if (minLatitude == null || minLongitude == null || maxLatitude == null || maxLongitude == null) {
+            return null;
+        }
+        return new MapBounds(
+                Math.min(minLatitude, maxLatitude), Math.min(minLongitude, maxLongitude),
+                Math.max(minLatitude, maxLatitude), Math.max(minLongitude, maxLongitude)
+        );
+    }
+
+    public boolean contains(double latitude, double longitude) {
+        return latitude >= minLatitude && latitude <= maxLatitude
+                && longitude >= minLongitude && longitude <= maxLongitude;
+    }
+}
@@ -0,0 +1,15 @@
+package com.tricolori.backend.dto.vehicle;
+
+import java.util.List;
+
+/**
+ * Vehicles of the home map as of `version`. A full response lists every vehicle in the bounds,
+ * otherwise only the ones that changed since the version the client asked with; `removed` are
+ * the changed ones now gone or outside the bounds. The client asks with `version` next time.
+ */
+public record VehicleFeedResponse(
+        long version,
+        boolean full,
+        List<VehicleLocationResponse> vehicles,
+        List<Long> removed
+) {}
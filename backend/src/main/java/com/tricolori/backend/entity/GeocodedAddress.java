@@ -0,0 +1,43 @@
+package com.tricolori.backend.entity;
+
+import com.tricolori.backend.enums.GeocodingDirection;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// persistent side of the geocoding cache, one row per normalized address or reverse grid cell
+@Entity
+@Table(
+        name = "geocoding_cache",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_geocoding_direction_key", columnNames = { "direction", "cache_key" })
+        }
+)
+@Getter @Setter @NoArgsConstructor
+@AllArgsConstructor @Builder
+public class GeocodedAddress {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private GeocodingDirection direction;
+
+    @Column(name = "cache_key", nullable = false, length = 512)
+    private String cacheKey;
+
+    private Double latitude;
+
+    private Double longitude;
+
+    @Column(name = "display_name", length = 1024)
+    private String displayName;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -1,5 +1,7 @@
 package com.tricolori.backend.entity;
 
+import com.tricolori.backend.util.GeoDistance;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Embeddable;
 import lombok.AllArgsConstructor;
@@ -16,9 +18,8 @@ public class Location {
     @Column(nullable = true)
     private Double latitude = 0.0;
 
+    // distance in meters
     public static double calculateDistance(Location l1, Location l2) {
-        if (l1 == null || l2 == null) return Double.MAX_VALUE;
-        return Math.sqrt(Math.pow(l1.getLatitude() - l2.getLatitude(), 2) + 
-                         Math.pow(l1.getLongitude() - l2.getLongitude(), 2));
+        return GeoDistance.meters(l1, l2);
     }
 }
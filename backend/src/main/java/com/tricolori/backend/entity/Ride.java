@@ -43,13 +43,17 @@ public class Ride {
     @Column(name = "cancellation_reason")
     private String cancellationReason;
 
+    // how the driver was picked, see DispatchTrace
+    @Column(name = "dispatch_trace", length = 1000)
+    private String dispatchTrace;
+
     @Min(1)
     private Double price;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(
             name = "vehicle_specification_id",
-            nullable = false
+            nullable = true
     )
     private VehicleSpecification vehicleSpecification;
 
@@ -65,10 +69,11 @@ public class Ride {
     @JoinColumn(name = "driver_id", nullable = true)
     private Driver driver;
 
+    // empty while an asynchronous order is PENDING
     @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JoinColumn(
             name = "route_id",
-            nullable = false
+            nullable = true
     )
     private Route route;
 
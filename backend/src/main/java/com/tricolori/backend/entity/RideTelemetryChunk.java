@@ -0,0 +1,47 @@
+package com.tricolori.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Consecutive GPS positions of a ride, delta encoded by TelemetryCodec.
+ * Written by RideTelemetryLog in JDBC batches, never updated.
+ */
+@Entity(name = "RideTelemetryChunk")
+@Table(
+        name = "ride_telemetry_chunks",
+        indexes = {
+                @Index(name = "idx_ride_telemetry_ride", columnList = "ride_id, started_at")
+        }
+)
+@Getter @Setter @NoArgsConstructor
+public class RideTelemetryChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(
+            name = "ride_id",
+            nullable = false,
+            updatable = false
+    )
+    private Ride ride;
+
+    @Column(name = "started_at", nullable = false, updatable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "ended_at", nullable = false, updatable = false)
+    private LocalDateTime endedAt;
+
+    @Column(name = "point_count", nullable = false, updatable = false)
+    private int pointCount;
+
+    @Column(nullable = false, updatable = false, length = 65535)
+    private byte[] data;
+}
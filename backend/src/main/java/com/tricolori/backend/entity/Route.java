@@ -8,7 +8,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity(name = "Route")
-@Table(name = "routes")
+@Table(
+        name = "routes",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_routes_geometry_hash", columnNames = { "geometry_hash" })
+        }
+)
 @Getter @Setter @NoArgsConstructor
 @AllArgsConstructor @Builder
 public class Route {
@@ -30,6 +35,14 @@ public class Route {
     @Column(name = "route_geometry", columnDefinition = "TEXT", unique = false)
     private String routeGeometry;
 
+    // 128-bit hash of the geometry, the indexed key routes are deduplicated by
+    @Column(name = "geometry_hash", length = 32)
+    private String geometryHash;
+
+    // simplified copies of the geometry for zoomed out maps, see RouteGeometryLevels
+    @Column(name = "geometry_levels", length = 65535)
+    private byte[] geometryLevels;
+
     @Column(name = "distance_km")
     private Double distanceKm;
 
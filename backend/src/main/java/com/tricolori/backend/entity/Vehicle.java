@@ -33,7 +33,12 @@ public class Vehicle {
     )
     private VehicleSpecification specification;
 
+    // written by VehiclePositionStore, saving the entity must not overwrite a newer position
     @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(name = "longitude", column = @Column(name = "longitude", updatable = false)),
+            @AttributeOverride(name = "latitude", column = @Column(name = "latitude", updatable = false))
+    })
     private Location location;
 
 }
@@ -0,0 +1,12 @@
+package com.tricolori.backend.enums;
+
+public enum DispatchStage {
+    ACTIVE,
+    WORK_TIME,
+    PREFERENCES,
+    SCHEDULE,
+    FREE,
+    ETA,
+    BUSY,
+    BATCH
+}
@@ -0,0 +1,6 @@
+package com.tricolori.backend.enums;
+
+public enum GeocodingDirection {
+    FORWARD,
+    REVERSE
+}
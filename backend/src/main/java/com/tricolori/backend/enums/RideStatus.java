@@ -1,6 +1,7 @@
 package com.tricolori.backend.enums;
 
 public enum RideStatus {
+    PENDING,
     SCHEDULED,
     ONGOING,
     FINISHED,
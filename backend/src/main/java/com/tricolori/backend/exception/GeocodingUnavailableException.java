@@ -0,0 +1,7 @@
+package com.tricolori.backend.exception;
+
+public class GeocodingUnavailableException extends RuntimeException {
+    public GeocodingUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -11,4 +11,10 @@ public class OSRMResult {
     double distanceKilometers;
     long durationSeconds;
     String geometry;
+    // straight-line estimate made while OSRM was unavailable
+    boolean estimated;
+
+    public OSRMResult(double distanceKilometers, long durationSeconds, String geometry) {
+        this(distanceKilometers, durationSeconds, geometry, false);
+    }
 }
@@ -3,6 +3,7 @@ package com.tricolori.backend.mapper;
 import com.tricolori.backend.dto.ride.DetailedRouteResponse;
 import com.tricolori.backend.entity.Route;
 import com.tricolori.backend.entity.Stop;
+import com.tricolori.backend.util.RouteGeometryLevels;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
@@ -20,8 +21,18 @@ public interface RouteMapper {
     @Mapping(target = "destinationLongitude", source = "stops", qualifiedByName = "destLng")
     @Mapping(target = "stops", source = "stops", qualifiedByName = "intermediateStops")
     @Mapping(target = "estimatedTimeSeconds", expression = "java(route.getEstimatedTimeSeconds() != null ? Math.toIntExact(route.getEstimatedTimeSeconds()) : null)")
+    @Mapping(target = "geometry", ignore = true)
     DetailedRouteResponse toDetailedRoute(Route route);
 
+    // geometry simplified for the map zoom, none without a zoom
+    default DetailedRouteResponse toDetailedRoute(Route route, Integer zoom) {
+        DetailedRouteResponse response = toDetailedRoute(route);
+        if (zoom != null) {
+            response.setGeometry(RouteGeometryLevels.polyline(route, zoom));
+        }
+        return response;
+    }
+
     // ===== helpers =====
 
     @Named("pickupAddress")
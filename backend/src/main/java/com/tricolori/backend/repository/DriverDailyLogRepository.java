@@ -2,9 +2,13 @@ package com.tricolori.backend.repository;
 
 import com.tricolori.backend.entity.DriverDailyLog;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +18,17 @@ public interface DriverDailyLogRepository extends JpaRepository<DriverDailyLog,
     List<DriverDailyLog> findByDriverId(Long driverId);
 
     Optional<DriverDailyLog> findByDriverIdAndDate(Long driverId, LocalDate date);
+
+    List<DriverDailyLog> findByDate(LocalDate date);
+
+    List<DriverDailyLog> findByDateAndActiveTrue(LocalDate date);
+
+    // Adds the time since the last activation to the logs still active and moves the activation to now.
+    // Only the time columns are written, so a driver going offline meanwhile isn't switched back on
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE DriverDailyLog l SET " +
+           "l.activeTimeSeconds = l.activeTimeSeconds + cast((:now - l.lastActivationAt) by second as Long), " +
+           "l.lastActivationAt = :now " +
+           "WHERE l.date = :date AND l.active = true AND l.lastActivationAt IS NOT NULL")
+    int addActiveTime(@Param("date") LocalDate date, @Param("now") LocalDateTime now);
 }
@@ -1,12 +1,15 @@
-
 package com.tricolori.backend.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.tricolori.backend.dto.driver.DriverPosition;
 import com.tricolori.backend.entity.Driver;
 
 @Repository
@@ -15,4 +18,34 @@ public interface DriverRepository extends JpaRepository<Driver, Long> {
            "WHERE log.date = CURRENT_DATE " +
            "AND log.active = true")
     List<Driver> getAllCurrentlyActiveDrivers();
+
+    // active drivers ready for dispatch outside a transaction, drivers without a vehicle can't take rides
+    @Query("SELECT DISTINCT d FROM Driver d JOIN d.dailyLogs log " +
+           "JOIN FETCH d.vehicle v " +
+           "JOIN FETCH v.specification " +
+           "WHERE log.date = CURRENT_DATE " +
+           "AND log.active = true")
+    List<Driver> getAllCurrentlyActiveDriversWithVehicle();
+
+    // vehicle positions of currently active drivers, used to warm up the location index
+    @Query("SELECT new com.tricolori.backend.dto.driver.DriverPosition(" +
+           "d.id, v.id, v.location.latitude, v.location.longitude) " +
+           "FROM Driver d JOIN d.dailyLogs log JOIN d.vehicle v " +
+           "WHERE log.date = CURRENT_DATE " +
+           "AND log.active = true " +
+           "AND v.location.latitude IS NOT NULL " +
+           "AND v.location.longitude IS NOT NULL")
+    List<DriverPosition> getAllCurrentlyActiveDriverPositions();
+
+    @Query("SELECT d FROM Driver d " +
+           "JOIN FETCH d.vehicle v " +
+           "JOIN FETCH v.specification " +
+           "WHERE d.id IN :ids")
+    List<Driver> findAllWithVehicleByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT d FROM Driver d " +
+           "JOIN FETCH d.vehicle v " +
+           "JOIN FETCH v.specification " +
+           "WHERE d.id = :id")
+    Optional<Driver> findWithVehicleById(@Param("id") Long id);
 }
@@ -0,0 +1,14 @@
+package com.tricolori.backend.repository;
+
+import com.tricolori.backend.entity.GeocodedAddress;
+import com.tricolori.backend.enums.GeocodingDirection;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface GeocodedAddressRepository extends JpaRepository<GeocodedAddress, Long> {
+
+    Optional<GeocodedAddress> findByDirectionAndCacheKey(GeocodingDirection direction, String cacheKey);
+}
@@ -19,6 +19,8 @@ public interface PersonRepository extends JpaRepository<Person, Long>, JpaSpecif
 
     boolean existsByRole(PersonRole role);
 
+    boolean existsByEmailAndRole(String email, PersonRole role);
+
     List<Person> findByRole(PersonRole role);
 
     @Query("SELECT p.email FROM Person p WHERE p.role = com.tricolori.backend.enums.PersonRole.ROLE_ADMIN")
@@ -1,6 +1,8 @@
 package com.tricolori.backend.repository;
 
 
+import com.tricolori.backend.dto.driver.DriverRideWindow;
+import com.tricolori.backend.dto.ride.RideVehicle;
 import com.tricolori.backend.entity.Driver;
 import com.tricolori.backend.entity.Ride;
 import com.tricolori.backend.enums.RideStatus;
@@ -64,6 +66,16 @@ public interface RideRepository extends JpaRepository<Ride, Long> {
             @Param("to") LocalDateTime to
     );
 
+    // Vehicle and driver of a ride, used to check location updates without loading the ride
+    @Query("SELECT new com.tricolori.backend.dto.ride.RideVehicle(r.driver.vehicle.id, r.driver.email) " +
+           "FROM Ride r WHERE r.id = :rideId")
+    Optional<RideVehicle> findRideVehicle(@Param("rideId") Long rideId);
+
+    // Whether the person is the driver or one of the passengers of the ride
+    @Query("SELECT COUNT(r) > 0 FROM Ride r LEFT JOIN r.driver d LEFT JOIN r.passengers p " +
+           "WHERE r.id = :rideId AND (d.email = :email OR p.email = :email)")
+    boolean isRideParticipant(@Param("rideId") Long rideId, @Param("email") String email);
+
     // Find rides where the passenger is in the passengers list
     @Query("SELECT r FROM Ride r JOIN r.passengers p WHERE p.id = :passengerId ORDER BY r.createdAt DESC")
     List<Ride> findByPassengerIdOrderByCreatedAtDesc(@Param("passengerId") Long passengerId);
@@ -78,6 +90,38 @@ public interface RideRepository extends JpaRepository<Ride, Long> {
 
     boolean existsByDriverIdAndStatus(Long driverId, RideStatus rideStatus);
 
+    // ride windows and destinations of given drivers, used for dispatch availability checks
+    @Query("""
+        SELECT new com.tricolori.backend.dto.driver.DriverRideWindow(
+            r.id, r.driver.id, r.status, r.createdAt, r.scheduledFor, r.startTime,
+            rt.estimatedTimeSeconds, s.location.latitude, s.location.longitude
+        )
+        FROM Ride r
+        JOIN r.route rt
+        JOIN rt.stops s
+        WHERE r.driver.id IN :driverIds
+          AND r.status IN :statuses
+          AND INDEX(s) = SIZE(rt.stops) - 1
+    """)
+    List<DriverRideWindow> findRideWindowsByDriverIds(
+            @Param("driverIds") Collection<Long> driverIds,
+            @Param("statuses") Collection<RideStatus> statuses
+    );
+
+    @Query("""
+        SELECT new com.tricolori.backend.dto.driver.DriverRideWindow(
+            r.id, r.driver.id, r.status, r.createdAt, r.scheduledFor, r.startTime,
+            rt.estimatedTimeSeconds, s.location.latitude, s.location.longitude
+        )
+        FROM Ride r
+        JOIN r.route rt
+        JOIN rt.stops s
+        WHERE r.driver IS NOT NULL
+          AND r.status IN :statuses
+          AND INDEX(s) = SIZE(rt.stops) - 1
+    """)
+    List<DriverRideWindow> findAllRideWindows(@Param("statuses") Collection<RideStatus> statuses);
+
     @Query("""
         SELECT r 
         FROM Ride r 
@@ -1,11 +1,15 @@
 package com.tricolori.backend.repository;
 
+import com.tricolori.backend.dto.route.RouteGeometry;
 import com.tricolori.backend.entity.Route;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +18,17 @@ public interface RouteRepository extends JpaRepository<Route, Long> {
     // finds route by its geometry (as encoded polyline)
     @Query("SELECT r FROM Route r WHERE r.routeGeometry = :geometry")
     Optional<Route> findByRouteGeometry(@Param("geometry") String geometry);
+
+    Optional<Route> findByGeometryHash(String geometryHash);
+
+    boolean existsByGeometryHash(String geometryHash);
+
+    // routes saved before geometry hashes, without loading their stops
+    @Query("SELECT new com.tricolori.backend.dto.route.RouteGeometry(r.id, r.routeGeometry) " +
+           "FROM Route r WHERE r.geometryHash IS NULL AND r.id > :afterId ORDER BY r.id")
+    List<RouteGeometry> findUnhashedAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Route r SET r.geometryHash = :hash WHERE r.id = :id")
+    void setGeometryHash(@Param("id") Long id, @Param("hash") String hash);
 }
@@ -0,0 +1,56 @@
+package com.tricolori.backend.security;
+
+import com.tricolori.backend.enums.PersonRole;
+import com.tricolori.backend.repository.PersonRepository;
+import com.tricolori.backend.repository.RideRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lets only the passengers and the driver of a ride, and admins, subscribe to the positions
+ * published on /topic/rides/{rideId}/location. The session user is the one set at CONNECT.
+ */
+@Component
+@RequiredArgsConstructor
+public class RideSubscriptionInterceptor implements ChannelInterceptor {
+
+    private static final Pattern RIDE_LOCATION = Pattern.compile("^/topic/rides/(\\d+)/location$");
+
+    private final RideRepository rideRepository;
+    private final PersonRepository personRepository;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.SUBSCRIBE.equals(accessor.getCommand()) || accessor.getDestination() == null) {
+            return message;
+        }
+
+        Matcher matcher = RIDE_LOCATION.matcher(accessor.getDestination());
+        if (matcher.matches() && !canFollowRide(Long.valueOf(matcher.group(1)), accessor.getUser())) {
+            throw new AccessDeniedException("unauthorized");
+        }
+
+        return message;
+    }
+
+    private boolean canFollowRide(Long rideId, Principal user) {
+        if (user == null) {
+            return false;
+        }
+
+        return rideRepository.isRideParticipant(rideId, user.getName())
+            || personRepository.existsByEmailAndRole(user.getName(), PersonRole.ROLE_ADMIN);
+    }
+}
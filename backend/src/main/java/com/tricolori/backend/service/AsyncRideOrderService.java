@@ -0,0 +1,50 @@
+package com.tricolori.backend.service;
+
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.tricolori.backend.dto.ride.OrderRequest;
+import com.tricolori.backend.entity.Person;
+import com.tricolori.backend.exception.NoFreeDriverCloseException;
+import com.tricolori.backend.exception.NoSuitableDriversException;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Accepts ride orders without holding the request thread: the order is saved as PENDING
+ * and routed and matched on the ride order executor. The outcome reaches the passengers
+ * on /user/queue/ride-updates.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AsyncRideOrderService {
+
+    private final RideService rideService;
+    private final ThreadPoolTaskExecutor rideOrderExecutor;
+
+    /** Returns the id of the PENDING ride, committed before matching starts */
+    public Long order(Person passenger, OrderRequest request) {
+        Long rideId = rideService.createPendingRide(passenger, request);
+        try {
+            rideOrderExecutor.execute(() -> complete(rideId, passenger, request));
+        } catch (TaskRejectedException e) {
+            log.warn("Ride order executor is full, rejecting ride {}", rideId);
+            rideService.rejectPendingRide(rideId, "Sistem je trenutno preopterecen, pokusajte ponovo.");
+        }
+        return rideId;
+    }
+
+    private void complete(Long rideId, Person passenger, OrderRequest request) {
+        try {
+            rideService.completePendingOrder(rideId, passenger, request);
+        } catch (NoSuitableDriversException | NoFreeDriverCloseException e) {
+            rideService.rejectPendingRide(rideId, e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Ride order {} failed", rideId, e);
+            rideService.rejectPendingRide(rideId, "Porudzbina nije uspela, pokusajte ponovo.");
+        }
+    }
+}
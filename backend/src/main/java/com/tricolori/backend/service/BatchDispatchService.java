@@ -0,0 +1,161 @@
+package com.tricolori.backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tricolori.backend.dto.ride.RidePreferences;
+import com.tricolori.backend.entity.Driver;
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.util.AssignmentSolver;
+import com.tricolori.backend.util.GeoDistance;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Optional batch dispatch mode. Immediate orders are collected for a short window and
+ * then assigned all at once, minimizing the total pickup distance instead of giving
+ * every order the driver closest to it at the moment it arrived.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchDispatchService {
+    // how many nearest free drivers are considered for each order in a batch
+    private static final int CANDIDATES_PER_ORDER = 20;
+
+    private final DriverService driverService;
+    private final DriverReservations reservations;
+
+    @Value("${dispatch.batch.enabled:false}")
+    private boolean enabled;
+
+    @Value("${dispatch.batch.window-ms:2000}")
+    private long windowMs;
+
+    private final ConcurrentLinkedQueue<PendingOrder> pending = new ConcurrentLinkedQueue<>();
+
+    private record PendingOrder(
+        Location pickup,
+        RidePreferences preferences,
+        int trackingPassengersNumber,
+        CompletableFuture<Long> driverId
+    ) {}
+
+    /** Scheduled rides keep the greedy path, only immediate orders compete for the same drivers */
+    public boolean accepts(RidePreferences preferences) {
+        return enabled && preferences.scheduledFor() == null;
+    }
+
+    public long getWindowMs() {
+        return windowMs;
+    }
+
+    /**
+     * Queue an order for the next batch, the future completes with the id of the assigned driver.
+     * The driver stays reserved until the caller releases it.
+     */
+    public CompletableFuture<Long> submit(Location pickup, RidePreferences preferences, int trackingPassengersNumber) {
+        CompletableFuture<Long> driverId = new CompletableFuture<>();
+        pending.add(new PendingOrder(pickup, preferences, trackingPassengersNumber, driverId));
+        return driverId;
+    }
+
+    @Scheduled(fixedDelayString = "${dispatch.batch.window-ms:2000}")
+    @Transactional(readOnly = true)
+    public void flush() {
+        List<PendingOrder> batch = new ArrayList<>();
+        PendingOrder order;
+        while ((order = pending.poll()) != null) {
+            batch.add(order);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            assign(batch);
+        } catch (RuntimeException e) {
+            log.error("Batch dispatch of {} orders failed", batch.size(), e);
+            batch.forEach(o -> o.driverId().completeExceptionally(e));
+        }
+    }
+
+    private void assign(List<PendingOrder> batch) {
+        long stamp = reservations.stamp();
+
+        // every free candidate of any order becomes a column of the cost matrix
+        List<Driver> drivers = new ArrayList<>();
+        Map<Long, Integer> columnByDriver = new HashMap<>();
+        List<List<Driver>> candidates = new ArrayList<>();
+
+        for (PendingOrder o : batch) {
+            List<Driver> free = driverService.findFreeCandidates(
+                o.pickup(), o.preferences(), o.trackingPassengersNumber(), CANDIDATES_PER_ORDER
+            );
+            candidates.add(free);
+            for (Driver d : free) {
+                if (columnByDriver.putIfAbsent(d.getId(), drivers.size()) == null) {
+                    drivers.add(d);
+                }
+            }
+        }
+
+        double[] lats = new double[drivers.size()];
+        double[] lngs = new double[drivers.size()];
+        for (int column = 0; column < drivers.size(); column++) {
+            Location location = drivers.get(column).getVehicle().getLocation();
+            lats[column] = location.getLatitude();
+            lngs[column] = location.getLongitude();
+        }
+
+        double[][] cost = new double[batch.size()][drivers.size()];
+        double[] distances = new double[drivers.size()];
+        for (int row = 0; row < batch.size(); row++) {
+            Location pickup = batch.get(row).pickup();
+            GeoDistance.equirectangularMeters(lats, lngs, drivers.size(), pickup.getLatitude(), pickup.getLongitude(), distances);
+
+            Arrays.fill(cost[row], AssignmentSolver.FORBIDDEN);
+            for (Driver d : candidates.get(row)) {
+                int column = columnByDriver.get(d.getId());
+                cost[row][column] = distances[column];
+            }
+        }
+
+        int[] assignment = AssignmentSolver.solve(cost);
+
+        int unmatched = 0;
+        for (int row = 0; row < batch.size(); row++) {
+            PendingOrder o = batch.get(row);
+            if (assignment[row] >= 0) {
+                Long driverId = drivers.get(assignment[row]).getId();
+                if (reservations.tryReserve(driverId, stamp)) {
+                    o.driverId().complete(driverId);
+                    continue;
+                }
+            }
+
+            // no free candidate left for this order or it was taken meanwhile, fall back to the regular search
+            unmatched++;
+            try {
+                Driver driver = driverService.reserveDriverForRide(o.pickup(), o.preferences(), o.trackingPassengersNumber());
+                o.driverId().complete(driver.getId());
+            } catch (RuntimeException e) {
+                o.driverId().completeExceptionally(e);
+            }
+        }
+
+        log.info("Batch dispatch assigned {} orders to {} candidate drivers, {} fell back to greedy search.",
+            batch.size(), drivers.size(), unmatched);
+    }
+}
@@ -0,0 +1,61 @@
+package com.tricolori.backend.service;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import com.tricolori.backend.dto.dispatch.DispatchMetricsResponse;
+import com.tricolori.backend.enums.DispatchStage;
+import com.tricolori.backend.util.Histogram;
+
+/**
+ * Histograms of driver search latency and candidate counts, per filter stage,
+ * collected from every {@link DispatchTrace} since startup.
+ */
+@Component
+public class DispatchMetrics {
+
+    private record StageHistograms(Histogram micros, Histogram in, Histogram out) {
+        StageHistograms() {
+            this(new Histogram(), new Histogram(), new Histogram());
+        }
+    }
+
+    private final Histogram totalMicros = new Histogram();
+    private final Map<DispatchStage, StageHistograms> stages = new EnumMap<>(DispatchStage.class);
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    public DispatchMetrics() {
+        for (DispatchStage stage : DispatchStage.values()) {
+            stages.put(stage, new StageHistograms());
+        }
+    }
+
+    public void record(DispatchTrace trace) {
+        totalMicros.record(trace.getTotalNanos() / 1_000);
+        for (DispatchTrace.Step step : trace.getSteps()) {
+            StageHistograms histograms = stages.get(step.stage());
+            histograms.micros().record(step.nanos() / 1_000);
+            histograms.in().record(step.in());
+            histograms.out().record(step.out());
+        }
+        outcomes.computeIfAbsent(trace.getOutcome(), o -> new LongAdder()).increment();
+    }
+
+    public DispatchMetricsResponse snapshot() {
+        Map<String, DispatchMetricsResponse.StageMetrics> stageMetrics = new LinkedHashMap<>();
+        stages.forEach((stage, histograms) -> stageMetrics.put(stage.name(), new DispatchMetricsResponse.StageMetrics(
+            histograms.micros().snapshot(), histograms.in().snapshot(), histograms.out().snapshot()
+        )));
+
+        Map<String, Long> outcomeCounts = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> outcomeCounts.put(outcome, count.sum()));
+
+        return new DispatchMetricsResponse(totalMicros.snapshot(), stageMetrics, outcomeCounts);
+    }
+}
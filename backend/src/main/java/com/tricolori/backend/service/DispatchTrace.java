@@ -0,0 +1,91 @@
+package com.tricolori.backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.tricolori.backend.enums.DispatchStage;
+
+/**
+ * Record of one driver search: how many candidates entered and survived every filter
+ * stage and how long each stage took. The compact form is stored with the ride and logged
+ * when an order is rejected, the steps feed the dispatch histograms.
+ */
+public class DispatchTrace {
+
+    // fits the rides.dispatch_trace column
+    public static final int MAX_LENGTH = 1000;
+
+    public record Step(DispatchStage stage, int in, int out, long nanos) {}
+
+    private final long startedAt = System.nanoTime();
+    private final List<Step> steps = new ArrayList<>();
+    private long finishedAt;
+    private Long driverId;
+    private DispatchStage assignedBy;
+    private String rejection;
+
+    public <T> List<T> step(DispatchStage stage, int in, Supplier<List<T>> filter) {
+        long started = System.nanoTime();
+        List<T> out = filter.get();
+        steps.add(new Step(stage, in, out.size(), System.nanoTime() - started));
+        return out;
+    }
+
+    public void step(DispatchStage stage, int in, int out, long startedNanos) {
+        steps.add(new Step(stage, in, out, System.nanoTime() - startedNanos));
+    }
+
+    public void assigned(Long driverId, DispatchStage stage) {
+        this.driverId = driverId;
+        this.assignedBy = stage;
+        this.finishedAt = System.nanoTime();
+    }
+
+    public void rejected(String reason) {
+        this.rejection = reason;
+        this.finishedAt = System.nanoTime();
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    public long getTotalNanos() {
+        return (finishedAt != 0 ? finishedAt : System.nanoTime()) - startedAt;
+    }
+
+    /** FREE or BUSY for assigned rides, REJECTED otherwise */
+    public String getOutcome() {
+        if (assignedBy != null) return assignedBy.name();
+        return rejection != null ? "REJECTED" : "UNKNOWN";
+    }
+
+    // e.g. "ACTIVE 40>20 1.2ms, WORK_TIME 20>18 0.0ms, ... => FREE driver 7 in 3.4ms"
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Step step : steps) {
+            if (!sb.isEmpty()) sb.append(", ");
+            sb.append(step.stage()).append(' ')
+                .append(step.in()).append('>').append(step.out()).append(' ')
+                .append(millis(step.nanos())).append("ms");
+        }
+
+        sb.append(" => ").append(getOutcome());
+        if (driverId != null) sb.append(" driver ").append(driverId);
+        if (rejection != null) sb.append(" (").append(rejection).append(')');
+        sb.append(" in ").append(millis(getTotalNanos())).append("ms");
+
+        if (sb.length() <= MAX_LENGTH) {
+            return sb.toString();
+        }
+        // keep the outcome, drop steps from the middle of long widened searches
+        String tail = sb.substring(sb.lastIndexOf(" => "));
+        return sb.substring(0, MAX_LENGTH - tail.length() - 4) + " ..." + tail;
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1_000_000.0);
+    }
+}
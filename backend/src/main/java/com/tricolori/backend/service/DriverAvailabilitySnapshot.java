@@ -0,0 +1,72 @@
+package com.tricolori.backend.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import com.tricolori.backend.dto.driver.DriverRideWindow;
+import com.tricolori.backend.enums.RideStatus;
+
+/**
+ * Point in time view of the ONGOING and SCHEDULED rides of dispatch candidates,
+ * built from a single query so availability checks don't hit the database per driver.
+ */
+public class DriverAvailabilitySnapshot {
+
+    private static final long ENDING_SOON_MINUTES = 10;
+
+    private final Map<Long, List<DriverRideWindow>> ridesByDriver;
+    private final LocalDateTime now;
+
+    public DriverAvailabilitySnapshot(List<DriverRideWindow> rides, LocalDateTime now) {
+        this.ridesByDriver = rides.stream()
+            .filter(r -> r.driverId() != null)
+            .collect(Collectors.groupingBy(DriverRideWindow::driverId));
+        this.now = now;
+    }
+
+    /** Drivers with no ongoing or scheduled ride ordered today */
+    public boolean isFree(Long driverId) {
+        return ridesOf(driverId).stream().noneMatch(this::isOrderedToday);
+    }
+
+    /** Drivers without scheduled rides whose ongoing ride ends within 10 minutes */
+    public boolean isFinishingSoon(Long driverId) {
+        List<DriverRideWindow> todayRides = ridesOf(driverId).stream()
+            .filter(this::isOrderedToday)
+            .toList();
+
+        boolean hasScheduled = todayRides.stream().anyMatch(r -> r.status() == RideStatus.SCHEDULED);
+        if (hasScheduled) return false;
+
+        return todayRides.stream()
+            .filter(r -> r.status() == RideStatus.ONGOING)
+            .anyMatch(this::isEndingInTenMinutes);
+    }
+
+    public Optional<DriverRideWindow> currentOngoingRide(Long driverId) {
+        return ridesOf(driverId).stream()
+            .filter(r -> r.status() == RideStatus.ONGOING)
+            .findFirst();
+    }
+
+    private boolean isEndingInTenMinutes(DriverRideWindow ride) {
+        if (ride.startTime() == null || ride.estimatedTimeSeconds() == null) return false;
+
+        long minutesRemaining = Duration.between(now, ride.estimatedEnd()).toMinutes();
+        return minutesRemaining >= 0 && minutesRemaining <= ENDING_SOON_MINUTES;
+    }
+
+    private boolean isOrderedToday(DriverRideWindow ride) {
+        LocalDate today = now.toLocalDate();
+        return ride.createdAt() != null && ride.createdAt().toLocalDate().equals(today);
+    }
+
+    private List<DriverRideWindow> ridesOf(Long driverId) {
+        return ridesByDriver.getOrDefault(driverId, List.of());
+    }
+}
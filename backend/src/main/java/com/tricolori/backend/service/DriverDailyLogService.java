@@ -4,6 +4,7 @@ import com.tricolori.backend.dto.driver.DriverDailyLogResponse;
 import com.tricolori.backend.dto.profile.ChangeDriverStatusRequest;
 import com.tricolori.backend.entity.Driver;
 import com.tricolori.backend.entity.DriverDailyLog;
+import com.tricolori.backend.entity.Location;
 import com.tricolori.backend.enums.RideStatus;
 import com.tricolori.backend.exception.DriverDailyLogNotFoundException;
 import com.tricolori.backend.exception.PersonNotFoundException;
@@ -11,12 +12,19 @@ import com.tricolori.backend.mapper.DriverDailyLogMapper;
 import com.tricolori.backend.repository.DriverDailyLogRepository;
 import com.tricolori.backend.repository.DriverRepository;
 import com.tricolori.backend.repository.RideRepository;
+import com.tricolori.backend.repository.VehicleRepository;
+import com.tricolori.backend.util.AfterCommit;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -26,7 +34,11 @@ public class DriverDailyLogService {
     private final DriverDailyLogRepository dailyLogRepository;
     private final DriverRepository driverRepository;
     private final RideRepository rideRepository;
+    private final VehicleRepository vehicleRepository;
     private final DriverDailyLogMapper dailyLogMapper;
+    private final DriverLocationIndex driverLocationIndex;
+    private final DriverWorkTimeTracker workTimeTracker;
+    private final VehiclePositionStore vehiclePositionStore;
 
     @Transactional
     public void changeStatus(ChangeDriverStatusRequest request, Long driverId) {
@@ -53,6 +65,47 @@ public class DriverDailyLogService {
 
         log.info("Driver with ID {{}} changed activity status to {{}}.", driverId, request.active());
         dailyLogRepository.save(dailyLog);
+        AfterCommit.run(() -> workTimeTracker.track(dailyLog));
+        updateLocationIndex(driverId, request.active());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadWorkTime() {
+        List<DriverDailyLog> todayLogs = dailyLogRepository.findByDate(LocalDate.now());
+        workTimeTracker.load(todayLogs);
+        log.info("Driver work time loaded for {} drivers.", todayLogs.size());
+    }
+
+    // Active logs only hold the time up to their last activation, write the time since then periodically
+    @Scheduled(fixedDelayString = "${driver.work-time.persist-interval-ms:300000}")
+    @Transactional
+    public void persistActiveTime() {
+        LocalDate today = LocalDate.now();
+        dailyLogRepository.addActiveTime(today, LocalDateTime.now());
+        List<DriverDailyLog> activeLogs = dailyLogRepository.findByDateAndActiveTrue(today);
+
+        AfterCommit.run(() -> {
+            activeLogs.forEach(workTimeTracker::track);
+            workTimeTracker.evictBefore(today);
+        });
+    }
+
+    // The index follows the status once it is committed, a rolled back change leaves it as it was
+    private void updateLocationIndex(Long driverId, boolean active) {
+        if (!active) {
+            AfterCommit.run(() -> driverLocationIndex.remove(driverId));
+            return;
+        }
+
+        vehicleRepository.findByDriverId(driverId).ifPresent(vehicle -> {
+            Location location = vehiclePositionStore.locationOf(vehicle);
+            if (location != null && location.getLatitude() != null && location.getLongitude() != null) {
+                Long vehicleId = vehicle.getId();
+                double latitude = location.getLatitude();
+                double longitude = location.getLongitude();
+                AfterCommit.run(() -> driverLocationIndex.upsert(driverId, vehicleId, latitude, longitude));
+            }
+        });
     }
 
     @Transactional
@@ -62,6 +115,7 @@ public class DriverDailyLogService {
                 .orElseThrow(() -> new DriverDailyLogNotFoundException("Drivers daily log not found for today."));
 
         dailyLog.refreshActiveTime();
+        AfterCommit.run(() -> workTimeTracker.track(dailyLog));
 
         return dailyLogMapper.toResponse(dailyLog);
     }
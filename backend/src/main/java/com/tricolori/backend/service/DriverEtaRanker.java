@@ -0,0 +1,122 @@
+package com.tricolori.backend.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.tricolori.backend.entity.Driver;
+import com.tricolori.backend.entity.Location;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Re-ranks the closest drivers by real driving time to the pickup. Straight-line distance
+ * picks drivers across the river or a highway, so the top-k candidates get their ETA from
+ * a single OSRM table call. Durations are cached briefly per (vehicle position, pickup).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DriverEtaRanker {
+    // ~11 m, positions closer than this share cached durations
+    private static final double CACHE_PRECISION = 10_000;
+    private static final int MAX_CACHED = 10_000;
+
+    private final OSRMService osrmService;
+
+    @Value("${dispatch.eta.candidates:5}")
+    private int candidates;
+
+    @Value("${dispatch.eta.cache-ttl-seconds:30}")
+    private long cacheTtlSeconds;
+
+    private record EtaKey(long fromLat, long fromLng, long toLat, long toLng) {}
+    private record CachedEta(Double seconds, long expiresAt) {}
+
+    private final Map<EtaKey, CachedEta> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Takes drivers ordered by straight-line distance and orders the first k of them by ETA.
+     * Drivers without a route go after those with one, the rest keep their order.
+     * If OSRM is unavailable the straight-line order is returned unchanged.
+     */
+    public List<Driver> rank(List<Driver> byDistance, Location pickup) {
+        int k = Math.min(candidates, byDistance.size());
+        if (k <= 1) {
+            return byDistance;
+        }
+
+        List<Driver> top = byDistance.subList(0, k);
+        Map<Long, Double> etaByDriver;
+        try {
+            etaByDriver = loadEtas(top, pickup);
+        } catch (RuntimeException e) {
+            log.warn("OSRM table unavailable, ranking drivers by straight-line distance: {}", e.getMessage());
+            return byDistance;
+        }
+
+        List<Driver> ranked = new ArrayList<>(top);
+        ranked.sort(Comparator.comparing(
+            d -> etaByDriver.get(d.getId()), Comparator.nullsLast(Comparator.naturalOrder())
+        ));
+        ranked.addAll(byDistance.subList(k, byDistance.size()));
+        return ranked;
+    }
+
+    private Map<Long, Double> loadEtas(List<Driver> drivers, Location pickup) {
+        long now = System.currentTimeMillis();
+        Map<Long, Double> etaByDriver = new HashMap<>();
+        List<Driver> missing = new ArrayList<>();
+
+        for (Driver driver : drivers) {
+            CachedEta cached = cache.get(keyOf(driver.getVehicle().getLocation(), pickup));
+            if (cached != null && cached.expiresAt() > now) {
+                etaByDriver.put(driver.getId(), cached.seconds());
+            } else {
+                missing.add(driver);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return etaByDriver;
+        }
+
+        List<Double> durations = osrmService.getDurationsTo(
+            missing.stream().map(d -> d.getVehicle().getLocation()).toList(), pickup
+        );
+
+        evictExpired(now);
+        long expiresAt = now + cacheTtlSeconds * 1000;
+        for (int i = 0; i < missing.size(); i++) {
+            Driver driver = missing.get(i);
+            Double seconds = durations.get(i);
+            etaByDriver.put(driver.getId(), seconds);
+            cache.put(keyOf(driver.getVehicle().getLocation(), pickup), new CachedEta(seconds, expiresAt));
+        }
+        return etaByDriver;
+    }
+
+    private void evictExpired(long now) {
+        if (cache.size() < MAX_CACHED) {
+            return;
+        }
+        cache.values().removeIf(eta -> eta.expiresAt() <= now);
+        if (cache.size() >= MAX_CACHED) {
+            cache.clear();
+        }
+    }
+
+    private static EtaKey keyOf(Location from, Location to) {
+        return new EtaKey(
+            Math.round(from.getLatitude() * CACHE_PRECISION), Math.round(from.getLongitude() * CACHE_PRECISION),
+            Math.round(to.getLatitude() * CACHE_PRECISION), Math.round(to.getLongitude() * CACHE_PRECISION)
+        );
+    }
+}
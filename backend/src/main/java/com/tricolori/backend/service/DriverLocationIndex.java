@@ -0,0 +1,198 @@
+package com.tricolori.backend.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.util.GeoDistance;
+
+/**
+ * Live grid index of online drivers and the last known position of their vehicles.
+ * Drivers are bucketed into fixed size lat/lng cells so a nearest-k search only
+ * visits the cells around the pickup instead of every active driver.
+ */
+@Component
+public class DriverLocationIndex {
+
+    // ~1.1 km in latitude, ~0.8 km in longitude at Serbian latitudes
+    static final double CELL_SIZE_DEGREES = 0.01;
+
+    private final Map<Long, IndexedDriver> drivers = new ConcurrentHashMap<>();
+    private final Map<Long, Long> driverByVehicle = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+
+    public record IndexedDriver(Long driverId, Long vehicleId, double latitude, double longitude, long cell) {}
+
+    /** Put a driver online at the given position, or move it if it's already indexed */
+    public void upsert(Long driverId, Long vehicleId, double latitude, double longitude) {
+        long cell = cellOf(latitude, longitude);
+        IndexedDriver entry = new IndexedDriver(driverId, vehicleId, latitude, longitude, cell);
+
+        drivers.compute(driverId, (id, previous) -> {
+            if (previous != null) {
+                if (previous.cell() != cell) {
+                    removeFromCell(previous.cell(), id);
+                }
+                if (previous.vehicleId() != null && !previous.vehicleId().equals(vehicleId)) {
+                    driverByVehicle.remove(previous.vehicleId());
+                }
+            }
+            cells.compute(cell, (c, bucket) -> {
+                Set<Long> ids = bucket != null ? bucket : ConcurrentHashMap.newKeySet();
+                ids.add(id);
+                return ids;
+            });
+            return entry;
+        });
+
+        if (vehicleId != null) {
+            driverByVehicle.put(vehicleId, driverId);
+        }
+    }
+
+    /** Take a driver offline */
+    public void remove(Long driverId) {
+        IndexedDriver removed = drivers.remove(driverId);
+        if (removed == null) {
+            return;
+        }
+
+        removeFromCell(removed.cell(), driverId);
+        if (removed.vehicleId() != null) {
+            driverByVehicle.remove(removed.vehicleId(), driverId);
+        }
+    }
+
+    /** Move the vehicle if it belongs to an online driver, offline vehicles are ignored */
+    public void moveVehicle(Long vehicleId, double latitude, double longitude) {
+        Long driverId = driverByVehicle.get(vehicleId);
+        if (driverId != null && drivers.containsKey(driverId)) {
+            upsert(driverId, vehicleId, latitude, longitude);
+        }
+    }
+
+    public void clear() {
+        drivers.clear();
+        driverByVehicle.clear();
+        cells.clear();
+    }
+
+    public boolean contains(Long driverId) {
+        return drivers.containsKey(driverId);
+    }
+
+    public int size() {
+        return drivers.size();
+    }
+
+    /**
+     * Returns ids of at most k online drivers closest to the given point, closest first.
+     * Rings of cells around the point are visited until the k-th best candidate is
+     * closer than anything an unvisited ring could contain. Once more cells than
+     * drivers would have to be visited, a plain scan is cheaper and used instead.
+     */
+    public List<Long> findNearest(Location point, int k) {
+        if (point == null || k <= 0 || drivers.isEmpty()) {
+            return List.of();
+        }
+
+        double latitude = point.getLatitude();
+        double longitude = point.getLongitude();
+        long centerLat = (long) Math.floor(latitude / CELL_SIZE_DEGREES);
+        long centerLng = (long) Math.floor(longitude / CELL_SIZE_DEGREES);
+
+        int total = drivers.size();
+        long visitedCells = 0;
+        List<IndexedDriver> found = new ArrayList<>();
+        // a cell is narrower in longitude than in latitude, so that side bounds the search
+        double metersPerRing = CELL_SIZE_DEGREES * GeoDistance.METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+
+        for (int ring = 0; ; ring++) {
+            visitedCells += ring == 0 ? 1 : 8L * ring;
+            if (visitedCells > total) {
+                found = new ArrayList<>(drivers.values());
+                break;
+            }
+
+            collectRing(centerLat, centerLng, ring, found);
+            if (found.size() >= total) break;
+
+            // everything in the next ring is at least `ring` cells away
+            if (found.size() >= k && kthDistance(found, k, latitude, longitude) <= ring * metersPerRing) break;
+        }
+
+        int[] order = orderByDistance(found, latitude, longitude);
+        // a driver moving between cells during the search can be collected twice
+        Set<Long> nearest = new LinkedHashSet<>();
+        for (int i = 0; i < order.length && nearest.size() < k; i++) {
+            nearest.add(found.get(order[i]).driverId());
+        }
+        return List.copyOf(nearest);
+    }
+
+    private static double kthDistance(List<IndexedDriver> found, int k, double latitude, double longitude) {
+        IndexedDriver kth = found.get(orderByDistance(found, latitude, longitude)[k - 1]);
+        return GeoDistance.equirectangularMeters(latitude, longitude, kth.latitude(), kth.longitude());
+    }
+
+    private static int[] orderByDistance(List<IndexedDriver> found, double latitude, double longitude) {
+        int count = found.size();
+        double[] lats = new double[count];
+        double[] lngs = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = found.get(i).latitude();
+            lngs[i] = found.get(i).longitude();
+        }
+        return GeoDistance.orderByDistance(lats, lngs, count, latitude, longitude);
+    }
+
+    private void collectRing(long centerLat, long centerLng, int ring, List<IndexedDriver> found) {
+        if (ring == 0) {
+            collectCell(centerLat, centerLng, found);
+            return;
+        }
+
+        for (long lng = centerLng - ring; lng <= centerLng + ring; lng++) {
+            collectCell(centerLat - ring, lng, found);
+            collectCell(centerLat + ring, lng, found);
+        }
+        for (long lat = centerLat - ring + 1; lat <= centerLat + ring - 1; lat++) {
+            collectCell(lat, centerLng - ring, found);
+            collectCell(lat, centerLng + ring, found);
+        }
+    }
+
+    private void collectCell(long latIndex, long lngIndex, List<IndexedDriver> found) {
+        Set<Long> bucket = cells.get(key(latIndex, lngIndex));
+        if (bucket == null) return;
+
+        for (Long driverId : bucket) {
+            IndexedDriver entry = drivers.get(driverId);
+            if (entry != null) found.add(entry);
+        }
+    }
+
+    private void removeFromCell(long cell, Long driverId) {
+        cells.computeIfPresent(cell, (c, bucket) -> {
+            bucket.remove(driverId);
+            return bucket.isEmpty() ? null : bucket;
+        });
+    }
+
+    private static long cellOf(double latitude, double longitude) {
+        return key(
+            (long) Math.floor(latitude / CELL_SIZE_DEGREES),
+            (long) Math.floor(longitude / CELL_SIZE_DEGREES)
+        );
+    }
+
+    private static long key(long latIndex, long lngIndex) {
+        return (latIndex << 32) | (lngIndex & 0xffffffffL);
+    }
+}
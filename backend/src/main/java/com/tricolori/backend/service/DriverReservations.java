@@ -0,0 +1,74 @@
+package com.tricolori.backend.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.tricolori.backend.util.AfterCommit;
+
+/**
+ * Lock-free reservation table that keeps two parallel orders from taking the same driver.
+ *
+ * Every change of a driver's claim is stamped from one global counter. A dispatcher reads
+ * {@link #stamp()} before it loads driver availability and can reserve a driver only if the
+ * driver is not held and its claim didn't change after that stamp, i.e. the availability it
+ * saw is still current. A reservation is held until the transaction that saves the ride ends.
+ */
+@Component
+public class DriverReservations {
+
+    private record Claim(long stamp, boolean held) {}
+
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<Long, Claim> claims = new ConcurrentHashMap<>();
+
+    /** Read before loading availability, later reservations are checked against it */
+    public long stamp() {
+        return clock.get();
+    }
+
+    /** Reserve the driver unless someone else holds it or took it after the given stamp */
+    public boolean tryReserve(Long driverId, long observedStamp) {
+        while (true) {
+            Claim current = claims.get(driverId);
+            if (current == null) {
+                if (claims.putIfAbsent(driverId, new Claim(clock.incrementAndGet(), true)) == null) {
+                    return true;
+                }
+                continue;
+            }
+
+            if (current.held() || current.stamp() > observedStamp) {
+                return false;
+            }
+            if (claims.replace(driverId, current, new Claim(clock.incrementAndGet(), true))) {
+                return true;
+            }
+        }
+    }
+
+    /** Release now. The new stamp invalidates availability read while the driver was held */
+    public void release(Long driverId) {
+        while (true) {
+            Claim current = claims.get(driverId);
+            if (current == null || !current.held()) {
+                return;
+            }
+            if (claims.replace(driverId, current, new Claim(clock.incrementAndGet(), false))) {
+                return;
+            }
+        }
+    }
+
+    /** Release once the current transaction commits or rolls back, or now if there is none */
+    public void releaseAfterCompletion(Long driverId) {
+        AfterCommit.runAfterCompletion(() -> release(driverId));
+    }
+
+    public boolean isHeld(Long driverId) {
+        Claim claim = claims.get(driverId);
+        return claim != null && claim.held();
+    }
+}
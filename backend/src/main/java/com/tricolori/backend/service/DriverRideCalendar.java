@@ -0,0 +1,132 @@
+package com.tricolori.backend.service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import com.tricolori.backend.dto.driver.DriverRideWindow;
+import com.tricolori.backend.entity.Ride;
+import com.tricolori.backend.enums.RideStatus;
+import com.tricolori.backend.util.AfterCommit;
+
+/**
+ * In-memory calendar of the rides every driver has committed to (ONGOING and SCHEDULED).
+ * Ride windows, widened by the 5 minute buffer, are merged into disjoint busy blocks
+ * kept in a TreeMap, so checking a driver at a given time is a single floor lookup.
+ */
+@Component
+public class DriverRideCalendar {
+
+    private static final long BUFFER_MINUTES = 5;
+
+    private final Map<Long, DriverCalendar> calendars = new ConcurrentHashMap<>();
+
+    /** Replace all calendars with the given ride windows */
+    public void load(List<DriverRideWindow> windows) {
+        calendars.clear();
+        windows.forEach(this::put);
+    }
+
+    /** Add or move the window of an assigned ride once the current transaction commits */
+    public void commit(Ride ride) {
+        if (ride.getDriver() == null || ride.getRoute() == null) {
+            return;
+        }
+
+        DriverRideWindow window = new DriverRideWindow(
+            ride.getId(), ride.getDriver().getId(), ride.getStatus(), ride.getCreatedAt(),
+            ride.getScheduledFor(), ride.getStartTime(), ride.getRoute().getEstimatedTimeSeconds(),
+            null, null
+        );
+
+        if (window.status() == RideStatus.ONGOING || window.status() == RideStatus.SCHEDULED) {
+            AfterCommit.run(() -> put(window));
+        } else {
+            release(ride);
+        }
+    }
+
+    /** Remove the window of a finished, stopped or cancelled ride once the current transaction commits */
+    public void release(Ride ride) {
+        if (ride.getDriver() == null) {
+            return;
+        }
+
+        Long driverId = ride.getDriver().getId();
+        Long rideId = ride.getId();
+        AfterCommit.run(() -> calendars.computeIfPresent(driverId, (id, calendar) -> {
+            calendar.remove(rideId);
+            return calendar.isEmpty() ? null : calendar;
+        }));
+    }
+
+    public boolean isBusyAt(Long driverId, LocalDateTime time) {
+        DriverCalendar calendar = calendars.get(driverId);
+        return calendar != null && calendar.isBusyAt(time);
+    }
+
+    private void put(DriverRideWindow window) {
+        if (window.driverId() == null || window.start() == null) {
+            return;
+        }
+
+        calendars.compute(window.driverId(), (id, calendar) -> {
+            DriverCalendar updated = calendar != null ? calendar : new DriverCalendar();
+            updated.put(window);
+            return updated;
+        });
+    }
+
+    private static class DriverCalendar {
+        private final Map<Long, DriverRideWindow> rides = new HashMap<>();
+        // start -> end of merged, non-overlapping busy blocks
+        private volatile NavigableMap<LocalDateTime, LocalDateTime> blocks = new TreeMap<>();
+
+        synchronized void put(DriverRideWindow window) {
+            rides.put(window.rideId(), window);
+            rebuild();
+        }
+
+        synchronized void remove(Long rideId) {
+            if (rides.remove(rideId) != null) {
+                rebuild();
+            }
+        }
+
+        synchronized boolean isEmpty() {
+            return rides.isEmpty();
+        }
+
+        boolean isBusyAt(LocalDateTime time) {
+            Map.Entry<LocalDateTime, LocalDateTime> block = blocks.floorEntry(time);
+            return block != null && !time.isAfter(block.getValue());
+        }
+
+        // Updates are rare compared to lookups, so blocks are rebuilt from the driver's few rides
+        private void rebuild() {
+            NavigableMap<LocalDateTime, LocalDateTime> merged = new TreeMap<>();
+            rides.values().stream()
+                .sorted((a, b) -> a.start().compareTo(b.start()))
+                .forEach(ride -> {
+                    LocalDateTime start = ride.start().minusMinutes(BUFFER_MINUTES);
+                    LocalDateTime end = ride.estimatedEnd().plusMinutes(BUFFER_MINUTES);
+
+                    Map.Entry<LocalDateTime, LocalDateTime> last = merged.lastEntry();
+                    if (last != null && !start.isAfter(last.getValue())) {
+                        if (end.isAfter(last.getValue())) {
+                            merged.put(last.getKey(), end);
+                        }
+                    } else {
+                        merged.put(start, end);
+                    }
+                });
+            blocks = merged;
+        }
+    }
+}
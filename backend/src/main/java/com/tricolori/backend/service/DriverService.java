@@ -1,45 +1,177 @@
 package com.tricolori.backend.service;
 
-import java.time.Duration;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import com.tricolori.backend.dto.driver.DriverRideWindow;
 import com.tricolori.backend.dto.ride.RidePreferences;
 import com.tricolori.backend.entity.Driver;
 import com.tricolori.backend.entity.Location;
-import com.tricolori.backend.entity.Ride;
 import com.tricolori.backend.entity.VehicleSpecification;
+import com.tricolori.backend.enums.DispatchStage;
 import com.tricolori.backend.enums.RideStatus;
-import com.tricolori.backend.exception.NoFreeDriverCloseException;
 import com.tricolori.backend.exception.NoSuitableDriversException;
 import com.tricolori.backend.repository.DriverRepository;
 import com.tricolori.backend.repository.RideRepository;
+import com.tricolori.backend.util.GeoDistance;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class DriverService {
+    // how many of the nearest drivers are checked before the search is widened
+    private static final int NEAREST_CANDIDATES = 20;
+
     private final DriverRepository repository;
     private final RideRepository rideRepository;
+    private final DriverLocationIndex locationIndex;
+    private final DriverRideCalendar rideCalendar;
+    private final DriverReservations reservations;
+    private final DriverEtaRanker etaRanker;
+    private final DriverWorkTimeTracker workTimeTracker;
+    private final DispatchMetrics dispatchMetrics;
 
+    /** Finds and reserves a driver, the reservation ends with the current transaction */
     public Driver findDriverForRide(
         Location pickup, 
         RidePreferences preferences, 
         int trackingPassengersNumber
     ) {
-        List<Driver> activeDrivers = repository.getAllCurrentlyActiveDrivers();
-        List<Driver> eligibleDrivers = activeDrivers.stream()
-            .filter(this::isWorkTimeValid)
-            .filter(d -> matchesPreferences(d, preferences, trackingPassengersNumber))
-            .toList();
+        return findDriverForRide(pickup, preferences, trackingPassengersNumber, new DispatchTrace());
+    }
+
+    /** Same as above, recording every filter stage to the given trace */
+    public Driver findDriverForRide(
+        Location pickup,
+        RidePreferences preferences,
+        int trackingPassengersNumber,
+        DispatchTrace trace
+    ) {
+        Driver driver = reserveDriverForRide(pickup, preferences, trackingPassengersNumber, trace);
+        reservations.releaseAfterCompletion(driver.getId());
+        return driver;
+    }
+
+    /** Finds and reserves a driver, the caller is responsible for releasing the reservation */
+    public Driver reserveDriverForRide(
+        Location pickup,
+        RidePreferences preferences,
+        int trackingPassengersNumber
+    ) {
+        return reserveDriverForRide(pickup, preferences, trackingPassengersNumber, new DispatchTrace());
+    }
+
+    public Driver reserveDriverForRide(
+        Location pickup,
+        RidePreferences preferences,
+        int trackingPassengersNumber,
+        DispatchTrace trace
+    ) {
+        try {
+            return searchDriver(pickup, preferences, trackingPassengersNumber, trace);
+        } catch (NoSuitableDriversException e) {
+            trace.rejected(e.getMessage());
+            throw e;
+        } finally {
+            dispatchMetrics.record(trace);
+        }
+    }
+
+    private Driver searchDriver(
+        Location pickup,
+        RidePreferences preferences,
+        int trackingPassengersNumber,
+        DispatchTrace trace
+    ) {
+        // drivers taken by parallel orders after this point are skipped
+        long stamp = reservations.stamp();
+
+        // Look for a free driver among the nearest ones first and widen the search only when needed
+        int limit = NEAREST_CANDIDATES;
+        while (limit < locationIndex.size()) {
+            List<Driver> freeDrivers = findFreeCandidates(pickup, preferences, trackingPassengersNumber, limit, trace);
+            Driver reserved = reserveFirst(rankFree(freeDrivers, pickup, trace), stamp);
+            if (reserved != null) {
+                trace.assigned(reserved.getId(), DispatchStage.FREE);
+                return reserved;
+            }
+            limit *= 4;
+        }
+
+        // the index only holds drivers with a known position, the rest are only found in the full list
+        List<Driver> activeDrivers = loadAllActiveDrivers(pickup, trace);
+        return matchDriver(activeDrivers, pickup, preferences, trackingPassengersNumber, stamp, trace);
+    }
+
+    /** Free drivers among the `limit` nearest active ones that can take the ride, closest first */
+    public List<Driver> findFreeCandidates(
+        Location pickup,
+        RidePreferences preferences,
+        int trackingPassengersNumber,
+        int limit
+    ) {
+        return findFreeCandidates(pickup, preferences, trackingPassengersNumber, limit, new DispatchTrace());
+    }
+
+    private List<Driver> findFreeCandidates(
+        Location pickup,
+        RidePreferences preferences,
+        int trackingPassengersNumber,
+        int limit,
+        DispatchTrace trace
+    ) {
+        List<Driver> eligibleDrivers = filterNotBusyAt(
+            filterEligible(loadNearestActiveDrivers(pickup, limit, trace), preferences, trackingPassengersNumber, trace),
+            preferences.scheduledFor(),
+            trace
+        );
+
+        long started = System.nanoTime();
+        List<Driver> freeDrivers = getTrulyFreeDrivers(eligibleDrivers, loadAvailability(eligibleDrivers));
+        trace.step(DispatchStage.FREE, eligibleDrivers.size(), freeDrivers.size(), started);
+        return freeDrivers;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadActiveDriverLocations() {
+        locationIndex.clear();
+        repository.getAllCurrentlyActiveDriverPositions().forEach(position ->
+            locationIndex.upsert(
+                position.driverId(), position.vehicleId(), position.latitude(), position.longitude()
+            )
+        );
+        log.info("Driver location index loaded with {} active drivers.", locationIndex.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadDriverRideCalendar() {
+        List<DriverRideWindow> windows = rideRepository.findAllRideWindows(
+            List.of(RideStatus.ONGOING, RideStatus.SCHEDULED)
+        );
+        rideCalendar.load(windows);
+        log.info("Driver ride calendar loaded with {} committed rides.", windows.size());
+    }
+
+    private Driver matchDriver(
+        List<Driver> activeDrivers,
+        Location pickup,
+        RidePreferences preferences,
+        int trackingPassengersNumber,
+        long stamp,
+        DispatchTrace trace
+    ) {
+        List<Driver> eligibleDrivers = filterEligible(activeDrivers, preferences, trackingPassengersNumber, trace);
 
         if (eligibleDrivers.isEmpty()) {
             throw new NoSuitableDriversException("Nema aktivnih vozaca koji ispunjavaju kriterijume vozila.");
@@ -47,81 +179,119 @@ public class DriverService {
 
         LocalDateTime scheduleFor = preferences.scheduledFor();
         if (scheduleFor != null) {
-            eligibleDrivers = eligibleDrivers.stream()
-                .filter(driver -> !isDriverBusyAt(driver, scheduleFor))
-                .toList();
+            eligibleDrivers = filterNotBusyAt(eligibleDrivers, scheduleFor, trace);
             
             if (eligibleDrivers.isEmpty())
                 throw new NoSuitableDriversException("Svi odgovarajuci vozaci su zauzeti u zakazanom periodu.");
         }
 
-        List<Driver> freeDrivers = getTrulyFreeDrivers(eligibleDrivers);
-        if (!freeDrivers.isEmpty()) {
-            Driver closest = findClosestToLocation(freeDrivers, pickup);
-            if (closest == null)
-                throw new NoFreeDriverCloseException("Greska pri odabiru najblizeg slobodnog vozaca."); 
+        long started = System.nanoTime();
+        DriverAvailabilitySnapshot availability = loadAvailability(eligibleDrivers);
+
+        // a free driver lost to a parallel order gives way to the next closest one
+        List<Driver> freeDrivers = getTrulyFreeDrivers(eligibleDrivers, availability);
+        trace.step(DispatchStage.FREE, eligibleDrivers.size(), freeDrivers.size(), started);
+
+        Driver closest = reserveFirst(rankFree(freeDrivers, pickup, trace), stamp);
+        if (closest != null) {
+            trace.assigned(closest.getId(), DispatchStage.FREE);
             return closest;
         }
 
-        Driver bestBusyDriver = findBestBusyDriver(eligibleDrivers, pickup);
+        List<Driver> candidates = eligibleDrivers;
+        List<Driver> finishingSoon = trace.step(DispatchStage.BUSY, candidates.size(),
+            () -> sortBusyByDistance(candidates, pickup, availability));
+        Driver bestBusyDriver = reserveFirst(finishingSoon, stamp);
         if (bestBusyDriver != null) {
+            trace.assigned(bestBusyDriver.getId(), DispatchStage.BUSY);
             return bestBusyDriver;
         }
 
         throw new NoSuitableDriversException("Trenutno nema slobodnih vozača.");
     }
 
-    private boolean isDriverBusyAt(Driver driver, LocalDateTime requestedTime) {
-        List<Ride> driverRides = rideRepository.findAllByDriverAndStatusIn(
-            driver, 
-            List.of(RideStatus.ONGOING, RideStatus.SCHEDULED)
-        );
+    private List<Driver> rankFree(List<Driver> freeDrivers, Location pickup, DispatchTrace trace) {
+        List<Driver> byDistance = sortByDistance(freeDrivers, pickup);
+        if (byDistance.size() < 2) {
+            return byDistance;
+        }
+        return trace.step(DispatchStage.ETA, byDistance.size(), () -> etaRanker.rank(byDistance, pickup));
+    }
 
-        return driverRides.stream().anyMatch(ride -> {
-            LocalDateTime start;
-            if (ride.isOngoing()) {
-                start = ride.getStartTime();     
-            } else if (ride.isScheduledForLater()) {
-                start = ride.getScheduledFor();
-            } else {
-                // We are waiting for driver to start this ride...
-                start = ride.getCreatedAt();
-            }
+    private Driver reserveFirst(List<Driver> candidates, long stamp) {
+        return candidates.stream()
+            .filter(d -> reservations.tryReserve(d.getId(), stamp))
+            .findFirst()
+            .orElse(null);
+    }
 
-            LocalDateTime end = start.plusSeconds(ride.getRoute().getEstimatedTimeSeconds());
+    private List<Driver> filterEligible(
+        List<Driver> drivers,
+        RidePreferences preferences,
+        int trackingPassengersNumber,
+        DispatchTrace trace
+    ) {
+        List<Driver> withWorkTimeLeft = trace.step(DispatchStage.WORK_TIME, drivers.size(), () ->
+            drivers.stream().filter(this::isWorkTimeValid).toList());
+        return trace.step(DispatchStage.PREFERENCES, withWorkTimeLeft.size(), () ->
+            withWorkTimeLeft.stream().filter(d -> matchesPreferences(d, preferences, trackingPassengersNumber)).toList());
+    }
+
+    private List<Driver> filterNotBusyAt(List<Driver> drivers, LocalDateTime scheduleFor, DispatchTrace trace) {
+        if (scheduleFor == null) {
+            return drivers;
+        }
+        return trace.step(DispatchStage.SCHEDULE, drivers.size(), () -> drivers.stream()
+            .filter(d -> !rideCalendar.isBusyAt(d.getId(), scheduleFor))
+            .toList());
+    }
 
-            return !requestedTime.isBefore(start.minusMinutes(5)) && !requestedTime.isAfter(end.plusMinutes(5));
-        });
+    // Loads at most `limit` active drivers closest to the pickup, closest first
+    private List<Driver> loadNearestActiveDrivers(Location pickup, int limit, DispatchTrace trace) {
+        return trace.step(DispatchStage.ACTIVE, locationIndex.size(), () -> loadNearestActiveDrivers(pickup, limit));
     }
 
-    private List<Driver> getTrulyFreeDrivers(List<Driver> candidates) {
-        LocalDateTime startOfDay = LocalDate.now().atStartOfDay(); // 2026-02-17T00:00:00
-        LocalDateTime endOfDay = LocalDate.now().atTime(LocalTime.MAX); // 2026-02-17T23:59:59.999...
+    // All active drivers closest first, the ones without a vehicle position last
+    private List<Driver> loadAllActiveDrivers(Location pickup, DispatchTrace trace) {
+        return trace.step(DispatchStage.ACTIVE, locationIndex.size(), () -> GeoDistance.sortByDistance(
+            repository.getAllCurrentlyActiveDriversWithVehicle(),
+            d -> d.getVehicle().getLocation(),
+            pickup
+        ));
+    }
 
-        Set<Long> busyDriverIds = rideRepository.findAllByStatusInAndCreatedAtBetween(
-                List.of(RideStatus.ONGOING, RideStatus.SCHEDULED),
-                startOfDay,
-                endOfDay
-            )
-            .stream()
-            .filter(r -> r.getDriver() != null)
-            .map(r -> r.getDriver().getId())
-            .collect(Collectors.toSet());
+    private List<Driver> loadNearestActiveDrivers(Location pickup, int limit) {
+        List<Long> nearestIds = locationIndex.findNearest(pickup, limit);
+        if (nearestIds.isEmpty()) {
+            return List.of();
+        }
 
-        return candidates.stream()
-            .filter(d -> !busyDriverIds.contains(d.getId()))
+        Map<Long, Driver> driversById = repository.findAllWithVehicleByIdIn(nearestIds).stream()
+            .collect(Collectors.toMap(Driver::getId, Function.identity()));
+
+        return nearestIds.stream()
+            .map(driversById::get)
+            .filter(Objects::nonNull)
             .toList();
     }
 
-    private boolean isEndingInTenMinutes(Ride ride) {
-        if (ride.getStartTime() == null || ride.getRoute() == null) return false;
-        
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime estimatedEnd = ride.getStartTime().plusSeconds(ride.getRoute().getEstimatedTimeSeconds());
-        
-        long minutesRemaining = Duration.between(now, estimatedEnd).toMinutes();
-        
-        return minutesRemaining >= 0 && minutesRemaining <= 10;
+    // One query for the ongoing and scheduled rides of all candidates
+    private DriverAvailabilitySnapshot loadAvailability(List<Driver> candidates) {
+        if (candidates.isEmpty()) {
+            return new DriverAvailabilitySnapshot(List.of(), LocalDateTime.now());
+        }
+
+        List<Long> driverIds = candidates.stream().map(Driver::getId).toList();
+        return new DriverAvailabilitySnapshot(
+            rideRepository.findRideWindowsByDriverIds(driverIds, List.of(RideStatus.ONGOING, RideStatus.SCHEDULED)),
+            LocalDateTime.now()
+        );
+    }
+
+    private List<Driver> getTrulyFreeDrivers(List<Driver> candidates, DriverAvailabilitySnapshot availability) {
+        return candidates.stream()
+            .filter(d -> availability.isFree(d.getId()))
+            .toList();
     }
 
     private boolean matchesPreferences(Driver driver, RidePreferences prefs, int trackingPassengersNumber) {
@@ -132,58 +302,28 @@ public class DriverService {
             spec.getNumSeats() >= trackingPassengersNumber;
     }
 
-    private Driver findClosestToLocation(List<Driver> drivers, Location pickupLoc) {
-        return drivers.stream()
-            .min(Comparator.comparingDouble(d -> 
-                Location.calculateDistance(d.getVehicle().getLocation(), pickupLoc)))
-            .orElse(null);
+    private List<Driver> sortByDistance(List<Driver> drivers, Location pickupLoc) {
+        return GeoDistance.sortByDistance(drivers, d -> d.getVehicle().getLocation(), pickupLoc);
     }
 
-    private Driver findBestBusyDriver(List<Driver> candidates, Location pickup) {
-        LocalDateTime startOfDay = LocalDate.now().atStartOfDay(); // 2026-02-17T00:00:00
-        LocalDateTime endOfDay = LocalDate.now().atTime(LocalTime.MAX); // 2026-02-17T23:59:59.999...
-
-        return candidates.stream()
-            .filter(d -> {
-                List<Ride> driverRides = rideRepository.findAllByDriverAndStatusInAndCreatedAtBetween(
-                    d, List.of(RideStatus.ONGOING, RideStatus.SCHEDULED), startOfDay, endOfDay
-                );
-                
-                boolean hasScheduled = driverRides.stream().anyMatch(r -> r.getStatus() == RideStatus.SCHEDULED);
-                if (hasScheduled) return false;
-
-                return driverRides.stream()
-                        .filter(r -> r.getStatus() == RideStatus.ONGOING)
-                        .anyMatch(this::isEndingInTenMinutes);
-            })
-            .min(Comparator.comparingDouble(d -> {
-                Ride currentRide = getCurrentOngoingRide(d);
-                if (currentRide == null || currentRide.getRoute() == null) {
-                    return Double.MAX_VALUE;
-                }
-
-                return Location.calculateDistance(currentRide.getRoute().getDestinationStop().getLocation(), pickup);
-            }))
-            .orElse(null);
+    // Drivers finishing their ride soon, ordered by how close the ride ends to the pickup
+    private List<Driver> sortBusyByDistance(List<Driver> candidates, Location pickup, DriverAvailabilitySnapshot availability) {
+        List<Driver> finishingSoon = candidates.stream()
+            .filter(d -> availability.isFinishingSoon(d.getId()))
+            .toList();
+        return GeoDistance.sortByDistance(
+            finishingSoon,
+            d -> availability.currentOngoingRide(d.getId()).map(DriverRideWindow::destination).orElse(null),
+            pickup
+        );
     }
 
     private boolean isWorkTimeValid(Driver driver) {
-        Long workTimeSeconds = 8L * 60L * 60L;
-        return driver.getDailyLogs().stream()
-            .filter(log -> log.getDate().equals(LocalDate.now()))
-            .findFirst()
-            .map(log -> log.getActiveTimeSeconds() < workTimeSeconds)
-            .orElse(false);
-    }
-
-    private Ride getCurrentOngoingRide(Driver d) {
-        return rideRepository.findAllByDriverAndStatusIn(d, List.of(RideStatus.ONGOING))
-            .stream()
-            .findFirst()
-            .orElse(null);
+        return workTimeTracker.hasWorkTimeLeft(driver.getId());
     }
 
+    /** Driver with its vehicle and vehicle specification, usable outside a transaction */
     public Driver findById(Long id) {
-        return repository.findById(id).orElseThrow();
+        return repository.findWithVehicleById(id).orElseThrow();
     }
 }
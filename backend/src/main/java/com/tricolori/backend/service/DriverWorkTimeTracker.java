@@ -0,0 +1,69 @@
+package com.tricolori.backend.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import com.tricolori.backend.entity.DriverDailyLog;
+
+/**
+ * In-memory copy of every driver's work time for today, so the 8 hour limit is checked
+ * without loading the driver's daily logs. It mirrors the daily log whenever the log is
+ * switched on, off or refreshed and also counts the time since the last activation.
+ */
+@Component
+public class DriverWorkTimeTracker {
+
+    public static final long DAILY_LIMIT_SECONDS = 8L * 60L * 60L;
+
+    private record WorkDay(LocalDate date, long activeSeconds, LocalDateTime activeSince) {}
+
+    private final Map<Long, WorkDay> days = new ConcurrentHashMap<>();
+
+    /** Replace all accumulators with the given daily logs */
+    public void load(Collection<DriverDailyLog> logs) {
+        days.clear();
+        logs.forEach(this::track);
+    }
+
+    /** Copy the current state of a daily log, logs older than the tracked one are ignored */
+    public void track(DriverDailyLog log) {
+        WorkDay day = new WorkDay(
+            log.getDate(),
+            log.getActiveTimeSeconds() != null ? log.getActiveTimeSeconds() : 0L,
+            log.isActive() ? log.getLastActivationAt() : null
+        );
+        days.merge(log.getDriver().getId(), day,
+            (current, updated) -> updated.date().isBefore(current.date()) ? current : updated);
+    }
+
+    /** Drop accumulators of previous days */
+    public void evictBefore(LocalDate date) {
+        days.values().removeIf(day -> day.date().isBefore(date));
+    }
+
+    public boolean hasWorkTimeLeft(Long driverId) {
+        return hasWorkTimeLeft(driverId, LocalDateTime.now());
+    }
+
+    /** False when the driver has no daily log for today or already worked 8 hours */
+    public boolean hasWorkTimeLeft(Long driverId, LocalDateTime now) {
+        WorkDay day = days.get(driverId);
+        if (day == null || !day.date().equals(now.toLocalDate())) {
+            return false;
+        }
+        return activeSeconds(day, now) < DAILY_LIMIT_SECONDS;
+    }
+
+    private static long activeSeconds(WorkDay day, LocalDateTime now) {
+        if (day.activeSince() == null || day.activeSince().isAfter(now)) {
+            return day.activeSeconds();
+        }
+        return day.activeSeconds() + Duration.between(day.activeSince(), now).getSeconds();
+    }
+}
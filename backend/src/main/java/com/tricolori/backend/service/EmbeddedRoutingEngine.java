@@ -0,0 +1,111 @@
+package com.tricolori.backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.exception.NoRouteGeometryException;
+import com.tricolori.backend.infrastructure.presentation.dtos.Route.OSRMResult;
+import com.tricolori.backend.util.Polyline;
+import com.tricolori.backend.util.RoadGraph;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-process replacement for OSRM, enabled with routing.engine=embedded. Routes on a road
+ * graph loaded from a local extract at startup, so routing needs no network access.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "routing.engine", havingValue = "embedded")
+public class EmbeddedRoutingEngine {
+
+    private final RoadGraph graph;
+
+    @Autowired
+    public EmbeddedRoutingEngine(
+        ResourceLoader resourceLoader,
+        @Value("${routing.embedded.graph}") String graphLocation,
+        @Value("${routing.embedded.landmarks:16}") int landmarks
+    ) throws IOException {
+        this(load(resourceLoader.getResource(graphLocation), landmarks));
+        log.info("Loaded road graph {}: {} nodes, {} edges", graphLocation, graph.nodeCount(), graph.edgeCount());
+    }
+
+    public EmbeddedRoutingEngine(RoadGraph graph) {
+        this.graph = graph;
+    }
+
+    private static RoadGraph load(Resource resource, int landmarks) throws IOException {
+        InputStream in = resource.getInputStream();
+        if (resource.getFilename() != null && resource.getFilename().endsWith(".gz")) {
+            in = new GZIPInputStream(in);
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return RoadGraph.read(reader, landmarks);
+        }
+    }
+
+    /** Route through the locations in order, shaped like an OSRM route */
+    public OSRMResult route(List<Location> locations) {
+        double meters = 0;
+        double seconds = 0;
+        List<Location> geometry = new ArrayList<>();
+
+        int previous = snap(locations.get(0));
+        for (int i = 1; i < locations.size(); i++) {
+            int next = snap(locations.get(i));
+            RoadGraph.Path leg = graph.route(previous, next);
+            if (leg == null) {
+                throw new NoRouteGeometryException("No route between the given locations.");
+            }
+
+            meters += leg.meters();
+            seconds += leg.seconds();
+            // legs share their joining node
+            for (int n = geometry.isEmpty() ? 0 : 1; n < leg.nodes().length; n++) {
+                int node = leg.nodes()[n];
+                geometry.add(new Location(graph.longitude(node), graph.latitude(node)));
+            }
+            previous = next;
+        }
+
+        return new OSRMResult(meters / 1000.0, Math.round(seconds), Polyline.encode(geometry));
+    }
+
+    /** Driving seconds from every source to the destination, null for sources with no route */
+    public List<Double> durationsTo(List<Location> sources, Location destination) {
+        int[] nodes = new int[sources.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = graph.nearestNode(sources.get(i).getLatitude(), sources.get(i).getLongitude());
+        }
+
+        double[] seconds = graph.secondsTo(nodes, snap(destination));
+        List<Double> durations = new ArrayList<>(seconds.length);
+        for (double s : seconds) {
+            durations.add(Double.isFinite(s) ? s : null);
+        }
+        return durations;
+    }
+
+    private int snap(Location location) {
+        int node = graph.nearestNode(location.getLatitude(), location.getLongitude());
+        if (node == -1) {
+            throw new NoRouteGeometryException("Location is too far from any road.");
+        }
+        return node;
+    }
+}
@@ -0,0 +1,145 @@
+package com.tricolori.backend.service;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tricolori.backend.dto.cache.CacheStatsResponse;
+import com.tricolori.backend.dto.cache.GeocodingCacheStatsResponse;
+import com.tricolori.backend.dto.ride.NominatimResponse;
+import com.tricolori.backend.entity.GeocodedAddress;
+import com.tricolori.backend.enums.GeocodingDirection;
+import com.tricolori.backend.repository.GeocodedAddressRepository;
+import com.tricolori.backend.util.CoordinateKey;
+import com.tricolori.backend.util.LruCache;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Two-sided geocoding cache: coordinates by normalized address and addresses by ~10 m grid cell.
+ * Memory is bounded by an LRU per side. With geocoding.cache.persistent every result is also
+ * written to the geocoding_cache table, which is read on a memory miss so lookups survive restarts.
+ */
+@Component
+@Slf4j
+public class GeocodingCache {
+    private final GeocodedAddressRepository repository;
+    private final TransactionTemplate storeTransaction;
+    private final boolean persistent;
+
+    private final LruCache<String, NominatimResponse> coordinates;
+    private final LruCache<String, String> addresses;
+
+    private final LongAdder forwardHits = new LongAdder();
+    private final LongAdder forwardMisses = new LongAdder();
+    private final LongAdder reverseHits = new LongAdder();
+    private final LongAdder reverseMisses = new LongAdder();
+
+    public GeocodingCache(
+        GeocodedAddressRepository repository,
+        PlatformTransactionManager transactionManager,
+        @Value("${geocoding.cache.max-size:10000}") int maxSize,
+        @Value("${geocoding.cache.persistent:false}") boolean persistent
+    ) {
+        this.repository = repository;
+        this.persistent = persistent;
+        this.coordinates = new LruCache<>(maxSize);
+        this.addresses = new LruCache<>(maxSize);
+
+        // writes must not join a read-only caller transaction nor roll back with it
+        this.storeTransaction = new TransactionTemplate(transactionManager);
+        this.storeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public NominatimResponse getCoordinates(String normalizedAddress) {
+        NominatimResponse cached = coordinates.get(normalizedAddress);
+        if (cached == null && persistent) {
+            cached = load(GeocodingDirection.FORWARD, normalizedAddress).map(GeocodingCache::toResponse).orElse(null);
+            if (cached != null) {
+                coordinates.put(normalizedAddress, cached);
+            }
+        }
+
+        (cached != null ? forwardHits : forwardMisses).increment();
+        return cached;
+    }
+
+    public void putCoordinates(String normalizedAddress, NominatimResponse response) {
+        coordinates.put(normalizedAddress, response);
+        if (persistent) {
+            store(GeocodedAddress.builder()
+                .direction(GeocodingDirection.FORWARD)
+                .cacheKey(normalizedAddress)
+                .latitude(Double.parseDouble(response.getLat()))
+                .longitude(Double.parseDouble(response.getLon()))
+                .displayName(response.getDisplay_name())
+                .build());
+        }
+    }
+
+    public String getAddress(double lat, double lng) {
+        String key = CoordinateKey.of(lat, lng);
+        String cached = addresses.get(key);
+        if (cached == null && persistent) {
+            cached = load(GeocodingDirection.REVERSE, key).map(GeocodedAddress::getDisplayName).orElse(null);
+            if (cached != null) {
+                addresses.put(key, cached);
+            }
+        }
+
+        (cached != null ? reverseHits : reverseMisses).increment();
+        return cached;
+    }
+
+    public void putAddress(double lat, double lng, String address) {
+        String key = CoordinateKey.of(lat, lng);
+        addresses.put(key, address);
+        if (persistent) {
+            store(GeocodedAddress.builder()
+                .direction(GeocodingDirection.REVERSE)
+                .cacheKey(key)
+                .latitude(lat)
+                .longitude(lng)
+                .displayName(address)
+                .build());
+        }
+    }
+
+    public GeocodingCacheStatsResponse stats() {
+        return new GeocodingCacheStatsResponse(
+            CacheStatsResponse.of(forwardHits.sum(), forwardMisses.sum(), coordinates.size()),
+            CacheStatsResponse.of(reverseHits.sum(), reverseMisses.sum(), addresses.size())
+        );
+    }
+
+    private Optional<GeocodedAddress> load(GeocodingDirection direction, String key) {
+        try {
+            return repository.findByDirectionAndCacheKey(direction, key);
+        } catch (RuntimeException e) {
+            log.warn("Geocoding cache table unavailable: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // a row written by a parallel lookup of the same address only costs a rejected insert
+    private void store(GeocodedAddress row) {
+        try {
+            storeTransaction.executeWithoutResult(status -> repository.save(row));
+        } catch (RuntimeException e) {
+            log.debug("Geocoding result for {} not stored: {}", row.getCacheKey(), e.getMessage());
+        }
+    }
+
+    private static NominatimResponse toResponse(GeocodedAddress row) {
+        NominatimResponse response = new NominatimResponse();
+        response.setLat(String.valueOf(row.getLatitude()));
+        response.setLon(String.valueOf(row.getLongitude()));
+        response.setDisplay_name(row.getDisplayName());
+        return response;
+    }
+}
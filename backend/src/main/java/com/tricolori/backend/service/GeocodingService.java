@@ -2,8 +2,11 @@ package com.tricolori.backend.service;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
 import java.util.Arrays;
+import java.util.Locale;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -12,8 +15,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import com.tricolori.backend.dto.cache.GeocodingCacheStatsResponse;
+import com.tricolori.backend.dto.geocoding.NominatimStatsResponse;
 import com.tricolori.backend.dto.ride.NominatimResponse;
 import com.tricolori.backend.exception.BadAddressException;
+import com.tricolori.backend.exception.GeocodingUnavailableException;
+import com.tricolori.backend.util.CoordinateKey;
+import com.tricolori.backend.util.SingleFlight;
 
 import lombok.RequiredArgsConstructor;
 
@@ -21,25 +29,46 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class GeocodingService {
     private final RestTemplate restTemplate;
+    private final GeocodingCache geocodingCache;
+    private final NominatimThrottle nominatimThrottle;
 
-    private final String NOMINATIM_URL = "https://nominatim.openstreetmap.org/search?format=json&q=";
+    @Value("${geocoding.nominatim-url:https://nominatim.openstreetmap.org/}")
+    private String nominatimUrl;
+
+    // identical lookups made at the same moment share one Nominatim request
+    private final SingleFlight<String, NominatimResponse> forwardLookups = new SingleFlight<>();
+    private final SingleFlight<String, String> reverseLookups = new SingleFlight<>();
 
     public NominatimResponse getAddressCoordinates(String address) {
+        String key = normalizeAddress(address);
+        NominatimResponse cached = geocodingCache.getCoordinates(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        return forwardLookups.execute(key, () -> {
+            NominatimResponse response = fetchAddressCoordinates(address);
+            geocodingCache.putCoordinates(key, response);
+            return response;
+        });
+    }
+
+    private NominatimResponse fetchAddressCoordinates(String address) {
         String query = cyrilicToLatin(address);
         // String encodedQuery = URLEncoder.encode(query, StandardCharsets.UTF_8);
-        String finalUrl = NOMINATIM_URL + query;
+        String finalUrl = nominatimUrl + "search?format=json&q=" + query;
 
         HttpHeaders headers = new HttpHeaders();
         headers.set("User-Agent", "Cuber/1.0 (mdujanovic03@gmail.com)");
         HttpEntity<String> entity = new HttpEntity<>(headers);
 
         try {
-            ResponseEntity<NominatimResponse[]> response = restTemplate.exchange(
+            ResponseEntity<NominatimResponse[]> response = nominatimThrottle.call(() -> restTemplate.exchange(
                 finalUrl,
                 HttpMethod.GET,
                 entity,
                 NominatimResponse[].class
-            );
+            ));
 
             if (response == null || response.getBody() == null || response.getBody().length == 0) {
                 throw new BadAddressException("Couldn't find lat and lng for address: " + address);
@@ -47,6 +76,10 @@ public class GeocodingService {
 
             NominatimResponse bestChoice = response.getBody()[0];
             return bestChoice;
+        } catch (GeocodingUnavailableException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             System.err.println("Greška prilikom geokodiranja: " + e.getMessage());
         }
@@ -54,27 +87,72 @@ public class GeocodingService {
     }
 
     public String getAddressFromCoordinates(double lat, double lng) {
-        String url = String.format("https://nominatim.openstreetmap.org/reverse?format=json&lat=%f&lon=%f", lat, lng);
+        String cached = geocodingCache.getAddress(lat, lng);
+        if (cached != null) {
+            return cached;
+        }
+
+        String address = reverseLookups.execute(CoordinateKey.of(lat, lng), () -> {
+            String found = fetchAddressFromCoordinates(lat, lng);
+            if (found != null) {
+                geocodingCache.putAddress(lat, lng, found);
+            }
+            return found;
+        });
+        if (address == null) {
+            return "Non-existent location (" + lat + ", " + lng + ")";
+        }
+        return address;
+    }
+
+    // null when Nominatim has no address for the point or can't be reached
+    private String fetchAddressFromCoordinates(double lat, double lng) {
+        String url = String.format(Locale.ROOT, "%sreverse?format=json&lat=%f&lon=%f", nominatimUrl, lat, lng);
 
         HttpHeaders headers = new HttpHeaders();
         headers.set("User-Agent", "Cuber/1.0 (mdujanovic03@gmail.com)");
         HttpEntity<String> entity = new HttpEntity<>(headers);
 
         try {
-            ResponseEntity<com.fasterxml.jackson.databind.JsonNode> response = restTemplate.exchange(
+            ResponseEntity<com.fasterxml.jackson.databind.JsonNode> response = nominatimThrottle.call(() -> restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     entity,
                     com.fasterxml.jackson.databind.JsonNode.class
-            );
+            ));
 
             if (response.getBody() != null && response.getBody().has("display_name")) {
                 return response.getBody().get("display_name").asText();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             System.err.println("Error while reverse geocoding: " + e.getMessage());
         }
-        return "Non-existent location (" + lat + ", " + lng + ")";
+        return null;
+    }
+
+    // Cyrillic and Latin spellings, diacritics, letter case and extra spaces all give the same key
+    public String normalizeAddress(String address) {
+        String latin = cyrilicToLatin(address).replace("\u0111", "dj").replace("\u0110", "Dj");
+        String withoutMarks = Normalizer.normalize(latin, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return withoutMarks.toLowerCase(Locale.ROOT)
+            .replaceAll("\\s+", " ")
+            .replaceAll(" ?, ?", ", ")
+            .trim();
+    }
+
+    public GeocodingCacheStatsResponse getCacheStats() {
+        return geocodingCache.stats();
+    }
+
+    public NominatimStatsResponse getNominatimStats() {
+        return new NominatimStatsResponse(
+            nominatimThrottle.getQueued(),
+            nominatimThrottle.getRequests(),
+            nominatimThrottle.getRejected(),
+            forwardLookups.getCoalesced() + reverseLookups.getCoalesced()
+        );
     }
 
     public String cyrilicToLatin(String text) {
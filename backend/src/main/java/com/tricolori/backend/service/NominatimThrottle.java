@@ -0,0 +1,94 @@
+package com.tricolori.backend.service;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.tricolori.backend.exception.GeocodingUnavailableException;
+
+/**
+ * Keeps our Nominatim traffic within its usage policy (about one request per second).
+ * A token bucket spaces the requests out, callers wait for their turn in a bounded queue and
+ * are rejected once it is full. A semaphore also caps how many requests are in flight at once.
+ */
+@Component
+public class NominatimThrottle {
+
+    private final Semaphore permits;
+    private final long intervalNanos;
+    private final int burst;
+    private final int maxQueued;
+
+    // when the next token is available, earlier times mean tokens were saved up
+    private long nextFreeAt = System.nanoTime();
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public NominatimThrottle(
+        @Value("${geocoding.max-concurrent:4}") int maxConcurrent,
+        @Value("${geocoding.rate-per-second:1}") double ratePerSecond,
+        @Value("${geocoding.burst:1}") int burst,
+        @Value("${geocoding.max-queued:20}") int maxQueued
+    ) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        this.burst = Math.max(1, burst);
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * Runs the request once a token and a permit are free.
+     * Throws GeocodingUnavailableException right away when the wait queue is full.
+     */
+    public <T> T call(Supplier<T> request) throws InterruptedException {
+        long waitNanos = reserve();
+        try {
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        } finally {
+            queued.decrementAndGet();
+        }
+
+        permits.acquire();
+        try {
+            requests.increment();
+            return request.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    // takes the next token and returns how long to wait for it
+    private synchronized long reserve() {
+        if (queued.get() >= maxQueued) {
+            rejected.increment();
+            throw new GeocodingUnavailableException("Geocoding service is busy, please try again.");
+        }
+
+        long now = System.nanoTime();
+        long tokenAt = Math.max(nextFreeAt, now - (burst - 1) * intervalNanos);
+        nextFreeAt = tokenAt + intervalNanos;
+        queued.incrementAndGet();
+        return tokenAt - now;
+    }
+}
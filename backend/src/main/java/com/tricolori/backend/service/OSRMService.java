@@ -7,23 +7,44 @@ import com.tricolori.backend.entity.Location;
 import com.tricolori.backend.entity.Stop;
 import com.tricolori.backend.exception.NoRouteGeometryException;
 import com.tricolori.backend.dto.osrm.OSRMRouteResponse;
+import com.tricolori.backend.dto.osrm.OSRMTableResponse;
+import com.tricolori.backend.util.CircuitBreaker;
+import com.tricolori.backend.util.GeoDistance;
+import com.tricolori.backend.util.Polyline;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class OSRMService {
 
+    // code of routes estimated in a straight line while OSRM is unavailable
+    public static final String ESTIMATE_CODE = "Estimate";
+
+    // typical detour of city streets over the straight line, and average urban speed
+    private static final double ROAD_FACTOR = 1.3;
+    private static final double AVERAGE_SPEED_MPS = 30 / 3.6;
+
     private final RestTemplate restTemplate;
-    // TODO: download and host our own OSRM instance for production use - download just map of Serbia
-    private static final String OSRM_BASE_URL = "http://router.project-osrm.org/";
+    private final CircuitBreaker osrmCircuitBreaker;
+    // present with routing.engine=embedded, routes are then computed in-process instead of by OSRM
+    private final Optional<EmbeddedRoutingEngine> embeddedRouting;
+    @Value("${osrm.base-url:http://router.project-osrm.org/}")
+    private String osrmBaseUrl;
 
     // accepts a list of at least 2 locations and returns geometry
     public OSRMRouteResponse getRoute(List<Location> locations) {
@@ -31,13 +52,20 @@ public class OSRMService {
             throw new IllegalArgumentException("Potrebne su minimum 2 lokacije (start i destination)");
         }
 
+        if (embeddedRouting.isPresent()) {
+            return toResponse(embeddedRouting.get().route(locations), "Ok");
+        }
+        return withFallback(() -> fetchRoute(locations), () -> toResponse(estimateRoute(locations), ESTIMATE_CODE));
+    }
+
+    private OSRMRouteResponse fetchRoute(List<Location> locations) {
         // Format: longitude,latitude;longitude,latitude;...
         String coordinates = locations.stream()
                 .map(loc -> loc.getLongitude() + "," + loc.getLatitude())
                 .collect(Collectors.joining(";"));
 
         String url = UriComponentsBuilder
-                .fromHttpUrl(OSRM_BASE_URL + "route/v1/driving/" + coordinates)
+                .fromHttpUrl(osrmBaseUrl + "route/v1/driving/" + coordinates)
                 .queryParam("overview", "full") // full polyline
                 .queryParam("geometries", "polyline") // encoded polyline format
                 .toUriString();
@@ -54,12 +82,22 @@ public class OSRMService {
     }
 
     public OSRMResult analyzeRouteStops(List<Stop> routeStops) {
+        if (embeddedRouting.isPresent()) {
+            return embeddedRouting.get().route(routeStops.stream().map(Stop::getLocation).toList());
+        }
+        return withFallback(
+            () -> fetchRouteStops(routeStops),
+            () -> estimateRoute(routeStops.stream().map(Stop::getLocation).toList())
+        );
+    }
+
+    private OSRMResult fetchRouteStops(List<Stop> routeStops) {
         // Connecting stops into string format: lon,lat;lon,lat
         String coordinates = routeStops.stream()
             .map(stop -> stop.toCoordinates())
             .collect(Collectors.joining(";"));
 
-        String finalUrl = OSRM_BASE_URL + "route/v1/driving/" + coordinates + "?overview=full&geometries=polyline";
+        String finalUrl = osrmBaseUrl + "route/v1/driving/" + coordinates + "?overview=full&geometries=polyline";
         JsonNode response = restTemplate.getForObject(finalUrl, JsonNode.class);        
         if (response == null || !response.has("routes")) {
             throw new NoRouteGeometryException();
@@ -74,6 +112,93 @@ public class OSRMService {
     }
 
 
+    // driving durations in seconds from every source to the destination, one table call for all of them
+    public List<Double> getDurationsTo(List<Location> sources, Location destination) {
+        if (sources == null || sources.isEmpty()) {
+            return List.of();
+        }
+
+        if (embeddedRouting.isPresent()) {
+            return embeddedRouting.get().durationsTo(sources, destination);
+        }
+        // no estimate here, DriverEtaRanker keeps the straight-line order when this fails
+        return withFallback(() -> fetchDurationsTo(sources, destination), () -> {
+            throw new IllegalStateException("OSRM is unavailable.");
+        });
+    }
+
+    private List<Double> fetchDurationsTo(List<Location> sources, Location destination) {
+        List<Location> locations = new ArrayList<>(sources);
+        locations.add(destination);
+
+        String coordinates = locations.stream()
+                .map(loc -> loc.getLongitude() + "," + loc.getLatitude())
+                .collect(Collectors.joining(";"));
+        String sourceIndexes = IntStream.range(0, sources.size())
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(";"));
+
+        String url = UriComponentsBuilder
+                .fromHttpUrl(osrmBaseUrl + "table/v1/driving/" + coordinates)
+                .queryParam("sources", sourceIndexes)
+                .queryParam("destinations", sources.size())
+                .queryParam("annotations", "duration")
+                .toUriString();
+
+        OSRMTableResponse response = restTemplate.getForObject(url, OSRMTableResponse.class);
+
+        if (response == null || !"Ok".equals(response.getCode()) || response.getDurations() == null
+                || response.getDurations().size() != sources.size()) {
+            throw new RuntimeException("OSRM did not return a valid duration table.");
+        }
+
+        return response.getDurations().stream()
+                .map(row -> row == null || row.isEmpty() ? null : row.get(0))
+                .toList();
+    }
+
+    // Skips OSRM while the circuit is open, only I/O errors and 5xx count as OSRM being unhealthy
+    private <T> T withFallback(Supplier<T> call, Supplier<T> fallback) {
+        if (!osrmCircuitBreaker.allowRequest()) {
+            return fallback.get();
+        }
+
+        try {
+            T result = call.get();
+            osrmCircuitBreaker.recordSuccess();
+            return result;
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            osrmCircuitBreaker.recordFailure();
+            log.warn("OSRM unavailable, falling back: {}", e.getMessage());
+            return fallback.get();
+        } catch (RuntimeException e) {
+            // OSRM answered, the request itself was wrong
+            osrmCircuitBreaker.recordSuccess();
+            throw e;
+        }
+    }
+
+    private OSRMResult estimateRoute(List<Location> locations) {
+        double meters = 0;
+        for (int i = 1; i < locations.size(); i++) {
+            meters += GeoDistance.meters(locations.get(i - 1), locations.get(i));
+        }
+        meters *= ROAD_FACTOR;
+        return new OSRMResult(meters / 1000.0, Math.round(meters / AVERAGE_SPEED_MPS), Polyline.encode(locations), true);
+    }
+
+    private static OSRMRouteResponse toResponse(OSRMResult result, String code) {
+        OSRMRouteResponse.OSRMRoute route = new OSRMRouteResponse.OSRMRoute();
+        route.setDistance(result.getDistanceKilometers() * 1000.0);
+        route.setDuration(result.getDurationSeconds());
+        route.setGeometry(result.getGeometry());
+
+        OSRMRouteResponse response = new OSRMRouteResponse();
+        response.setCode(code);
+        response.setRoutes(List.of(route));
+        return response;
+    }
+
     // generates temporary polyline, used to check if the route exists
     public String generateTemporaryGeometry(List<Location> locations) {
         // Pozovi OSRM samo da dobiješ geometry
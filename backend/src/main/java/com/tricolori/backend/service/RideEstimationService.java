@@ -0,0 +1,114 @@
+package com.tricolori.backend.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.tricolori.backend.dto.ride.RideEstimationRequest;
+import com.tricolori.backend.dto.ride.RideEstimationResponse;
+import com.tricolori.backend.dto.ride.RideRoute;
+import com.tricolori.backend.dto.route.PlannedRoute;
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.entity.PriceList;
+import com.tricolori.backend.entity.Stop;
+import com.tricolori.backend.enums.VehicleType;
+import com.tricolori.backend.infrastructure.presentation.dtos.Route.OSRMResult;
+import com.tricolori.backend.util.LruCache;
+
+/**
+ * Price and duration of a route before it is ordered. The planned route is kept for a few
+ * minutes under the returned quote id, so the order that usually follows skips geocoding and routing.
+ */
+@Service
+public class RideEstimationService {
+
+    private record Quote(String routeKey, PlannedRoute route, long createdAt) {}
+
+    private final RouteService routeService;
+    private final PriceListService priceListService;
+    private final LruCache<String, Quote> quotes;
+    private final long ttlNanos;
+
+    public RideEstimationService(
+        RouteService routeService,
+        PriceListService priceListService,
+        @Value("${ride.quote.max-size:10000}") int maxSize,
+        @Value("${ride.quote.ttl-seconds:300}") long ttlSeconds
+    ) {
+        this.routeService = routeService;
+        this.priceListService = priceListService;
+        this.quotes = new LruCache<>(maxSize);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    public RideEstimationResponse estimate(RideEstimationRequest request) {
+        RideRoute route = request.toRoute();
+        // keyed by the stops as requested, geocoding replaces their addresses
+        String routeKey = routeKey(route.getAllStops());
+        PlannedRoute planned = routeService.planRoute(route.pickup(), route.destination(), route.stops());
+        OSRMResult result = planned.result();
+
+        // straight-line estimates are not worth reusing for the order
+        String quoteId = null;
+        if (!result.isEstimated()) {
+            quoteId = UUID.randomUUID().toString();
+            quotes.put(quoteId, new Quote(routeKey, planned, System.nanoTime()));
+        }
+
+        PriceList priceList = priceListService.getCurrentPriceList();
+        Map<VehicleType, Double> prices = new EnumMap<>(VehicleType.class);
+        for (VehicleType type : VehicleType.values()) {
+            prices.put(type, priceList.getPriceForVehicleType(type) + result.getDistanceKilometers() * priceList.getKmPrice());
+        }
+
+        List<Stop> stops = planned.stops();
+        return new RideEstimationResponse(
+            quoteId,
+            quoteId != null ? LocalDateTime.now().plusNanos(ttlNanos) : null,
+            stops.getFirst(),
+            stops.getLast(),
+            result.getDurationSeconds(),
+            result.getDistanceKilometers(),
+            prices,
+            result.getGeometry()
+        );
+    }
+
+    /** Planned route of a live quote for the same stops, empty when the order has to be routed again */
+    public Optional<PlannedRoute> plannedRoute(String quoteId, RideRoute route) {
+        if (quoteId == null) {
+            return Optional.empty();
+        }
+
+        Quote quote = quotes.get(quoteId);
+        if (quote == null
+                || System.nanoTime() - quote.createdAt() > ttlNanos
+                || !quote.routeKey().equals(routeKey(route.getAllStops()))) {
+            return Optional.empty();
+        }
+
+        // every order gets its own stops, they become part of a saved route
+        List<Stop> stops = quote.route().stops().stream()
+            .map(stop -> new Stop(stop.getAddress(),
+                new Location(stop.getLocation().getLongitude(), stop.getLocation().getLatitude())))
+            .collect(Collectors.toCollection(ArrayList::new));
+        return Optional.of(new PlannedRoute(stops, quote.route().result()));
+    }
+
+    private static String routeKey(List<Stop> stops) {
+        return stops.stream()
+            .map(stop -> stop.getAddress() + "@" + (stop.getLocation() != null
+                ? stop.getLocation().getLatitude() + "," + stop.getLocation().getLongitude()
+                : ""))
+            .collect(Collectors.joining(";"));
+    }
+}
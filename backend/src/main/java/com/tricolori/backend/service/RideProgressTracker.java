@@ -0,0 +1,98 @@
+package com.tricolori.backend.service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import com.tricolori.backend.entity.Route;
+import com.tricolori.backend.util.AfterCommit;
+import com.tricolori.backend.util.RouteProgress;
+
+/**
+ * Remaining distance and time of ongoing rides, kept up to date with every position of the
+ * ride's vehicle. The remaining time is the planned duration of the route scaled by the share
+ * of the route still ahead, so it keeps the route's planned average speed.
+ */
+@Component
+public class RideProgressTracker {
+
+    /** Remaining distance and time as of the last position, null seconds when the route has no duration */
+    public record Progress(double remainingMeters, Long remainingSeconds, Instant updatedAt) {
+
+        public Instant estimatedArrival() {
+            return remainingSeconds != null ? updatedAt.plusSeconds(remainingSeconds) : null;
+        }
+    }
+
+    private static final class TrackedRide {
+        private final RouteProgress route;
+        private final Double secondsPerMeter;
+        private volatile Progress progress;
+
+        private TrackedRide(RouteProgress route, Double secondsPerMeter) {
+            this.route = route;
+            this.secondsPerMeter = secondsPerMeter;
+        }
+
+        private void advance(double latitude, double longitude, Instant at) {
+            double remaining = route.advance(latitude, longitude);
+            Long seconds = secondsPerMeter != null ? Math.round(remaining * secondsPerMeter) : null;
+            progress = new Progress(remaining, seconds, at);
+        }
+    }
+
+    private final Map<Long, TrackedRide> rides = new ConcurrentHashMap<>();
+
+    /** Tracks the ride along its route, a ride already tracked is kept. False when the route has no usable geometry */
+    public boolean start(Long rideId, Route route) {
+        if (route == null) {
+            return false;
+        }
+        return rides.computeIfAbsent(rideId, id -> {
+            RouteProgress progress = RouteProgress.fromPolyline(route.getRouteGeometry());
+            if (progress == null) {
+                return null;
+            }
+            Long plannedSeconds = route.getEstimatedTimeSeconds();
+            Double secondsPerMeter = plannedSeconds != null && progress.totalMeters() > 0
+                ? plannedSeconds / progress.totalMeters()
+                : null;
+            return new TrackedRide(progress, secondsPerMeter);
+        }) != null;
+    }
+
+    /** Starts tracking the ride once the current transaction commits */
+    public void startOnCommit(Long rideId, Route route) {
+        AfterCommit.run(() -> start(rideId, route));
+    }
+
+    /** Positions of rides that aren't tracked are ignored */
+    public void update(Long rideId, double latitude, double longitude) {
+        TrackedRide ride = rides.get(rideId);
+        if (ride != null) {
+            ride.advance(latitude, longitude, Instant.now());
+        }
+    }
+
+    public boolean isTracked(Long rideId) {
+        return rides.containsKey(rideId);
+    }
+
+    /** Empty until the first position of a tracked ride */
+    public Optional<Progress> progress(Long rideId) {
+        TrackedRide ride = rides.get(rideId);
+        return ride != null ? Optional.ofNullable(ride.progress) : Optional.empty();
+    }
+
+    public void finish(Long rideId) {
+        rides.remove(rideId);
+    }
+
+    /** Stops tracking the ride once the current transaction commits */
+    public void finishOnCommit(Long rideId) {
+        AfterCommit.run(() -> finish(rideId));
+    }
+}
@@ -16,7 +16,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -25,17 +27,29 @@ import java.util.Arrays;
 import java.util.List;
 
 import com.tricolori.backend.dto.ride.*;
+import com.tricolori.backend.dto.route.PlannedRoute;
 import com.tricolori.backend.entity.*;
 import com.tricolori.backend.dto.vehicle.VehicleLocationResponse;
 import com.tricolori.backend.mapper.RideMapper;
+import com.tricolori.backend.enums.DispatchStage;
 import com.tricolori.backend.enums.RideStatus;
 import com.tricolori.backend.enums.VehicleType;
+import com.tricolori.backend.util.AfterCommit;
+import com.tricolori.backend.util.LruCache;
+import com.tricolori.backend.util.RouteGeometryLevels;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -61,10 +75,21 @@ public class RideService {
     private final RideMapper rideMapper;
     private final PersonMapper personMapper;
     private final RouteMapper routeMapper;
+    private final RideEstimationService rideEstimationService;
     private final ReviewService reviewService;
     private final PriceListService priceListService;
     private final RouteService routeService;
     private final InconsistencyReportService inconsistencyReportService;
+    private final DriverRideCalendar driverRideCalendar;
+    private final BatchDispatchService batchDispatchService;
+    private final DriverReservations driverReservations;
+    private final TransactionTemplate transactionTemplate;
+    private final VehiclePositionStore vehiclePositionStore;
+    private final RideTelemetryLog rideTelemetryLog;
+    private final VehicleMapFeed vehicleMapFeed;
+    private final RideProgressTracker rideProgressTracker;
+
+    private final LruCache<Long, RideVehicle> vehicleByRide = new LruCache<>(10_000);
 
     // ================= driver =================
 
@@ -93,7 +118,9 @@ public class RideService {
         response.setVehicleRating(
                 round(reviewService.getAverageVehicleRating(rideId))
         );
-        response.setRouteId(ride.getRoute().getId());
+        if (ride.getRoute() != null) {
+            response.setRouteId(ride.getRoute().getId());
+        }
 
         return response;
     }
@@ -113,9 +140,14 @@ public class RideService {
         // calculate final price
         ride.setPrice(calculatePrice(ride));
         rideRepository.save(ride);
+        driverRideCalendar.release(ride);
+        rideTelemetryLog.seal(rideId);
+        rideProgressTracker.finishOnCommit(rideId);
         if (ride.getDriver() != null && ride.getDriver().getVehicle() != null) {
             ride.getDriver().getVehicle().setAvailable(true);
             vehicleRepository.save(ride.getDriver().getVehicle());
+            Long vehicleId = ride.getDriver().getVehicle().getId();
+            AfterCommit.run(() -> vehicleMapFeed.setAvailable(vehicleId, true));
         }
 
         // notify registered passengers
@@ -175,40 +207,28 @@ public class RideService {
         response.setVehicleRating(
                 round(reviewService.getAverageVehicleRating(rideId))
         );
-        response.setRouteId(ride.getRoute().getId());
+        if (ride.getRoute() != null) {
+            response.setRouteId(ride.getRoute().getId());
+        }
 
         return response;
     }
 
     public RideTrackingResponse trackRide(Long rideId) {
-        Ride ride = getRideOrThrow(rideId);
-
-        Integer estimatedMinutes =
-                ride.getRoute() != null && ride.getRoute().getEstimatedTimeSeconds() != null
-                        ? (int) Math.round(ride.getRoute().getEstimatedTimeSeconds() / 60.0)
-                        : null;
+        return trackRide(rideId, null);
+    }
 
-        LocalDateTime estimatedArrival =
-                ride.getStartTime() != null && estimatedMinutes != null
-                        ? ride.getStartTime().plusMinutes(estimatedMinutes)
-                        : null;
+    /** With a map zoom the route carries its geometry simplified for that zoom */
+    public RideTrackingResponse trackRide(Long rideId, Integer zoom) {
+        Ride ride = getRideOrThrow(rideId);
 
-        VehicleLocationResponse currentLocation =
-                ride.getDriver() != null && ride.getDriver().getVehicle() != null && ride.getDriver().getVehicle().getLocation() != null
-                        ? new VehicleLocationResponse(
-                        ride.getDriver().getVehicle().getId(),
-                        ride.getDriver().getVehicle().getModel(),
-                        ride.getDriver().getVehicle().getPlateNum(),
-                        ride.getDriver().getVehicle().getLocation().getLatitude(),
-                        ride.getDriver().getVehicle().getLocation().getLongitude(),
-                        ride.getDriver().getVehicle().isAvailable()
-                )
-                        : null;
+        VehicleLocationResponse currentLocation = currentLocation(ride);
+        LiveEstimate estimate = estimate(ride, currentLocation);
 
         // Map route to DetailedRouteResponse
         DetailedRouteResponse routeResponse =
                 ride.getRoute() != null
-                        ? routeMapper.toDetailedRoute(ride.getRoute())
+                        ? routeMapper.toDetailedRoute(ride.getRoute(), zoom)
                         : null;
 
         // Map driver to DTO
@@ -242,13 +262,14 @@ public class RideService {
                 ride.getStatus().name(),
                 currentLocation,
                 routeResponse,
-                estimatedMinutes,
-                estimatedArrival,
+                estimate.minutes(),
+                estimate.arrival(),
                 ride.getScheduledFor(),
                 ride.getStartTime(),
                 ride.getPrice(),
                 driverDto,
-                passengerDtos
+                passengerDtos,
+                estimate.remainingKm()
         );
     }
 
@@ -266,25 +287,32 @@ public class RideService {
 
     @Transactional(readOnly = true)
     public List<RideTrackingResponse> getAllOngoingRides() {
+        return getAllOngoingRides(null);
+    }
+
+    @Transactional(readOnly = true)
+    public List<RideTrackingResponse> getAllOngoingRides(Integer zoom) {
         List<Ride> ongoingRides = rideRepository.findByStatus(RideStatus.ONGOING);
         return ongoingRides.stream()
-                .map(this::toTrackingResponse)
+                .map(ride -> toTrackingResponse(ride, zoom))
                 .toList();
     }
 
     // Single method to map Ride to RideTrackingResponse
-    private RideTrackingResponse toTrackingResponse(Ride ride) {
+    private RideTrackingResponse toTrackingResponse(Ride ride, Integer zoom) {
         // Use mapper for basic fields
         RideTrackingResponse response = rideMapper.toTrackingResponse(ride);
 
-        if (ride.getRoute() != null) {
-            response = new RideTrackingResponse(
-                    response.rideId(), response.status(), response.currentLocation(),
-                    routeMapper.toDetailedRoute(ride.getRoute()), response.estimatedTimeMinutes(),
-                    response.estimatedArrival(), response.scheduledFor(), response.startTime(),
-                    response.price(), response.driver(), response.passengers()
-            );
-        }
+        // the mapper reads the last written position and the planned ETA, the store has the latest ping
+        VehicleLocationResponse currentLocation = currentLocation(ride);
+        LiveEstimate estimate = estimate(ride, currentLocation);
+        response = new RideTrackingResponse(
+                response.rideId(), response.status(), currentLocation,
+                ride.getRoute() != null ? routeMapper.toDetailedRoute(ride.getRoute(), zoom) : response.route(),
+                estimate.minutes(), estimate.arrival(), response.scheduledFor(),
+                response.startTime(), response.price(), response.driver(), response.passengers(),
+                estimate.remainingKm()
+        );
 
         if (ride.getDriver() != null) {
             Double rating = null;
@@ -297,7 +325,8 @@ public class RideService {
             response = new RideTrackingResponse(
                     response.rideId(), response.status(), response.currentLocation(), response.route(),
                     response.estimatedTimeMinutes(), response.estimatedArrival(), response.scheduledFor(),
-                    response.startTime(), response.price(), driverDto, response.passengers()
+                    response.startTime(), response.price(), driverDto, response.passengers(),
+                    response.remainingDistanceKm()
             );
         }
 
@@ -316,7 +345,8 @@ public class RideService {
             response = new RideTrackingResponse(
                     response.rideId(), response.status(), response.currentLocation(), response.route(),
                     response.estimatedTimeMinutes(), response.estimatedArrival(), response.scheduledFor(),
-                    response.startTime(), response.price(), response.driver(), passengerDtos
+                    response.startTime(), response.price(), response.driver(), passengerDtos,
+                    response.remainingDistanceKm()
             );
         }
 
@@ -351,6 +381,9 @@ public class RideService {
             response.setRouteId(ride.getRoute().getId());
             response.setDistance(ride.getRoute().getDistanceKm());
         }
+        if (ride.getStartTime() != null) {
+            response.setDrivenDistance(rideTelemetryLog.distanceMeters(rideId) / 1000);
+        }
 
         response.setTotalPrice(ride.getPrice());
 
@@ -359,29 +392,44 @@ public class RideService {
 
     // ================= location updates =================
 
-    @Transactional
+    /** GPS pings of the ride's vehicle, kept by VehiclePositionStore and written to the vehicle in batches */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void updateVehicleLocation(Long rideId, Double latitude, Double longitude) {
-        Ride ride = getRideOrThrow(rideId);
+        publishVehicleLocation(rideId, rideVehicle(rideId), latitude, longitude);
+    }
 
-        if (ride.getDriver() == null || ride.getDriver().getVehicle() == null) {
-            throw new IllegalStateException("Ride does not have an assigned vehicle");
+    /** Position frames streamed over STOMP, only the ride's driver may send them */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void streamVehicleLocation(Long rideId, String driverEmail, double latitude, double longitude) {
+        RideVehicle rideVehicle = rideVehicle(rideId);
+        if (!rideVehicle.driverEmail().equals(driverEmail)) {
+            throw new AccessDeniedException("unauthorized");
         }
 
-        Vehicle vehicle = ride.getDriver().getVehicle();
-        Location location = vehicle.getLocation();
+        publishVehicleLocation(rideId, rideVehicle, latitude, longitude);
+    }
 
-        // Create location if it doesn't exist
-        if (location == null) {
-            location = new Location();
-            vehicle.setLocation(location);
+    // a ride keeps its vehicle and driver, only the first ping of a ride reads them
+    private RideVehicle rideVehicle(Long rideId) {
+        RideVehicle rideVehicle = vehicleByRide.get(rideId);
+        if (rideVehicle == null) {
+            rideVehicle = rideRepository.findRideVehicle(rideId).orElseGet(() -> {
+                getRideOrThrow(rideId);
+                throw new IllegalStateException("Ride does not have an assigned vehicle");
+            });
+            vehicleByRide.put(rideId, rideVehicle);
         }
+        return rideVehicle;
+    }
 
-        // Update coordinates
-        location.setLatitude(latitude);
-        location.setLongitude(longitude);
-
-        // Save the ride (vehicle location is persisted via cascade)
-        rideRepository.save(ride);
+    private void publishVehicleLocation(Long rideId, RideVehicle rideVehicle, double latitude, double longitude) {
+        vehiclePositionStore.update(rideVehicle.vehicleId(), latitude, longitude);
+        rideTelemetryLog.append(rideId, Instant.now(), latitude, longitude);
+        rideProgressTracker.update(rideId, latitude, longitude);
+        messagingTemplate.convertAndSend(
+                "/topic/rides/" + rideId + "/location",
+                new RideLocationUpdate(rideId, rideVehicle.vehicleId(), latitude, longitude, LocalDateTime.now())
+        );
     }
 
     @Transactional
@@ -463,6 +511,7 @@ public class RideService {
 
         ride.setCancellationReason(reason);
         rideRepository.save(ride);
+        driverRideCalendar.release(ride);
 
         log.info("Ride with id {{}} cancelled by {{}}", ride.getId(), person.getEmail());
     }
@@ -486,6 +535,9 @@ public class RideService {
         // Update route
         route.setDestinationStop(new Stop(stopAddress, stopLocation));
         route.setRouteGeometry(updatedRouteData.getGeometry());
+        // the hash no longer matches the geometry, keep the shortened route out of deduplication
+        route.setGeometryHash(RouteService.excludedHash(route.getId()));
+        route.setGeometryLevels(RouteGeometryLevels.fromPolyline(updatedRouteData.getGeometry()));
         route.setEstimatedTimeSeconds(updatedRouteData.getDuration());
 
         double distanceKm = updatedRouteData.getDistance() / 1000.0;
@@ -493,6 +545,8 @@ public class RideService {
 
         ride.setStatus(status);
         ride.setEndTime(LocalDateTime.now());
+        rideTelemetryLog.seal(ride.getId());
+        rideProgressTracker.finishOnCommit(ride.getId());
 
         ride.setPrice(calculatePrice(ride));
     }
@@ -505,6 +559,7 @@ public class RideService {
         terminateRideAtLocation(ride, request.location(), RideStatus.STOPPED);
 
         rideRepository.save(ride);
+        driverRideCalendar.release(ride);
         return new StopRideResponse(ride.getPrice());
     }
 
@@ -528,6 +583,7 @@ public class RideService {
 
         panicRepository.save(panic);
         rideRepository.save(ride);
+        driverRideCalendar.release(ride);
     }
 
     private void sendRideUpdateToPassenger(String passengerEmail, RideUpdateMessage message) {
@@ -570,8 +626,12 @@ public class RideService {
         notificationService.sendRideStartedNotification(ride.getDriver().getEmail(), ride.getId());
         
         rideRepository.save(ride);
+        driverRideCalendar.commit(ride);
+        rideProgressTracker.startOnCommit(ride.getId(), ride.getRoute());
         ride.getDriver().getVehicle().setAvailable(false); // mark vehicle as unavailable
         vehicleRepository.save(ride.getDriver().getVehicle());
+        Long vehicleId = ride.getDriver().getVehicle().getId();
+        AfterCommit.run(() -> vehicleMapFeed.setAvailable(vehicleId, false));
     }
 
     private void notifyDriverAboutAssignment(Ride ride) {
@@ -584,94 +644,103 @@ public class RideService {
                 ride.getDriver().getEmail(), ride.getId());
     }
 
-    @Transactional
+    /**
+     * Orders in three phases so no database connection waits on Nominatim, OSRM, the batch
+     * dispatch window or SMTP: the route is planned and saved and a driver found and reserved
+     * outside the order transaction, the ride is saved in a short one, and the passengers are
+     * notified once it has committed.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Long rideOrder(Person passenger, OrderRequest request) {
-        RidePreferences preferences = request.getPreferences();
+        PlannedRoute plannedRoute = planRoute(request);
+        return placeOrder(() -> newRide(passenger, request), plannedRoute, passenger, request).getId();
+    }
 
-        // Extracting and creating route:
-        RideRoute routeData = request.getRoute();
-        Route route = routeService.createRoute(routeData.pickup(), routeData.destination(), routeData.stops());
+    /** Saves the order without a route or driver, completePendingOrder finishes it later */
+    @Transactional
+    public Long createPendingRide(Person passenger, OrderRequest request) {
+        Ride ride = newRide(passenger, request);
+        ride.setStatus(RideStatus.PENDING);
+        return rideRepository.save(ride).getId();
+    }
+
+    /** Routes and matches a pending order, the passengers are notified over WebSocket */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void completePendingOrder(Long rideId, Person passenger, OrderRequest request) {
+        if (getRideOrThrow(rideId).getStatus() != RideStatus.PENDING) {
+            return;
+        }
+
+        PlannedRoute plannedRoute = planRoute(request);
+        // checked again, the ride may have been rejected while it was routed
+        placeOrder(() -> {
+            Ride ride = getRideOrThrow(rideId);
+            return ride.getStatus() == RideStatus.PENDING ? ride : null;
+        }, plannedRoute, passenger, request);
+    }
+
+    @Transactional
+    public void rejectPendingRide(Long rideId, String reason) {
+        Ride ride = getRideOrThrow(rideId);
+        if (ride.getStatus() != RideStatus.PENDING) {
+            return;
+        }
 
+        ride.setStatus(RideStatus.REJECTED);
+        ride.setCancellationReason(reason);
+        rideRepository.save(ride);
+        applicationEventPublisher.publishEvent(new RideStatusUpdateEvent(ride, RideStatus.REJECTED, reason));
+    }
+
+    private Ride newRide(Person passenger, OrderRequest request) {
         Ride ride = new Ride();
         ride.setCreatedAt(request.getCreatedAt());
-        ride.setScheduledFor(preferences.scheduledFor());
-        ride.setRoute(route);
-        ride.setPrice(calculatePrice(
-                preferences.vehicleType(), route.getDistanceKm()
-        ));
+        ride.setScheduledFor(request.getPreferences().scheduledFor());
 
-        // Find passengers by email:
-        // Add owner passenger as first email:
+        // Get only registered passengers for the ride's passenger list
+        List<Passenger> trackingPassengers = passengerService.getTrackingPassengers(
+                collectPassengerEmails(passenger, request).toArray(new String[0])
+        );
+        ride.setPassengers(trackingPassengers);
+        return ride;
+    }
+
+    // Owner passenger first, then the trackers
+    private List<String> collectPassengerEmails(Person passenger, OrderRequest request) {
         List<String> allPassengerEmails = new ArrayList<>();
         allPassengerEmails.add(passenger.getEmail());
         if (request.getTrackers() != null) {
             allPassengerEmails.addAll(Arrays.asList(request.getTrackers()));
         }
+        return allPassengerEmails;
+    }
 
-        // Get only registered passengers for the ride's passenger list
-        List<Passenger> trackingPassengers = passengerService.getTrackingPassengers(
-                allPassengerEmails.toArray(new String[0])
-        );
-        ride.setPassengers(trackingPassengers);
+    private PlannedRoute planRoute(OrderRequest request) {
+        RideRoute routeData = request.getRoute();
+        return rideEstimationService.plannedRoute(request.getQuoteId(), routeData)
+                .orElseGet(() -> routeService.planRoute(routeData.pickup(), routeData.destination(), routeData.stops()));
+    }
+
+    // the saved ride with the addresses of its route, for the notifications sent after commit
+    private record PlacedOrder(Ride ride, String from, String to) {}
 
+    /** Returns the saved ride, or null when the supplier found nothing left to order */
+    private Ride placeOrder(Supplier<Ride> rideSupplier, PlannedRoute plannedRoute, Person passenger, OrderRequest request) {
+        List<String> allPassengerEmails = collectPassengerEmails(passenger, request);
+        DispatchTrace trace = new DispatchTrace();
+
+        Route route = routeService.createRoute(plannedRoute);
+        Driver driver;
         try {
-            Driver driver = driverService.findDriverForRide(
+            driver = reserveDriver(
                     route.getPickupStop().getLocation(),
-                    preferences,
-                    allPassengerEmails.size()
+                    request.getPreferences(),
+                    allPassengerEmails.size(),
+                    trace
             );
-            ride.setDriver(driver);
-            ride.setStatus(RideStatus.SCHEDULED);
-            ride.setVehicleSpecification(driver.getVehicle().getSpecification());
-
-            ride = rideRepository.save(ride);
-
-            applicationEventPublisher.publishEvent(new RideAssignedEvent(ride));
-
-            String organizerName = passenger.getFirstName() + " " + passenger.getLastName();
-            // separate registered and unregistered passengers
-            List<String> registeredEmails = trackingPassengers.stream()
-                    .map(Passenger::getEmail)
-                    .toList();
-
-            // Send notifications to registered passengers (skip organizer)
-            String scheduledTime;
-            if(ride.getScheduledFor() == null) {
-                scheduledTime = LocalDateTime.now().toString();
-            } else {
-                scheduledTime = ride.getScheduledFor().toString();
-            }
-
-            for (Passenger p : trackingPassengers) {
-                if (p.getEmail().equals(passenger.getEmail()))
-                    continue; // skip main passenger (organizer)
-
-                notificationService.sendAddedToRideNotification(
-                        p.getEmail(), ride.getId(), organizerName, p.getFirstName(), ride.getRoute().getPickupStop().getAddress(),
-                        ride.getRoute().getDestinationStop().getAddress(), scheduledTime
-                );
-            }
-
-            // handle unregistered passengers (those in allPassengerEmails but not in trackingPassengers)
-            for (String email : allPassengerEmails) {
-                if (email.equals(passenger.getEmail())) {
-                    continue; // skip organizer
-                }
-
-                if (!registeredEmails.contains(email)) {
-                    // an unregistered passenger - create tracking token and send notification
-                    log.info("Creating tracking token for unregistered passenger: {}", email);
-                    String firstName = "there"; // so the email says hi there
-                    String token = trackingTokenService.createTrackingToken(email, firstName, ride);
-                    // Send notification
-                    notificationService.sendAddedToRideNotification(
-                            email, ride.getId(), organizerName, firstName, ride.getRoute().getPickupStop().getAddress(),
-                            ride.getRoute().getDestinationStop().getAddress(), scheduledTime
-                    );
-                }
-            }
-
         } catch (NoSuitableDriversException | NoFreeDriverCloseException e) {
+            log.info("Ride order rejected, dispatch trace: {}", trace);
+
             // Notify ALL passengers (registered and unregistered) about rejection
             for (String email : allPassengerEmails) {
                 notificationService.sendRideRejectedNotification(email, null);
@@ -683,7 +752,101 @@ public class RideService {
             throw e;
         }
 
-        return ride.getId();
+        // parallel orders skip the driver until its ride is committed or rolled back
+        PlacedOrder placed;
+        try {
+            placed = transactionTemplate.execute(status -> saveOrder(rideSupplier, route, driver, passenger, request, trace));
+        } finally {
+            driverReservations.release(driver.getId());
+        }
+
+        if (placed == null) {
+            return null;
+        }
+        notifyAddedPassengers(placed, passenger, allPassengerEmails);
+        return placed.ride();
+    }
+
+    private PlacedOrder saveOrder(
+            Supplier<Ride> rideSupplier,
+            Route route,
+            Driver driver,
+            Person passenger,
+            OrderRequest request,
+            DispatchTrace trace
+    ) {
+        Ride ride = rideSupplier.get();
+        if (ride == null) {
+            return null;
+        }
+        boolean pending = ride.getStatus() == RideStatus.PENDING;
+        RidePreferences preferences = request.getPreferences();
+
+        // the route was saved in its own transaction
+        ride.setRoute(routeService.attach(route));
+        ride.setPrice(calculatePrice(
+                preferences.vehicleType(), route.getDistanceKm()
+        ));
+        ride.setDriver(driver);
+        ride.setDispatchTrace(trace.toString());
+        ride.setStatus(RideStatus.SCHEDULED);
+        ride.setVehicleSpecification(driver.getVehicle().getSpecification());
+
+        ride = rideRepository.save(ride);
+        driverRideCalendar.commit(ride);
+
+        applicationEventPublisher.publishEvent(new RideAssignedEvent(ride));
+        if (pending) {
+            applicationEventPublisher.publishEvent(
+                    new RideStatusUpdateEvent(ride, RideStatus.SCHEDULED, "A driver has been assigned to your ride.")
+            );
+        }
+
+        // unregistered passengers (those not among the ride's passengers) track the ride with a token
+        List<String> registeredEmails = ride.getPassengers().stream()
+                .map(Passenger::getEmail)
+                .toList();
+        for (String email : collectPassengerEmails(passenger, request)) {
+            if (!email.equals(passenger.getEmail()) && !registeredEmails.contains(email)) {
+                log.info("Creating tracking token for unregistered passenger: {}", email);
+                trackingTokenService.createTrackingToken(email, "there", ride);
+            }
+        }
+
+        return new PlacedOrder(ride, route.getPickupStop().getAddress(), route.getDestinationStop().getAddress());
+    }
+
+    private void notifyAddedPassengers(PlacedOrder placed, Person passenger, List<String> allPassengerEmails) {
+        Ride ride = placed.ride();
+        String organizerName = passenger.getFirstName() + " " + passenger.getLastName();
+        String scheduledTime = ride.getScheduledFor() == null
+                ? LocalDateTime.now().toString()
+                : ride.getScheduledFor().toString();
+
+        List<Passenger> trackingPassengers = ride.getPassengers();
+        List<String> registeredEmails = trackingPassengers.stream()
+                .map(Passenger::getEmail)
+                .toList();
+
+        // Send notifications to registered passengers (skip organizer)
+        for (Passenger p : trackingPassengers) {
+            if (p.getEmail().equals(passenger.getEmail()))
+                continue; // skip main passenger (organizer)
+
+            notificationService.sendAddedToRideNotification(
+                    p.getEmail(), ride.getId(), organizerName, p.getFirstName(), placed.from(), placed.to(), scheduledTime
+            );
+        }
+
+        for (String email : allPassengerEmails) {
+            if (email.equals(passenger.getEmail()) || registeredEmails.contains(email)) {
+                continue;
+            }
+            // so the email says hi there
+            notificationService.sendAddedToRideNotification(
+                    email, ride.getId(), organizerName, "there", placed.from(), placed.to(), scheduledTime
+            );
+        }
     }
 
     public RideAssignmentResponse getAssignmentResponse(Long rideId) {
@@ -695,6 +858,99 @@ public class RideService {
 
     // ================= helpers =================
 
+    // In batch mode the order waits for the next dispatch window, otherwise the closest free driver is taken.
+    // The driver comes back reserved, the caller releases it
+    private Driver reserveDriver(
+            Location pickup,
+            RidePreferences preferences,
+            int trackingPassengersNumber,
+            DispatchTrace trace
+    ) {
+        if (!batchDispatchService.accepts(preferences)) {
+            return driverService.reserveDriverForRide(pickup, preferences, trackingPassengersNumber, trace);
+        }
+
+        CompletableFuture<Long> assigned = batchDispatchService.submit(pickup, preferences, trackingPassengersNumber);
+        Long driverId;
+        try {
+            driverId = assigned.get(batchDispatchService.getWindowMs() * 5, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // nobody will save a ride for a driver assigned after giving up
+            assigned.thenAccept(driverReservations::release);
+            throw new NoSuitableDriversException("Dodela vozaca je istekla, pokusajte ponovo.");
+        } catch (InterruptedException e) {
+            assigned.thenAccept(driverReservations::release);
+            Thread.currentThread().interrupt();
+            throw new NoSuitableDriversException("Dodela vozaca je prekinuta.");
+        }
+
+        trace.assigned(driverId, DispatchStage.BATCH);
+        try {
+            return driverService.findById(driverId);
+        } catch (RuntimeException e) {
+            driverReservations.release(driverId);
+            throw e;
+        }
+    }
+
+    private record LiveEstimate(Integer minutes, LocalDateTime arrival, Double remainingKm) {}
+
+    /**
+     * ETA of an ongoing ride from its vehicle's progress along the route, until the first
+     * position and for other rides the planned duration counted from the start time.
+     */
+    private LiveEstimate estimate(Ride ride, VehicleLocationResponse currentLocation) {
+        Route route = ride.getRoute();
+        Integer plannedMinutes = route != null && route.getEstimatedTimeSeconds() != null
+                ? (int) Math.round(route.getEstimatedTimeSeconds() / 60.0)
+                : null;
+        LiveEstimate planned = new LiveEstimate(
+                plannedMinutes,
+                ride.getStartTime() != null && plannedMinutes != null ? ride.getStartTime().plusMinutes(plannedMinutes) : null,
+                null
+        );
+        if (ride.getStatus() != RideStatus.ONGOING) {
+            return planned;
+        }
+
+        // rides started before a restart are tracked from their first read on
+        if (!rideProgressTracker.isTracked(ride.getId())
+                && rideProgressTracker.start(ride.getId(), route)
+                && currentLocation != null && currentLocation.getLatitude() != null) {
+            rideProgressTracker.update(ride.getId(), currentLocation.getLatitude(), currentLocation.getLongitude());
+        }
+
+        return rideProgressTracker.progress(ride.getId())
+                .map(progress -> new LiveEstimate(
+                        progress.remainingSeconds() != null
+                                ? (int) Math.round(progress.remainingSeconds() / 60.0)
+                                : planned.minutes(),
+                        progress.remainingSeconds() != null
+                                ? LocalDateTime.ofInstant(progress.estimatedArrival(), ZoneId.systemDefault())
+                                : planned.arrival(),
+                        progress.remainingMeters() / 1000.0
+                ))
+                .orElse(planned);
+    }
+
+    private VehicleLocationResponse currentLocation(Ride ride) {
+        Vehicle vehicle = ride.getDriver() != null ? ride.getDriver().getVehicle() : null;
+        Location location = vehicle != null ? vehiclePositionStore.locationOf(vehicle) : null;
+        if (location == null) {
+            return null;
+        }
+
+        return new VehicleLocationResponse(
+                vehicle.getId(), vehicle.getModel(), vehicle.getPlateNum(),
+                location.getLatitude(), location.getLongitude(), vehicle.isAvailable()
+        );
+    }
+
     private Ride getRideOrThrow(Long rideId) {
         return rideRepository.findById(rideId)
                 .orElseThrow(() -> new RideNotFoundException("ride not found"));
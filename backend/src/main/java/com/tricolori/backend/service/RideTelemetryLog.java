@@ -0,0 +1,246 @@
+package com.tricolori.backend.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.tricolori.backend.dto.ride.TelemetryPoint;
+import com.tricolori.backend.util.GeoDistance;
+import com.tricolori.backend.util.TelemetryCodec;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Every GPS position reported during a ride, for replays, inconsistency report audits and the
+ * distance actually driven. Positions are appended to an open chunk of the ride in memory; a
+ * chunk is sealed when it holds chunk-points positions, is older than chunk-seconds or the ride
+ * ends, and sealed chunks are inserted into ride_telemetry_chunks in one JDBC batch per flush.
+ * When the batch fails the chunks are written one by one, so a bad chunk can't hold up the rest.
+ * A chunk is written once and never updated, a ping costs a few bytes and no statement.
+ */
+@Component
+@Slf4j
+public class RideTelemetryLog {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO ride_telemetry_chunks (ride_id, started_at, ended_at, point_count, data) VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_SQL =
+        "SELECT data FROM ride_telemetry_chunks WHERE ride_id = ? ORDER BY started_at, id";
+    private static final String EXISTS_SQL =
+        "SELECT COUNT(*) FROM ride_telemetry_chunks WHERE ride_id = ? AND started_at = ? AND point_count = ?";
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_FAILED_WRITES = 3;
+
+    private record SealedChunk(Long rideId, TelemetryCodec.Encoder points) {}
+
+    private final Map<Long, TelemetryCodec.Encoder> open = new ConcurrentHashMap<>();
+    private final Queue<SealedChunk> sealed = new ConcurrentLinkedQueue<>();
+    // a replay sees a chunk either as written or as pending, never both
+    private final Object writeLock = new Object();
+    // failed writes of chunks still queued, guarded by writeLock
+    private final Map<SealedChunk, Integer> failedWrites = new IdentityHashMap<>();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int chunkPoints;
+    private final long chunkMillis;
+
+    public RideTelemetryLog(
+        JdbcTemplate jdbcTemplate,
+        @Value("${ride.telemetry.chunk-points:512}") int chunkPoints,
+        @Value("${ride.telemetry.chunk-seconds:60}") long chunkSeconds
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkPoints = chunkPoints;
+        this.chunkMillis = chunkSeconds * 1000;
+    }
+
+    public void append(Long rideId, Instant timestamp, double latitude, double longitude) {
+        open.compute(rideId, (id, points) -> {
+            if (points == null) {
+                points = new TelemetryCodec.Encoder();
+            }
+            points.append(timestamp.toEpochMilli(), latitude, longitude);
+            if (points.size() >= chunkPoints) {
+                sealed.add(new SealedChunk(id, points));
+                return null;
+            }
+            return points;
+        });
+    }
+
+    /** Seals the open chunk of an ended ride so the next flush writes it */
+    public void seal(Long rideId) {
+        open.computeIfPresent(rideId, (id, points) -> {
+            sealed.add(new SealedChunk(id, points));
+            return null;
+        });
+    }
+
+    public int pendingChunks() {
+        return sealed.size();
+    }
+
+    /**
+     * Positions of the ride in the order they were reported, written chunks first, then the
+     * ones still in memory. The stream holds a connection until it is closed.
+     */
+    public Stream<TelemetryPoint> replay(Long rideId) {
+        synchronized (writeLock) {
+            TelemetryCodec.Encoder[] openChunk = new TelemetryCodec.Encoder[1];
+            byte[][] openData = new byte[1][];
+            open.computeIfPresent(rideId, (id, points) -> {
+                openChunk[0] = points;
+                openData[0] = points.toByteArray();
+                return points;
+            });
+
+            List<byte[]> pending = new ArrayList<>();
+            boolean openSealedMeanwhile = false;
+            for (SealedChunk chunk : sealed) {
+                if (chunk.rideId().equals(rideId)) {
+                    pending.add(chunk.points().toByteArray());
+                    openSealedMeanwhile |= chunk.points() == openChunk[0];
+                }
+            }
+            // sealed since it was read above, the sealed copy is complete
+            if (openData[0] != null && !openSealedMeanwhile) {
+                pending.add(openData[0]);
+            }
+
+            Stream<byte[]> written = jdbcTemplate.queryForStream(SELECT_SQL, (row, n) -> row.getBytes(1), rideId);
+            return Stream.concat(written, pending.stream())
+                .flatMap(data -> TelemetryCodec.decode(data).stream());
+        }
+    }
+
+    /** Length of the recorded track in meters */
+    public double distanceMeters(Long rideId) {
+        double meters = 0;
+        try (Stream<TelemetryPoint> points = replay(rideId)) {
+            Iterator<TelemetryPoint> iterator = points.iterator();
+            TelemetryPoint previous = iterator.hasNext() ? iterator.next() : null;
+            while (iterator.hasNext()) {
+                TelemetryPoint point = iterator.next();
+                meters += GeoDistance.haversineMeters(
+                    previous.latitude(), previous.longitude(), point.latitude(), point.longitude());
+                previous = point;
+            }
+        }
+        return meters;
+    }
+
+    /** Seals chunks open for longer than chunk-seconds and writes the sealed ones, returns how many were written */
+    @Scheduled(fixedDelayString = "${ride.telemetry.flush-interval-ms:5000}")
+    public int flush() {
+        long sealBefore = System.currentTimeMillis() - chunkMillis;
+        for (Long rideId : open.keySet()) {
+            open.computeIfPresent(rideId, (id, points) -> {
+                if (points.firstMillis() > sealBefore) {
+                    return points;
+                }
+                sealed.add(new SealedChunk(id, points));
+                return null;
+            });
+        }
+
+        synchronized (writeLock) {
+            List<SealedChunk> batch = new ArrayList<>(sealed);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, BATCH_SIZE, RideTelemetryLog::setValues);
+            } catch (DataAccessException e) {
+                log.warn("Writing {} telemetry chunks in one batch failed, writing them one by one", batch.size(), e);
+                return writeOneByOne(batch);
+            }
+            // only this method removes chunks, the first batch.size() are the written ones
+            for (int i = 0; i < batch.size(); i++) {
+                sealed.poll();
+            }
+            failedWrites.clear();
+            return batch.size();
+        }
+    }
+
+    // Chunks that fail are kept for the next flush. A chunk that keeps failing while others are
+    // written, or breaks a constraint, is dropped after MAX_FAILED_WRITES so it can't hold up the rest
+    private int writeOneByOne(List<SealedChunk> batch) {
+        Set<SealedChunk> done = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<SealedChunk, DataAccessException> failed = new IdentityHashMap<>();
+        for (SealedChunk chunk : batch) {
+            try {
+                // a failed batch may have written part of its chunks already
+                if (!isWritten(chunk)) {
+                    jdbcTemplate.update(INSERT_SQL, statement -> setValues(statement, chunk));
+                }
+                done.add(chunk);
+            } catch (DataAccessException e) {
+                failed.put(chunk, e);
+            }
+        }
+        int written = done.size();
+
+        failed.forEach((chunk, e) -> {
+            // nothing could be written, likely the database itself, which isn't the chunk's fault
+            if (written == 0 && !(e instanceof DataIntegrityViolationException)) {
+                return;
+            }
+            int failures = failedWrites.merge(chunk, 1, Integer::sum);
+            if (failures >= MAX_FAILED_WRITES) {
+                log.error("Dropping telemetry chunk of ride {} with {} points after {} failed writes",
+                    chunk.rideId(), chunk.points().size(), failures, e);
+                done.add(chunk);
+            }
+        });
+
+        sealed.removeIf(done::contains);
+        failedWrites.keySet().removeIf(done::contains);
+        return written;
+    }
+
+    private boolean isWritten(SealedChunk chunk) {
+        Integer rows = jdbcTemplate.queryForObject(EXISTS_SQL, Integer.class,
+            chunk.rideId(), new Timestamp(chunk.points().firstMillis()), chunk.points().size());
+        return rows != null && rows > 0;
+    }
+
+    private static void setValues(PreparedStatement statement, SealedChunk chunk) throws SQLException {
+        TelemetryCodec.Encoder points = chunk.points();
+        statement.setLong(1, chunk.rideId());
+        statement.setTimestamp(2, new Timestamp(points.firstMillis()));
+        statement.setTimestamp(3, new Timestamp(points.lastMillis()));
+        statement.setInt(4, points.size());
+        statement.setBytes(5, points.toByteArray());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        open.keySet().forEach(this::seal);
+        int written = flush();
+        if (written > 0) {
+            log.info("Wrote {} telemetry chunks on shutdown.", written);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.tricolori.backend.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.tricolori.backend.dto.cache.CacheStatsResponse;
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.infrastructure.presentation.dtos.Route.OSRMResult;
+import com.tricolori.backend.util.CoordinateKey;
+import com.tricolori.backend.util.LruCache;
+
+/**
+ * LRU cache of OSRM routes keyed by the ordered stop coordinates rounded to ~10 m,
+ * so repeated trips (favorite routes, airport runs) are routed without a network call.
+ * Entries expire after a TTL because the road graph behind OSRM is updated now and then.
+ */
+@Component
+public class RouteCache {
+
+    private record CachedRoute(OSRMResult result, long expiresAt) {}
+
+    private final long ttlMillis;
+    private final LruCache<String, CachedRoute> routes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public RouteCache(
+        @Value("${routing.cache.max-size:10000}") int maxSize,
+        @Value("${routing.cache.ttl-minutes:1440}") long ttlMinutes
+    ) {
+        this.ttlMillis = ttlMinutes * 60_000;
+        this.routes = new LruCache<>(maxSize);
+    }
+
+    /** Cached route through the stops, the loader is called on a miss and its result is stored */
+    public OSRMResult get(List<Location> stops, Supplier<OSRMResult> loader) {
+        String key = keyOf(stops);
+        if (key == null) {
+            return loader.get();
+        }
+
+        long now = System.currentTimeMillis();
+        CachedRoute cached = routes.get(key);
+        if (cached != null && cached.expiresAt() > now) {
+            hits.increment();
+            return cached.result();
+        }
+
+        // loaded outside the cache, a concurrent miss for the same trip only costs a duplicate call
+        misses.increment();
+        OSRMResult result = loader.get();
+        // straight-line estimates are replaced by the real route once OSRM is back
+        if (!result.isEstimated()) {
+            routes.put(key, new CachedRoute(result, now + ttlMillis));
+        }
+        return result;
+    }
+
+    public CacheStatsResponse stats() {
+        return CacheStatsResponse.of(hits.sum(), misses.sum(), routes.size());
+    }
+
+    // e.g. "452671,198335;448125,204612", null when a stop has no coordinates yet
+    private static String keyOf(List<Location> stops) {
+        StringBuilder key = new StringBuilder(stops.size() * 16);
+        for (Location location : stops) {
+            if (location == null || location.getLatitude() == null || location.getLongitude() == null) {
+                return null;
+            }
+            if (!key.isEmpty()) key.append(';');
+            CoordinateKey.append(key, location.getLatitude(), location.getLongitude());
+        }
+        return key.toString();
+    }
+}
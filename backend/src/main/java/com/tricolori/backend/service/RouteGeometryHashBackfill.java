@@ -0,0 +1,76 @@
+package com.tricolori.backend.service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tricolori.backend.dto.route.RouteGeometry;
+import com.tricolori.backend.repository.RouteRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fills routes.geometry_hash for routes saved before the column existed, in batches of one
+ * transaction each. Routes whose geometry duplicates an already hashed route, or that have no
+ * geometry, get an excluded hash instead: the unique index allows only one route per geometry,
+ * and every route is left with a hash so later startups find nothing to do.
+ */
+@Component
+@Slf4j
+public class RouteGeometryHashBackfill {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final RouteRepository routeRepository;
+    private final TransactionTemplate batchTransaction;
+
+    public RouteGeometryHashBackfill(RouteRepository routeRepository, PlatformTransactionManager transactionManager) {
+        this.routeRepository = routeRepository;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long afterId = 0;
+        int hashed = 0;
+        int duplicates = 0;
+        while (true) {
+            final long after = afterId;
+            List<RouteGeometry> batch = routeRepository.findUnhashedAfter(after, PageRequest.of(0, BATCH_SIZE));
+            if (batch.isEmpty()) break;
+
+            int[] counts = batchTransaction.execute(status -> hashBatch(batch));
+            hashed += counts[0];
+            duplicates += counts[1];
+            afterId = batch.getLast().id();
+        }
+
+        if (hashed > 0 || duplicates > 0) {
+            log.info("Backfilled geometry hashes of {} routes, {} duplicate routes excluded from deduplication.", hashed, duplicates);
+        }
+    }
+
+    private int[] hashBatch(List<RouteGeometry> batch) {
+        int hashed = 0;
+        int duplicates = 0;
+        Set<String> batchHashes = new HashSet<>();
+        for (RouteGeometry route : batch) {
+            String hash = route.geometry() != null ? RouteService.geometryHash(route.geometry()) : null;
+            if (hash == null || !batchHashes.add(hash) || routeRepository.existsByGeometryHash(hash)) {
+                routeRepository.setGeometryHash(route.id(), RouteService.excludedHash(route.id()));
+                duplicates++;
+                continue;
+            }
+            routeRepository.setGeometryHash(route.id(), hash);
+            hashed++;
+        }
+        return new int[] {hashed, duplicates};
+    }
+}
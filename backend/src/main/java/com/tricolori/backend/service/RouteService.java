@@ -7,16 +7,29 @@ import com.tricolori.backend.entity.Route;
 import com.tricolori.backend.entity.Stop;
 import com.tricolori.backend.repository.RouteRepository;
 import com.tricolori.backend.dto.osrm.OSRMRouteResponse;
+import com.tricolori.backend.dto.route.PlannedRoute;
 import com.tricolori.backend.dto.ride.NominatimResponse;
+import com.tricolori.backend.exception.BadAddressException;
+import com.tricolori.backend.util.RouteGeometryLevels;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,37 +40,91 @@ public class RouteService {
     private final RouteRepository routeRepository;
     private final OSRMService osrmService;
     private final GeocodingService geocodingService;
+    private final RouteCache routeCache;
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Route createRoute(Stop pickup, Stop destination, List<Stop> stops) {
-        Route route = new Route();
+        return createRoute(planRoute(pickup, destination, stops));
+    }
+
+    /** Geocodes the stops and routes through them without saving anything */
+    public PlannedRoute planRoute(Stop pickup, Stop destination, List<Stop> stops) {
         List<Stop> allStops = new ArrayList<>();
         // Save stops in order:
-        allStops.add(pickup); allStops.addAll(stops); allStops.add(destination);
-        allStops.forEach(this::locateStop);
+        allStops.add(pickup);
+        if (stops != null) allStops.addAll(stops);
+        allStops.add(destination);
+        locateStops(allStops);
+
+        List<Location> locations = allStops.stream().map(Stop::getLocation).toList();
+        OSRMResult result = routeCache.get(locations, () -> osrmService.analyzeRouteStops(allStops));
+        return new PlannedRoute(allStops, result);
+    }
 
-        route.setStops(allStops);
-        
-        OSRMResult result = osrmService.analyzeRouteStops(allStops);
+    /** Saves a planned route, or returns the stored one with the same geometry */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Route createRoute(PlannedRoute planned) {
+        OSRMResult result = planned.result();
         String geometry = result.getGeometry();
 
-        Optional<Route> existingRoute = routeRepository.findByRouteGeometry(geometry);
+        Optional<Route> existingRoute = findByGeometry(geometry);
         if (existingRoute.isPresent()) {
             return existingRoute.get();
         }
 
+        Route route = new Route();
+        route.setStops(planned.stops());
         route.setDistanceKm(result.getDistanceKilometers());
         route.setEstimatedTimeSeconds(result.getDurationSeconds());
         route.setRouteGeometry(result.getGeometry());
+        route.setGeometryHash(geometryHash(geometry));
+        route.setGeometryLevels(RouteGeometryLevels.fromPolyline(geometry));
+
+        return saveOrReuse(route);
+    }
+
+    /** Reference to a route saved by an earlier transaction, for linking it to entities of the current one */
+    public Route attach(Route route) {
+        return routeRepository.getReferenceById(route.getId());
+    }
+
+    // Stops are geocoded concurrently, each one is updated in place so the stop order is kept
+    private void locateStops(List<Stop> stops) {
+        List<Stop> missing = stops.stream().filter(stop -> !isLocated(stop.getLocation())).toList();
+        if (missing.size() < 2) {
+            missing.forEach(this::locateStop);
+            return;
+        }
+
+        // NominatimThrottle bounds how many of these reach Nominatim at once
+        List<Future<?>> lookups = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            missing.forEach(stop -> lookups.add(executor.submit(() -> locateStop(stop))));
+        }
+
+        for (Future<?> lookup : lookups) {
+            try {
+                lookup.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BadAddressException("Geokodiranje stanica je prekinuto.");
+            }
+        }
+    }
 
-        return routeRepository.save(route);
+    private boolean isLocated(Location location) {
+        return location.getLatitude() != null && location.getLatitude() != 0.0 &&
+            location.getLongitude() != null && location.getLongitude() != 0.0;
     }
 
     private void locateStop(Stop stop) {
         Location location = stop.getLocation();
-        if (
-            location.getLatitude() != null && location.getLatitude() != 0.0 && 
-            location.getLongitude() != null && location.getLongitude() != 0.0
-        )
+        if (isLocated(location))
             return;
 
         location.setLatitude(null);
@@ -70,7 +137,7 @@ public class RouteService {
     }
 
     // finds or crates a route based on stops, uses polyline as identifier
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Route findOrCreateRoute(List<Stop> stops) {
         if (stops == null || stops.size() < 2) {
             throw new IllegalArgumentException("At least two stops are needed - start and destination");
@@ -80,11 +147,10 @@ public class RouteService {
                 .map(Stop::getLocation)
                 .collect(Collectors.toList());
 
-        OSRMRouteResponse osrmResponse = osrmService.getRoute(locations);
-        OSRMRouteResponse.OSRMRoute osrmRoute = osrmResponse.getRoutes().get(0);
-        String geometry = osrmRoute.getGeometry();
+        OSRMResult result = routeCache.get(locations, () -> toResult(osrmService.getRoute(locations)));
+        String geometry = result.getGeometry();
 
-        Optional<Route> existingRoute = routeRepository.findByRouteGeometry(geometry);
+        Optional<Route> existingRoute = findByGeometry(geometry);
 
         if (existingRoute.isPresent()) {
             log.info("Found cached route with geometry: {}", geometry.substring(0, 20) + "...");
@@ -92,17 +158,64 @@ public class RouteService {
         }
 
         log.info("Creating new route with geometry: {}", geometry.substring(0, 20) + "...");
-        return createNewRoute(stops, osrmRoute);
+        return createNewRoute(stops, result);
     }
 
-    private Route createNewRoute(List<Stop> stops, OSRMRouteResponse.OSRMRoute osrmRoute) {
+    private Route createNewRoute(List<Stop> stops, OSRMResult result) {
         Route route = new Route();
         route.setStops(stops);
-        route.setRouteGeometry(osrmRoute.getGeometry()); // encoded polyline
-        route.setDistanceKm(osrmRoute.getDistance() / 1000.0); // iz metara u kilometre
-        route.setEstimatedTimeSeconds(osrmRoute.getDuration());
+        route.setRouteGeometry(result.getGeometry()); // encoded polyline
+        route.setGeometryHash(geometryHash(result.getGeometry()));
+        route.setGeometryLevels(RouteGeometryLevels.fromPolyline(result.getGeometry()));
+        route.setDistanceKm(result.getDistanceKilometers());
+        route.setEstimatedTimeSeconds(result.getDurationSeconds());
+
+        return saveOrReuse(route);
+    }
+
+    // Saved in a transaction of its own, so when a parallel order stored the same geometry first
+    // only this insert fails on the unique hash and the other order's route is used instead
+    private Route saveOrReuse(Route route) {
+        try {
+            return routeRepository.save(route);
+        } catch (DataIntegrityViolationException e) {
+            return findByGeometry(route.getRouteGeometry()).orElseThrow(() -> e);
+        }
+    }
+
+    // indexed hash lookup, the geometry comparison only guards against a hash collision
+    private Optional<Route> findByGeometry(String geometry) {
+        return routeRepository.findByGeometryHash(geometryHash(geometry))
+                .filter(route -> geometry.equals(route.getRouteGeometry()));
+    }
+
+    /** First 128 bits of the geometry's SHA-256, as 32 hex characters */
+    public static String geometryHash(String geometry) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(geometry.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Hash of a route kept out of deduplication, a duplicate found by the backfill or a route
+     * shortened by a stopped ride. Unique per route and never a hex digest, so no lookup finds it.
+     */
+    public static String excludedHash(Long routeId) {
+        return "-" + routeId;
+    }
 
-        return routeRepository.save(route);
+    private static OSRMResult toResult(OSRMRouteResponse response) {
+        OSRMRouteResponse.OSRMRoute osrmRoute = response.getRoutes().get(0);
+        return new OSRMResult(
+            osrmRoute.getDistance() / 1000.0, // iz metara u kilometre
+            osrmRoute.getDuration(),
+            osrmRoute.getGeometry(),
+            OSRMService.ESTIMATE_CODE.equals(response.getCode())
+        );
     }
 
     public Optional<Route> findById(Long id) {
@@ -0,0 +1,59 @@
+package com.tricolori.backend.service;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import com.tricolori.backend.dto.upstream.UpstreamMetricsResponse;
+import com.tricolori.backend.util.Histogram;
+
+/**
+ * Latency histogram and error count per upstream host (OSRM, Nominatim), recorded by
+ * intercepting every request of the outbound RestTemplate. I/O errors and 5xx count as errors.
+ */
+@Component
+public class UpstreamMetrics implements ClientHttpRequestInterceptor {
+
+    private record Upstream(Histogram latencyMicros, LongAdder errors) {
+        Upstream() {
+            this(new Histogram(), new LongAdder());
+        }
+    }
+
+    private final Map<String, Upstream> upstreams = new ConcurrentHashMap<>();
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Upstream upstream = upstreams.computeIfAbsent(request.getURI().getHost(), host -> new Upstream());
+        long started = System.nanoTime();
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            if (response.getStatusCode().is5xxServerError()) {
+                upstream.errors().increment();
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            upstream.errors().increment();
+            throw e;
+        } finally {
+            upstream.latencyMicros().record((System.nanoTime() - started) / 1_000);
+        }
+    }
+
+    public Map<String, UpstreamMetricsResponse.UpstreamStats> snapshot() {
+        Map<String, UpstreamMetricsResponse.UpstreamStats> stats = new TreeMap<>();
+        upstreams.forEach((host, upstream) -> stats.put(host, new UpstreamMetricsResponse.UpstreamStats(
+            upstream.latencyMicros().snapshot(), upstream.errors().sum()
+        )));
+        return stats;
+    }
+}
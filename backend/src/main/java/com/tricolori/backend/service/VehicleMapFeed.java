@@ -0,0 +1,335 @@
+package com.tricolori.backend.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.tricolori.backend.dto.vehicle.MapBounds;
+import com.tricolori.backend.dto.vehicle.VehicleFeedResponse;
+import com.tricolori.backend.dto.vehicle.VehicleLocationResponse;
+import com.tricolori.backend.entity.Vehicle;
+import com.tricolori.backend.repository.VehicleRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Vehicles shown on the home maps, kept in memory and answered without the database.
+ * Every change of a vehicle (a move, availability, appearing or disappearing) gets the next
+ * version, so a client polling with the version of its last response only receives what
+ * changed since. Vehicles are bucketed into the same grid cells as DriverLocationIndex and a
+ * viewport only visits the cells it covers.
+ *
+ * Positions come from VehiclePositionStore as they are reported; the vehicle list itself is
+ * reconciled with the database every refresh-interval-ms.
+ */
+@Component
+@Slf4j
+public class VehicleMapFeed {
+
+    static final double CELL_SIZE_DEGREES = DriverLocationIndex.CELL_SIZE_DEGREES;
+    private static final int TRAIL_LENGTH = 8;
+
+    // a cell the vehicle was in and the version it left it with
+    private record CellVisit(long cell, long leftAt) {}
+
+    /**
+     * `trail` are the last cells the vehicle left, latest first, so a client that saw it in its
+     * viewport learns when it drove out. Cells left before `forgottenUntil` are not known.
+     */
+    private record MapVehicle(
+        Long vehicleId, String model, String plateNum, double latitude, double longitude, boolean available,
+        long cell, List<CellVisit> trail, long forgottenUntil
+    ) {
+
+        MapVehicle moved(double latitude, double longitude) {
+            return new MapVehicle(vehicleId, model, plateNum, latitude, longitude, available,
+                cellOf(latitude, longitude), trail, forgottenUntil);
+        }
+
+        MapVehicle withDetails(String model, String plateNum, boolean available) {
+            return new MapVehicle(vehicleId, model, plateNum, latitude, longitude, available,
+                cell, trail, forgottenUntil);
+        }
+    }
+
+    private final Map<Long, MapVehicle> vehicles = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+    // version of the last change of each vehicle, removed ones included, and the vehicle of each such version
+    private final Map<Long, Long> lastChange = new ConcurrentHashMap<>();
+    private final NavigableMap<Long, Long> changes = new ConcurrentSkipListMap<>();
+
+    // changes are made under the lock, `published` is raised once a change is visible to readers
+    private long version;
+    private volatile long published;
+    // removals older than this are forgotten, clients behind it get a full response
+    private volatile long horizon;
+    private volatile boolean loaded;
+
+    private final VehicleRepository vehicleRepository;
+    private final int maxRemoved;
+
+    public VehicleMapFeed(
+        VehicleRepository vehicleRepository,
+        @Value("${vehicle.feed.max-removed:10000}") int maxRemoved
+    ) {
+        this.vehicleRepository = vehicleRepository;
+        this.maxRemoved = maxRemoved;
+    }
+
+    /** Every vehicle in the bounds, all of them when bounds is null */
+    public VehicleFeedResponse snapshot(MapBounds bounds) {
+        ensureLoaded();
+        long current = published;
+        List<VehicleLocationResponse> inBounds = new ArrayList<>();
+        for (MapVehicle vehicle : candidates(bounds)) {
+            if (bounds == null || bounds.contains(vehicle.latitude(), vehicle.longitude())) {
+                inBounds.add(toResponse(vehicle));
+            }
+        }
+        return new VehicleFeedResponse(current, true, inBounds, List.of());
+    }
+
+    /**
+     * Vehicles in the bounds that changed after version `since`, changed ones that left the
+     * bounds or the map are listed as removed. A snapshot when `since` is older than the
+     * remembered changes or newer than the feed, e.g. after a restart.
+     */
+    public VehicleFeedResponse changesSince(long since, MapBounds bounds) {
+        ensureLoaded();
+        long current = published;
+        if (since < horizon || since > current) {
+            return snapshot(bounds);
+        }
+
+        Map<Long, MapVehicle> changed = new LinkedHashMap<>();
+        for (Long vehicleId : changes.subMap(since, false, current, true).values()) {
+            changed.put(vehicleId, vehicles.get(vehicleId));
+        }
+
+        List<VehicleLocationResponse> updated = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+        changed.forEach((vehicleId, vehicle) -> {
+            if (vehicle == null) {
+                removed.add(vehicleId);
+            } else if (bounds == null || bounds.contains(vehicle.latitude(), vehicle.longitude())) {
+                updated.add(toResponse(vehicle));
+            } else if (mayHaveBeenInBounds(vehicle, since, bounds)) {
+                // it left the viewport since, or it may have
+                removed.add(vehicleId);
+            }
+        });
+        return new VehicleFeedResponse(current, false, updated, removed);
+    }
+
+    public long version() {
+        return published;
+    }
+
+    /** Moves a vehicle already on the map, others appear with the next refresh */
+    public synchronized void move(Long vehicleId, double latitude, double longitude) {
+        MapVehicle vehicle = vehicles.get(vehicleId);
+        if (vehicle != null && (vehicle.latitude() != latitude || vehicle.longitude() != longitude)) {
+            put(vehicle.moved(latitude, longitude));
+        }
+    }
+
+    public synchronized void setAvailable(Long vehicleId, boolean available) {
+        MapVehicle vehicle = vehicles.get(vehicleId);
+        if (vehicle != null && vehicle.available() != available) {
+            put(vehicle.withDetails(vehicle.model(), vehicle.plateNum(), available));
+        }
+    }
+
+    /**
+     * Adds vehicles that got a location, removes the ones that lost it and takes over model,
+     * plate and availability. Positions on the map are newer than the stored ones and are kept.
+     */
+    @Scheduled(fixedDelayString = "${vehicle.feed.refresh-interval-ms:30000}")
+    public void refresh() {
+        List<Vehicle> stored = vehicleRepository.findAllWithLocation();
+        synchronized (this) {
+            Set<Long> storedIds = new HashSet<>();
+            for (Vehicle vehicle : stored) {
+                storedIds.add(vehicle.getId());
+                MapVehicle current = vehicles.get(vehicle.getId());
+                if (current == null) {
+                    double latitude = vehicle.getLocation().getLatitude();
+                    double longitude = vehicle.getLocation().getLongitude();
+                    // it may have been on the map before under an older version, its trail is unknown
+                    put(new MapVehicle(vehicle.getId(), vehicle.getModel(), vehicle.getPlateNum(), latitude, longitude,
+                        vehicle.isAvailable(), cellOf(latitude, longitude), List.of(), version + 1));
+                    continue;
+                }
+                MapVehicle refreshed = current.withDetails(vehicle.getModel(), vehicle.getPlateNum(), vehicle.isAvailable());
+                if (!refreshed.equals(current)) {
+                    put(refreshed);
+                }
+            }
+            for (Long vehicleId : List.copyOf(vehicles.keySet())) {
+                if (!storedIds.contains(vehicleId)) {
+                    remove(vehicleId);
+                }
+            }
+            forgetOldRemovals();
+            loaded = true;
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            refresh();
+            log.info("Vehicle map feed loaded with {} vehicles.", vehicles.size());
+        }
+    }
+
+    private void put(MapVehicle vehicle) {
+        MapVehicle previous = vehicles.get(vehicle.vehicleId());
+        if (previous != null && previous.cell() != vehicle.cell()) {
+            vehicle = leftCell(vehicle, previous.cell(), version + 1);
+        }
+        vehicles.put(vehicle.vehicleId(), vehicle);
+        if (previous != null && previous.cell() != vehicle.cell()) {
+            removeFromCell(previous.cell(), vehicle.vehicleId());
+        }
+        if (previous == null || previous.cell() != vehicle.cell()) {
+            cells.computeIfAbsent(vehicle.cell(), c -> ConcurrentHashMap.newKeySet()).add(vehicle.vehicleId());
+        }
+        changed(vehicle.vehicleId());
+    }
+
+    private static MapVehicle leftCell(MapVehicle vehicle, long cell, long leftAt) {
+        List<CellVisit> trail = new ArrayList<>(TRAIL_LENGTH + 1);
+        trail.add(new CellVisit(cell, leftAt));
+        trail.addAll(vehicle.trail());
+        long forgottenUntil = vehicle.forgottenUntil();
+        if (trail.size() > TRAIL_LENGTH) {
+            forgottenUntil = Math.max(forgottenUntil, trail.removeLast().leftAt());
+        }
+        return new MapVehicle(vehicle.vehicleId(), vehicle.model(), vehicle.plateNum(), vehicle.latitude(),
+            vehicle.longitude(), vehicle.available(), vehicle.cell(), List.copyOf(trail), forgottenUntil);
+    }
+
+    // whether the vehicle was in a cell of the bounds at version `since` or after it. Cells are not
+    // aligned with viewports, so a vehicle can leave the bounds within its current cell as well
+    private static boolean mayHaveBeenInBounds(MapVehicle vehicle, long since, MapBounds bounds) {
+        if (since < vehicle.forgottenUntil() || cellInBounds(vehicle.cell(), bounds)) {
+            return true;
+        }
+        for (CellVisit visit : vehicle.trail()) {
+            if (visit.leftAt() <= since) {
+                break;
+            }
+            if (cellInBounds(visit.cell(), bounds)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean cellInBounds(long cell, MapBounds bounds) {
+        long latIndex = cell >> 32;
+        long lngIndex = (int) cell;
+        return latIndex >= (long) Math.floor(bounds.minLatitude() / CELL_SIZE_DEGREES)
+            && latIndex <= (long) Math.floor(bounds.maxLatitude() / CELL_SIZE_DEGREES)
+            && lngIndex >= (long) Math.floor(bounds.minLongitude() / CELL_SIZE_DEGREES)
+            && lngIndex <= (long) Math.floor(bounds.maxLongitude() / CELL_SIZE_DEGREES);
+    }
+
+    private void remove(Long vehicleId) {
+        MapVehicle removed = vehicles.remove(vehicleId);
+        if (removed != null) {
+            removeFromCell(removed.cell(), vehicleId);
+            changed(vehicleId);
+        }
+    }
+
+    private void changed(Long vehicleId) {
+        long next = ++version;
+        Long previous = lastChange.put(vehicleId, next);
+        changes.put(next, vehicleId);
+        if (previous != null) {
+            changes.remove(previous);
+        }
+        published = next;
+    }
+
+    // the oldest removals beyond max-removed are dropped, clients that haven't seen them start over
+    private void forgetOldRemovals() {
+        int removedCount = lastChange.size() - vehicles.size();
+        Iterator<Map.Entry<Long, Long>> oldest = changes.entrySet().iterator();
+        while (removedCount > maxRemoved && oldest.hasNext()) {
+            Map.Entry<Long, Long> change = oldest.next();
+            if (!vehicles.containsKey(change.getValue())) {
+                oldest.remove();
+                lastChange.remove(change.getValue());
+                horizon = change.getKey();
+                removedCount--;
+            }
+        }
+    }
+
+    private Iterable<MapVehicle> candidates(MapBounds bounds) {
+        if (bounds == null) {
+            return vehicles.values();
+        }
+
+        long minLat = (long) Math.floor(bounds.minLatitude() / CELL_SIZE_DEGREES);
+        long maxLat = (long) Math.floor(bounds.maxLatitude() / CELL_SIZE_DEGREES);
+        long minLng = (long) Math.floor(bounds.minLongitude() / CELL_SIZE_DEGREES);
+        long maxLng = (long) Math.floor(bounds.maxLongitude() / CELL_SIZE_DEGREES);
+        // a viewport covering more cells than there are vehicles is cheaper to scan
+        if ((maxLat - minLat + 1) * (maxLng - minLng + 1) > vehicles.size()) {
+            return vehicles.values();
+        }
+
+        List<MapVehicle> found = new ArrayList<>();
+        for (long lat = minLat; lat <= maxLat; lat++) {
+            for (long lng = minLng; lng <= maxLng; lng++) {
+                Set<Long> bucket = cells.get(key(lat, lng));
+                if (bucket == null) continue;
+
+                for (Long vehicleId : bucket) {
+                    MapVehicle vehicle = vehicles.get(vehicleId);
+                    if (vehicle != null) found.add(vehicle);
+                }
+            }
+        }
+        return found;
+    }
+
+    private void removeFromCell(long cell, Long vehicleId) {
+        cells.computeIfPresent(cell, (c, bucket) -> {
+            bucket.remove(vehicleId);
+            return bucket.isEmpty() ? null : bucket;
+        });
+    }
+
+    private static VehicleLocationResponse toResponse(MapVehicle vehicle) {
+        return new VehicleLocationResponse(
+            vehicle.vehicleId(), vehicle.model(), vehicle.plateNum(),
+            vehicle.latitude(), vehicle.longitude(), vehicle.available()
+        );
+    }
+
+    private static long cellOf(double latitude, double longitude) {
+        return key(
+            (long) Math.floor(latitude / CELL_SIZE_DEGREES),
+            (long) Math.floor(longitude / CELL_SIZE_DEGREES)
+        );
+    }
+
+    private static long key(long latIndex, long lngIndex) {
+        return (latIndex << 32) | (lngIndex & 0xffffffffL);
+    }
+}
@@ -0,0 +1,115 @@
+package com.tricolori.backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.entity.Vehicle;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Latest GPS position of every vehicle that reported one since startup. Pings only replace
+ * the entry in memory, reads are answered from it and the positions that changed since the
+ * last flush are written to vehicles.latitude/longitude in one JDBC batch every few seconds.
+ * Many pings of a vehicle between two flushes cost a single row update.
+ */
+@Component
+@Slf4j
+public class VehiclePositionStore {
+
+    private static final String UPDATE_SQL = "UPDATE vehicles SET latitude = ?, longitude = ? WHERE id = ?";
+
+    private record Position(Long vehicleId, double latitude, double longitude) {}
+
+    private final Map<Long, Position> latest = new ConcurrentHashMap<>();
+    // positions not written yet, a newer ping replaces the pending one
+    private final Map<Long, Position> unflushed = new ConcurrentHashMap<>();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DriverLocationIndex driverLocationIndex;
+    private final VehicleMapFeed vehicleMapFeed;
+    private final int batchSize;
+
+    public VehiclePositionStore(
+        JdbcTemplate jdbcTemplate,
+        DriverLocationIndex driverLocationIndex,
+        VehicleMapFeed vehicleMapFeed,
+        @Value("${vehicle.position.batch-size:500}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.driverLocationIndex = driverLocationIndex;
+        this.vehicleMapFeed = vehicleMapFeed;
+        this.batchSize = batchSize;
+    }
+
+    public void update(Long vehicleId, double latitude, double longitude) {
+        Position position = new Position(vehicleId, latitude, longitude);
+        latest.put(vehicleId, position);
+        unflushed.put(vehicleId, position);
+        driverLocationIndex.moveVehicle(vehicleId, latitude, longitude);
+        vehicleMapFeed.move(vehicleId, latitude, longitude);
+    }
+
+    /** Last reported position, null when the vehicle hasn't reported since startup */
+    public Location get(Long vehicleId) {
+        Position position = latest.get(vehicleId);
+        return position != null ? new Location(position.longitude(), position.latitude()) : null;
+    }
+
+    /** Last reported position of the vehicle, or the one it was loaded with */
+    public Location locationOf(Vehicle vehicle) {
+        Location reported = get(vehicle.getId());
+        return reported != null ? reported : vehicle.getLocation();
+    }
+
+    public int unflushedCount() {
+        return unflushed.size();
+    }
+
+    /** Writes the positions reported since the last flush, returns how many were written */
+    @Scheduled(fixedDelayString = "${vehicle.position.flush-interval-ms:2000}")
+    public int flush() {
+        List<Position> batch = new ArrayList<>(unflushed.size());
+        for (Long vehicleId : unflushed.keySet()) {
+            Position position = unflushed.remove(vehicleId);
+            if (position != null) {
+                batch.add(position);
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batchSize, (statement, position) -> {
+                statement.setDouble(1, position.latitude());
+                statement.setDouble(2, position.longitude());
+                statement.setLong(3, position.vehicleId());
+            });
+        } catch (DataAccessException e) {
+            // retried with the next flush unless a newer ping arrived meanwhile
+            batch.forEach(position -> unflushed.putIfAbsent(position.vehicleId(), position));
+            log.warn("Writing {} vehicle positions failed, retrying with the next flush", batch.size(), e);
+            return 0;
+        }
+        return batch.size();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        int written = flush();
+        if (written > 0) {
+            log.info("Wrote {} vehicle positions on shutdown.", written);
+        }
+    }
+}
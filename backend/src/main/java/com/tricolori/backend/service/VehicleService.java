@@ -1,7 +1,8 @@
 package com.tricolori.backend.service;
 
+import com.tricolori.backend.dto.vehicle.MapBounds;
+import com.tricolori.backend.dto.vehicle.VehicleFeedResponse;
 import com.tricolori.backend.dto.vehicle.VehicleLocationResponse;
-import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
 
 import com.tricolori.backend.entity.Location;
@@ -17,13 +18,14 @@ import com.tricolori.backend.dto.vehicle.VehicleDto;
 import lombok.RequiredArgsConstructor;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class VehicleService {
     private final VehicleRepository vehicleRepository;
     private final VehicleSpecificationRepository specificationRepository;
+    private final VehiclePositionStore vehiclePositionStore;
+    private final VehicleMapFeed vehicleMapFeed;
 
     public void fillDriverVehicleData(Person currentUser, ProfileResponse response) {
         vehicleRepository.findByDriverId(currentUser.getId()).ifPresent(vehicle -> {
@@ -65,40 +67,43 @@ public class VehicleService {
         return vehicleRepository.save(vehicle);
     }
 
-    public List<VehicleLocationResponse> getAllActiveVehicles() {
-        return vehicleRepository.findAllWithLocation()
-                .stream()
-                .map(vehicle -> new VehicleLocationResponse(
-                        vehicle.getId(),
-                        vehicle.getModel(),
-                        vehicle.getPlateNum(),
-                        vehicle.getLocation().getLatitude(),
-                        vehicle.getLocation().getLongitude(),
-                        vehicle.isAvailable()
-                ))
-                .collect(Collectors.toList());
+    // answered from VehicleMapFeed, the home maps poll this
+    public List<VehicleLocationResponse> getAllActiveVehicles(MapBounds bounds) {
+        return vehicleMapFeed.snapshot(bounds).vehicles();
     }
 
-    @Transactional
-    public VehicleLocationResponse updateVehicleLocation(Long vehicleId, double latitude, double longitude) {
+    public VehicleFeedResponse getVehicleFeed(Long since, MapBounds bounds) {
+        return since != null ? vehicleMapFeed.changesSince(since, bounds) : vehicleMapFeed.snapshot(bounds);
+    }
+
+    public VehicleLocationResponse getVehicleLocation(Long vehicleId) {
         Vehicle vehicle = vehicleRepository.findById(vehicleId)
                 .orElseThrow(() -> new RuntimeException("Vehicle not found"));
+        return toLocationResponse(vehicle);
+    }
 
-        // Update location
-        Location location = vehicle.getLocation();
-        if (location == null) {
-            location = new Location(latitude, longitude);
-            vehicle.setLocation(location);
-        } else {
-            location.setLatitude(latitude);
-            location.setLongitude(longitude);
-        }
+    // Only the position in memory changes, VehiclePositionStore writes it with the next batch
+    public VehicleLocationResponse updateVehicleLocation(Long vehicleId, double latitude, double longitude) {
+        Vehicle vehicle = vehicleRepository.findById(vehicleId)
+                .orElseThrow(() -> new RuntimeException("Vehicle not found"));
 
-        vehicleRepository.save(vehicle);
+        vehiclePositionStore.update(vehicleId, latitude, longitude);
 
         return new VehicleLocationResponse(
                 vehicle.getId(), vehicle.getModel(), vehicle.getPlateNum(),
                 latitude, longitude, vehicle.isAvailable()
         );
     }
+
+    private VehicleLocationResponse toLocationResponse(Vehicle vehicle) {
+        Location location = vehiclePositionStore.locationOf(vehicle);
+        return new VehicleLocationResponse(
+                vehicle.getId(),
+                vehicle.getModel(),
+                vehicle.getPlateNum(),
+                location != null ? location.getLatitude() : null,
+                location != null ? location.getLongitude() : null,
+                vehicle.isAvailable()
+        );
+    }
 }
@@ -0,0 +1,122 @@
+package com.tricolori.backend.util;
+
+import java.util.Arrays;
+
+/**
+ * Minimum cost bipartite assignment (Hungarian algorithm, O(n^2 * m)).
+ * Rows are matched to at most one column each and every column is used at most once.
+ * Pairs that must never be matched are marked with {@link #FORBIDDEN}.
+ */
+public final class AssignmentSolver {
+
+    public static final double FORBIDDEN = Double.POSITIVE_INFINITY;
+
+    // finite stand-in for forbidden pairs, larger than any real cost sum
+    private static final double BLOCKED_COST = 1e12;
+
+    private AssignmentSolver() {}
+
+    /**
+     * Returns for every row the index of its assigned column, or -1 when the row
+     * couldn't be matched (more rows than columns or only forbidden pairs left).
+     */
+    public static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        if (rows == 0) {
+            return new int[0];
+        }
+        int columns = cost[0].length;
+
+        int[] result = new int[rows];
+        Arrays.fill(result, -1);
+        if (columns == 0) {
+            return result;
+        }
+
+        if (rows <= columns) {
+            int[] rowToColumn = hungarian(cost, rows, columns, false);
+            for (int r = 0; r < rows; r++) {
+                result[r] = allowed(cost[r][rowToColumn[r]]) ? rowToColumn[r] : -1;
+            }
+        } else {
+            // the algorithm needs rows <= columns, so solve the transposed problem
+            int[] columnToRow = hungarian(cost, columns, rows, true);
+            for (int c = 0; c < columns; c++) {
+                int r = columnToRow[c];
+                if (allowed(cost[r][c])) {
+                    result[r] = c;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int[] hungarian(double[][] cost, int n, int m, boolean transposed) {
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] match = new int[m + 1];   // column -> row, 1-based, 0 = free
+        int[] way = new int[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            match[0] = i;
+            int j0 = 0;
+            double[] minv = new double[m + 1];
+            boolean[] used = new boolean[m + 1];
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+
+            do {
+                used[j0] = true;
+                int i0 = match[j0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) continue;
+
+                    double current = at(cost, i0 - 1, j - 1, transposed) - u[i0] - v[j];
+                    if (current < minv[j]) {
+                        minv[j] = current;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[match[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (match[j0] != 0);
+
+            do {
+                int j1 = way[j0];
+                match[j0] = match[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] assignment = new int[n];
+        for (int j = 1; j <= m; j++) {
+            if (match[j] != 0) {
+                assignment[match[j] - 1] = j - 1;
+            }
+        }
+        return assignment;
+    }
+
+    private static double at(double[][] cost, int i, int j, boolean transposed) {
+        double value = transposed ? cost[j][i] : cost[i][j];
+        return allowed(value) ? value : BLOCKED_COST;
+    }
+
+    private static boolean allowed(double value) {
+        return !Double.isInfinite(value) && !Double.isNaN(value);
+    }
+}
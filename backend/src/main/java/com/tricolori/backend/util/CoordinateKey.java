@@ -0,0 +1,21 @@
+package com.tricolori.backend.util;
+
+/**
+ * Cache keys of coordinates rounded to a ~10 m cell, so lookups of nearly the same point
+ * share one entry.
+ */
+public final class CoordinateKey {
+    // ~11 m of latitude, ~8 m of longitude around Novi Sad
+    private static final double PRECISION = 10_000;
+
+    private CoordinateKey() {}
+
+    /** e.g. "452671,198335" */
+    public static String of(double lat, double lng) {
+        return append(new StringBuilder(16), lat, lng).toString();
+    }
+
+    public static StringBuilder append(StringBuilder key, double lat, double lng) {
+        return key.append(Math.round(lat * PRECISION)).append(',').append(Math.round(lng * PRECISION));
+    }
+}
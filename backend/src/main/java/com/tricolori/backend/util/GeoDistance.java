@@ -0,0 +1,171 @@
+package com.tricolori.backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import com.tricolori.backend.entity.Location;
+
+/**
+ * Distances on the earth surface in meters.
+ * Haversine is exact enough for any distance, the equirectangular approximation is a few
+ * times cheaper and within 0.1% for city scale distances, which is all ranking needs.
+ * The array variants work on primitive lat/lng arrays so hot loops don't allocate.
+ */
+public final class GeoDistance {
+
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    public static final double METERS_PER_DEGREE = Math.toRadians(1) * EARTH_RADIUS_METERS;
+
+    private GeoDistance() {}
+
+    public static double haversineMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double sinLat = Math.sin(dLat / 2);
+        double sinLng = Math.sin(dLng / 2);
+        double a = sinLat * sinLat
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLng * sinLng;
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    public static double equirectangularMeters(double lat1, double lng1, double lat2, double lng2) {
+        double x = (lng2 - lng1) * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        double y = lat2 - lat1;
+        return Math.sqrt(x * x + y * y) * METERS_PER_DEGREE;
+    }
+
+    /** Haversine distance between two locations, Double.MAX_VALUE if either is missing */
+    public static double meters(Location from, Location to) {
+        if (from == null || to == null || from.getLatitude() == null || from.getLongitude() == null
+                || to.getLatitude() == null || to.getLongitude() == null) {
+            return Double.MAX_VALUE;
+        }
+        return haversineMeters(from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+    }
+
+    /**
+     * Equirectangular distances from the point to the first `count` positions, written to `out`.
+     * The longitude scale is computed once at the point's latitude.
+     */
+    public static void equirectangularMeters(
+        double[] lats, double[] lngs, int count, double lat, double lng, double[] out
+    ) {
+        double lngScale = Math.cos(Math.toRadians(lat));
+        for (int i = 0; i < count; i++) {
+            double x = (lngs[i] - lng) * lngScale;
+            double y = lats[i] - lat;
+            out[i] = Math.sqrt(x * x + y * y) * METERS_PER_DEGREE;
+        }
+    }
+
+    /** Indexes of the first `count` positions ordered by distance from the point, closest first */
+    public static int[] orderByDistance(double[] lats, double[] lngs, int count, double lat, double lng) {
+        int[] order = new int[count];
+        orderByDistance(lats, lngs, count, lat, lng, new double[count], order);
+        return order;
+    }
+
+    /**
+     * Allocation-free variant for hot loops, `distances` and `order` are caller owned buffers of
+     * at least `count` elements. Afterwards `order` holds the indexes, closest first, and
+     * `distances` the matching sorted distances.
+     */
+    public static void orderByDistance(
+        double[] lats, double[] lngs, int count, double lat, double lng, double[] distances, int[] order
+    ) {
+        equirectangularMeters(lats, lngs, count, lat, lng, distances);
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+            if (Double.isNaN(distances[i])) {
+                distances[i] = Double.MAX_VALUE;
+            }
+        }
+        sort(distances, order, 0, count - 1);
+    }
+
+    /** Items ordered by distance of their position from the point, closest first. Items without a position go last */
+    public static <T> List<T> sortByDistance(List<T> items, Function<T, Location> position, Location point) {
+        int count = items.size();
+        if (count < 2 || point == null) {
+            return items;
+        }
+
+        double[] lats = new double[count];
+        double[] lngs = new double[count];
+        for (int i = 0; i < count; i++) {
+            Location location = position.apply(items.get(i));
+            boolean known = location != null && location.getLatitude() != null && location.getLongitude() != null;
+            lats[i] = known ? location.getLatitude() : Double.NaN;
+            lngs[i] = known ? location.getLongitude() : Double.NaN;
+        }
+
+        int[] order = orderByDistance(lats, lngs, count, point.getLatitude(), point.getLongitude());
+        List<T> sorted = new ArrayList<>(count);
+        for (int index : order) {
+            sorted.add(items.get(index));
+        }
+        return sorted;
+    }
+
+    // quicksort of keys carrying the index array along, no boxing.
+    // Ties are ordered by index, so the result matches a stable sort.
+    private static void sort(double[] keys, int[] order, int low, int high) {
+        while (low < high) {
+            if (high - low < 16) {
+                insertionSort(keys, order, low, high);
+                return;
+            }
+
+            int middle = (low + high) >>> 1;
+            double pivot = keys[middle];
+            int pivotIndex = order[middle];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (before(keys[i], order[i], pivot, pivotIndex)) i++;
+                while (before(pivot, pivotIndex, keys[j], order[j])) j--;
+                if (i <= j) {
+                    swap(keys, order, i++, j--);
+                }
+            }
+
+            // recurse into the smaller half to keep the stack shallow
+            if (j - low < high - i) {
+                sort(keys, order, low, j);
+                low = i;
+            } else {
+                sort(keys, order, i, high);
+                high = j;
+            }
+        }
+    }
+
+    private static void insertionSort(double[] keys, int[] order, int low, int high) {
+        for (int i = low + 1; i <= high; i++) {
+            double key = keys[i];
+            int index = order[i];
+            int j = i - 1;
+            while (j >= low && before(key, index, keys[j], order[j])) {
+                keys[j + 1] = keys[j];
+                order[j + 1] = order[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            order[j + 1] = index;
+        }
+    }
+
+    private static boolean before(double key, int index, double otherKey, int otherIndex) {
+        return key < otherKey || (key == otherKey && index < otherIndex);
+    }
+
+    private static void swap(double[] keys, int[] order, int i, int j) {
+        double key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int index = order[i];
+        order[i] = order[j];
+        order[j] = index;
+    }
+}
@@ -0,0 +1,69 @@
+package com.tricolori.backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.tricolori.backend.entity.Location;
+
+/**
+ * Encoded polyline format with 5 decimals, the geometry format OSRM returns.
+ */
+public final class Polyline {
+
+    private static final double PRECISION = 1e5;
+
+    private Polyline() {}
+
+    public static String encode(List<Location> points) {
+        StringBuilder encoded = new StringBuilder();
+        long previousLat = 0;
+        long previousLng = 0;
+        for (Location point : points) {
+            long lat = Math.round(point.getLatitude() * PRECISION);
+            long lng = Math.round(point.getLongitude() * PRECISION);
+            encodeValue(lat - previousLat, encoded);
+            encodeValue(lng - previousLng, encoded);
+            previousLat = lat;
+            previousLng = lng;
+        }
+        return encoded.toString();
+    }
+
+    /** Throws IllegalArgumentException when the string is not a complete encoded polyline */
+    public static List<Location> decode(String encoded) {
+        List<Location> points = new ArrayList<>();
+        int[] index = {0};
+        long lat = 0;
+        long lng = 0;
+        while (index[0] < encoded.length()) {
+            lat += decodeValue(encoded, index);
+            lng += decodeValue(encoded, index);
+            points.add(new Location(lng / PRECISION, lat / PRECISION));
+        }
+        return points;
+    }
+
+    private static long decodeValue(String encoded, int[] index) {
+        long result = 0;
+        int shift = 0;
+        int chunk;
+        do {
+            if (index[0] >= encoded.length()) {
+                throw new IllegalArgumentException("Malformed polyline");
+            }
+            chunk = encoded.charAt(index[0]++) - 63;
+            result |= (long) (chunk & 0x1f) << shift;
+            shift += 5;
+        } while (chunk >= 0x20);
+        return (result & 1) != 0 ? ~(result >> 1) : result >> 1;
+    }
+
+    private static void encodeValue(long value, StringBuilder encoded) {
+        long shifted = value < 0 ? ~(value << 1) : value << 1;
+        while (shifted >= 0x20) {
+            encoded.append((char) ((0x20 | (shifted & 0x1f)) + 63));
+            shifted >>= 5;
+        }
+        encoded.append((char) (shifted + 63));
+    }
+}
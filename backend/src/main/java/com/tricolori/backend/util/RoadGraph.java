@@ -0,0 +1,532 @@
+package com.tricolori.backend.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Directed road graph with travel times, searched with A* and ALT landmarks (lower bounds
+ * from precomputed travel times to and from a few far apart nodes and the triangle inequality).
+ *
+ * The text format is a preprocessed OSM extract, one node or way per line:
+ * <pre>
+ * n &lt;id&gt; &lt;lat&gt; &lt;lng&gt;
+ * w &lt;speed km/h&gt; &lt;oneway 0|1&gt; &lt;node id&gt; &lt;node id&gt; ...
+ * </pre>
+ * Lines starting with # are comments. Edge lengths are computed from node coordinates.
+ */
+public class RoadGraph {
+
+    public record Path(int[] nodes, double meters, double seconds) {}
+
+    // ~500 m cells for snapping coordinates to the nearest node
+    private static final double CELL_DEGREES = 0.005;
+    private static final int MAX_SNAP_RINGS = 10;
+
+    private final double[] lats;
+    private final double[] lngs;
+
+    // outgoing and incoming edges in compressed rows: edges of node i are [start[i], start[i + 1])
+    private final int[] outStart;
+    private final int[] outTarget;
+    private final double[] outMeters;
+    private final double[] outSeconds;
+    private final int[] inStart;
+    private final int[] inSource;
+    private final double[] inSeconds;
+
+    // seconds from every landmark to every node and from every node to every landmark
+    private final double[][] fromLandmark;
+    private final double[][] toLandmark;
+
+    // node indexes sorted by grid cell
+    private final long[] cellKeys;
+    private final int[] cellNodes;
+
+    // search buffers as large as the graph, borrowed per search. At most one per core is kept,
+    // searches beyond that allocate their own and leave them to the garbage collector
+    private final BlockingQueue<SearchState> idleStates =
+        new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    private RoadGraph(double[] lats, double[] lngs, int[] from, int[] to, double[] speeds, int edges, int landmarks) {
+        this.lats = lats;
+        this.lngs = lngs;
+        int nodes = lats.length;
+
+        outStart = new int[nodes + 1];
+        inStart = new int[nodes + 1];
+        for (int e = 0; e < edges; e++) {
+            outStart[from[e] + 1]++;
+            inStart[to[e] + 1]++;
+        }
+        for (int i = 0; i < nodes; i++) {
+            outStart[i + 1] += outStart[i];
+            inStart[i + 1] += inStart[i];
+        }
+
+        outTarget = new int[edges];
+        outMeters = new double[edges];
+        outSeconds = new double[edges];
+        inSource = new int[edges];
+        inSeconds = new double[edges];
+        int[] outNext = Arrays.copyOf(outStart, nodes);
+        int[] inNext = Arrays.copyOf(inStart, nodes);
+        for (int e = 0; e < edges; e++) {
+            double meters = GeoDistance.haversineMeters(lats[from[e]], lngs[from[e]], lats[to[e]], lngs[to[e]]);
+            double seconds = meters / (speeds[e] / 3.6);
+
+            int out = outNext[from[e]]++;
+            outTarget[out] = to[e];
+            outMeters[out] = meters;
+            outSeconds[out] = seconds;
+
+            int in = inNext[to[e]]++;
+            inSource[in] = from[e];
+            inSeconds[in] = seconds;
+        }
+
+        int count = Math.min(landmarks, nodes);
+        fromLandmark = new double[count][];
+        toLandmark = new double[count][];
+
+        cellKeys = new long[nodes];
+        cellNodes = new int[nodes];
+        indexCells();
+
+        selectLandmarks();
+    }
+
+    public static RoadGraph read(Reader source, int landmarks) throws IOException {
+        Map<Long, Integer> indexes = new HashMap<>();
+        List<double[]> coordinates = new ArrayList<>();
+        int[] from = new int[1024];
+        int[] to = new int[1024];
+        double[] speeds = new double[1024];
+        int edges = 0;
+
+        BufferedReader reader = new BufferedReader(source);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            String[] parts = line.split("\\s+");
+            try {
+                if (parts[0].equals("n")) {
+                    indexes.put(Long.parseLong(parts[1]), coordinates.size());
+                    coordinates.add(new double[] {Double.parseDouble(parts[2]), Double.parseDouble(parts[3])});
+                } else if (parts[0].equals("w")) {
+                    double speed = Double.parseDouble(parts[1]);
+                    boolean oneway = parts[2].equals("1");
+                    for (int i = 4; i < parts.length; i++) {
+                        int a = nodeIndex(indexes, parts[i - 1]);
+                        int b = nodeIndex(indexes, parts[i]);
+                        if (edges + 2 > from.length) {
+                            from = Arrays.copyOf(from, from.length * 2);
+                            to = Arrays.copyOf(to, to.length * 2);
+                            speeds = Arrays.copyOf(speeds, speeds.length * 2);
+                        }
+                        from[edges] = a;
+                        to[edges] = b;
+                        speeds[edges++] = speed;
+                        if (!oneway) {
+                            from[edges] = b;
+                            to[edges] = a;
+                            speeds[edges++] = speed;
+                        }
+                    }
+                } else {
+                    throw new IllegalArgumentException("unknown record " + parts[0]);
+                }
+            } catch (RuntimeException e) {
+                throw new IOException("Invalid road graph line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+
+        double[] lats = new double[coordinates.size()];
+        double[] lngs = new double[coordinates.size()];
+        for (int i = 0; i < lats.length; i++) {
+            lats[i] = coordinates.get(i)[0];
+            lngs[i] = coordinates.get(i)[1];
+        }
+        return new RoadGraph(lats, lngs, from, to, speeds, edges, landmarks);
+    }
+
+    private static int nodeIndex(Map<Long, Integer> indexes, String id) {
+        Integer index = indexes.get(Long.parseLong(id));
+        if (index == null) {
+            throw new IllegalArgumentException("way references unknown node " + id);
+        }
+        return index;
+    }
+
+    public int nodeCount() {
+        return lats.length;
+    }
+
+    public int edgeCount() {
+        return outTarget.length;
+    }
+
+    public double latitude(int node) {
+        return lats[node];
+    }
+
+    public double longitude(int node) {
+        return lngs[node];
+    }
+
+    /** Nearest node within about 5 km, -1 when there is none */
+    public int nearestNode(double lat, double lng) {
+        int row = (int) Math.floor(lat / CELL_DEGREES);
+        int column = (int) Math.floor(lng / CELL_DEGREES);
+        int best = -1;
+        double bestMeters = Double.POSITIVE_INFINITY;
+
+        for (int ring = 0; ring <= MAX_SNAP_RINGS; ring++) {
+            for (int r = row - ring; r <= row + ring; r++) {
+                for (int c = column - ring; c <= column + ring; c++) {
+                    // only the border of the ring, the inside was searched already
+                    if (Math.abs(r - row) != ring && Math.abs(c - column) != ring) continue;
+
+                    int i = Arrays.binarySearch(cellKeys, cellKey(r, c));
+                    if (i < 0) continue;
+                    while (i > 0 && cellKeys[i - 1] == cellKeys[i]) i--;
+                    for (; i < cellKeys.length && cellKeys[i] == cellKey(r, c); i++) {
+                        int node = cellNodes[i];
+                        double meters = GeoDistance.equirectangularMeters(lat, lng, lats[node], lngs[node]);
+                        if (meters < bestMeters) {
+                            bestMeters = meters;
+                            best = node;
+                        }
+                    }
+                }
+            }
+            // a node in the next ring can still be closer than one found in a corner of this one
+            if (best != -1 && bestMeters <= ring * CELL_DEGREES * GeoDistance.METERS_PER_DEGREE
+                    * Math.cos(Math.toRadians(lat))) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /** Fastest path between two nodes, null when the target can't be reached */
+    public Path route(int source, int target) {
+        SearchState state = borrowState();
+        try {
+            return route(state, source, target);
+        } finally {
+            idleStates.offer(state);
+        }
+    }
+
+    private Path route(SearchState state, int source, int target) {
+        state.relax(source, 0, -1, -1, lowerBound(source, target));
+
+        while (!state.heap.isEmpty()) {
+            int node = state.heap.poll();
+            if (state.settled(node)) continue;
+            state.settle(node);
+            if (node == target) break;
+
+            for (int e = outStart[node]; e < outStart[node + 1]; e++) {
+                int next = outTarget[e];
+                double seconds = state.distance(node) + outSeconds[e];
+                if (seconds < state.distance(next)) {
+                    state.relax(next, seconds, node, e, seconds + lowerBound(next, target));
+                }
+            }
+        }
+
+        if (!state.settled(target)) {
+            return null;
+        }
+
+        int length = 1;
+        for (int node = target; node != source; node = state.parent(node)) length++;
+        int[] nodes = new int[length];
+        double meters = 0;
+        for (int node = target, i = length - 1; i >= 0; node = state.parent(node), i--) {
+            nodes[i] = node;
+            if (node != source) {
+                meters += outMeters[state.parentEdge(node)];
+            }
+        }
+        return new Path(nodes, meters, state.distance(target));
+    }
+
+    /** Travel seconds from every source to the target, in one backward search; infinity when unreachable */
+    public double[] secondsTo(int[] sources, int target) {
+        SearchState state = borrowState();
+        try {
+            return secondsTo(state, sources, target);
+        } finally {
+            idleStates.offer(state);
+        }
+    }
+
+    private double[] secondsTo(SearchState state, int[] sources, int target) {
+        state.relax(target, 0, -1, -1, 0);
+
+        int remaining = 0;
+        for (int source : sources) {
+            if (source >= 0) remaining++;
+        }
+
+        while (!state.heap.isEmpty() && remaining > 0) {
+            int node = state.heap.poll();
+            if (state.settled(node)) continue;
+            state.settle(node);
+            for (int source : sources) {
+                if (source == node) remaining--;
+            }
+
+            for (int e = inStart[node]; e < inStart[node + 1]; e++) {
+                int previous = inSource[e];
+                double seconds = state.distance(node) + inSeconds[e];
+                if (seconds < state.distance(previous)) {
+                    state.relax(previous, seconds, node, e, seconds);
+                }
+            }
+        }
+
+        double[] seconds = new double[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            seconds[i] = sources[i] >= 0 && state.settled(sources[i])
+                ? state.distance(sources[i])
+                : Double.POSITIVE_INFINITY;
+        }
+        return seconds;
+    }
+
+    private double lowerBound(int node, int target) {
+        double bound = 0;
+        for (int l = 0; l < fromLandmark.length; l++) {
+            double forward = fromLandmark[l][target] - fromLandmark[l][node];
+            double backward = toLandmark[l][node] - toLandmark[l][target];
+            if (Double.isFinite(forward) && forward > bound) bound = forward;
+            if (Double.isFinite(backward) && backward > bound) bound = backward;
+        }
+        return bound;
+    }
+
+    // farthest-first selection, each landmark is the node farthest from the ones picked before
+    private void selectLandmarks() {
+        if (fromLandmark.length == 0) return;
+
+        double[] nearest = new double[lats.length];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        int landmark = 0;
+        for (int l = 0; l < fromLandmark.length; l++) {
+            fromLandmark[l] = allSeconds(landmark, true);
+            toLandmark[l] = allSeconds(landmark, false);
+
+            int farthest = -1;
+            for (int node = 0; node < lats.length; node++) {
+                double seconds = Math.min(fromLandmark[l][node], toLandmark[l][node]);
+                if (Double.isFinite(seconds)) {
+                    nearest[node] = Math.min(nearest[node], seconds);
+                }
+                if (nearest[node] > 0 && (farthest == -1 || compareFarthest(nearest, node, farthest) > 0)) {
+                    farthest = node;
+                }
+            }
+            // on graphs smaller than the landmark count the last one is repeated
+            if (farthest != -1) {
+                landmark = farthest;
+            }
+        }
+    }
+
+    // prefer nodes connected to the landmarks picked so far, smaller components don't get landmarks
+    private static int compareFarthest(double[] nearest, int a, int b) {
+        boolean finiteA = Double.isFinite(nearest[a]);
+        boolean finiteB = Double.isFinite(nearest[b]);
+        if (finiteA != finiteB) return finiteA ? 1 : -1;
+        return Double.compare(nearest[a], nearest[b]);
+    }
+
+    private double[] allSeconds(int origin, boolean forward) {
+        SearchState state = borrowState();
+        try {
+            return allSeconds(state, origin, forward);
+        } finally {
+            idleStates.offer(state);
+        }
+    }
+
+    private double[] allSeconds(SearchState state, int origin, boolean forward) {
+        state.relax(origin, 0, -1, -1, 0);
+        while (!state.heap.isEmpty()) {
+            int node = state.heap.poll();
+            if (state.settled(node)) continue;
+            state.settle(node);
+
+            int start = forward ? outStart[node] : inStart[node];
+            int end = forward ? outStart[node + 1] : inStart[node + 1];
+            for (int e = start; e < end; e++) {
+                int next = forward ? outTarget[e] : inSource[e];
+                double seconds = state.distance(node) + (forward ? outSeconds[e] : inSeconds[e]);
+                if (seconds < state.distance(next)) {
+                    state.relax(next, seconds, node, e, seconds);
+                }
+            }
+        }
+
+        double[] seconds = new double[lats.length];
+        for (int node = 0; node < seconds.length; node++) {
+            seconds[node] = state.distance(node);
+        }
+        return seconds;
+    }
+
+    // an idle buffer when there is one, reset for a new search
+    private SearchState borrowState() {
+        SearchState state = idleStates.poll();
+        if (state == null) {
+            state = new SearchState(lats.length);
+        }
+        state.reset();
+        return state;
+    }
+
+    // search buffers kept for reuse, for tests
+    int idleStateCount() {
+        return idleStates.size();
+    }
+
+    private void indexCells() {
+        Integer[] order = new Integer[lats.length];
+        long[] keys = new long[lats.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            keys[i] = cellKey((int) Math.floor(lats[i] / CELL_DEGREES), (int) Math.floor(lngs[i] / CELL_DEGREES));
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+        for (int i = 0; i < order.length; i++) {
+            cellKeys[i] = keys[order[i]];
+            cellNodes[i] = order[i];
+        }
+    }
+
+    private static long cellKey(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+
+    /**
+     * Buffers of one search at a time. Entries are valid only when their stamp matches the
+     * current search, so starting a search doesn't clear arrays as large as the graph.
+     */
+    private static class SearchState {
+        private final int[] stamps;
+        private final double[] distances;
+        private final int[] parents;
+        private final int[] parentEdges;
+        private final boolean[] settled;
+        private final MinHeap heap = new MinHeap();
+        private int stamp;
+
+        SearchState(int nodes) {
+            stamps = new int[nodes];
+            distances = new double[nodes];
+            parents = new int[nodes];
+            parentEdges = new int[nodes];
+            settled = new boolean[nodes];
+        }
+
+        void reset() {
+            stamp++;
+            heap.clear();
+        }
+
+        double distance(int node) {
+            return stamps[node] == stamp ? distances[node] : Double.POSITIVE_INFINITY;
+        }
+
+        int parent(int node) {
+            return parents[node];
+        }
+
+        int parentEdge(int node) {
+            return parentEdges[node];
+        }
+
+        boolean settled(int node) {
+            return stamps[node] == stamp && settled[node];
+        }
+
+        void settle(int node) {
+            settled[node] = true;
+        }
+
+        void relax(int node, double distance, int parent, int parentEdge, double priority) {
+            stamps[node] = stamp;
+            distances[node] = distance;
+            parents[node] = parent;
+            parentEdges[node] = parentEdge;
+            settled[node] = false;
+            heap.add(node, priority);
+        }
+    }
+
+    // binary heap of node indexes, stale entries are skipped by the searches
+    private static class MinHeap {
+        private int[] nodes = new int[64];
+        private double[] keys = new double[64];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(int node, double key) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) break;
+                nodes[i] = nodes[parent];
+                keys[i] = keys[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            keys[i] = key;
+        }
+
+        int poll() {
+            int top = nodes[0];
+            int lastNode = nodes[--size];
+            double lastKey = keys[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+                if (keys[child] >= lastKey) break;
+                nodes[i] = nodes[child];
+                keys[i] = keys[child];
+                i = child;
+            }
+            nodes[i] = lastNode;
+            keys[i] = lastKey;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.tricolori.backend.util;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.entity.Route;
+import com.tricolori.backend.entity.Stop;
+
+/**
+ * Simplified copies of a route geometry for maps zoomed out far enough not to show the detail.
+ * Each level is the Douglas–Peucker simplification of the full geometry at one tolerance, stored
+ * together in a compact binary form: zigzag varint deltas of 1e-5 degree coordinates.
+ *
+ * Layout: level count, then per level its tolerance in meters, point count and the deltas.
+ */
+public final class RouteGeometryLevels {
+
+    /** Tolerances of the stored levels in meters, from the most to the least detailed */
+    public static final int[] TOLERANCES_METERS = {5, 20, 80};
+
+    private static final double PRECISION = 1e5;
+    // meters per pixel at zoom 0 on the equator, for 256 px web map tiles
+    private static final double EQUATOR_METERS_PER_PIXEL = 156_543.03;
+
+    private RouteGeometryLevels() {}
+
+    public static byte[] encode(List<Location> geometry) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(geometry.size() * 2);
+        writeVarint(out, TOLERANCES_METERS.length);
+        for (int tolerance : TOLERANCES_METERS) {
+            List<Location> level = simplify(geometry, tolerance);
+            writeVarint(out, tolerance);
+            writeVarint(out, level.size());
+            long previousLat = 0;
+            long previousLng = 0;
+            for (Location point : level) {
+                long lat = Math.round(point.getLatitude() * PRECISION);
+                long lng = Math.round(point.getLongitude() * PRECISION);
+                writeVarint(out, zigzag(lat - previousLat));
+                writeVarint(out, zigzag(lng - previousLng));
+                previousLat = lat;
+                previousLng = lng;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /** Levels of an encoded polyline, null when it can't be decoded */
+    public static byte[] fromPolyline(String polyline) {
+        try {
+            return polyline != null ? encode(Polyline.decode(polyline)) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public static List<Location> decode(byte[] levels, int level) {
+        int[] position = {0};
+        int count = (int) readVarint(levels, position);
+        if (level < 0 || level >= count) {
+            throw new IllegalArgumentException("No geometry level " + level);
+        }
+
+        for (int l = 0; ; l++) {
+            readVarint(levels, position);
+            int points = (int) readVarint(levels, position);
+            if (l < level) {
+                // skip the deltas of the more detailed levels
+                for (int i = 0; i < points * 2; i++) readVarint(levels, position);
+                continue;
+            }
+
+            List<Location> geometry = new ArrayList<>(points);
+            long lat = 0;
+            long lng = 0;
+            for (int i = 0; i < points; i++) {
+                lat += unzigzag(readVarint(levels, position));
+                lng += unzigzag(readVarint(levels, position));
+                geometry.add(new Location(lng / PRECISION, lat / PRECISION));
+            }
+            return geometry;
+        }
+    }
+
+    /** Coarsest level whose error stays under a pixel at the given zoom, -1 when only the full geometry will do */
+    public static int levelForZoom(int zoom, double latitude) {
+        int clamped = Math.max(0, Math.min(zoom, 22));
+        double metersPerPixel = EQUATOR_METERS_PER_PIXEL * Math.cos(Math.toRadians(latitude)) / Math.pow(2, clamped);
+        for (int level = TOLERANCES_METERS.length - 1; level >= 0; level--) {
+            if (TOLERANCES_METERS[level] <= metersPerPixel) {
+                return level;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Encoded polyline of the route for the given map zoom, the full geometry when zoom is null.
+     * Routes saved without levels are simplified on the fly, malformed geometry is returned as is.
+     */
+    public static String polyline(Route route, Integer zoom) {
+        String fullGeometry = route.getRouteGeometry();
+        if (zoom == null || fullGeometry == null) {
+            return fullGeometry;
+        }
+
+        Stop pickup = route.getPickupStop();
+        double latitude = pickup != null && pickup.getLocation() != null && pickup.getLocation().getLatitude() != null
+            ? pickup.getLocation().getLatitude()
+            : 45;
+        int level = levelForZoom(zoom, latitude);
+        if (level == -1) {
+            return fullGeometry;
+        }
+
+        if (route.getGeometryLevels() != null) {
+            return Polyline.encode(decode(route.getGeometryLevels(), level));
+        }
+        try {
+            return Polyline.encode(simplify(Polyline.decode(fullGeometry), TOLERANCES_METERS[level]));
+        } catch (IllegalArgumentException e) {
+            return fullGeometry;
+        }
+    }
+
+    // Douglas–Peucker without recursion, distances in meters on a local equirectangular projection
+    public static List<Location> simplify(List<Location> points, double toleranceMeters) {
+        int n = points.size();
+        if (n < 3) {
+            return new ArrayList<>(points);
+        }
+
+        double latScale = GeoDistance.METERS_PER_DEGREE;
+        double lngScale = latScale * Math.cos(Math.toRadians(points.getFirst().getLatitude()));
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = points.get(i).getLongitude() * lngScale;
+            y[i] = points.get(i).getLatitude() * latScale;
+        }
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        int[] stack = new int[2 * n];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        double toleranceSquared = toleranceMeters * toleranceMeters;
+
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+
+            int farthest = -1;
+            double farthestSquared = toleranceSquared;
+            for (int i = first + 1; i < last; i++) {
+                double d = segmentDistanceSquared(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (d > farthestSquared) {
+                    farthestSquared = d;
+                    farthest = i;
+                }
+            }
+
+            if (farthest != -1) {
+                keep[farthest] = true;
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+
+        List<Location> simplified = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) simplified.add(points.get(i));
+        }
+        return simplified;
+    }
+
+    private static double segmentDistanceSquared(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] in, int[] position) {
+        long result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in[position[0]++];
+            result |= (long) (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return result;
+    }
+}
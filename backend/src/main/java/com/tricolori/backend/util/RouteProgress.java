@@ -0,0 +1,159 @@
+package com.tricolori.backend.util;
+
+import java.util.List;
+
+import com.tricolori.backend.entity.Location;
+
+/**
+ * Progress of a vehicle along a route polyline. The polyline is projected once to meters on a
+ * local equirectangular plane together with the cumulative distance of every vertex, and each
+ * position is snapped to the closest segment within a short lookahead of the last snapped one.
+ * A moving cursor keeps the work per position constant however long the route is; only a
+ * position off every segment ahead (a detour, a GPS jump) is snapped with a scan of the route,
+ * and at most every few positions while the vehicle stays off the route.
+ */
+public final class RouteProgress {
+
+    // further than a vehicle drives between two pings
+    private static final double LOOKAHEAD_METERS = 500;
+    private static final double OFF_ROUTE_METERS = 50;
+    private static final int RESCAN_EVERY = 10;
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] cumulative;
+    private final double originLat;
+    private final double originLng;
+    private final double lngScale;
+
+    private int cursor;
+    private double travelled;
+    private double offRouteMeters;
+    private int sinceScan = RESCAN_EVERY;
+    private long checkedSegments;
+
+    public RouteProgress(List<Location> polyline) {
+        if (polyline.size() < 2) {
+            throw new IllegalArgumentException("A route needs at least two points");
+        }
+
+        int n = polyline.size();
+        originLat = polyline.getFirst().getLatitude();
+        originLng = polyline.getFirst().getLongitude();
+        lngScale = Math.cos(Math.toRadians(originLat));
+        x = new double[n];
+        y = new double[n];
+        cumulative = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = projectX(polyline.get(i).getLongitude());
+            y[i] = projectY(polyline.get(i).getLatitude());
+            if (i > 0) {
+                cumulative[i] = cumulative[i - 1] + Math.hypot(x[i] - x[i - 1], y[i] - y[i - 1]);
+            }
+        }
+    }
+
+    /** Progress along an encoded polyline, null when it is missing, malformed or a single point */
+    public static RouteProgress fromPolyline(String encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        try {
+            List<Location> polyline = Polyline.decode(encoded);
+            return polyline.size() >= 2 ? new RouteProgress(polyline) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** Snaps the position onto the route and returns the remaining distance in meters */
+    public synchronized double advance(double latitude, double longitude) {
+        double px = projectX(longitude);
+        double py = projectY(latitude);
+
+        int last = x.length - 2;
+        double limit = travelled + LOOKAHEAD_METERS;
+        int best = cursor;
+        double bestSquared = Double.MAX_VALUE;
+        for (int i = cursor; i <= last && (i == cursor || cumulative[i] <= limit); i++) {
+            double d = distanceSquared(i, px, py);
+            if (d < bestSquared) {
+                bestSquared = d;
+                best = i;
+            }
+        }
+
+        if (bestSquared > OFF_ROUTE_METERS * OFF_ROUTE_METERS) {
+            if (++sinceScan >= RESCAN_EVERY) {
+                sinceScan = 0;
+                for (int i = 0; i <= last; i++) {
+                    double d = distanceSquared(i, px, py);
+                    if (d < bestSquared) {
+                        bestSquared = d;
+                        best = i;
+                    }
+                }
+            }
+        } else {
+            sinceScan = RESCAN_EVERY;
+        }
+
+        cursor = best;
+        travelled = cumulative[best] + along(best, px, py);
+        offRouteMeters = Math.sqrt(bestSquared);
+        return remainingMeters();
+    }
+
+    public double totalMeters() {
+        return cumulative[cumulative.length - 1];
+    }
+
+    public synchronized double travelledMeters() {
+        return travelled;
+    }
+
+    public synchronized double remainingMeters() {
+        return Math.max(0, totalMeters() - travelled);
+    }
+
+    /** Distance of the last position from the route */
+    public synchronized double offRouteMeters() {
+        return offRouteMeters;
+    }
+
+    // segments checked by all advances, how much work they did
+    synchronized long checkedSegments() {
+        return checkedSegments;
+    }
+
+    private double distanceSquared(int segment, double px, double py) {
+        checkedSegments++;
+        double t = projection(segment, px, py);
+        double ex = px - (x[segment] + t * (x[segment + 1] - x[segment]));
+        double ey = py - (y[segment] + t * (y[segment + 1] - y[segment]));
+        return ex * ex + ey * ey;
+    }
+
+    private double along(int segment, double px, double py) {
+        return projection(segment, px, py) * (cumulative[segment + 1] - cumulative[segment]);
+    }
+
+    // position of the closest point of the segment, 0 at its start and 1 at its end
+    private double projection(int segment, double px, double py) {
+        double dx = x[segment + 1] - x[segment];
+        double dy = y[segment + 1] - y[segment];
+        double lengthSquared = dx * dx + dy * dy;
+        if (lengthSquared == 0) {
+            return 0;
+        }
+        return Math.max(0, Math.min(1, ((px - x[segment]) * dx + (py - y[segment]) * dy) / lengthSquared));
+    }
+
+    private double projectX(double longitude) {
+        return (longitude - originLng) * lngScale * GeoDistance.METERS_PER_DEGREE;
+    }
+
+    private double projectY(double latitude) {
+        return (latitude - originLat) * GeoDistance.METERS_PER_DEGREE;
+    }
+}
@@ -0,0 +1,108 @@
+package com.tricolori.backend.util;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.tricolori.backend.dto.ride.TelemetryPoint;
+
+/**
+ * Compact binary form of a sequence of timestamped GPS positions: per point the zigzag varint
+ * deltas of its epoch millis and 1e-6 degree coordinates from the previous point. Pings a second
+ * apart in city traffic take about 6 bytes.
+ */
+public final class TelemetryCodec {
+
+    private static final double PRECISION = 1e6;
+
+    private TelemetryCodec() {}
+
+    /** Appends points to one chunk, not thread safe */
+    public static final class Encoder {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        private long previousMillis;
+        private long previousLat;
+        private long previousLng;
+        private long firstMillis;
+        private int size;
+
+        public void append(long epochMillis, double latitude, double longitude) {
+            long lat = Math.round(latitude * PRECISION);
+            long lng = Math.round(longitude * PRECISION);
+            writeVarint(out, zigzag(epochMillis - previousMillis));
+            writeVarint(out, zigzag(lat - previousLat));
+            writeVarint(out, zigzag(lng - previousLng));
+            if (size++ == 0) {
+                firstMillis = epochMillis;
+            }
+            previousMillis = epochMillis;
+            previousLat = lat;
+            previousLng = lng;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long firstMillis() {
+            return firstMillis;
+        }
+
+        public long lastMillis() {
+            return previousMillis;
+        }
+
+        public byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    /** Throws IllegalArgumentException when the chunk ends in the middle of a point */
+    public static List<TelemetryPoint> decode(byte[] chunk) {
+        List<TelemetryPoint> points = new ArrayList<>();
+        int[] position = {0};
+        long millis = 0;
+        long lat = 0;
+        long lng = 0;
+        while (position[0] < chunk.length) {
+            millis += unzigzag(readVarint(chunk, position));
+            lat += unzigzag(readVarint(chunk, position));
+            lng += unzigzag(readVarint(chunk, position));
+            points.add(new TelemetryPoint(Instant.ofEpochMilli(millis), lat / PRECISION, lng / PRECISION));
+        }
+        return points;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] in, int[] position) {
+        long result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (position[0] >= in.length) {
+                throw new IllegalArgumentException("Malformed telemetry chunk");
+            }
+            b = in[position[0]++];
+            result |= (long) (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return result;
+    }
+}
@@ -2,9 +2,14 @@ package com.tricolori.backend.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tricolori.backend.dto.ride.OrderRequest;
+import com.tricolori.backend.dto.ride.RideEstimationRequest;
+import com.tricolori.backend.dto.ride.RideEstimationResponse;
 import com.tricolori.backend.dto.ride.StopRideRequest;
 import com.tricolori.backend.dto.ride.StopRideResponse;
+import com.tricolori.backend.dto.ride.TelemetryPoint;
 import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.entity.Stop;
+import com.tricolori.backend.enums.VehicleType;
 import com.tricolori.backend.exception.GlobalExceptionHandler;
 import com.tricolori.backend.exception.NoFreeDriverCloseException;
 import com.tricolori.backend.exception.NoRouteGeometryException;
@@ -13,9 +18,12 @@ import com.tricolori.backend.exception.RideNotFoundException;
 import com.tricolori.backend.security.AuthTokenFilter;
 import com.tricolori.backend.security.JwtUtil;
 import com.tricolori.backend.service.RideService;
+import com.tricolori.backend.service.AsyncRideOrderService;
 import com.tricolori.backend.service.ReviewService;
 import com.tricolori.backend.service.InconsistencyReportService;
 import com.tricolori.backend.service.AuthService;
+import com.tricolori.backend.service.RideEstimationService;
+import com.tricolori.backend.service.RideTelemetryLog;
 import com.tricolori.backend.util.TestObjectFactory;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -30,11 +38,20 @@ import org.springframework.security.config.annotation.web.configuration.WebSecur
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -64,6 +81,9 @@ class RideControllerTests {
     @MockitoBean
     private RideService rideService;
 
+    @MockitoBean
+    private AsyncRideOrderService asyncRideOrderService;
+
     @MockitoBean
     private ReviewService reviewService;
     @MockitoBean
@@ -75,6 +95,12 @@ class RideControllerTests {
     @MockitoBean
     private AuthService authenticationService;
 
+    @MockitoBean
+    private RideEstimationService rideEstimationService;
+
+    @MockitoBean
+    private RideTelemetryLog rideTelemetryLog;
+
     private final String driverToken = "Bearer test-token";
 
     
@@ -130,6 +156,39 @@ class RideControllerTests {
                 .andExpect(status().isBadRequest());
     }
 
+    /*--- Ride estimation ---*/
+
+    @Test
+    @DisplayName("Should return prices and quote for an estimated route")
+    void shouldEstimateRide() throws Exception {
+        Stop pickup = new Stop("Bulevar oslobođenja 1", new Location(19.84, 45.25));
+        Stop destination = new Stop("Zmaj Jovina 10", new Location(19.85, 45.26));
+        RideEstimationRequest request = new RideEstimationRequest(pickup, destination, null);
+        RideEstimationResponse response = new RideEstimationResponse(
+                "quote-1", LocalDateTime.now().plusMinutes(5), pickup, destination,
+                600L, 5.0, Map.of(VehicleType.STANDARD, 750.0), "geometry");
+
+        when(rideEstimationService.estimate(any())).thenReturn(response);
+
+        mockMvc.perform(post("/api/v1/rides/estimate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quoteId").value("quote-1"))
+                .andExpect(jsonPath("$.prices.STANDARD").value(750.0));
+    }
+
+    @Test
+    @DisplayName("Should return 400 when estimation has no pickup")
+    void shouldReturn400WhenEstimationHasNoPickup() throws Exception {
+        mockMvc.perform(post("/api/v1/rides/estimate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"destination\": {\"address\": \"Zmaj Jovina 10\"}}"))
+                .andExpect(status().isBadRequest());
+
+        verify(rideEstimationService, never()).estimate(any());
+    }
+
     /*--- Ride ordering: Student 1 ---*/
     
     @Test
@@ -152,6 +211,25 @@ class RideControllerTests {
         verify(rideService, times(1)).rideOrder(any(), any());
     }
 
+    @Test
+    @DisplayName("Should accept an asynchronous order and return 202 with the pending ride ID")
+    void shouldAcceptAsyncOrder() throws Exception {
+        // Arrange
+        OrderRequest request = new OrderRequest();
+
+        when(asyncRideOrderService.order(any(), any())).thenReturn(43L);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/rides/order/async")
+                        .header("Authorization", driverToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$").value(43L));
+
+        verify(rideService, never()).rideOrder(any(), any());
+    }
+
     @Test
     @DisplayName("Should return 400 when no route geometry is available")
     void shouldReturn400WhenNoRouteGeometry() throws Exception {
@@ -499,4 +577,27 @@ class RideControllerTests {
 
         verify(rideService, times(1)).completeRide(rideId, driverId);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should stream the recorded positions of a ride one per line")
+    void shouldStreamRideTelemetry() throws Exception {
+        // Arrange
+        when(rideTelemetryLog.replay(7L)).thenReturn(Stream.of(
+                new TelemetryPoint(Instant.parse("2026-10-17T08:00:00Z"), 45.2671, 19.8335),
+                new TelemetryPoint(Instant.parse("2026-10-17T08:00:01Z"), 45.2672, 19.8336)
+        ));
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/v1/rides/{id}/telemetry", 7L))
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"timestamp\":\"2026-10-17T08:00:00Z\",\"latitude\":45.2671,\"longitude\":19.8335}\n"
+                        + "{\"timestamp\":\"2026-10-17T08:00:01Z\",\"latitude\":45.2672,\"longitude\":19.8336}\n"
+                ));
+    }
+}
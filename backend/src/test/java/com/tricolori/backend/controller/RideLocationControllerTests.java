@@ -0,0 +1,197 @@
+package com.tricolori.backend.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.messaging.simp.stomp.StompDecoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.tricolori.backend.entity.Passenger;
+import com.tricolori.backend.security.AuthTokenFilter;
+import com.tricolori.backend.security.JwtUtil;
+import com.tricolori.backend.service.AsyncRideOrderService;
+import com.tricolori.backend.service.AuthService;
+import com.tricolori.backend.service.CustomUserDetailService;
+import com.tricolori.backend.service.InconsistencyReportService;
+import com.tricolori.backend.service.ReviewService;
+import com.tricolori.backend.service.RideEstimationService;
+import com.tricolori.backend.service.RideService;
+import com.tricolori.backend.service.RideTelemetryLog;
+import com.tricolori.backend.util.TestObjectFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Position pings over the STOMP channel against the REST PUT they replace. Both paths end in
+ * a stubbed RideService, so only transport and authentication are compared: the REST path
+ * parses the JWT and loads the user from the database on every ping, the STOMP path decodes
+ * a frame of a session authenticated once.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@ActiveProfiles("test")
+@Import({JwtUtil.class, CustomUserDetailService.class, AuthTokenFilter.class})
+class RideLocationControllerTests {
+
+    private static final String POSITION_JSON = "{\"latitude\": 45.2671, \"longitude\": 19.8335}";
+
+    private final JwtUtil jwtUtil;
+    private final AuthTokenFilter authTokenFilter;
+    private final EntityManager entityManager;
+
+    private final RideService rideService = mock(RideService.class, withSettings().stubOnly());
+    private final AtomicInteger restPings = new AtomicInteger();
+    private final AtomicInteger streamedPings = new AtomicInteger();
+    private final AtomicInteger rejectedFrames = new AtomicInteger();
+
+    private Passenger user;
+    private MockMvc mockMvc;
+    private SimpAnnotationMethodMessageHandler stompHandler;
+
+    @Autowired
+    RideLocationControllerTests(JwtUtil jwtUtil, AuthTokenFilter authTokenFilter, EntityManager entityManager) {
+        this.jwtUtil = jwtUtil;
+        this.authTokenFilter = authTokenFilter;
+        this.entityManager = entityManager;
+    }
+
+    @BeforeEach
+    void setUp() {
+        user = TestObjectFactory.createTestPassenger();
+        entityManager.persist(user);
+        entityManager.flush();
+
+        doAnswer(i -> restPings.incrementAndGet())
+            .when(rideService).updateVehicleLocation(eq(1L), anyDouble(), anyDouble());
+        doAnswer(i -> streamedPings.incrementAndGet())
+            .when(rideService).streamVehicleLocation(eq(1L), eq(user.getEmail()), anyDouble(), anyDouble());
+
+        RideController rideController = new RideController(
+            rideService, mock(AsyncRideOrderService.class), mock(ReviewService.class),
+            mock(InconsistencyReportService.class), mock(AuthService.class), mock(RideEstimationService.class),
+            mock(RideTelemetryLog.class), new ObjectMapper()
+        );
+        mockMvc = MockMvcBuilders.standaloneSetup(rideController).addFilters(authTokenFilter).build();
+
+        StaticApplicationContext context = new StaticApplicationContext();
+        context.getBeanFactory().registerSingleton("rideLocationController", new RideLocationController(rideService));
+        context.refresh();
+
+        // replies such as the /user/queue/errors of a rejected frame go through the broker
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        brokerChannel.subscribe(message -> rejectedFrames.incrementAndGet());
+        stompHandler = new SimpAnnotationMethodMessageHandler(
+            new ExecutorSubscribableChannel(), new ExecutorSubscribableChannel(), new SimpMessagingTemplate(brokerChannel)
+        );
+        stompHandler.setApplicationContext(context);
+        stompHandler.setDestinationPrefixes(List.of("/app"));
+        stompHandler.setMessageConverter(new MappingJackson2MessageConverter());
+        stompHandler.afterPropertiesSet();
+    }
+
+    private void putPing(String token) throws Exception {
+        mockMvc.perform(put("/api/v1/rides/1/vehicle-location")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(POSITION_JSON))
+            .andExpect(status().isOk());
+    }
+
+    // what StompSubProtocolHandler does with a SEND frame read from the socket
+    private void sendFrame(StompDecoder decoder, Principal session) {
+        String frame = "SEND\ndestination:/app/rides/1/location\ncontent-type:application/json\n\n" + POSITION_JSON + "\0";
+        Message<byte[]> decoded = decoder.decode(ByteBuffer.wrap(frame.getBytes(StandardCharsets.UTF_8))).getFirst();
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(decoded);
+        accessor.setSessionId("driver-session");
+        accessor.setSessionAttributes(new HashMap<>());
+        accessor.setUser(session);
+        stompHandler.handleMessage(MessageBuilder.createMessage(decoded.getPayload(), accessor.getMessageHeaders()));
+    }
+
+    @Test
+    @DisplayName("Should reject location frames of an unauthenticated session")
+    void streamLocation_ShouldReject_WithoutPrincipal() {
+        sendFrame(new StompDecoder(), null);
+
+        assertEquals(0, streamedPings.get());
+        assertEquals(1, rejectedFrames.get());
+    }
+
+    @Test
+    @DisplayName("Should pass location frames of an authenticated session to the ride service")
+    void streamLocation_ShouldForward_WithPrincipal() {
+        sendFrame(new StompDecoder(), new UsernamePasswordAuthenticationToken(user.getEmail(), null, List.of()));
+
+        assertEquals(1, streamedPings.get());
+        assertEquals(0, rejectedFrames.get());
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Should handle more location pings per second over STOMP than over REST")
+    void streamLocation_ShouldOutperformRestPings() throws Exception {
+        String token = jwtUtil.generateToken(user.getEmail());
+        // authenticated once, like the CONNECT interceptor in WebSocketConfig
+        Principal session = new UsernamePasswordAuthenticationToken(user.getEmail(), null, List.of());
+        StompDecoder decoder = new StompDecoder();
+        int warmup = 500;
+        int pings = 3_000;
+
+        for (int i = 0; i < warmup; i++) {
+            putPing(token);
+            sendFrame(decoder, session);
+        }
+
+        long restStarted = System.nanoTime();
+        for (int i = 0; i < pings; i++) {
+            putPing(token);
+        }
+        double restPerSecond = pings / ((System.nanoTime() - restStarted) / 1e9);
+
+        long stompStarted = System.nanoTime();
+        for (int i = 0; i < pings; i++) {
+            sendFrame(decoder, session);
+        }
+        double stompPerSecond = pings / ((System.nanoTime() - stompStarted) / 1e9);
+
+        assertEquals(warmup + pings, restPings.get());
+        assertEquals(warmup + pings, streamedPings.get());
+        assertEquals(0, rejectedFrames.get());
+        assertTrue(stompPerSecond > restPerSecond, "STOMP " + stompPerSecond + "/s, REST " + restPerSecond + "/s");
+    }
+}
@@ -0,0 +1,75 @@
+package com.tricolori.backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import com.tricolori.backend.entity.Driver;
+import com.tricolori.backend.entity.DriverDailyLog;
+import com.tricolori.backend.util.TestObjectFactory;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+public class DriverDailyLogRepositoryTests {
+    private final DriverDailyLogRepository dailyLogRepository;
+    private final DriverRepository driverRepository;
+
+    @Autowired
+    public DriverDailyLogRepositoryTests(
+            DriverDailyLogRepository dailyLogRepository,
+            DriverRepository driverRepository
+    ) {
+        this.dailyLogRepository = dailyLogRepository;
+        this.driverRepository = driverRepository;
+    }
+
+    private DriverDailyLog saveLog(boolean active, LocalDateTime lastActivationAt) {
+        Driver driver = driverRepository.save(TestObjectFactory.createTestDriver());
+        DriverDailyLog log = TestObjectFactory.createTestDailyLog(LocalDate.now(), active, driver);
+        log.setActiveTimeSeconds(60L);
+        log.setLastActivationAt(lastActivationAt);
+        return dailyLogRepository.save(log);
+    }
+
+    @Test
+    public void AddActiveTime_ShouldAddTimeSinceActivation_ToActiveLogs() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        DriverDailyLog log = saveLog(true, now.minusMinutes(10));
+
+        // Act
+        int updated = dailyLogRepository.addActiveTime(LocalDate.now(), now);
+
+        // Assert
+        DriverDailyLog stored = dailyLogRepository.findById(log.getId()).orElseThrow();
+        assertEquals(1, updated);
+        assertEquals(660L, stored.getActiveTimeSeconds());
+        assertEquals(now, stored.getLastActivationAt());
+    }
+
+    @Test
+    public void AddActiveTime_ShouldLeaveInactiveLogs_Inactive() {
+        // Arrange
+        DriverDailyLog log = saveLog(false, null);
+
+        // Act
+        int updated = dailyLogRepository.addActiveTime(LocalDate.now(), LocalDateTime.now());
+
+        // Assert
+        DriverDailyLog stored = dailyLogRepository.findById(log.getId()).orElseThrow();
+        assertEquals(0, updated);
+        assertFalse(stored.isActive());
+        assertEquals(60L, stored.getActiveTimeSeconds());
+        assertNull(stored.getLastActivationAt());
+    }
+}
@@ -14,6 +14,7 @@ import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
+import com.tricolori.backend.dto.driver.DriverPosition;
 import com.tricolori.backend.entity.Driver;
 import com.tricolori.backend.util.TestObjectFactory;
 
@@ -21,10 +22,15 @@ import com.tricolori.backend.util.TestObjectFactory;
 @AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
 public class DriverRepositoryTests {
     private final DriverRepository driverRepository;
+    private final VehicleSpecificationRepository vehicleSpecificationRepository;
 
     @Autowired
-    public DriverRepositoryTests(DriverRepository driverRepository) {
+    public DriverRepositoryTests(
+            DriverRepository driverRepository,
+            VehicleSpecificationRepository vehicleSpecificationRepository
+    ) {
         this.driverRepository = driverRepository;
+        this.vehicleSpecificationRepository = vehicleSpecificationRepository;
     }
 
     @Test
@@ -199,4 +205,57 @@ public class DriverRepositoryTests {
         // Assert
         assertTrue(activeDrivers.isEmpty(), "Should not find drivers without any logs");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void GetAllCurrentlyActiveDriverPositions_ShouldReturnVehiclePositionsOfActiveDrivers() {
+        // Arrange
+        Driver active = TestObjectFactory.createTestDriver();
+        active.setVehicle(TestObjectFactory.createTestVehicle());
+        active.setDailyLogs(new ArrayList<>());
+        active.getDailyLogs().add(TestObjectFactory.createTestDailyLog(LocalDate.now(), true, active));
+
+        Driver inactive = TestObjectFactory.createTestDriver();
+        inactive.setVehicle(TestObjectFactory.createTestVehicle());
+        inactive.setDailyLogs(new ArrayList<>());
+        inactive.getDailyLogs().add(TestObjectFactory.createTestDailyLog(LocalDate.now(), false, inactive));
+
+        vehicleSpecificationRepository.save(active.getVehicle().getSpecification());
+        vehicleSpecificationRepository.save(inactive.getVehicle().getSpecification());
+        driverRepository.save(active);
+        driverRepository.save(inactive);
+
+        // Act
+        List<DriverPosition> positions = driverRepository.getAllCurrentlyActiveDriverPositions();
+
+        // Assert
+        assertEquals(1, positions.size(), "Should find position of the active driver only");
+        assertEquals(active.getId(), positions.get(0).driverId());
+        assertEquals(active.getVehicle().getId(), positions.get(0).vehicleId());
+        assertEquals(active.getVehicle().getLocation().getLatitude(), positions.get(0).latitude());
+    }
+
+    @Test
+    public void GetAllCurrentlyActiveDriversWithVehicle_ShouldLoadVehicle_AndSkipDriversWithoutOne() {
+        // Arrange
+        Driver withVehicle = TestObjectFactory.createTestDriver();
+        withVehicle.setVehicle(TestObjectFactory.createTestVehicle());
+        withVehicle.getVehicle().setLocation(null);
+        withVehicle.setDailyLogs(new ArrayList<>());
+        withVehicle.getDailyLogs().add(TestObjectFactory.createTestDailyLog(LocalDate.now(), true, withVehicle));
+
+        Driver withoutVehicle = TestObjectFactory.createTestDriver();
+        withoutVehicle.setDailyLogs(new ArrayList<>());
+        withoutVehicle.getDailyLogs().add(TestObjectFactory.createTestDailyLog(LocalDate.now(), true, withoutVehicle));
+
+        vehicleSpecificationRepository.save(withVehicle.getVehicle().getSpecification());
+        driverRepository.save(withVehicle);
+        driverRepository.save(withoutVehicle);
+
+        // Act
+        List<Driver> activeDrivers = driverRepository.getAllCurrentlyActiveDriversWithVehicle();
+
+        // Assert
+        assertEquals(1, activeDrivers.size(), "Should find the driver with a vehicle, even without a position");
+        assertEquals(withVehicle.getId(), activeDrivers.get(0).getId());
+    }
+}
@@ -1,5 +1,6 @@
 package com.tricolori.backend.repository;
 
+import com.tricolori.backend.dto.driver.DriverRideWindow;
 import com.tricolori.backend.entity.*;
 import com.tricolori.backend.enums.RideStatus;
 import com.tricolori.backend.util.TestObjectFactory;
@@ -10,6 +11,7 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -546,4 +548,61 @@ public class RideRepositoryTests {
         assertNotNull(completedRide.get().getRoute());
         assertNotNull(completedRide.get().getVehicleSpecification());
     }
+
+    @Test
+    public void FindRideWindowsByDriverIds_ShouldReturnWindowWithDestination() {
+
+        // Arrange
+        Driver driver = driverRepository.save(TestObjectFactory.createTestDriver());
+        Driver otherDriver = driverRepository.save(TestObjectFactory.createTestDriver());
+        VehicleSpecification spec = vehicleSpecificationRepository.save(TestObjectFactory.createTestVehicleSpecification());
+
+        Route route = TestObjectFactory.createTestRoute();
+        route.getStops().add(1, TestObjectFactory.createTestStop("Usputna", 19.8400, 45.2600));
+        route = routeRepository.save(route);
+
+        LocalDateTime startTime = LocalDateTime.now().minusMinutes(5);
+        rideRepository.save(Ride.builder()
+                .status(RideStatus.ONGOING)
+                .driver(driver)
+                .vehicleSpecification(spec)
+                .route(route)
+                .price(450.0)
+                .startTime(startTime)
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        rideRepository.save(Ride.builder()
+                .status(RideStatus.FINISHED)
+                .driver(driver)
+                .vehicleSpecification(spec)
+                .route(routeRepository.save(TestObjectFactory.createTestRoute()))
+                .price(450.0)
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        rideRepository.save(Ride.builder()
+                .status(RideStatus.SCHEDULED)
+                .driver(otherDriver)
+                .vehicleSpecification(spec)
+                .route(routeRepository.save(TestObjectFactory.createTestRoute()))
+                .price(450.0)
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        // Act
+        List<DriverRideWindow> windows = rideRepository.findRideWindowsByDriverIds(
+                List.of(driver.getId()),
+                List.of(RideStatus.ONGOING, RideStatus.SCHEDULED)
+        );
+
+        // Assert
+        assertEquals(1, windows.size(), "Only the ongoing ride of the driver should be found");
+        DriverRideWindow window = windows.get(0);
+        assertEquals(driver.getId(), window.driverId());
+        assertEquals(RideStatus.ONGOING, window.status());
+        assertEquals(600L, window.estimatedTimeSeconds());
+        assertEquals(45.2551, window.destinationLatitude(), "Destination should be the last stop");
+        assertEquals(19.8451, window.destinationLongitude());
+    }
 }
\ No newline at end of file
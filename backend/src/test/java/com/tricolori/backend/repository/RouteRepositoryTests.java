@@ -2,27 +2,54 @@ package com.tricolori.backend.repository;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import com.tricolori.backend.entity.Route;
+import com.tricolori.backend.service.RouteGeometryHashBackfill;
+import com.tricolori.backend.service.RouteService;
 import com.tricolori.backend.util.TestObjectFactory;
 
+import jakarta.persistence.EntityManager;
+
 @DataJpaTest
 @AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Import(RouteGeometryHashBackfill.class)
 public class RouteRepositoryTests {
     private final RouteRepository routeRepository;
+    private final RouteGeometryHashBackfill backfill;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
 
     @Autowired
-    public RouteRepositoryTests(RouteRepository routeRepository) {
+    public RouteRepositoryTests(
+        RouteRepository routeRepository,
+        RouteGeometryHashBackfill backfill,
+        JdbcTemplate jdbcTemplate,
+        EntityManager entityManager
+    ) {
         this.routeRepository = routeRepository;
+        this.backfill = backfill;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
     }
 
     @Test
@@ -135,4 +162,117 @@ public class RouteRepositoryTests {
         // Assert
         assertTrue(foundRoute.isEmpty(), "Route should not be found - geometry search should be case sensitive");
     }
+
+    @Test
+    public void FindByGeometryHash_ShouldFind() {
+        // Arrange
+        Route route = TestObjectFactory.createTestRoute();
+        route.setGeometryHash(RouteService.geometryHash(route.getRouteGeometry()));
+        routeRepository.save(route);
+
+        // Act
+        Optional<Route> foundRoute = routeRepository.findByGeometryHash(RouteService.geometryHash(route.getRouteGeometry()));
+
+        // Assert
+        assertTrue(foundRoute.isPresent(), "Route should be found by its geometry hash");
+        assertEquals(route.getRouteGeometry(), foundRoute.get().getRouteGeometry());
+    }
+
+    @Test
+    public void Save_ShouldReject_DuplicateGeometryHash() {
+        // Arrange
+        String hash = RouteService.geometryHash("encoded_polyline_duplicate");
+        Route route1 = TestObjectFactory.createTestRoute();
+        route1.setGeometryHash(hash);
+        Route route2 = TestObjectFactory.createTestRoute();
+        route2.setGeometryHash(hash);
+        routeRepository.saveAndFlush(route1);
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class, () -> routeRepository.saveAndFlush(route2));
+    }
+
+    @Test
+    public void Backfill_ShouldHashOldRoutes_AndSkipDuplicates() {
+        // Arrange: routes saved before the hash column, two of them with the same geometry
+        Route route1 = TestObjectFactory.createTestRoute();
+        route1.setRouteGeometry("encoded_polyline_old1");
+        Route route2 = TestObjectFactory.createTestRoute();
+        route2.setRouteGeometry("encoded_polyline_old2");
+        Route duplicate = TestObjectFactory.createTestRoute();
+        duplicate.setRouteGeometry("encoded_polyline_old1");
+        routeRepository.saveAllAndFlush(List.of(route1, route2, duplicate));
+
+        // Act
+        backfill.backfill();
+        entityManager.clear();
+
+        // Assert
+        assertEquals(RouteService.geometryHash("encoded_polyline_old1"),
+            routeRepository.findById(route1.getId()).orElseThrow().getGeometryHash());
+        assertEquals(RouteService.geometryHash("encoded_polyline_old2"),
+            routeRepository.findById(route2.getId()).orElseThrow().getGeometryHash());
+        assertEquals(RouteService.excludedHash(duplicate.getId()),
+            routeRepository.findById(duplicate.getId()).orElseThrow().getGeometryHash());
+        // nothing is left for the next startup
+        assertTrue(routeRepository.findUnhashedAfter(0L, PageRequest.of(0, 10)).isEmpty());
+    }
+
+    /*
+     * Benchmark: deduplication lookup on a large routes table, by the TEXT geometry (sequential
+     * scan) versus by the indexed geometry hash. Both run the same plain JDBC query so only the
+     * lookup itself is compared. Defaults to 20k routes with ~2 kB geometries, run with
+     * -Pbenchmark -Droute.benchmark.rows=1000000 for the million-route measurement.
+     */
+    @Test
+    @Tag("benchmark")
+    public void Benchmark_GeometryHashLookup_VersusGeometryScan() {
+        int rows = Integer.getInteger("route.benchmark.rows", 20_000);
+        int warmup = 20;
+        int lookups = 50;
+        String padding = "x".repeat(2_000);
+
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO routes (route_geometry, geometry_hash, distance_km, estimated_time_seconds) VALUES (?, ?, ?, ?)",
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int i) throws SQLException {
+                    String geometry = padding + i;
+                    statement.setString(1, geometry);
+                    statement.setString(2, RouteService.geometryHash(geometry));
+                    statement.setDouble(3, 5.0);
+                    statement.setLong(4, 600);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return rows;
+                }
+            });
+
+        Random random = new Random(5);
+        String[] geometries = new String[warmup + lookups];
+        String[] hashes = new String[geometries.length];
+        for (int i = 0; i < geometries.length; i++) {
+            geometries[i] = padding + random.nextInt(rows);
+            hashes[i] = RouteService.geometryHash(geometries[i]);
+        }
+
+        double scanMicros = lookupMicros("SELECT id FROM routes WHERE route_geometry = ?", geometries, warmup);
+        double hashMicros = lookupMicros("SELECT id FROM routes WHERE geometry_hash = ?", hashes, warmup);
+
+        assertTrue(routeRepository.findByGeometryHash(hashes[0]).isPresent());
+        assertTrue(hashMicros < scanMicros);
+    }
+
+    private double lookupMicros(String sql, String[] keys, int warmup) {
+        for (int i = 0; i < warmup; i++) {
+            assertEquals(1, jdbcTemplate.queryForList(sql, Long.class, keys[i]).size());
+        }
+        long start = System.nanoTime();
+        for (int i = warmup; i < keys.length; i++) {
+            assertEquals(1, jdbcTemplate.queryForList(sql, Long.class, keys[i]).size());
+        }
+        return (System.nanoTime() - start) / 1e3 / (keys.length - warmup);
+    }
 }
@@ -0,0 +1,132 @@
+package com.tricolori.backend.security;
+
+import com.tricolori.backend.entity.*;
+import com.tricolori.backend.enums.AccountStatus;
+import com.tricolori.backend.enums.RideStatus;
+import com.tricolori.backend.util.TestObjectFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Import(RideSubscriptionInterceptor.class)
+class RideSubscriptionInterceptorTests {
+
+    private final RideSubscriptionInterceptor interceptor;
+    private final EntityManager entityManager;
+    private final MessageChannel channel = mock(MessageChannel.class);
+
+    private Passenger passenger;
+    private Driver driver;
+    private Ride ride;
+
+    @Autowired
+    RideSubscriptionInterceptorTests(RideSubscriptionInterceptor interceptor, EntityManager entityManager) {
+        this.interceptor = interceptor;
+        this.entityManager = entityManager;
+    }
+
+    @BeforeEach
+    void setUp() {
+        passenger = TestObjectFactory.createTestPassenger();
+        driver = TestObjectFactory.createTestDriver();
+        VehicleSpecification specification = TestObjectFactory.createTestVehicleSpecification();
+        Route route = TestObjectFactory.createTestRoute();
+        entityManager.persist(passenger);
+        entityManager.persist(driver);
+        entityManager.persist(specification);
+        entityManager.persist(route);
+
+        ride = Ride.builder()
+                .status(RideStatus.ONGOING)
+                .driver(driver)
+                .passengers(List.of(passenger))
+                .vehicleSpecification(specification)
+                .route(route)
+                .price(450.0)
+                .createdAt(LocalDateTime.now())
+                .build();
+        entityManager.persist(ride);
+        entityManager.flush();
+    }
+
+    private Message<byte[]> subscribe(String destination, String email) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setDestination(destination);
+        accessor.setSubscriptionId("sub-0");
+        if (email != null) {
+            accessor.setUser(new UsernamePasswordAuthenticationToken(email, null, List.of()));
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private String rideTopic() {
+        return "/topic/rides/" + ride.getId() + "/location";
+    }
+
+    @Test
+    @DisplayName("Should let the passengers, the driver and admins follow a ride")
+    void preSend_ShouldAllowRideParticipantsAndAdmins() {
+        Admin admin = new Admin();
+        admin.setFirstName("Ana");
+        admin.setLastName("Admin");
+        admin.setEmail("admin." + System.nanoTime() + "@tricolori.com");
+        admin.setPassword("Password123");
+        admin.setPhoneNum("+381612587283");
+        admin.setHomeAddress("Bulevar Oslobodjenja 3, Novi Sad");
+        admin.setAccountStatus(AccountStatus.ACTIVE);
+        entityManager.persist(admin);
+        entityManager.flush();
+
+        for (String email : List.of(passenger.getEmail(), driver.getEmail(), admin.getEmail())) {
+            Message<byte[]> message = subscribe(rideTopic(), email);
+            assertSame(message, interceptor.preSend(message, channel), email);
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse subscriptions to the location of someone else's ride")
+    void preSend_ShouldRefuse_ForeignRide() {
+        Passenger stranger = TestObjectFactory.createTestPassenger();
+        entityManager.persist(stranger);
+        entityManager.flush();
+
+        assertThrows(AccessDeniedException.class,
+            () -> interceptor.preSend(subscribe(rideTopic(), stranger.getEmail()), channel));
+    }
+
+    @Test
+    @DisplayName("Should refuse subscriptions to a ride location of an unauthenticated session")
+    void preSend_ShouldRefuse_WithoutUser() {
+        assertThrows(AccessDeniedException.class,
+            () -> interceptor.preSend(subscribe(rideTopic(), null), channel));
+    }
+
+    @Test
+    @DisplayName("Should leave subscriptions to other destinations alone")
+    void preSend_ShouldIgnoreOtherDestinations() {
+        Message<byte[]> message = subscribe("/topic/notifications/someone@tricolori.com", null);
+
+        assertSame(message, interceptor.preSend(message, channel));
+    }
+}
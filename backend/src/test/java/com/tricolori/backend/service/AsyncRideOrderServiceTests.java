@@ -0,0 +1,98 @@
+package com.tricolori.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.tricolori.backend.dto.ride.OrderRequest;
+import com.tricolori.backend.entity.Passenger;
+import com.tricolori.backend.exception.NoSuitableDriversException;
+import com.tricolori.backend.util.TestObjectFactory;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncRideOrderServiceTests {
+
+    @Mock
+    private RideService rideService;
+
+    @Mock
+    private ThreadPoolTaskExecutor rideOrderExecutor;
+
+    @InjectMocks
+    private AsyncRideOrderService asyncRideOrderService;
+
+    private final Passenger passenger = TestObjectFactory.createTestPassenger();
+    private final OrderRequest request = TestObjectFactory.createOrderRequest();
+
+    @BeforeEach
+    void setUp() {
+        when(rideService.createPendingRide(passenger, request)).thenReturn(7L);
+    }
+
+    private void givenExecutorRunsInline() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(rideOrderExecutor).execute(any());
+    }
+
+    @Test
+    @DisplayName("Should return the pending ride and complete it on the executor")
+    void order_ShouldCompletePendingRideOnExecutor() {
+        givenExecutorRunsInline();
+
+        Long rideId = asyncRideOrderService.order(passenger, request);
+
+        assertEquals(7L, rideId);
+        verify(rideService).completePendingOrder(7L, passenger, request);
+        verify(rideService, never()).rejectPendingRide(any(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should reject the pending ride with the dispatch message when no driver is found")
+    void order_ShouldRejectPendingRide_WhenNoSuitableDrivers() {
+        givenExecutorRunsInline();
+        doThrow(new NoSuitableDriversException("Trenutno nema slobodnih vozača."))
+            .when(rideService).completePendingOrder(7L, passenger, request);
+
+        asyncRideOrderService.order(passenger, request);
+
+        verify(rideService).rejectPendingRide(7L, "Trenutno nema slobodnih vozača.");
+    }
+
+    @Test
+    @DisplayName("Should not leak internal errors to the passenger")
+    void order_ShouldRejectWithGenericMessage_WhenRoutingFails() {
+        givenExecutorRunsInline();
+        doThrow(new IllegalStateException("OSRM timeout"))
+            .when(rideService).completePendingOrder(7L, passenger, request);
+
+        asyncRideOrderService.order(passenger, request);
+
+        verify(rideService).rejectPendingRide(eq(7L), eq("Porudzbina nije uspela, pokusajte ponovo."));
+    }
+
+    @Test
+    @DisplayName("Should reject the order right away when the executor queue is full")
+    void order_ShouldReject_WhenExecutorIsFull() {
+        doThrow(new TaskRejectedException("full")).when(rideOrderExecutor).execute(any());
+
+        Long rideId = asyncRideOrderService.order(passenger, request);
+
+        assertEquals(7L, rideId);
+        verify(rideService).rejectPendingRide(eq(7L), anyString());
+        verify(rideService, never()).completePendingOrder(any(), any(), any());
+    }
+}
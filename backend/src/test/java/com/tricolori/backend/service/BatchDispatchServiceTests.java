@@ -0,0 +1,181 @@
+package com.tricolori.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tricolori.backend.dto.ride.RidePreferences;
+import com.tricolori.backend.entity.Driver;
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.entity.Vehicle;
+import com.tricolori.backend.enums.VehicleType;
+import com.tricolori.backend.exception.NoSuitableDriversException;
+import com.tricolori.backend.util.AssignmentSolver;
+import com.tricolori.backend.util.TestObjectFactory;
+
+@ExtendWith(MockitoExtension.class)
+class BatchDispatchServiceTests {
+
+    @Mock
+    private DriverService driverService;
+
+    @Spy
+    private DriverReservations reservations = new DriverReservations();
+
+    @InjectMocks
+    private BatchDispatchService batchDispatchService;
+
+    private final RidePreferences prefs = new RidePreferences(VehicleType.STANDARD, false, false, null);
+
+    private Driver createDriverAt(Long id, double lon, double lat) {
+        Driver driver = TestObjectFactory.createTestDriverWithId(id);
+        Vehicle vehicle = TestObjectFactory.createTestVehicle();
+        vehicle.setLocation(TestObjectFactory.createTestLocation(lon, lat));
+        driver.setVehicle(vehicle);
+        return driver;
+    }
+
+    @Test
+    @DisplayName("Should assign the batch with minimal total pickup distance")
+    void flush_ShouldMinimizeTotalPickupDistance() throws Exception {
+        Location pickupA = TestObjectFactory.createTestLocation(19.800, 45.2671);
+        Location pickupB = TestObjectFactory.createTestLocation(19.810, 45.2671);
+        Driver nearA = createDriverAt(1L, 19.804, 45.2671);  // closest to A, but also close to B
+        Driver westOfA = createDriverAt(2L, 19.795, 45.2671);
+
+        when(driverService.findFreeCandidates(eq(pickupA), any(), anyInt(), anyInt())).thenReturn(List.of(nearA, westOfA));
+        when(driverService.findFreeCandidates(eq(pickupB), any(), anyInt(), anyInt())).thenReturn(List.of(nearA, westOfA));
+
+        CompletableFuture<Long> orderA = batchDispatchService.submit(pickupA, prefs, 1);
+        CompletableFuture<Long> orderB = batchDispatchService.submit(pickupB, prefs, 1);
+        batchDispatchService.flush();
+
+        // greedy would give A driver 1 and send driver 2 all the way to B
+        assertEquals(2L, orderA.get());
+        assertEquals(1L, orderB.get());
+        verify(driverService, never()).reserveDriverForRide(any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should fall back to the regular search when no candidate is left for an order")
+    void flush_ShouldFallBackToGreedySearch_WhenOrderUnmatched() {
+        Location pickupA = TestObjectFactory.createTestLocation(19.800, 45.2671);
+        Location pickupB = TestObjectFactory.createTestLocation(19.810, 45.2671);
+        Driver onlyDriver = createDriverAt(1L, 19.801, 45.2671);
+
+        when(driverService.findFreeCandidates(any(), any(), anyInt(), anyInt())).thenReturn(List.of(onlyDriver));
+        when(driverService.reserveDriverForRide(eq(pickupB), any(), anyInt()))
+            .thenThrow(new NoSuitableDriversException("Trenutno nema slobodnih vozača."));
+
+        CompletableFuture<Long> orderA = batchDispatchService.submit(pickupA, prefs, 1);
+        CompletableFuture<Long> orderB = batchDispatchService.submit(pickupB, prefs, 1);
+        batchDispatchService.flush();
+
+        assertEquals(1L, orderA.join());
+        ExecutionException ex = assertThrows(ExecutionException.class, orderB::get);
+        assertInstanceOf(NoSuitableDriversException.class, ex.getCause());
+    }
+
+    @Test
+    @DisplayName("Should not touch drivers when nothing is queued")
+    void flush_ShouldDoNothing_WhenQueueEmpty() {
+        batchDispatchService.flush();
+
+        verifyNoInteractions(driverService);
+    }
+
+    /*
+     * Benchmark: rush hour windows with more orders than nearby free drivers.
+     * Greedy serves orders one by one in arrival order, taking the closest free driver,
+     * which is exactly what DriverService.findDriverForRide does for free drivers.
+     * Batch waits for the window to close and solves the whole window at once.
+     */
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Batch assignment should not increase total pickup distance compared to greedy")
+    void benchmark_BatchVersusGreedy() {
+        final int windows = 50;
+        final int ordersPerWindow = 40;
+        final int drivers = 60;
+        final long windowMs = 2000;
+        Random random = new Random(42);
+
+        double greedyTotal = 0;
+        double batchTotal = 0;
+        List<Double> greedyLatencyMs = new ArrayList<>();
+        List<Double> batchLatencyMs = new ArrayList<>();
+
+        for (int w = 0; w < windows; w++) {
+            double[][] driverPos = randomPoints(random, drivers);
+            double[][] orderPos = randomPoints(random, ordersPerWindow);
+            double[][] cost = new double[ordersPerWindow][drivers];
+            for (int o = 0; o < ordersPerWindow; o++) {
+                for (int d = 0; d < drivers; d++) {
+                    cost[o][d] = distance(orderPos[o], driverPos[d]);
+                }
+            }
+
+            boolean[] taken = new boolean[drivers];
+            for (int o = 0; o < ordersPerWindow; o++) {
+                long start = System.nanoTime();
+                int best = -1;
+                for (int d = 0; d < drivers; d++) {
+                    if (!taken[d] && (best < 0 || cost[o][d] < cost[o][best])) best = d;
+                }
+                taken[best] = true;
+                greedyTotal += cost[o][best];
+                greedyLatencyMs.add((System.nanoTime() - start) / 1e6);
+            }
+
+            long start = System.nanoTime();
+            int[] assignment = AssignmentSolver.solve(cost);
+            double solveMs = (System.nanoTime() - start) / 1e6;
+            for (int o = 0; o < ordersPerWindow; o++) {
+                batchTotal += cost[o][assignment[o]];
+                // orders arrive uniformly during the window and wait for it to close
+                double waitedMs = windowMs - random.nextDouble() * windowMs;
+                batchLatencyMs.add(waitedMs + solveMs);
+            }
+        }
+
+        assertTrue(batchTotal <= greedyTotal + 1e-9);
+        assertTrue(percentile(batchLatencyMs, 0.99) <= windowMs * 5);
+    }
+
+    // points spread over ~5 km around Novi Sad
+    private static double[][] randomPoints(Random random, int count) {
+        double[][] points = new double[count][2];
+        for (double[] p : points) {
+            p[0] = 19.8335 + (random.nextDouble() - 0.5) * 0.06;
+            p[1] = 45.2671 + (random.nextDouble() - 0.5) * 0.04;
+        }
+        return points;
+    }
+
+    private static double distance(double[] a, double[] b) {
+        return Location.calculateDistance(new Location(a[0], a[1]), new Location(b[0], b[1]));
+    }
+
+    private static double percentile(List<Double> values, double p) {
+        Double[] sorted = values.toArray(new Double[0]);
+        Arrays.sort(sorted, Comparator.naturalOrder());
+        return sorted[(int) Math.ceil(p * sorted.length) - 1];
+    }
+}
@@ -0,0 +1,112 @@
+package com.tricolori.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.tricolori.backend.entity.Driver;
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.entity.Vehicle;
+import com.tricolori.backend.util.CircuitBreaker;
+import com.tricolori.backend.util.StubOsrmServer;
+import com.tricolori.backend.util.TestObjectFactory;
+
+class DriverEtaRankerTests {
+
+    private StubOsrmServer osrm;
+    private DriverEtaRanker ranker;
+
+    private final Location pickupLocation = TestObjectFactory.createTestLocation(19.8335, 45.2671);
+
+    // the driver across the river is close in a straight line but needs a long detour
+    private final Driver acrossRiver = createDriverAt(1L, 19.8335, 45.2620);
+    private final Driver sameSide = createDriverAt(2L, 19.8400, 45.2700);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        osrm = new StubOsrmServer((from, to) -> from.getLatitude() < 45.265 ? 900.0 : 180.0);
+
+        OSRMService osrmService = new OSRMService(new RestTemplate(), new CircuitBreaker(5, 30_000), Optional.empty());
+        ReflectionTestUtils.setField(osrmService, "osrmBaseUrl", osrm.baseUrl());
+
+        ranker = new DriverEtaRanker(osrmService);
+        ReflectionTestUtils.setField(ranker, "candidates", 3);
+        ReflectionTestUtils.setField(ranker, "cacheTtlSeconds", 30L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        osrm.close();
+    }
+
+    private Driver createDriverAt(Long id, double lon, double lat) {
+        Driver driver = TestObjectFactory.createTestDriverWithId(id);
+        Vehicle vehicle = TestObjectFactory.createTestVehicle();
+        vehicle.setLocation(TestObjectFactory.createTestLocation(lon, lat));
+        driver.setVehicle(vehicle);
+        return driver;
+    }
+
+    @Test
+    @DisplayName("Should prefer the driver with the shorter driving time")
+    void rank_ShouldOrderCandidatesByDrivingTime() {
+        List<Driver> ranked = ranker.rank(List.of(acrossRiver, sameSide), pickupLocation);
+
+        assertEquals(List.of(sameSide, acrossRiver), ranked);
+        assertEquals(1, osrm.tableRequests());
+    }
+
+    @Test
+    @DisplayName("Should query only the top k candidates and keep the rest in order")
+    void rank_ShouldQueryOnlyTopK() {
+        List<Driver> drivers = new ArrayList<>(List.of(acrossRiver, sameSide));
+        for (long id = 3; id <= 6; id++) {
+            drivers.add(createDriverAt(id, 19.8500 + id * 0.01, 45.2800));
+        }
+
+        List<Driver> ranked = ranker.rank(drivers, pickupLocation);
+
+        assertEquals(3, osrm.lastSourceCount());
+        assertEquals(drivers.subList(3, 6), ranked.subList(3, 6));
+        assertEquals(acrossRiver, ranked.get(2));
+    }
+
+    @Test
+    @DisplayName("Should reuse cached durations for the same positions")
+    void rank_ShouldUseCachedDurations() {
+        ranker.rank(List.of(acrossRiver, sameSide), pickupLocation);
+        ranker.rank(List.of(acrossRiver, sameSide), pickupLocation);
+
+        assertEquals(1, osrm.tableRequests());
+    }
+
+    @Test
+    @DisplayName("Should keep straight-line order when OSRM fails")
+    void rank_ShouldKeepOrder_WhenOsrmUnavailable() {
+        osrm.setFailing(true);
+
+        List<Driver> ranked = ranker.rank(List.of(acrossRiver, sameSide), pickupLocation);
+
+        assertEquals(List.of(acrossRiver, sameSide), ranked);
+    }
+
+    @Test
+    @DisplayName("Should not call OSRM when ranking is disabled")
+    void rank_ShouldSkipOsrm_WhenDisabled() {
+        ReflectionTestUtils.setField(ranker, "candidates", 1);
+
+        List<Driver> ranked = ranker.rank(List.of(acrossRiver, sameSide), pickupLocation);
+
+        assertEquals(List.of(acrossRiver, sameSide), ranked);
+        assertEquals(0, osrm.tableRequests());
+    }
+}
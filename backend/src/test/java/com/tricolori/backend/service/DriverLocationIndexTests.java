@@ -0,0 +1,89 @@
+package com.tricolori.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.util.TestObjectFactory;
+
+class DriverLocationIndexTests {
+
+    private DriverLocationIndex index;
+
+    private final Location pickupLocation = TestObjectFactory.createTestLocation(19.8335, 45.2671);
+
+    @BeforeEach
+    void setUp() {
+        index = new DriverLocationIndex();
+    }
+
+    @Test
+    @DisplayName("Should return nearest drivers ordered by distance")
+    void findNearest_ShouldReturnDriversOrderedByDistance() {
+        index.upsert(1L, 11L, 45.3000, 19.9000);
+        index.upsert(2L, 12L, 45.2675, 19.8340);
+        index.upsert(3L, 13L, 45.2800, 19.8500);
+
+        List<Long> nearest = index.findNearest(pickupLocation, 3);
+
+        assertEquals(List.of(2L, 3L, 1L), nearest);
+    }
+
+    @Test
+    @DisplayName("Should return at most k drivers")
+    void findNearest_ShouldLimitResultToK() {
+        for (long id = 1; id <= 30; id++) {
+            index.upsert(id, id + 100, 45.2671 + id * 0.003, 19.8335);
+        }
+
+        List<Long> nearest = index.findNearest(pickupLocation, 5);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), nearest);
+    }
+
+    @Test
+    @DisplayName("Should find drivers far outside of the pickup cell")
+    void findNearest_ShouldFindDistantDrivers() {
+        index.upsert(1L, 11L, 44.8125, 20.4612); // Beograd
+
+        assertEquals(List.of(1L), index.findNearest(pickupLocation, 1));
+    }
+
+    @Test
+    @DisplayName("Should move driver when vehicle location changes")
+    void moveVehicle_ShouldUpdateDriverPosition() {
+        index.upsert(1L, 11L, 45.3000, 19.9000);
+        index.upsert(2L, 12L, 45.2800, 19.8500);
+
+        index.moveVehicle(11L, 45.2672, 19.8336);
+
+        assertEquals(List.of(1L, 2L), index.findNearest(pickupLocation, 2));
+    }
+
+    @Test
+    @DisplayName("Should ignore location updates of offline vehicles")
+    void moveVehicle_ShouldIgnoreOfflineVehicles() {
+        index.moveVehicle(11L, 45.2672, 19.8336);
+
+        assertEquals(0, index.size());
+        assertTrue(index.findNearest(pickupLocation, 1).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not return removed drivers")
+    void remove_ShouldTakeDriverOffline() {
+        index.upsert(1L, 11L, 45.2675, 19.8340);
+        index.upsert(2L, 12L, 45.2800, 19.8500);
+
+        index.remove(1L);
+        index.moveVehicle(11L, 45.2671, 19.8335);
+
+        assertFalse(index.contains(1L));
+        assertEquals(List.of(2L), index.findNearest(pickupLocation, 2));
+    }
+}
@@ -0,0 +1,48 @@
+package com.tricolori.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class DriverReservationsTests {
+
+    private DriverReservations reservations;
+
+    @BeforeEach
+    void setUp() {
+        reservations = new DriverReservations();
+    }
+
+    @Test
+    @DisplayName("Should not reserve a driver held by another order")
+    void tryReserve_ShouldFail_WhenDriverHeld() {
+        long stamp = reservations.stamp();
+
+        assertTrue(reservations.tryReserve(1L, stamp));
+        assertFalse(reservations.tryReserve(1L, reservations.stamp()));
+        assertTrue(reservations.tryReserve(2L, stamp));
+    }
+
+    @Test
+    @DisplayName("Should not reserve a driver taken after availability was read")
+    void tryReserve_ShouldFail_WhenDriverTakenAfterStamp() {
+        long staleStamp = reservations.stamp();
+        reservations.tryReserve(1L, staleStamp);
+        reservations.release(1L);
+
+        assertFalse(reservations.tryReserve(1L, staleStamp));
+        assertTrue(reservations.tryReserve(1L, reservations.stamp()));
+    }
+
+    @Test
+    @DisplayName("Should release right away when there is no transaction")
+    void releaseAfterCompletion_ShouldReleaseImmediately_WithoutTransaction() {
+        reservations.tryReserve(1L, reservations.stamp());
+
+        reservations.releaseAfterCompletion(1L);
+
+        assertFalse(reservations.isHeld(1L));
+    }
+}
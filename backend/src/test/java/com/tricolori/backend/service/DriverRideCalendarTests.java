@@ -0,0 +1,89 @@
+package com.tricolori.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.tricolori.backend.dto.driver.DriverRideWindow;
+import com.tricolori.backend.entity.Driver;
+import com.tricolori.backend.entity.Ride;
+import com.tricolori.backend.enums.RideStatus;
+import com.tricolori.backend.util.TestObjectFactory;
+
+class DriverRideCalendarTests {
+
+    private DriverRideCalendar calendar;
+
+    private final LocalDateTime scheduledFor = LocalDateTime.now().plusHours(2);
+
+    @BeforeEach
+    void setUp() {
+        calendar = new DriverRideCalendar();
+    }
+
+    private DriverRideWindow scheduledWindow(Long rideId, Long driverId, LocalDateTime start, long seconds) {
+        return new DriverRideWindow(rideId, driverId, RideStatus.SCHEDULED, LocalDateTime.now(), start, null, seconds, null, null);
+    }
+
+    @Test
+    @DisplayName("Should be busy during the ride and within the 5 minute buffers")
+    void isBusyAt_ShouldRespectBuffers() {
+        calendar.load(List.of(scheduledWindow(1L, 1L, scheduledFor, 600L)));
+
+        assertTrue(calendar.isBusyAt(1L, scheduledFor.minusMinutes(5)));
+        assertTrue(calendar.isBusyAt(1L, scheduledFor.plusMinutes(7)));
+        assertTrue(calendar.isBusyAt(1L, scheduledFor.plusMinutes(15)));
+        assertFalse(calendar.isBusyAt(1L, scheduledFor.minusMinutes(6)));
+        assertFalse(calendar.isBusyAt(1L, scheduledFor.plusMinutes(16)));
+        assertFalse(calendar.isBusyAt(2L, scheduledFor));
+    }
+
+    @Test
+    @DisplayName("Should keep gaps between rides that don't overlap free")
+    void isBusyAt_ShouldFindGapBetweenRides() {
+        calendar.load(List.of(
+            scheduledWindow(1L, 1L, scheduledFor, 600L),
+            scheduledWindow(2L, 1L, scheduledFor.plusHours(1), 600L),
+            scheduledWindow(3L, 1L, scheduledFor.plusMinutes(5), 3600L)
+        ));
+
+        assertTrue(calendar.isBusyAt(1L, scheduledFor.plusMinutes(50)));
+        assertTrue(calendar.isBusyAt(1L, scheduledFor.plusMinutes(75)));
+        assertFalse(calendar.isBusyAt(1L, scheduledFor.plusMinutes(90)));
+    }
+
+    @Test
+    @DisplayName("Should move ride window when ride starts")
+    void commit_ShouldReplaceWindowOfSameRide() {
+        Driver driver = TestObjectFactory.createTestDriverWithId(1L);
+        Ride ride = TestObjectFactory.createTestRide(driver, RideStatus.SCHEDULED);
+        ride.setScheduledFor(scheduledFor);
+        calendar.commit(ride);
+
+        ride.setStatus(RideStatus.ONGOING);
+        ride.setStartTime(LocalDateTime.now());
+        calendar.commit(ride);
+
+        assertTrue(calendar.isBusyAt(1L, LocalDateTime.now().plusMinutes(5)));
+        assertFalse(calendar.isBusyAt(1L, scheduledFor));
+    }
+
+    @Test
+    @DisplayName("Should free the driver when ride is released")
+    void release_ShouldRemoveRideWindow() {
+        Driver driver = TestObjectFactory.createTestDriverWithId(1L);
+        Ride ride = TestObjectFactory.createTestRide(driver, RideStatus.SCHEDULED);
+        ride.setScheduledFor(scheduledFor);
+        calendar.commit(ride);
+
+        ride.setStatus(RideStatus.CANCELLED_BY_PASSENGER);
+        calendar.release(ride);
+
+        assertFalse(calendar.isBusyAt(1L, scheduledFor));
+    }
+}
@@ -2,21 +2,38 @@ package com.tricolori.backend.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.tricolori.backend.dto.driver.DriverRideWindow;
 import com.tricolori.backend.dto.ride.RidePreferences;
 import com.tricolori.backend.entity.Driver;
 import com.tricolori.backend.entity.DriverDailyLog;
@@ -24,6 +41,7 @@ import com.tricolori.backend.entity.Location;
 import com.tricolori.backend.entity.Ride;
 import com.tricolori.backend.entity.Vehicle;
 import com.tricolori.backend.entity.VehicleSpecification;
+import com.tricolori.backend.enums.DispatchStage;
 import com.tricolori.backend.enums.RideStatus;
 import com.tricolori.backend.enums.VehicleType;
 import com.tricolori.backend.exception.NoSuitableDriversException;
@@ -40,11 +58,35 @@ class DriverServiceTests {
     @Mock
     private RideRepository rideRepository;
 
+    @Spy
+    private DriverLocationIndex locationIndex = new DriverLocationIndex();
+
+    @Spy
+    private DriverRideCalendar rideCalendar = new DriverRideCalendar();
+
+    @Spy
+    private DriverReservations reservations = new DriverReservations();
+
+    @Mock
+    private DriverEtaRanker etaRanker;
+
+    @Spy
+    private DriverWorkTimeTracker workTimeTracker = new DriverWorkTimeTracker();
+
+    @Spy
+    private DispatchMetrics dispatchMetrics = new DispatchMetrics();
+
     @InjectMocks
     private DriverService driverService;
 
     private final Location pickupLocation = TestObjectFactory.createTestLocation(19.8335, 45.2671);
 
+    @BeforeEach
+    void setUp() {
+        // keep straight-line order unless a test says otherwise
+        lenient().when(etaRanker.rank(any(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
     private Driver createActiveDriverWithVehicle(Long id, VehicleSpecification spec, Location vehicleLocation) {
         Driver driver = TestObjectFactory.createTestDriverWithId(id);
         Vehicle vehicle = TestObjectFactory.createTestVehicle(spec);
@@ -62,6 +104,31 @@ class DriverServiceTests {
         return createActiveDriverWithVehicle(id, TestObjectFactory.createTestVehicleSpecification(), pickupLocation);
     }
 
+    private void givenActiveDrivers(Driver... drivers) {
+        for (Driver driver : drivers) {
+            Location location = driver.getVehicle().getLocation();
+            locationIndex.upsert(driver.getId(), driver.getVehicle().getId(), location.getLatitude(), location.getLongitude());
+            driver.getDailyLogs().forEach(workTimeTracker::track);
+        }
+        lenient().when(repository.findAllWithVehicleByIdIn(any())).thenReturn(List.of(drivers));
+        lenient().when(repository.getAllCurrentlyActiveDriversWithVehicle()).thenReturn(List.of(drivers));
+    }
+
+    private void givenDriverRides(Ride... rides) {
+        List<DriverRideWindow> windows = Arrays.stream(rides).map(this::toRideWindow).toList();
+        rideCalendar.load(windows);
+        lenient().when(rideRepository.findRideWindowsByDriverIds(any(), any())).thenReturn(windows);
+    }
+
+    private DriverRideWindow toRideWindow(Ride ride) {
+        Location destination = ride.getRoute().getDestinationStop().getLocation();
+        return new DriverRideWindow(
+            ride.getId(), ride.getDriver().getId(), ride.getStatus(), ride.getCreatedAt(), ride.getScheduledFor(),
+            ride.getStartTime(), ride.getRoute().getEstimatedTimeSeconds(),
+            destination.getLatitude(), destination.getLongitude()
+        );
+    }
+
     private RidePreferences standardPrefs() {
         return new RidePreferences(VehicleType.STANDARD, false, false, null);
     }
@@ -73,8 +140,6 @@ class DriverServiceTests {
     @Test
     @DisplayName("Should throw NoSuitableDriversException when no active drivers exist")
     void findDriverForRide_ShouldThrow_WhenNoActiveDrivers() {
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of());
-
         assertThrows(NoSuitableDriversException.class, () ->
             driverService.findDriverForRide(pickupLocation, standardPrefs(), 1)
         );
@@ -90,7 +155,7 @@ class DriverServiceTests {
         Driver driver = createActiveDriverWithVehicle(1L);
         driver.getDailyLogs().get(0).setActiveTimeSeconds(8L * 60 * 60);
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(driver));
+        givenActiveDrivers(driver);
 
         assertThrows(NoSuitableDriversException.class, () ->
             driverService.findDriverForRide(pickupLocation, standardPrefs(), 1)
@@ -108,7 +173,7 @@ class DriverServiceTests {
         yesterdayLog.setActiveTimeSeconds(0L);
         driver.setDailyLogs(new ArrayList<>(List.of(yesterdayLog)));
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(driver));
+        givenActiveDrivers(driver);
 
         assertThrows(NoSuitableDriversException.class, () ->
             driverService.findDriverForRide(pickupLocation, standardPrefs(), 1)
@@ -121,8 +186,72 @@ class DriverServiceTests {
         Driver driver = createActiveDriverWithVehicle(1L);
         driver.getDailyLogs().get(0).setActiveTimeSeconds(7L * 60 * 60); // 7h
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(driver));
-        when(rideRepository.findAllByStatusInAndCreatedAtBetween(any(), any(), any())).thenReturn(List.of());
+        givenActiveDrivers(driver);
+        givenDriverRides();
+
+        Driver result = driverService.findDriverForRide(pickupLocation, standardPrefs(), 1);
+
+        assertEquals(driver, result);
+    }
+
+    @Test
+    @DisplayName("Should count time since last activation towards the 8h limit")
+    void findDriverForRide_ShouldThrow_WhenCurrentShiftReachesWorkTimeLimit() {
+        Driver driver = createActiveDriverWithVehicle(1L);
+        DriverDailyLog log = driver.getDailyLogs().get(0);
+        log.setActiveTimeSeconds(7L * 60 * 60 + 50 * 60); // 7h50m stored
+        log.setLastActivationAt(LocalDateTime.now().minusMinutes(15)); // online for 15 more minutes
+
+        givenActiveDrivers(driver);
+
+        assertThrows(NoSuitableDriversException.class, () ->
+            driverService.findDriverForRide(pickupLocation, standardPrefs(), 1)
+        );
+    }
+
+    @Test
+    @DisplayName("Should record the stage that eliminated every candidate")
+    void findDriverForRide_ShouldTraceRejectingStage() {
+        Driver driver = createActiveDriverWithVehicle(1L);
+        driver.getDailyLogs().get(0).setActiveTimeSeconds(8L * 60 * 60);
+        givenActiveDrivers(driver);
+        DispatchTrace trace = new DispatchTrace();
+
+        assertThrows(NoSuitableDriversException.class, () ->
+            driverService.findDriverForRide(pickupLocation, standardPrefs(), 1, trace)
+        );
+
+        assertEquals("REJECTED", trace.getOutcome());
+        assertTrue(trace.toString().contains("WORK_TIME 1>0"));
+        assertEquals(1L, dispatchMetrics.snapshot().outcomes().get("REJECTED"));
+    }
+
+    @Test
+    @DisplayName("Should trace candidate counts of an assigned ride")
+    void findDriverForRide_ShouldTraceAssignedDriver() {
+        Driver driver = createActiveDriverWithVehicle(1L);
+        givenActiveDrivers(driver);
+        givenDriverRides();
+        DispatchTrace trace = new DispatchTrace();
+
+        driverService.findDriverForRide(pickupLocation, standardPrefs(), 1, trace);
+
+        assertEquals("FREE", trace.getOutcome());
+        assertEquals(
+            List.of(DispatchStage.ACTIVE, DispatchStage.WORK_TIME, DispatchStage.PREFERENCES, DispatchStage.FREE),
+            trace.getSteps().stream().map(DispatchTrace.Step::stage).toList()
+        );
+        assertTrue(trace.getSteps().stream().allMatch(step -> step.in() == 1 && step.out() == 1));
+        assertEquals(1, dispatchMetrics.snapshot().stages().get("FREE").candidatesOut().count());
+    }
+
+    @Test
+    @DisplayName("Should check work time without loading daily logs")
+    void findDriverForRide_ShouldNotTouchDailyLogs() {
+        Driver driver = createActiveDriverWithVehicle(1L);
+        givenActiveDrivers(driver);
+        givenDriverRides();
+        driver.setDailyLogs(null);
 
         Driver result = driverService.findDriverForRide(pickupLocation, standardPrefs(), 1);
 
@@ -140,7 +269,7 @@ class DriverServiceTests {
 
         RidePreferences luxuryPrefs = new RidePreferences(VehicleType.LUXURY, false, false, null);
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(driver));
+        givenActiveDrivers(driver);
 
         assertThrows(NoSuitableDriversException.class, () ->
             driverService.findDriverForRide(pickupLocation, luxuryPrefs, 1)
@@ -162,7 +291,7 @@ class DriverServiceTests {
 
         RidePreferences prefs = new RidePreferences(VehicleType.STANDARD, true, false, null);
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(driver));
+        givenActiveDrivers(driver);
 
         assertThrows(NoSuitableDriversException.class, () ->
             driverService.findDriverForRide(pickupLocation, prefs, 1)
@@ -184,7 +313,7 @@ class DriverServiceTests {
 
         RidePreferences prefs = new RidePreferences(VehicleType.STANDARD, false, true, null);
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(driver));
+        givenActiveDrivers(driver);
 
         assertThrows(NoSuitableDriversException.class, () ->
             driverService.findDriverForRide(pickupLocation, prefs, 1)
@@ -204,7 +333,7 @@ class DriverServiceTests {
 
         Driver driver = createActiveDriverWithVehicle(1L, spec, pickupLocation);
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(driver));
+        givenActiveDrivers(driver);
 
         // 3 putnika, auto ima 2 mjesta
         assertThrows(NoSuitableDriversException.class, () ->
@@ -225,8 +354,8 @@ class DriverServiceTests {
 
         Driver driver = createActiveDriverWithVehicle(1L, spec, pickupLocation);
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(driver));
-        when(rideRepository.findAllByStatusInAndCreatedAtBetween(any(), any(), any())).thenReturn(List.of());
+        givenActiveDrivers(driver);
+        givenDriverRides();
 
         Driver result = driverService.findDriverForRide(pickupLocation, standardPrefs(), 3);
 
@@ -248,8 +377,8 @@ class DriverServiceTests {
 
         RidePreferences prefs = new RidePreferences(VehicleType.STANDARD, true, true, null);
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(driver));
-        when(rideRepository.findAllByStatusInAndCreatedAtBetween(any(), any(), any())).thenReturn(List.of());
+        givenActiveDrivers(driver);
+        givenDriverRides();
 
         Driver result = driverService.findDriverForRide(pickupLocation, prefs, 1);
 
@@ -273,9 +402,9 @@ class DriverServiceTests {
             TestObjectFactory.createTestVehicleSpecification(),
             new Location(19.9000, 45.3000));
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(driver1, driver2));
+        givenActiveDrivers(driver1, driver2);
         // Niko nema aktivnih voznji danas -> oba su slobodna...
-        when(rideRepository.findAllByStatusInAndCreatedAtBetween(any(), any(), any())).thenReturn(List.of());
+        givenDriverRides();
 
         Driver result = driverService.findDriverForRide(pickupLocation, standardPrefs(), 1);
 
@@ -287,8 +416,8 @@ class DriverServiceTests {
     void findDriverForRide_ShouldReturnDriver_WhenOnlyOneFreeDriver() {
         Driver driver = createActiveDriverWithVehicle(1L);
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(driver));
-        when(rideRepository.findAllByStatusInAndCreatedAtBetween(any(), any(), any())).thenReturn(List.of());
+        givenActiveDrivers(driver);
+        givenDriverRides();
 
         Driver result = driverService.findDriverForRide(pickupLocation, standardPrefs(), 1);
 
@@ -312,8 +441,8 @@ class DriverServiceTests {
 
         RidePreferences prefs = new RidePreferences(VehicleType.STANDARD, false, false, scheduledFor);
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(driver));
-        when(rideRepository.findAllByDriverAndStatusIn(eq(driver), any())).thenReturn(List.of(ongoingRide));
+        givenActiveDrivers(driver);
+        givenDriverRides(ongoingRide);
 
         assertThrows(NoSuitableDriversException.class, () ->
             driverService.findDriverForRide(pickupLocation, prefs, 1)
@@ -333,9 +462,8 @@ class DriverServiceTests {
 
         RidePreferences prefs = new RidePreferences(VehicleType.STANDARD, false, false, scheduledFor);
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(driver));
-        when(rideRepository.findAllByDriverAndStatusIn(eq(driver), any())).thenReturn(List.of(ongoingRide));
-        when(rideRepository.findAllByStatusInAndCreatedAtBetween(any(), any(), any())).thenReturn(List.of());
+        givenActiveDrivers(driver);
+        givenDriverRides(ongoingRide);
 
         Driver result = driverService.findDriverForRide(pickupLocation, prefs, 1);
 
@@ -356,10 +484,8 @@ class DriverServiceTests {
 
         RidePreferences prefs = new RidePreferences(VehicleType.STANDARD, false, false, scheduledFor);
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(freeDriver, busyDriver));
-        when(rideRepository.findAllByDriverAndStatusIn(eq(freeDriver), any())).thenReturn(List.of());
-        when(rideRepository.findAllByDriverAndStatusIn(eq(busyDriver), any())).thenReturn(List.of(conflictingRide));
-        when(rideRepository.findAllByStatusInAndCreatedAtBetween(any(), any(), any())).thenReturn(List.of());
+        givenActiveDrivers(freeDriver, busyDriver);
+        givenDriverRides(conflictingRide);
 
         Driver result = driverService.findDriverForRide(pickupLocation, prefs, 1);
 
@@ -382,10 +508,8 @@ class DriverServiceTests {
         ongoingRide.setStartTime(LocalDateTime.now().minusMinutes(55));
         ongoingRide.getRoute().setEstimatedTimeSeconds(3600L); // preostaje 5 minuta
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(busyDriver));
-        when(rideRepository.findAllByStatusInAndCreatedAtBetween(
-            eq(List.of(RideStatus.ONGOING, RideStatus.SCHEDULED)), any(), any()
-        )).thenReturn(List.of()); // Nema slobodnih
+        givenActiveDrivers(busyDriver);
+        givenDriverRides(ongoingRide); // Nema slobodnih
 
         Driver result = driverService.findDriverForRide(pickupLocation, standardPrefs(), 1);
 
@@ -415,10 +539,8 @@ class DriverServiceTests {
         ride2.getRoute().setEstimatedTimeSeconds(3600L);
         ride2.getRoute().getDestinationStop().setLocation(new Location(19.9500, 45.4000));
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(driver1, driver2));
-        when(rideRepository.findAllByStatusInAndCreatedAtBetween(
-            eq(List.of(RideStatus.ONGOING, RideStatus.SCHEDULED)), any(), any()
-        )).thenReturn(List.of()); // Nema slobodnih
+        givenActiveDrivers(driver1, driver2);
+        givenDriverRides(ride1, ride2); // Nema slobodnih
 
         Driver result = driverService.findDriverForRide(pickupLocation, standardPrefs(), 1);
 
@@ -444,10 +566,9 @@ class DriverServiceTests {
         ongoingRide.setStartTime(LocalDateTime.now().minusMinutes(55));
         ongoingRide.getRoute().setEstimatedTimeSeconds(3600L);
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(freeDriver, busyDriver));
+        givenActiveDrivers(freeDriver, busyDriver);
         // freeDriver nije u listi zauzetih danas
-        when(rideRepository.findAllByStatusInAndCreatedAtBetween(any(), any(), any()))
-            .thenReturn(List.of(ongoingRide));
+        givenDriverRides(ongoingRide);
 
         Driver result = driverService.findDriverForRide(pickupLocation, standardPrefs(), 1);
 
@@ -471,7 +592,7 @@ class DriverServiceTests {
             .build();
         Driver wrongTypeDriver = createActiveDriverWithVehicle(2L, wrongSpec, pickupLocation);
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(overworkedDriver, wrongTypeDriver));
+        givenActiveDrivers(overworkedDriver, wrongTypeDriver);
 
         assertThrows(NoSuitableDriversException.class, () ->
             driverService.findDriverForRide(pickupLocation, standardPrefs(), 1)
@@ -493,8 +614,8 @@ class DriverServiceTests {
             .build();
         Driver ineligibleDriver = createActiveDriverWithVehicle(2L, wrongSpec, pickupLocation);
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(eligibleDriver, ineligibleDriver));
-        when(rideRepository.findAllByStatusInAndCreatedAtBetween(any(), any(), any())).thenReturn(List.of());
+        givenActiveDrivers(eligibleDriver, ineligibleDriver);
+        givenDriverRides();
 
         Driver result = driverService.findDriverForRide(pickupLocation, standardPrefs(), 1);
 
@@ -508,10 +629,141 @@ class DriverServiceTests {
         driver.setVehicle(TestObjectFactory.createTestVehicle());
         driver.setDailyLogs(new ArrayList<>()); // prazna lista
 
-        when(repository.getAllCurrentlyActiveDrivers()).thenReturn(List.of(driver));
+        givenActiveDrivers(driver);
 
         assertThrows(NoSuitableDriversException.class, () ->
             driverService.findDriverForRide(pickupLocation, standardPrefs(), 1)
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should only load the nearest drivers when a free one is among them")
+    void findDriverForRide_ShouldLoadNearestDriversOnly_WhenFreeDriverNearby() {
+        List<Driver> drivers = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            drivers.add(createActiveDriverWithVehicle(id,
+                TestObjectFactory.createTestVehicleSpecification(),
+                new Location(19.8335 + id * 0.01, 45.2671)));
+        }
+        for (Driver driver : drivers) {
+            Location location = driver.getVehicle().getLocation();
+            locationIndex.upsert(driver.getId(), null, location.getLatitude(), location.getLongitude());
+            driver.getDailyLogs().forEach(workTimeTracker::track);
+        }
+
+        when(repository.findAllWithVehicleByIdIn(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            assertTrue(ids.size() < drivers.size(), "Should not load every active driver");
+            return drivers.stream().filter(d -> ids.contains(d.getId())).toList();
+        });
+        givenDriverRides();
+
+        Driver result = driverService.findDriverForRide(pickupLocation, standardPrefs(), 1);
+
+        assertEquals(1L, result.getId());
+    }
+
+    @Test
+    @DisplayName("Should dispatch an active driver whose vehicle has no position yet")
+    void findDriverForRide_ShouldFallBackToAllActiveDrivers_WhenDriverIsNotIndexed() {
+        Driver withoutPosition = createActiveDriverWithVehicle(1L, TestObjectFactory.createTestVehicleSpecification(), null);
+        withoutPosition.getDailyLogs().forEach(workTimeTracker::track);
+        when(repository.getAllCurrentlyActiveDriversWithVehicle()).thenReturn(List.of(withoutPosition));
+        givenDriverRides();
+
+        Driver result = driverService.findDriverForRide(pickupLocation, standardPrefs(), 1);
+
+        assertEquals(1L, result.getId());
+        assertEquals(0, locationIndex.size());
+    }
+
+    @Test
+    @DisplayName("Should pick the free driver with the shortest driving time")
+    void findDriverForRide_ShouldPreferShortestEta_WhenRankedByRoad() {
+        Driver closest = createActiveDriverWithVehicle(1L, TestObjectFactory.createTestVehicleSpecification(),
+            new Location(19.8335, 45.2660));
+        Driver fasterByRoad = createActiveDriverWithVehicle(2L, TestObjectFactory.createTestVehicleSpecification(),
+            new Location(19.8400, 45.2700));
+        givenActiveDrivers(closest, fasterByRoad);
+        givenDriverRides();
+        when(etaRanker.rank(any(), any())).thenReturn(List.of(fasterByRoad, closest));
+
+        Driver result = driverService.findDriverForRide(pickupLocation, standardPrefs(), 1);
+
+        assertEquals(2L, result.getId());
+    }
+
+    @Test
+    @DisplayName("Should never assign the same driver twice under parallel orders")
+    void findDriverForRide_ShouldNotAssignDriverTwice_WhenOrdersRunInParallel() throws Exception {
+        int driverCount = 100;
+        int orderCount = 400;
+        List<Driver> drivers = new ArrayList<>();
+        for (long id = 1; id <= driverCount; id++) {
+            Driver driver = createActiveDriverWithVehicle(id,
+                TestObjectFactory.createTestVehicleSpecification(),
+                new Location(19.8335 + (id % 10) * 0.004, 45.2671 + (id / 10) * 0.004));
+            drivers.add(driver);
+            Location location = driver.getVehicle().getLocation();
+            locationIndex.upsert(id, null, location.getLatitude(), location.getLongitude());
+            driver.getDailyLogs().forEach(workTimeTracker::track);
+        }
+
+        // committed rides, visible to availability queries like rows in the database
+        List<DriverRideWindow> committed = new CopyOnWriteArrayList<>();
+        when(repository.findAllWithVehicleByIdIn(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return drivers.stream().filter(d -> ids.contains(d.getId())).toList();
+        });
+        when(repository.getAllCurrentlyActiveDriversWithVehicle()).thenReturn(drivers);
+        when(rideRepository.findRideWindowsByDriverIds(any(), any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return committed.stream().filter(w -> ids.contains(w.driverId())).toList();
+        });
+
+        Map<Long, Integer> ridesByDriver = new ConcurrentHashMap<>();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicLong rideIds = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+
+        List<Future<?>> orders = new ArrayList<>();
+        for (int i = 0; i < orderCount; i++) {
+            orders.add(pool.submit(() -> {
+                start.await();
+                // every order runs in its own simulated transaction, like rideOrder
+                TransactionSynchronizationManager.initSynchronization();
+                int status = TransactionSynchronization.STATUS_ROLLED_BACK;
+                try {
+                    Driver driver = driverService.findDriverForRide(pickupLocation, standardPrefs(), 1);
+                    LocalDateTime now = LocalDateTime.now();
+                    committed.add(new DriverRideWindow(
+                        rideIds.incrementAndGet(), driver.getId(), RideStatus.ONGOING, now, null, now, 3600L,
+                        45.2551, 19.8451
+                    ));
+                    ridesByDriver.merge(driver.getId(), 1, Integer::sum);
+                    status = TransactionSynchronization.STATUS_COMMITTED;
+                } catch (NoSuitableDriversException e) {
+                    rejected.incrementAndGet();
+                } finally {
+                    List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+                    TransactionSynchronizationManager.clearSynchronization();
+                    for (TransactionSynchronization synchronization : synchronizations) {
+                        synchronization.afterCompletion(status);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> order : orders) {
+            order.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertTrue(ridesByDriver.values().stream().allMatch(count -> count == 1), "Driver assigned twice: " + ridesByDriver);
+        assertEquals(driverCount, ridesByDriver.size());
+        assertEquals(orderCount - driverCount, rejected.get());
+    }
+}
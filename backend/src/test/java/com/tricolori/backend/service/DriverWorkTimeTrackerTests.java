@@ -0,0 +1,71 @@
+package com.tricolori.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.tricolori.backend.entity.Driver;
+import com.tricolori.backend.entity.DriverDailyLog;
+import com.tricolori.backend.util.TestObjectFactory;
+
+class DriverWorkTimeTrackerTests {
+
+    private DriverWorkTimeTracker tracker;
+    private Driver driver;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new DriverWorkTimeTracker();
+        driver = TestObjectFactory.createTestDriverWithId(1L);
+    }
+
+    @Test
+    @DisplayName("Should add time since activation to the stored active time")
+    void hasWorkTimeLeft_ShouldCountCurrentShift() {
+        LocalDateTime activatedAt = LocalDate.now().atTime(8, 0);
+        DriverDailyLog log = TestObjectFactory.createTestDailyLog(LocalDate.now(), true, driver);
+        log.setActiveTimeSeconds(7L * 60 * 60);
+        log.setLastActivationAt(activatedAt);
+        tracker.track(log);
+
+        assertTrue(tracker.hasWorkTimeLeft(1L, activatedAt.plusMinutes(59)));
+        assertFalse(tracker.hasWorkTimeLeft(1L, activatedAt.plusMinutes(61)));
+    }
+
+    @Test
+    @DisplayName("Should stop counting once the driver goes offline")
+    void hasWorkTimeLeft_ShouldFreezeTime_WhenDriverInactive() {
+        DriverDailyLog log = TestObjectFactory.createTestDailyLog(LocalDate.now(), false, driver);
+        log.setActiveTimeSeconds(7L * 60 * 60);
+        log.setLastActivationAt(LocalDate.now().atTime(8, 0));
+        tracker.track(log);
+
+        assertTrue(tracker.hasWorkTimeLeft(1L, LocalDate.now().atTime(23, 59)));
+    }
+
+    @Test
+    @DisplayName("Should have no work time without a log for today")
+    void hasWorkTimeLeft_ShouldBeFalse_WithoutTodayLog() {
+        tracker.load(List.of(TestObjectFactory.createTestDailyLog(LocalDate.now().minusDays(1), true, driver)));
+
+        assertFalse(tracker.hasWorkTimeLeft(1L));
+        assertFalse(tracker.hasWorkTimeLeft(2L));
+    }
+
+    @Test
+    @DisplayName("Should drop accumulators of previous days")
+    void evictBefore_ShouldRemoveOldDays() {
+        tracker.track(TestObjectFactory.createTestDailyLog(LocalDate.now().minusDays(1), true, driver));
+
+        tracker.evictBefore(LocalDate.now());
+        tracker.track(TestObjectFactory.createTestDailyLog(LocalDate.now(), true, driver));
+
+        assertTrue(tracker.hasWorkTimeLeft(1L));
+    }
+}
@@ -0,0 +1,119 @@
+package com.tricolori.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.tricolori.backend.dto.ride.NominatimResponse;
+import com.tricolori.backend.entity.GeocodedAddress;
+import com.tricolori.backend.enums.GeocodingDirection;
+import com.tricolori.backend.repository.GeocodedAddressRepository;
+
+@ExtendWith(MockitoExtension.class)
+class GeocodingServiceTests {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private GeocodedAddressRepository repository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private GeocodingService geocodingService;
+
+    @BeforeEach
+    void setUp() {
+        geocodingService = new GeocodingService(restTemplate, new GeocodingCache(repository, transactionManager, 100, false), new NominatimThrottle(4, 1000, 100, 100));
+    }
+
+    private void givenNominatimFinds(String lat, String lon, String displayName) {
+        NominatimResponse response = new NominatimResponse();
+        response.setLat(lat);
+        response.setLon(lon);
+        response.setDisplay_name(displayName);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(), eq(NominatimResponse[].class)))
+            .thenReturn(ResponseEntity.ok(new NominatimResponse[] { response }));
+    }
+
+    @Test
+    @DisplayName("Should normalize script, diacritics, case and spacing")
+    void normalizeAddress_ShouldFoldSpellings() {
+        String expected = "bulevar oslobodjenja 5, novi sad";
+
+        assertEquals(expected, geocodingService.normalizeAddress("Булевар ослобођења 5, Нови Сад"));
+        assertEquals(expected, geocodingService.normalizeAddress("  Bulevar  Oslobođenja 5 ,Novi   Sad "));
+        assertEquals(expected, geocodingService.normalizeAddress("BULEVAR OSLOBODJENJA 5, NOVI SAD"));
+    }
+
+    @Test
+    @DisplayName("Should call Nominatim once for differently spelled addresses")
+    void getAddressCoordinates_ShouldHitCache_ForEquivalentAddresses() {
+        givenNominatimFinds("45.2550", "19.8451", "Bulevar oslobođenja 5, Novi Sad");
+
+        NominatimResponse first = geocodingService.getAddressCoordinates("Булевар ослобођења 5");
+        NominatimResponse second = geocodingService.getAddressCoordinates("bulevar  oslobodjenja 5");
+
+        assertEquals(first.getLat(), second.getLat());
+        verify(restTemplate, times(1)).exchange(anyString(), any(HttpMethod.class), any(), eq(NominatimResponse[].class));
+        assertEquals(1, geocodingService.getCacheStats().forward().hits());
+        assertEquals(1, geocodingService.getCacheStats().forward().misses());
+    }
+
+    @Test
+    @DisplayName("Should reuse reverse geocoding within the same grid cell but not cache failures")
+    void getAddressFromCoordinates_ShouldCacheByGridCell() {
+        JsonNode body = JsonNodeFactory.instance.objectNode().put("display_name", "Trg slobode, Novi Sad");
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(), eq(JsonNode.class)))
+            .thenThrow(new RestClientException("timeout"))
+            .thenReturn(ResponseEntity.ok(body));
+
+        String failed = geocodingService.getAddressFromCoordinates(45.25510, 19.84510);
+        String found = geocodingService.getAddressFromCoordinates(45.25510, 19.84510);
+        String nearby = geocodingService.getAddressFromCoordinates(45.25512, 19.84508);
+
+        assertTrue(failed.startsWith("Non-existent location"));
+        assertEquals("Trg slobode, Novi Sad", found);
+        assertEquals("Trg slobode, Novi Sad", nearby);
+        verify(restTemplate, times(2)).exchange(anyString(), any(HttpMethod.class), any(), eq(JsonNode.class));
+    }
+
+    @Test
+    @DisplayName("Should read the persistent table after a restart")
+    void getAddressCoordinates_ShouldReadPersistentTable_WhenMemoryIsEmpty() {
+        geocodingService = new GeocodingService(restTemplate, new GeocodingCache(repository, transactionManager, 100, true), new NominatimThrottle(4, 1000, 100, 100));
+        GeocodedAddress row = GeocodedAddress.builder()
+            .direction(GeocodingDirection.FORWARD)
+            .cacheKey("zeleznicka stanica, novi sad")
+            .latitude(45.2653)
+            .longitude(19.8297)
+            .displayName("Železnička stanica, Novi Sad")
+            .build();
+        when(repository.findByDirectionAndCacheKey(GeocodingDirection.FORWARD, "zeleznicka stanica, novi sad"))
+            .thenReturn(Optional.of(row));
+
+        NominatimResponse response = geocodingService.getAddressCoordinates("Железничка станица, Нови Сад");
+
+        assertEquals(45.2653, Double.parseDouble(response.getLat()));
+        verifyNoInteractions(restTemplate);
+    }
+}
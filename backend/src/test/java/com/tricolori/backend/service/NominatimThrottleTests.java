@@ -0,0 +1,153 @@
+package com.tricolori.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.client.RestTemplate;
+
+import com.tricolori.backend.dto.geocoding.NominatimStatsResponse;
+import com.tricolori.backend.dto.ride.NominatimResponse;
+import com.tricolori.backend.exception.GeocodingUnavailableException;
+import com.tricolori.backend.repository.GeocodedAddressRepository;
+import com.tricolori.backend.util.StubNominatimServer;
+
+class NominatimThrottleTests {
+
+    private StubNominatimServer nominatim;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        nominatim = new StubNominatimServer(200);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nominatim.close();
+    }
+
+    private GeocodingService geocodingService(NominatimThrottle throttle) {
+        GeocodingCache cache = new GeocodingCache(
+            mock(GeocodedAddressRepository.class), mock(PlatformTransactionManager.class), 100, false
+        );
+        GeocodingService service = new GeocodingService(new RestTemplate(), cache, throttle);
+        ReflectionTestUtils.setField(service, "nominatimUrl", nominatim.baseUrl());
+        return service;
+    }
+
+    @Test
+    @DisplayName("Should never let more requests than permitted run at once")
+    void call_ShouldBoundConcurrentRequests() {
+        NominatimThrottle throttle = new NominatimThrottle(2, 1000, 100, 100);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 16; i++) {
+                executor.submit(() -> throttle.call(() -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    inFlight.decrementAndGet();
+                    return completed.incrementAndGet();
+                }));
+            }
+        }
+
+        assertEquals(16, completed.get());
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    @DisplayName("Should send one request for identical lookups made at the same time")
+    void getAddressCoordinates_ShouldCoalesceIdenticalLookups() throws Exception {
+        GeocodingService service = geocodingService(new NominatimThrottle(4, 100, 10, 100));
+
+        List<NominatimResponse> responses;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<NominatimResponse>> lookups = IntStream.range(0, 8)
+                .mapToObj(i -> executor.submit(() -> service.getAddressCoordinates("Trg slobode 1")))
+                .toList();
+            responses = lookups.stream().map(NominatimThrottleTests::get).toList();
+        }
+
+        assertEquals(1, nominatim.requests());
+        assertTrue(responses.stream().allMatch(r -> "45.2550".equals(r.getLat())));
+        // the rest are coalesced or, once the first one finished, served from the cache
+        NominatimStatsResponse stats = service.getNominatimStats();
+        assertEquals(1, stats.requests());
+        assertTrue(stats.coalesced() > 0);
+    }
+
+    @Test
+    @DisplayName("Should space out requests to the configured rate")
+    void getAddressCoordinates_ShouldRespectRateLimit() {
+        GeocodingService service = geocodingService(new NominatimThrottle(4, 5, 1, 100));
+
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 5; i++) {
+                int n = i;
+                executor.submit(() -> service.getAddressCoordinates("Ulica " + n));
+            }
+        }
+
+        List<Long> arrivals = nominatim.requestNanos().stream().sorted().toList();
+        assertEquals(5, arrivals.size());
+        // one token per 200 ms from the start. A slow request can only arrive later than its
+        // token, so the i-th arrival is never earlier than i tokens after the start
+        for (int i = 1; i < arrivals.size(); i++) {
+            long afterStartMillis = (arrivals.get(i) - started) / 1_000_000;
+            assertTrue(afterStartMillis >= i * 200L, "request " + i + " arrived " + afterStartMillis + " ms after the start");
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject lookups once the wait queue is full")
+    void getAddressCoordinates_ShouldRejectWhenQueueIsFull() {
+        GeocodingService service = geocodingService(new NominatimThrottle(4, 2, 1, 2));
+        AtomicInteger rejected = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 6; i++) {
+                int n = i;
+                executor.submit(() -> {
+                    try {
+                        service.getAddressCoordinates("Ulica " + n);
+                    } catch (GeocodingUnavailableException e) {
+                        rejected.incrementAndGet();
+                    }
+                });
+            }
+        }
+
+        assertTrue(rejected.get() > 0);
+        assertEquals(rejected.get(), service.getNominatimStats().rejected());
+        assertEquals(6 - rejected.get(), nominatim.requests());
+        assertEquals(0, service.getNominatimStats().queued());
+    }
+
+    private static <T> T get(Future<T> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
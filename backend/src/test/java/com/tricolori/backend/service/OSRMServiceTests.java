@@ -0,0 +1,113 @@
+package com.tricolori.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import com.tricolori.backend.config.RestTemplateConfig;
+import com.tricolori.backend.dto.osrm.OSRMRouteResponse;
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.util.CircuitBreaker;
+import com.tricolori.backend.util.StubNominatimServer;
+import com.tricolori.backend.util.StubOsrmServer;
+
+class OSRMServiceTests {
+
+    private StubOsrmServer osrm;
+    private CircuitBreaker circuitBreaker;
+    private OSRMService osrmService;
+
+    private final Location noviSad = new Location(19.8335, 45.2671);
+    private final Location petrovaradin = new Location(19.8640, 45.2510);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        osrm = new StubOsrmServer((from, to) -> 300.0);
+        circuitBreaker = new CircuitBreaker(3, 30_000);
+        osrmService = new OSRMService(new RestTemplate(), circuitBreaker, Optional.empty());
+        ReflectionTestUtils.setField(osrmService, "osrmBaseUrl", osrm.baseUrl());
+    }
+
+    @AfterEach
+    void tearDown() {
+        osrm.close();
+    }
+
+    @Test
+    @DisplayName("Should stop calling OSRM once the circuit opens")
+    void getDurationsTo_ShouldSkipOsrm_WhenCircuitOpen() {
+        osrm.setFailing(true);
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(IllegalStateException.class,
+                () -> osrmService.getDurationsTo(List.of(noviSad), petrovaradin));
+        }
+
+        assertEquals(3, osrm.tableRequests());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    @DisplayName("Should estimate the route in a straight line when OSRM is unreachable")
+    void getRoute_ShouldEstimate_WhenOsrmUnreachable() {
+        String baseUrl = osrm.baseUrl();
+        osrm.close();
+        ReflectionTestUtils.setField(osrmService, "osrmBaseUrl", baseUrl);
+
+        OSRMRouteResponse response = osrmService.getRoute(List.of(noviSad, petrovaradin));
+
+        assertEquals(OSRMService.ESTIMATE_CODE, response.getCode());
+        OSRMRouteResponse.OSRMRoute route = response.getRoutes().get(0);
+        // ~3.1 km straight line, stretched by the road factor
+        assertEquals(4_000, route.getDistance(), 500);
+        assertTrue(route.getDuration() > 0);
+        assertNotNull(route.getGeometry());
+    }
+
+    @Test
+    @DisplayName("Should route on the embedded graph without calling OSRM")
+    void getRoute_ShouldUseEmbeddedEngine_WhenConfigured() throws Exception {
+        EmbeddedRoutingEngine engine = new EmbeddedRoutingEngine(
+            new DefaultResourceLoader(), "classpath:routing/test.graph", 4);
+        osrmService = new OSRMService(new RestTemplate(), circuitBreaker, Optional.of(engine));
+
+        // grid corners, snapped to nodes 1 and 12 of the test graph
+        OSRMRouteResponse response = osrmService.getRoute(List.of(
+            new Location(19.8201, 45.2601), new Location(19.8499, 45.2699)));
+        List<Double> durations = osrmService.getDurationsTo(
+            List.of(new Location(19.8201, 45.2601), new Location(19.9000, 45.3000)), new Location(19.8499, 45.2699));
+
+        assertEquals("Ok", response.getCode());
+        OSRMRouteResponse.OSRMRoute route = response.getRoutes().get(0);
+        assertEquals(route.getDuration(), durations.get(0), 1);
+        assertNull(durations.get(1));
+        assertTrue(route.getDistance() > 3_000);
+        assertEquals(0, osrm.tableRequests());
+    }
+
+    @Test
+    @DisplayName("Pooled client should give up on a slow upstream after the read timeout")
+    void restTemplate_ShouldTimeOut_WhenUpstreamSlow() throws Exception {
+        try (StubNominatimServer slow = new StubNominatimServer(2_000)) {
+            RestTemplate restTemplate = new RestTemplateConfig()
+                .restTemplate(new UpstreamMetrics(), 10, 2, 1_000, 300, 30);
+
+            ResourceAccessException e = assertThrows(ResourceAccessException.class,
+                () -> restTemplate.getForObject(slow.baseUrl() + "search?q=x&format=json", String.class));
+
+            // without the read timeout the upstream answers after 2 seconds
+            assertInstanceOf(SocketTimeoutException.class, e.getCause());
+        }
+    }
+}
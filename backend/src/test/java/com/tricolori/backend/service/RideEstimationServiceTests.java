@@ -0,0 +1,115 @@
+package com.tricolori.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tricolori.backend.dto.ride.RideEstimationRequest;
+import com.tricolori.backend.dto.ride.RideEstimationResponse;
+import com.tricolori.backend.dto.ride.RideRoute;
+import com.tricolori.backend.dto.route.PlannedRoute;
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.entity.PriceList;
+import com.tricolori.backend.entity.Stop;
+import com.tricolori.backend.enums.VehicleType;
+import com.tricolori.backend.infrastructure.presentation.dtos.Route.OSRMResult;
+
+@ExtendWith(MockitoExtension.class)
+class RideEstimationServiceTests {
+
+    @Mock
+    private RouteService routeService;
+    @Mock
+    private PriceListService priceListService;
+
+    private final Stop pickup = new Stop("Bulevar oslobođenja 1", null);
+    private final Stop destination = new Stop("Zmaj Jovina 10", null);
+
+    @BeforeEach
+    void setUp() {
+        PriceList priceList = new PriceList();
+        priceList.setStandardPrice(200);
+        priceList.setLuxuryPrice(400);
+        priceList.setVanPrice(300);
+        priceList.setKmPrice(100);
+        lenient().when(priceListService.getCurrentPriceList()).thenReturn(priceList);
+    }
+
+    private void planned(OSRMResult result) {
+        List<Stop> located = new ArrayList<>(List.of(
+            new Stop("Bulevar oslobođenja 1, Novi Sad", new Location(19.84, 45.25)),
+            new Stop("Zmaj Jovina 10, Novi Sad", new Location(19.85, 45.26))));
+        when(routeService.planRoute(any(), any(), any())).thenReturn(new PlannedRoute(located, result));
+    }
+
+    @Test
+    @DisplayName("Should price every vehicle type by base price and distance")
+    void estimate_ShouldPriceEveryVehicleType() {
+        RideEstimationService service = new RideEstimationService(routeService, priceListService, 100, 300);
+        planned(new OSRMResult(2.5, 420, "geometry"));
+
+        RideEstimationResponse response = service.estimate(new RideEstimationRequest(pickup, destination, null));
+
+        assertEquals(450.0, response.prices().get(VehicleType.STANDARD));
+        assertEquals(650.0, response.prices().get(VehicleType.LUXURY));
+        assertEquals(550.0, response.prices().get(VehicleType.VAN));
+        assertEquals(420L, response.estimatedTimeSeconds().longValue());
+        assertEquals("Bulevar oslobođenja 1, Novi Sad", response.pickupStop().getAddress());
+        assertNotNull(response.quoteId());
+    }
+
+    @Test
+    @DisplayName("Should hand the quoted route to an order with the same stops")
+    void plannedRoute_ShouldReuseQuote_ForSameStops() {
+        RideEstimationService service = new RideEstimationService(routeService, priceListService, 100, 300);
+        OSRMResult result = new OSRMResult(2.5, 420, "geometry");
+        planned(result);
+
+        String quoteId = service.estimate(new RideEstimationRequest(pickup, destination, null)).quoteId();
+        PlannedRoute route = service.plannedRoute(quoteId, new RideRoute(pickup, destination, null)).orElseThrow();
+
+        assertSame(result, route.result());
+        assertEquals(2, route.stops().size());
+        assertEquals(new Location(19.84, 45.25), route.stops().getFirst().getLocation());
+    }
+
+    @Test
+    @DisplayName("Should not reuse a quote for other stops, an unknown id or after it expires")
+    void plannedRoute_ShouldBeEmpty_WhenQuoteDoesNotApply() {
+        RideEstimationService service = new RideEstimationService(routeService, priceListService, 100, 300);
+        planned(new OSRMResult(2.5, 420, "geometry"));
+        String quoteId = service.estimate(new RideEstimationRequest(pickup, destination, null)).quoteId();
+
+        Stop otherDestination = new Stop("Futoška 5", null);
+        assertTrue(service.plannedRoute(quoteId, new RideRoute(pickup, otherDestination, null)).isEmpty());
+        assertTrue(service.plannedRoute("unknown", new RideRoute(pickup, destination, null)).isEmpty());
+        assertTrue(service.plannedRoute(null, new RideRoute(pickup, destination, null)).isEmpty());
+
+        RideEstimationService expiring = new RideEstimationService(routeService, priceListService, 100, 0);
+        String expiredId = expiring.estimate(new RideEstimationRequest(pickup, destination, null)).quoteId();
+        assertTrue(expiring.plannedRoute(expiredId, new RideRoute(pickup, destination, null)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not quote a straight-line estimate made while OSRM is down")
+    void estimate_ShouldNotQuote_EstimatedRoute() {
+        RideEstimationService service = new RideEstimationService(routeService, priceListService, 100, 300);
+        planned(new OSRMResult(2.5, 420, null, true));
+
+        RideEstimationResponse response = service.estimate(new RideEstimationRequest(pickup, destination, null));
+
+        assertNull(response.quoteId());
+        assertNull(response.validUntil());
+        assertEquals(450.0, response.prices().get(VehicleType.STANDARD));
+    }
+}
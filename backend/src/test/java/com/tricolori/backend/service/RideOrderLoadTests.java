@@ -0,0 +1,247 @@
+package com.tricolori.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tricolori.backend.dto.ride.OrderRequest;
+import com.tricolori.backend.dto.route.PlannedRoute;
+import com.tricolori.backend.entity.Driver;
+import com.tricolori.backend.entity.Passenger;
+import com.tricolori.backend.entity.Ride;
+import com.tricolori.backend.infrastructure.presentation.dtos.Route.OSRMResult;
+import com.tricolori.backend.repository.RideRepository;
+import com.tricolori.backend.util.TestObjectFactory;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Orders many rides at once against a small real connection pool while routing, the OSRM
+ * driver ranking, the batch dispatch window and email are slow. Only the transaction of each
+ * order uses the pool, so the orders don't queue for connections behind the upstream latency.
+ */
+@ExtendWith(MockitoExtension.class)
+class RideOrderLoadTests {
+
+    private static final int POOL_SIZE = 4;
+    private static final int ORDERS = 32;
+    private static final long UPSTREAM_MS = 200;
+
+    private final HikariDataSource dataSource = pool();
+
+    @Mock
+    private RideRepository rideRepository;
+    @Mock
+    private RouteService routeService;
+    @Mock
+    private PassengerService passengerService;
+    @Mock
+    private DriverService driverService;
+    @Mock
+    private PriceListService priceListService;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private TrackingTokenService trackingTokenService;
+    @Mock
+    private RideEstimationService rideEstimationService;
+    @Mock
+    private DriverRideCalendar driverRideCalendar;
+    @Mock
+    private BatchDispatchService batchDispatchService;
+    @Mock
+    private DriverReservations driverReservations;
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+    @InjectMocks
+    private RideService rideService;
+
+    private final AtomicInteger connectionsHeldDuringUpstream = new AtomicInteger();
+
+    private static HikariDataSource pool() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:ride-order-load;DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(POOL_SIZE);
+        // shortest timeout Hikari allows, an order queued behind slow upstreams fails instead of waiting
+        dataSource.setConnectionTimeout(250);
+        return dataSource;
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    // stands in for Nominatim, OSRM or SMTP, records whether the calling thread holds a connection
+    private void slowUpstream() throws InterruptedException {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            connectionsHeldDuringUpstream.incrementAndGet();
+        }
+        Thread.sleep(UPSTREAM_MS);
+    }
+
+    private Driver givenSlowOrder() {
+        Passenger organizer = TestObjectFactory.createTestPassenger();
+        Driver driver = TestObjectFactory.createTestDriver();
+        driver.setId(1L);
+        driver.setVehicle(TestObjectFactory.createTestVehicle());
+        PlannedRoute planned = new PlannedRoute(List.of(), new OSRMResult(5.0, 600L, "geometry"));
+        AtomicInteger rideIds = new AtomicInteger();
+
+        when(routeService.planRoute(any(), any(), any())).thenAnswer(i -> {
+            slowUpstream();
+            return planned;
+        });
+        when(routeService.createRoute(planned)).thenAnswer(i -> TestObjectFactory.createTestRoute());
+        when(routeService.attach(any())).thenAnswer(i -> i.getArgument(0));
+        when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
+        when(priceListService.calculateBasePrice(any())).thenReturn(100.0);
+        when(priceListService.getKmPrice()).thenReturn(50.0);
+        when(rideRepository.save(any(Ride.class))).thenAnswer(i -> {
+            Ride ride = i.getArgument(0);
+            ride.setId((long) rideIds.incrementAndGet());
+            return ride;
+        });
+        doAnswer(i -> {
+            slowUpstream();
+            return null;
+        }).when(notificationService).sendAddedToRideNotification(
+            anyString(), any(), anyString(), anyString(), any(), any(), anyString());
+        return driver;
+    }
+
+    private void orderConcurrently() throws Exception {
+        Passenger organizer = TestObjectFactory.createTestPassenger();
+        ExecutorService clients = Executors.newFixedThreadPool(ORDERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Long>> orders = new ArrayList<>();
+            for (int i = 0; i < ORDERS; i++) {
+                orders.add(clients.submit(() -> {
+                    start.await();
+                    OrderRequest request = TestObjectFactory.createOrderRequest();
+                    request.setTrackers(new String[] {"tracker@test.com"});
+                    return rideService.rideOrder(organizer, request);
+                }));
+            }
+
+            start.countDown();
+            for (Future<Long> order : orders) {
+                // a pool timeout surfaces here as CannotCreateTransactionException
+                assertNotNull(order.get());
+            }
+
+            assertEquals(0, connectionsHeldDuringUpstream.get());
+            assertEquals(0, dataSource.getHikariPoolMXBean().getActiveConnections());
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the connection pool available while routing, driver ranking and email are slow")
+    void rideOrder_ShouldNotHoldConnections_DuringUpstreamCalls() throws Exception {
+        Driver driver = givenSlowOrder();
+        // the OSRM table call ranking the nearest free drivers
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenAnswer(i -> {
+            slowUpstream();
+            return driver;
+        });
+
+        orderConcurrently();
+
+        verify(driverReservations, times(ORDERS)).release(driver.getId());
+    }
+
+    @Test
+    @DisplayName("Should keep the connection pool available while orders wait for the batch dispatch window")
+    void rideOrder_ShouldNotHoldConnections_WhileWaitingForBatch() throws Exception {
+        Driver driver = givenSlowOrder();
+        ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor();
+        try {
+            when(batchDispatchService.accepts(any())).thenReturn(true);
+            when(batchDispatchService.getWindowMs()).thenReturn(UPSTREAM_MS);
+            when(batchDispatchService.submit(any(), any(), anyInt())).thenAnswer(i -> {
+                if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                    connectionsHeldDuringUpstream.incrementAndGet();
+                }
+                CompletableFuture<Long> assigned = new CompletableFuture<>();
+                dispatcher.schedule(() -> assigned.complete(driver.getId()), UPSTREAM_MS, TimeUnit.MILLISECONDS);
+                return assigned;
+            });
+            when(driverService.findById(driver.getId())).thenReturn(driver);
+
+            orderConcurrently();
+
+            verify(driverReservations, times(ORDERS)).release(driver.getId());
+        } finally {
+            dispatcher.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should exhaust the pool when the same upstream latency is spent inside transactions")
+    void pool_ShouldTimeOut_WhenConnectionsWaitOnUpstream() throws Exception {
+        AtomicInteger timedOut = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(ORDERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> orders = new ArrayList<>();
+            for (int i = 0; i < ORDERS; i++) {
+                orders.add(clients.submit(() -> {
+                    start.await();
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> {
+                            try {
+                                Thread.sleep(UPSTREAM_MS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        timedOut.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> order : orders) {
+                order.get();
+            }
+
+            // the ordering before the split into phases: most orders never got a connection
+            assertTrue(timedOut.get() >= ORDERS - 2 * POOL_SIZE, timedOut.get() + " timed out");
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.tricolori.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.entity.Route;
+import com.tricolori.backend.util.Polyline;
+import com.tricolori.backend.util.TestObjectFactory;
+
+class RideProgressTrackerTests {
+
+    private final RideProgressTracker tracker = new RideProgressTracker();
+
+    // straight north along a meridian, 10 km in 20 minutes
+    private static Route northbound() {
+        Route route = TestObjectFactory.createTestRoute();
+        route.setRouteGeometry(Polyline.encode(List.of(
+            new Location(19.8, 45.2), new Location(19.8, 45.245), new Location(19.8, 45.29))));
+        route.setEstimatedTimeSeconds(1_200L);
+        return route;
+    }
+
+    @Test
+    @DisplayName("Should keep remaining distance and time with the vehicle's progress")
+    void update_ShouldScaleRemainingTime_ByRemainingDistance() {
+        assertTrue(tracker.start(1L, northbound()));
+        assertTrue(tracker.progress(1L).isEmpty());
+
+        // a quarter of the way
+        tracker.update(1L, 45.2225, 19.8002);
+        RideProgressTracker.Progress progress = tracker.progress(1L).orElseThrow();
+
+        assertEquals(7_500, progress.remainingMeters(), 20);
+        assertEquals(900, progress.remainingSeconds(), 3);
+        assertEquals(Duration.ofSeconds(progress.remainingSeconds()),
+            Duration.between(progress.updatedAt(), progress.estimatedArrival()));
+
+        tracker.update(1L, 45.29, 19.8);
+        assertEquals(0, tracker.progress(1L).orElseThrow().remainingSeconds());
+    }
+
+    @Test
+    @DisplayName("Should ignore rides without geometry and positions of untracked or finished rides")
+    void update_ShouldIgnoreUntrackedRides() {
+        Route withoutGeometry = northbound();
+        withoutGeometry.setRouteGeometry(null);
+
+        assertFalse(tracker.start(2L, withoutGeometry));
+        tracker.update(2L, 45.2225, 19.8);
+        assertTrue(tracker.progress(2L).isEmpty());
+
+        tracker.start(3L, northbound());
+        tracker.update(3L, 45.2225, 19.8);
+        tracker.finish(3L);
+        assertFalse(tracker.isTracked(3L));
+        assertTrue(tracker.progress(3L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep a ride's progress when it is started again")
+    void start_ShouldKeepTrackedRide() {
+        tracker.start(4L, northbound());
+        tracker.update(4L, 45.2225, 19.8);
+        Instant updatedAt = tracker.progress(4L).orElseThrow().updatedAt();
+
+        assertTrue(tracker.start(4L, northbound()));
+        assertEquals(updatedAt, tracker.progress(4L).orElseThrow().updatedAt());
+    }
+
+    @Test
+    @DisplayName("Should leave tracking unchanged when the transaction starting or finishing a ride rolls back")
+    void onCommit_ShouldWaitForCommit() {
+        tracker.start(6L, northbound());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tracker.startOnCommit(5L, northbound());
+            tracker.finishOnCommit(6L);
+            assertFalse(tracker.isTracked(5L));
+            assertTrue(tracker.isTracked(6L));
+        } finally {
+            // rolled back, the synchronizations never run
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertFalse(tracker.isTracked(5L));
+        assertTrue(tracker.isTracked(6L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tracker.startOnCommit(5L, northbound());
+            tracker.finishOnCommit(6L);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(tracker.isTracked(5L));
+        assertFalse(tracker.isTracked(6L));
+    }
+}
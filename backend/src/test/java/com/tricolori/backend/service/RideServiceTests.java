@@ -2,31 +2,48 @@ package com.tricolori.backend.service;
 
 import com.tricolori.backend.dto.osrm.OSRMRouteResponse;
 import com.tricolori.backend.dto.ride.OrderRequest;
+import com.tricolori.backend.dto.ride.PassengerRideDetailResponse;
+import com.tricolori.backend.dto.ride.RideDetailResponse;
 import com.tricolori.backend.dto.ride.RidePreferences;
+import com.tricolori.backend.dto.ride.RideLocationUpdate;
 import com.tricolori.backend.dto.ride.RideRoute;
+import com.tricolori.backend.dto.ride.RideVehicle;
 import com.tricolori.backend.dto.ride.StopRideRequest;
 import com.tricolori.backend.dto.ride.StopRideResponse;
+import com.tricolori.backend.dto.route.PlannedRoute;
 import com.tricolori.backend.entity.*;
 import com.tricolori.backend.enums.RideStatus;
+import com.tricolori.backend.event.RideStatusUpdateEvent;
 import com.tricolori.backend.enums.VehicleType;
 import com.tricolori.backend.exception.NoFreeDriverCloseException;
 import com.tricolori.backend.exception.NoSuitableDriversException;
 import com.tricolori.backend.exception.RideNotFoundException;
+import com.tricolori.backend.infrastructure.presentation.dtos.Route.OSRMResult;
+import com.tricolori.backend.mapper.RideMapper;
 import com.tricolori.backend.repository.RideRepository;
 import com.tricolori.backend.repository.TrackingTokenRepository;
 import com.tricolori.backend.repository.VehicleRepository;
 import com.tricolori.backend.util.TestObjectFactory;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -72,6 +89,30 @@ class RideServiceTests {
     private DriverService driverService;
     @Mock
     private TrackingTokenService trackingTokenService;
+    @Mock
+    private DriverLocationIndex driverLocationIndex;
+    @Mock
+    private DriverRideCalendar driverRideCalendar;
+    @Mock
+    private BatchDispatchService batchDispatchService;
+    @Mock
+    private DriverReservations driverReservations;
+    @Mock
+    private RideEstimationService rideEstimationService;
+    @Mock
+    private VehiclePositionStore vehiclePositionStore;
+    @Mock
+    private RideTelemetryLog rideTelemetryLog;
+    @Mock
+    private VehicleMapFeed vehicleMapFeed;
+    @Mock
+    private RideProgressTracker rideProgressTracker;
+    @Mock
+    private RideMapper rideMapper;
+    @Mock
+    private ReviewService reviewService;
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
 
     @Mock
     private SimpMessagingTemplate RideAssignedEventmessagingTemplate;
@@ -81,6 +122,14 @@ class RideServiceTests {
     @InjectMocks
     private RideService rideService;
 
+    private final PlannedRoute plannedRoute = new PlannedRoute(List.of(), new OSRMResult(5.0, 600L, "geometry"));
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(routeService.planRoute(any(), any(), any())).thenReturn(plannedRoute);
+        lenient().when(routeService.attach(any())).thenAnswer(i -> i.getArgument(0));
+    }
+
     @Test
     void stopRide_ShouldThrowException_WhenNoOngoingRide() {
 
@@ -167,6 +216,7 @@ class RideServiceTests {
         assertEquals(3.5, updatedRoute.getDistanceKm());
         assertEquals(450L, updatedRoute.getEstimatedTimeSeconds());
         assertEquals("new_geometry_data", updatedRoute.getRouteGeometry());
+        assertEquals(RouteService.excludedHash(updatedRoute.getId()), updatedRoute.getGeometryHash());
         assertEquals("Finalna Adresa", updatedRoute.getDestinationStop().getAddress());
 
         // Price check: 100 + (3.5 * 50) = 100 + 175 = 275.0
@@ -203,7 +253,7 @@ class RideServiceTests {
         request.setTrackers(new String[]{"unregistered@test.com"});
 
         Route mockRoute = TestObjectFactory.createTestRoute();
-        when(routeService.createRoute(any(), any(), any())).thenReturn(mockRoute);
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(mockRoute);
         
         // Samo organizator je u bazi, unregistered@test.com NIJE
         when(passengerService.getTrackingPassengers(any())).thenReturn(List.of((Passenger)organizer));
@@ -212,7 +262,7 @@ class RideServiceTests {
         Vehicle mockVehicle = TestObjectFactory.createTestVehicle();
         mockDriver.setVehicle(mockVehicle);
 
-        when(driverService.findDriverForRide(any(), any(), anyInt())).thenReturn(mockDriver);
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
         when(rideRepository.save(any(Ride.class))).thenAnswer(i -> i.getArguments()[0]);
 
         // Act
@@ -297,6 +347,9 @@ class RideServiceTests {
 
         verify(rideRepository, times(1)).save(ride);
         verify(vehicleRepository, times(1)).save(vehicle);
+        verify(vehicleMapFeed).setAvailable(vehicle.getId(), true);
+        verify(rideTelemetryLog).seal(rideId);
+        verify(rideProgressTracker).finishOnCommit(rideId);
         verify(notificationService, times(1)).sendRideCompletedNotification(
                 anyString(),
                 anyString(),
@@ -307,6 +360,40 @@ class RideServiceTests {
         );
     }
 
+    @Test
+    void completeRide_ShouldShowVehicleAvailableOnMap_OnlyAfterCommit() {
+        // Arrange
+        Long rideId = 1L;
+        Long driverId = 1L;
+
+        Driver driver = TestObjectFactory.createTestDriverWithId(driverId);
+        Vehicle vehicle = TestObjectFactory.createTestVehicle();
+        vehicle.setId(7L);
+        driver.setVehicle(vehicle);
+
+        Ride ride = TestObjectFactory.createTestRide(driver, RideStatus.ONGOING);
+        ride.setPassengers(List.of(TestObjectFactory.createTestPassenger()));
+
+        when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride));
+        when(priceListService.calculateBasePrice(any())).thenReturn(100.0);
+        when(priceListService.getKmPrice()).thenReturn(50.0);
+        when(trackingTokenRepository.findByRideId(rideId)).thenReturn(List.of());
+
+        // Act
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            rideService.completeRide(rideId, driverId);
+            verify(vehicleMapFeed, never()).setAvailable(anyLong(), anyBoolean());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert
+        verify(vehicleMapFeed).setAvailable(7L, true);
+    }
+
     @Test
     void completeRide_ShouldCalculateFinalPrice() {
         // Arrange
@@ -606,9 +693,9 @@ class RideServiceTests {
         Driver mockDriver = TestObjectFactory.createTestDriver();
         mockDriver.setVehicle(TestObjectFactory.createTestVehicle());
 
-        when(routeService.createRoute(any(), any(), any())).thenReturn(mockRoute);
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(mockRoute);
         when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
-        when(driverService.findDriverForRide(any(), any(), anyInt())).thenReturn(mockDriver);
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
         when(priceListService.calculateBasePrice(any())).thenReturn(100.0);
         when(priceListService.getKmPrice()).thenReturn(50.0);
         when(rideRepository.save(any(Ride.class))).thenAnswer(inv -> {
@@ -638,9 +725,9 @@ class RideServiceTests {
         Driver mockDriver = TestObjectFactory.createTestDriver();
         mockDriver.setVehicle(TestObjectFactory.createTestVehicle());
 
-        when(routeService.createRoute(any(), any(), any())).thenReturn(mockRoute);
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(mockRoute);
         when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
-        when(driverService.findDriverForRide(any(), any(), anyInt())).thenReturn(mockDriver);
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
         when(priceListService.calculateBasePrice(any())).thenReturn(100.0);
         when(priceListService.getKmPrice()).thenReturn(50.0);
         when(rideRepository.save(any(Ride.class))).thenAnswer(inv -> {
@@ -672,9 +759,9 @@ class RideServiceTests {
         Vehicle mockVehicle = TestObjectFactory.createTestVehicle();
         mockDriver.setVehicle(mockVehicle);
 
-        when(routeService.createRoute(any(), any(), any())).thenReturn(mockRoute);
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(mockRoute);
         when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
-        when(driverService.findDriverForRide(any(), any(), anyInt())).thenReturn(mockDriver);
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
         when(priceListService.calculateBasePrice(any())).thenReturn(100.0);
         when(priceListService.getKmPrice()).thenReturn(50.0);
         when(rideRepository.save(any(Ride.class))).thenAnswer(inv -> {
@@ -706,9 +793,9 @@ class RideServiceTests {
         Driver mockDriver = TestObjectFactory.createTestDriver();
         mockDriver.setVehicle(TestObjectFactory.createTestVehicle()); // VehicleType.STANDARD
 
-        when(routeService.createRoute(any(), any(), any())).thenReturn(mockRoute);
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(mockRoute);
         when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
-        when(driverService.findDriverForRide(any(), any(), anyInt())).thenReturn(mockDriver);
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
         when(priceListService.calculateBasePrice(VehicleType.STANDARD)).thenReturn(100.0);
         when(priceListService.getKmPrice()).thenReturn(50.0);
         when(rideRepository.save(any(Ride.class))).thenAnswer(inv -> {
@@ -747,9 +834,9 @@ class RideServiceTests {
         Driver mockDriver = TestObjectFactory.createTestDriver();
         mockDriver.setVehicle(TestObjectFactory.createTestVehicle());
 
-        when(routeService.createRoute(any(), any(), any())).thenReturn(mockRoute);
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(mockRoute);
         when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
-        when(driverService.findDriverForRide(any(), any(), anyInt())).thenReturn(mockDriver);
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
         when(priceListService.calculateBasePrice(any())).thenReturn(100.0);
         when(priceListService.getKmPrice()).thenReturn(50.0);
         when(rideRepository.save(any(Ride.class))).thenAnswer(inv -> {
@@ -783,9 +870,9 @@ class RideServiceTests {
         Driver mockDriver = TestObjectFactory.createTestDriver();
         mockDriver.setVehicle(TestObjectFactory.createTestVehicle());
 
-        when(routeService.createRoute(any(), any(), any())).thenReturn(mockRoute);
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(mockRoute);
         when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
-        when(driverService.findDriverForRide(any(), any(), anyInt())).thenReturn(mockDriver);
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
         when(priceListService.calculateBasePrice(any())).thenReturn(100.0);
         when(priceListService.getKmPrice()).thenReturn(50.0);
         when(rideRepository.save(any(Ride.class))).thenAnswer(inv -> {
@@ -817,9 +904,9 @@ class RideServiceTests {
         Driver mockDriver = TestObjectFactory.createTestDriver();
         mockDriver.setVehicle(TestObjectFactory.createTestVehicle());
 
-        when(routeService.createRoute(any(), any(), any())).thenReturn(mockRoute);
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(mockRoute);
         when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
-        when(driverService.findDriverForRide(any(), any(), anyInt())).thenReturn(mockDriver);
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
         when(priceListService.calculateBasePrice(any())).thenReturn(100.0);
         when(priceListService.getKmPrice()).thenReturn(50.0);
         when(rideRepository.save(any(Ride.class))).thenAnswer(inv -> {
@@ -857,9 +944,9 @@ class RideServiceTests {
         Driver mockDriver = TestObjectFactory.createTestDriver();
         mockDriver.setVehicle(TestObjectFactory.createTestVehicle());
 
-        when(routeService.createRoute(any(), any(), any())).thenReturn(mockRoute);
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(mockRoute);
         when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
-        when(driverService.findDriverForRide(any(), any(), anyInt())).thenReturn(mockDriver);
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
         when(priceListService.calculateBasePrice(any())).thenReturn(100.0);
         when(priceListService.getKmPrice()).thenReturn(50.0);
         when(rideRepository.save(any(Ride.class))).thenAnswer(inv -> {
@@ -872,7 +959,7 @@ class RideServiceTests {
         rideService.rideOrder(organizer, request);
 
         // Assert
-        verify(driverService).findDriverForRide(eq(expectedPickup), any(), anyInt());
+        verify(driverService).reserveDriverForRide(eq(expectedPickup), any(), anyInt(), any());
     }
 
     @Test
@@ -889,9 +976,9 @@ class RideServiceTests {
         Driver mockDriver = TestObjectFactory.createTestDriver();
         mockDriver.setVehicle(TestObjectFactory.createTestVehicle());
 
-        when(routeService.createRoute(any(), any(), any())).thenReturn(mockRoute);
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(mockRoute);
         when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
-        when(driverService.findDriverForRide(any(), any(), anyInt())).thenReturn(mockDriver);
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
         when(priceListService.calculateBasePrice(any())).thenReturn(100.0);
         when(priceListService.getKmPrice()).thenReturn(50.0);
         when(rideRepository.save(any(Ride.class))).thenAnswer(inv -> {
@@ -904,7 +991,7 @@ class RideServiceTests {
         rideService.rideOrder(organizer, request);
 
         // Assert
-        verify(driverService).findDriverForRide(any(), any(), eq(3));
+        verify(driverService).reserveDriverForRide(any(), any(), eq(3), any());
     }
 
     @Test
@@ -925,9 +1012,9 @@ class RideServiceTests {
         Driver mockDriver = TestObjectFactory.createTestDriver();
         mockDriver.setVehicle(TestObjectFactory.createTestVehicle());
 
-        when(routeService.createRoute(any(), any(), any())).thenReturn(mockRoute);
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(mockRoute);
         when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer, tracker));
-        when(driverService.findDriverForRide(any(), any(), anyInt())).thenReturn(mockDriver);
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
         when(priceListService.calculateBasePrice(any())).thenReturn(100.0);
         when(priceListService.getKmPrice()).thenReturn(50.0);
         when(rideRepository.save(any(Ride.class))).thenAnswer(inv -> {
@@ -962,9 +1049,9 @@ class RideServiceTests {
         Driver mockDriver = TestObjectFactory.createTestDriver();
         mockDriver.setVehicle(TestObjectFactory.createTestVehicle());
 
-        when(routeService.createRoute(any(), any(), any())).thenReturn(mockRoute);
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(mockRoute);
         when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
-        when(driverService.findDriverForRide(any(), any(), anyInt())).thenReturn(mockDriver);
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
         when(priceListService.calculateBasePrice(any())).thenReturn(100.0);
         when(priceListService.getKmPrice()).thenReturn(50.0);
         when(rideRepository.save(any(Ride.class))).thenAnswer(inv -> {
@@ -998,9 +1085,9 @@ class RideServiceTests {
         mockDriver.setVehicle(TestObjectFactory.createTestVehicle());
 
         // Samo organizer i registered su u bazi, unregistered NIJE
-        when(routeService.createRoute(any(), any(), any())).thenReturn(mockRoute);
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(mockRoute);
         when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer, registeredTracker));
-        when(driverService.findDriverForRide(any(), any(), anyInt())).thenReturn(mockDriver);
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
         when(priceListService.calculateBasePrice(any())).thenReturn(100.0);
         when(priceListService.getKmPrice()).thenReturn(50.0);
         when(rideRepository.save(any(Ride.class))).thenAnswer(inv -> {
@@ -1033,9 +1120,9 @@ class RideServiceTests {
         mockDriver.setVehicle(TestObjectFactory.createTestVehicle());
 
         // Samo organizer je registrovan
-        when(routeService.createRoute(any(), any(), any())).thenReturn(mockRoute);
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(mockRoute);
         when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
-        when(driverService.findDriverForRide(any(), any(), anyInt())).thenReturn(mockDriver);
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
         when(priceListService.calculateBasePrice(any())).thenReturn(100.0);
         when(priceListService.getKmPrice()).thenReturn(50.0);
         when(rideRepository.save(any(Ride.class))).thenAnswer(inv -> {
@@ -1064,9 +1151,8 @@ class RideServiceTests {
 
         Route mockRoute = TestObjectFactory.createTestRoute();
 
-        when(routeService.createRoute(any(), any(), any())).thenReturn(mockRoute);
-        when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
-        when(driverService.findDriverForRide(any(), any(), anyInt()))
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(mockRoute);
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any()))
             .thenThrow(new NoSuitableDriversException("Nema vozaca."));
 
         // Act
@@ -1090,9 +1176,8 @@ class RideServiceTests {
 
         Route mockRoute = TestObjectFactory.createTestRoute();
 
-        when(routeService.createRoute(any(), any(), any())).thenReturn(mockRoute);
-        when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
-        when(driverService.findDriverForRide(any(), any(), anyInt()))
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(mockRoute);
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any()))
             .thenThrow(new NoSuitableDriversException("Nema vozaca."));
 
         // Act
@@ -1118,9 +1203,8 @@ class RideServiceTests {
 
         Route mockRoute = TestObjectFactory.createTestRoute();
 
-        when(routeService.createRoute(any(), any(), any())).thenReturn(mockRoute);
-        when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
-        when(driverService.findDriverForRide(any(), any(), anyInt()))
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(mockRoute);
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any()))
             .thenThrow(new NoFreeDriverCloseException("Nema slobodnog vozaca u blizini."));
 
         // Act
@@ -1142,9 +1226,8 @@ class RideServiceTests {
         OrderRequest request = TestObjectFactory.createOrderRequest();
         request.setTrackers(null);
 
-        when(routeService.createRoute(any(), any(), any())).thenReturn(TestObjectFactory.createTestRoute());
-        when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
-        when(driverService.findDriverForRide(any(), any(), anyInt()))
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(TestObjectFactory.createTestRoute());
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any()))
             .thenThrow(new NoSuitableDriversException("Nema vozaca."));
 
         // Act & Assert
@@ -1163,9 +1246,8 @@ class RideServiceTests {
         OrderRequest request = TestObjectFactory.createOrderRequest();
         request.setTrackers(null);
 
-        when(routeService.createRoute(any(), any(), any())).thenReturn(TestObjectFactory.createTestRoute());
-        when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
-        when(driverService.findDriverForRide(any(), any(), anyInt()))
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(TestObjectFactory.createTestRoute());
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any()))
             .thenThrow(new NoFreeDriverCloseException("Nema slobodnog vozaca u blizini."));
 
         // Act & Assert
@@ -1185,9 +1267,8 @@ class RideServiceTests {
         OrderRequest request = TestObjectFactory.createOrderRequest();
         request.setTrackers(null);
 
-        when(routeService.createRoute(any(), any(), any())).thenReturn(TestObjectFactory.createTestRoute());
-        when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
-        when(driverService.findDriverForRide(any(), any(), anyInt()))
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(TestObjectFactory.createTestRoute());
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any()))
             .thenThrow(new NoSuitableDriversException("Nema vozaca."));
 
         // Act
@@ -1216,9 +1297,9 @@ class RideServiceTests {
         Driver mockDriver = TestObjectFactory.createTestDriver();
         mockDriver.setVehicle(TestObjectFactory.createTestVehicle());
 
-        when(routeService.createRoute(any(), any(), any())).thenReturn(mockRoute);
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(mockRoute);
         when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
-        when(driverService.findDriverForRide(any(), any(), anyInt())).thenReturn(mockDriver);
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
         when(priceListService.calculateBasePrice(any())).thenReturn(100.0);
         when(priceListService.getKmPrice()).thenReturn(50.0);
         when(rideRepository.save(any(Ride.class))).thenAnswer(inv -> {
@@ -1231,11 +1312,47 @@ class RideServiceTests {
         rideService.rideOrder(organizer, request);
 
         // Assert
-        verify(routeService).createRoute(
+        verify(routeService).planRoute(
             eq(rideRoute.pickup()),
             eq(rideRoute.destination()),
             eq(rideRoute.stops())
         );
+        verify(routeService).createRoute(plannedRoute);
+    }
+
+    @Test
+    @DisplayName("Should create the route from the quoted plan when the order carries a live quote")
+    void rideOrder_ShouldReuseQuotedRoute_WhenQuoteIsLive() {
+        // Arrange
+        Passenger organizer = TestObjectFactory.createTestPassenger();
+
+        OrderRequest request = TestObjectFactory.createOrderRequest();
+        request.setTrackers(null);
+        request.setQuoteId("quote-1");
+
+        PlannedRoute planned = new PlannedRoute(List.of(), new OSRMResult(5.0, 600L, "geometry"));
+        Route mockRoute = TestObjectFactory.createTestRoute();
+        Driver mockDriver = TestObjectFactory.createTestDriver();
+        mockDriver.setVehicle(TestObjectFactory.createTestVehicle());
+
+        when(rideEstimationService.plannedRoute("quote-1", request.getRoute())).thenReturn(Optional.of(planned));
+        when(routeService.createRoute(planned)).thenReturn(mockRoute);
+        when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
+        when(priceListService.calculateBasePrice(any())).thenReturn(100.0);
+        when(priceListService.getKmPrice()).thenReturn(50.0);
+        when(rideRepository.save(any(Ride.class))).thenAnswer(inv -> {
+            Ride r = inv.getArgument(0);
+            r.setId(1L);
+            return r;
+        });
+
+        // Act
+        rideService.rideOrder(organizer, request);
+
+        // Assert
+        verify(routeService).createRoute(planned);
+        verify(routeService, never()).planRoute(any(), any(), any());
     }
 
     @Test
@@ -1257,9 +1374,9 @@ class RideServiceTests {
 
         List<Passenger> expectedPassengers = List.of(organizer, tracker);
 
-        when(routeService.createRoute(any(), any(), any())).thenReturn(mockRoute);
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(mockRoute);
         when(passengerService.getTrackingPassengers(any())).thenReturn(expectedPassengers);
-        when(driverService.findDriverForRide(any(), any(), anyInt())).thenReturn(mockDriver);
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
         when(priceListService.calculateBasePrice(any())).thenReturn(100.0);
         when(priceListService.getKmPrice()).thenReturn(50.0);
         when(rideRepository.save(any(Ride.class))).thenAnswer(inv -> {
@@ -1276,4 +1393,256 @@ class RideServiceTests {
             ride.getPassengers().equals(expectedPassengers)
         ));
     }
+
+    @Test
+    @DisplayName("Should look up the ride's vehicle once and keep later pings in memory")
+    void updateVehicleLocation_ShouldReadVehicleOnce_AndStorePings() {
+        when(rideRepository.findRideVehicle(1L)).thenReturn(Optional.of(new RideVehicle(5L, "driver@test.com")));
+
+        rideService.updateVehicleLocation(1L, 45.26, 19.83);
+        rideService.updateVehicleLocation(1L, 45.27, 19.84);
+
+        verify(rideRepository, times(1)).findRideVehicle(1L);
+        verify(vehiclePositionStore).update(5L, 45.26, 19.83);
+        verify(vehiclePositionStore).update(5L, 45.27, 19.84);
+        verify(rideTelemetryLog).append(eq(1L), any(Instant.class), eq(45.26), eq(19.83));
+        verify(rideTelemetryLog).append(eq(1L), any(Instant.class), eq(45.27), eq(19.84));
+        verify(rideRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should reject pings for a ride without a vehicle")
+    void updateVehicleLocation_ShouldThrow_WhenRideHasNoVehicle() {
+        when(rideRepository.findRideVehicle(1L)).thenReturn(Optional.empty());
+        when(rideRepository.findById(1L)).thenReturn(Optional.of(new Ride()));
+
+        assertThrows(IllegalStateException.class, () -> rideService.updateVehicleLocation(1L, 45.26, 19.83));
+        verifyNoInteractions(vehiclePositionStore);
+    }
+
+    @Test
+    @DisplayName("Should store and fan out position frames streamed by the ride's driver")
+    void streamVehicleLocation_ShouldStoreAndPublish_ForRideDriver() {
+        when(rideRepository.findRideVehicle(1L)).thenReturn(Optional.of(new RideVehicle(5L, "driver@test.com")));
+
+        rideService.streamVehicleLocation(1L, "driver@test.com", 45.26, 19.83);
+
+        verify(vehiclePositionStore).update(5L, 45.26, 19.83);
+        // two SimpMessagingTemplate mocks, the constructor gets either of them
+        SimpMessagingTemplate injected = (SimpMessagingTemplate) ReflectionTestUtils.getField(rideService, "messagingTemplate");
+        verify(injected).convertAndSend(eq("/topic/rides/1/location"), argThat((Object update) ->
+            update instanceof RideLocationUpdate location
+                && location.vehicleId().equals(5L)
+                && location.latitude() == 45.26
+        ));
+    }
+
+    @Test
+    @DisplayName("Should reject position frames from anyone but the ride's driver")
+    void streamVehicleLocation_ShouldThrow_ForOtherUser() {
+        when(rideRepository.findRideVehicle(1L)).thenReturn(Optional.of(new RideVehicle(5L, "driver@test.com")));
+
+        assertThrows(AccessDeniedException.class,
+            () -> rideService.streamVehicleLocation(1L, "passenger@test.com", 45.26, 19.83));
+        verifyNoInteractions(vehiclePositionStore);
+    }
+
+    @Test
+    @DisplayName("Should show the details of a pending ride that has no route yet")
+    void getPassengerRideDetail_ShouldLeaveRouteEmpty_ForPendingRide() {
+        // Arrange
+        Passenger passenger = TestObjectFactory.createTestPassenger();
+        passenger.setId(3L);
+        Ride ride = new Ride();
+        ride.setId(1L);
+        ride.setStatus(RideStatus.PENDING);
+        ride.setPassengers(List.of(passenger));
+        when(rideRepository.findById(1L)).thenReturn(Optional.of(ride));
+        when(rideMapper.toPassengerDetailResponse(ride)).thenReturn(new PassengerRideDetailResponse());
+
+        // Act
+        PassengerRideDetailResponse response = rideService.getPassengerRideDetail(1L, 3L);
+
+        // Assert
+        assertNull(response.getRouteId());
+    }
+
+    @Test
+    @DisplayName("Should report the distance of the recorded track in the admin ride details")
+    void getAdminRideDetail_ShouldIncludeDrivenDistance() {
+        // Arrange
+        Ride ride = TestObjectFactory.createTestRide(RideStatus.FINISHED);
+        ride.setStartTime(LocalDateTime.now().minusMinutes(20));
+        when(rideRepository.findById(ride.getId())).thenReturn(Optional.of(ride));
+        when(rideMapper.toDriverDetailResponse(ride)).thenReturn(new RideDetailResponse());
+        when(rideTelemetryLog.distanceMeters(ride.getId())).thenReturn(5_250.0);
+
+        // Act
+        RideDetailResponse response = rideService.getAdminRideDetail(ride.getId());
+
+        // Assert
+        assertEquals(5.25, response.getDrivenDistance(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should save a pending ride without route or driver")
+    void createPendingRide_ShouldSavePendingRide() {
+        // Arrange
+        Passenger organizer = TestObjectFactory.createTestPassenger();
+        OrderRequest request = TestObjectFactory.createOrderRequest();
+        when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
+        when(rideRepository.save(any(Ride.class))).thenAnswer(i -> {
+            Ride ride = i.getArgument(0);
+            ride.setId(7L);
+            return ride;
+        });
+
+        // Act
+        Long rideId = rideService.createPendingRide(organizer, request);
+
+        // Assert
+        assertEquals(7L, rideId);
+        verify(rideRepository).save(argThat(ride ->
+            ride.getStatus() == RideStatus.PENDING && ride.getRoute() == null && ride.getDriver() == null
+                && ride.getPassengers().contains(organizer)
+        ));
+        verifyNoInteractions(routeService, driverService);
+    }
+
+    @Test
+    @DisplayName("Should assign a driver to a pending ride and push the result")
+    void completePendingOrder_ShouldScheduleAndPushAssignment() {
+        // Arrange
+        Passenger organizer = TestObjectFactory.createTestPassenger();
+        OrderRequest request = TestObjectFactory.createOrderRequest();
+        request.setTrackers(null);
+        Ride pending = new Ride();
+        pending.setId(7L);
+        pending.setStatus(RideStatus.PENDING);
+        pending.setPassengers(new ArrayList<>(List.of(organizer)));
+
+        Driver mockDriver = TestObjectFactory.createTestDriver();
+        mockDriver.setVehicle(TestObjectFactory.createTestVehicle());
+
+        when(rideRepository.findById(7L)).thenReturn(Optional.of(pending));
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(TestObjectFactory.createTestRoute());
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
+        when(rideRepository.save(any(Ride.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        // Act
+        rideService.completePendingOrder(7L, organizer, request);
+
+        // Assert
+        assertEquals(RideStatus.SCHEDULED, pending.getStatus());
+        assertEquals(mockDriver, pending.getDriver());
+        verify(applicationEventPublisher).publishEvent(argThat((Object event) ->
+            event instanceof RideStatusUpdateEvent update
+                && update.getStatus() == RideStatus.SCHEDULED
+                && update.getPassengerEmails().contains(organizer.getEmail())
+        ));
+    }
+
+    @Test
+    @DisplayName("Should reserve the driver before the order transaction and release it after")
+    void rideOrder_ShouldReserveDriver_OutsideTransaction() {
+        // Arrange
+        Passenger organizer = TestObjectFactory.createTestPassenger();
+        OrderRequest request = TestObjectFactory.createOrderRequest();
+        request.setTrackers(null);
+
+        Driver mockDriver = TestObjectFactory.createTestDriver();
+        mockDriver.setId(5L);
+        mockDriver.setVehicle(TestObjectFactory.createTestVehicle());
+
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(TestObjectFactory.createTestRoute());
+        when(passengerService.getTrackingPassengers(any())).thenReturn(List.of(organizer));
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
+        when(priceListService.calculateBasePrice(any())).thenReturn(100.0);
+        when(priceListService.getKmPrice()).thenReturn(50.0);
+        when(rideRepository.save(any(Ride.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        // Act
+        rideService.rideOrder(organizer, request);
+
+        // Assert
+        InOrder order = inOrder(routeService, driverService, transactionTemplate, rideRepository, driverReservations);
+        order.verify(routeService).createRoute(any(PlannedRoute.class));
+        order.verify(driverService).reserveDriverForRide(any(), any(), anyInt(), any());
+        order.verify(transactionTemplate).execute(any());
+        order.verify(rideRepository).save(any(Ride.class));
+        order.verify(driverReservations).release(5L);
+    }
+
+    @Test
+    @DisplayName("Should release the reserved driver when the ride stopped being pending meanwhile")
+    void completePendingOrder_ShouldReleaseDriver_WhenRideWasRejected() {
+        // Arrange
+        Passenger organizer = TestObjectFactory.createTestPassenger();
+        OrderRequest request = TestObjectFactory.createOrderRequest();
+        Ride ride = new Ride();
+        ride.setId(7L);
+        ride.setStatus(RideStatus.PENDING);
+
+        Driver mockDriver = TestObjectFactory.createTestDriver();
+        mockDriver.setId(5L);
+
+        when(rideRepository.findById(7L)).thenAnswer(i -> {
+            Ride current = new Ride();
+            current.setId(7L);
+            // rejected while it was routed and matched
+            current.setStatus(ride.getStatus());
+            ride.setStatus(RideStatus.REJECTED);
+            return Optional.of(current);
+        });
+        when(routeService.createRoute(any(PlannedRoute.class))).thenReturn(TestObjectFactory.createTestRoute());
+        when(driverService.reserveDriverForRide(any(), any(), anyInt(), any())).thenReturn(mockDriver);
+
+        // Act
+        rideService.completePendingOrder(7L, organizer, request);
+
+        // Assert
+        verify(driverReservations).release(5L);
+        verify(rideRepository, never()).save(any(Ride.class));
+    }
+
+    @Test
+    @DisplayName("Should leave a ride alone once it is no longer pending")
+    void completePendingOrder_ShouldIgnoreRide_WhenNotPending() {
+        // Arrange
+        Ride rejected = new Ride();
+        rejected.setStatus(RideStatus.REJECTED);
+        when(rideRepository.findById(7L)).thenReturn(Optional.of(rejected));
+
+        // Act
+        rideService.completePendingOrder(7L, TestObjectFactory.createTestPassenger(), TestObjectFactory.createOrderRequest());
+
+        // Assert
+        verifyNoInteractions(routeService, driverService);
+        verify(rideRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should reject a pending ride and push the reason")
+    void rejectPendingRide_ShouldMarkRejectedAndPushReason() {
+        // Arrange
+        Passenger organizer = TestObjectFactory.createTestPassenger();
+        Ride pending = new Ride();
+        pending.setId(7L);
+        pending.setStatus(RideStatus.PENDING);
+        pending.setPassengers(new ArrayList<>(List.of(organizer)));
+        when(rideRepository.findById(7L)).thenReturn(Optional.of(pending));
+
+        // Act
+        rideService.rejectPendingRide(7L, "Nema vozaca.");
+
+        // Assert
+        assertEquals(RideStatus.REJECTED, pending.getStatus());
+        assertEquals("Nema vozaca.", pending.getCancellationReason());
+        verify(rideRepository).save(pending);
+        verify(applicationEventPublisher).publishEvent(argThat((Object event) ->
+            event instanceof RideStatusUpdateEvent update
+                && update.getStatus() == RideStatus.REJECTED
+                && "Nema vozaca.".equals(update.getMessage())
+        ));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,213 @@
+package com.tricolori.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.tricolori.backend.dto.ride.TelemetryPoint;
+import com.tricolori.backend.entity.Driver;
+import com.tricolori.backend.entity.Ride;
+import com.tricolori.backend.entity.Route;
+import com.tricolori.backend.entity.VehicleSpecification;
+import com.tricolori.backend.enums.RideStatus;
+import com.tricolori.backend.util.TestObjectFactory;
+
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+class RideTelemetryLogTests {
+
+    private final Instant start = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    private RideTelemetryLog telemetryLog;
+
+    @Autowired
+    RideTelemetryLogTests(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @BeforeEach
+    void setUp() {
+        // 100 points a chunk, chunks are not sealed by age during a test
+        telemetryLog = new RideTelemetryLog(jdbcTemplate, 100, 3600);
+    }
+
+    private List<Long> persistRides(int count) {
+        Driver driver = TestObjectFactory.createTestDriver();
+        VehicleSpecification specification = TestObjectFactory.createTestVehicleSpecification();
+        entityManager.persist(driver);
+        entityManager.persist(specification);
+
+        List<Long> rideIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Route route = TestObjectFactory.createTestRoute();
+            entityManager.persist(route);
+            Ride ride = Ride.builder()
+                .status(RideStatus.ONGOING)
+                .driver(driver)
+                .vehicleSpecification(specification)
+                .route(route)
+                .price(450.0)
+                .createdAt(LocalDateTime.now())
+                .build();
+            entityManager.persist(ride);
+            rideIds.add(ride.getId());
+        }
+        entityManager.flush();
+        return rideIds;
+    }
+
+    private void ping(Long rideId, int second) {
+        telemetryLog.append(rideId, start.plusSeconds(second), 45.2671 + second * 1e-4, 19.8335);
+    }
+
+    private int storedChunks() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ride_telemetry_chunks", Integer.class);
+    }
+
+    private List<TelemetryPoint> replay(Long rideId) {
+        try (Stream<TelemetryPoint> points = telemetryLog.replay(rideId)) {
+            return points.toList();
+        }
+    }
+
+    @Test
+    void flush_ShouldWriteOneRowPerSealedChunk() {
+        Long rideId = persistRides(1).getFirst();
+
+        for (int second = 0; second < 250; second++) {
+            ping(rideId, second);
+        }
+
+        assertEquals(2, telemetryLog.pendingChunks());
+        assertEquals(2, telemetryLog.flush());
+        assertEquals(0, telemetryLog.flush());
+        assertEquals(2, storedChunks());
+        assertEquals(200, jdbcTemplate.queryForObject(
+            "SELECT SUM(point_count) FROM ride_telemetry_chunks WHERE ride_id = ?", Integer.class, rideId));
+    }
+
+    @Test
+    void replay_ShouldReturnWrittenPendingAndOpenPointsInOrder() {
+        Long rideId = persistRides(1).getFirst();
+
+        for (int second = 0; second < 120; second++) {
+            ping(rideId, second);
+        }
+        telemetryLog.flush();
+        for (int second = 120; second < 230; second++) {
+            ping(rideId, second);
+        }
+
+        List<TelemetryPoint> points = replay(rideId);
+
+        // 100 written, 100 sealed but not written, 30 open
+        assertEquals(230, points.size());
+        for (int second = 0; second < 230; second++) {
+            assertEquals(start.plusSeconds(second), points.get(second).timestamp());
+            assertEquals(45.2671 + second * 1e-4, points.get(second).latitude(), 1e-6);
+        }
+    }
+
+    @Test
+    void seal_ShouldWriteTheRestOfAnEndedRide() {
+        List<Long> rideIds = persistRides(2);
+        for (int second = 0; second < 30; second++) {
+            ping(rideIds.get(0), second);
+            ping(rideIds.get(1), second);
+        }
+
+        telemetryLog.seal(rideIds.get(0));
+
+        assertEquals(1, telemetryLog.flush());
+        assertEquals(30, replay(rideIds.get(0)).size());
+        assertEquals(30, replay(rideIds.get(1)).size());
+        // 29 steps of 1e-4 degrees of latitude
+        assertEquals(29 * 11.12, telemetryLog.distanceMeters(rideIds.get(0)), 1);
+    }
+
+    @Test
+    void flush_ShouldWriteOtherChunks_AndDropChunkThatKeepsFailing() {
+        Long rideId = persistRides(1).getFirst();
+        Long deletedRideId = rideId + 1_000;
+        for (int second = 0; second < 100; second++) {
+            ping(deletedRideId, second);
+            ping(rideId, second);
+        }
+
+        assertEquals(1, telemetryLog.flush());
+        assertEquals(1, storedChunks());
+        assertEquals(1, telemetryLog.pendingChunks());
+
+        // kept for two more flushes, then dropped
+        assertEquals(0, telemetryLog.flush());
+        assertEquals(1, telemetryLog.pendingChunks());
+        assertEquals(0, telemetryLog.flush());
+        assertEquals(0, telemetryLog.pendingChunks());
+
+        for (int second = 100; second < 200; second++) {
+            ping(rideId, second);
+        }
+        assertEquals(1, telemetryLog.flush());
+        assertEquals(200, replay(rideId).size());
+    }
+
+    // pings every ride once a second with a flush every 5 seconds, returns the elapsed seconds
+    private double pingEverySecond(List<Long> rideIds, int seconds) {
+        long started = System.nanoTime();
+        for (int second = 0; second < seconds; second++) {
+            for (Long rideId : rideIds) {
+                ping(rideId, second);
+            }
+            if ((second + 1) % 5 == 0) {
+                telemetryLog.flush();
+            }
+        }
+        return (System.nanoTime() - started) / 1e9;
+    }
+
+    @Test
+    void append_ShouldAbsorbPingsOfManyRides_WithFewRowWrites() {
+        List<Long> rideIds = persistRides(20);
+        int seconds = 200;
+
+        pingEverySecond(rideIds, seconds);
+
+        int pings = seconds * rideIds.size();
+        long bytes = jdbcTemplate.queryForObject("SELECT SUM(LENGTH(data)) FROM ride_telemetry_chunks", Long.class);
+        assertEquals(pings / 100, storedChunks());
+        assertTrue(bytes < pings * 8L, bytes + " bytes");
+    }
+
+    @Test
+    @Tag("benchmark")
+    void append_ShouldSustainThousandsOfPingsPerSecond() {
+        List<Long> rideIds = persistRides(500);
+        int seconds = 400;
+
+        double elapsed = pingEverySecond(rideIds, seconds);
+
+        int pings = seconds * rideIds.size();
+        assertEquals(pings / 100, storedChunks());
+        assertTrue(pings / elapsed > 10_000, pings / elapsed + " pings/s");
+    }
+}
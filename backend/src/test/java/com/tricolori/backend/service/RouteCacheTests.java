@@ -0,0 +1,110 @@
+package com.tricolori.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.tricolori.backend.dto.cache.CacheStatsResponse;
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.infrastructure.presentation.dtos.Route.OSRMResult;
+
+class RouteCacheTests {
+
+    private final Location pickup = new Location(19.8335, 45.2671);
+    private final Location destination = new Location(19.8451, 45.2550);
+
+    private final AtomicInteger osrmCalls = new AtomicInteger();
+
+    private Supplier<OSRMResult> osrm(String geometry) {
+        return () -> {
+            osrmCalls.incrementAndGet();
+            return new OSRMResult(2.5, 300, geometry);
+        };
+    }
+
+    @Test
+    @DisplayName("Should reuse a route for stops within a few meters")
+    void get_ShouldHit_ForNearbyStops() {
+        RouteCache cache = new RouteCache(100, 60);
+        cache.get(List.of(pickup, destination), osrm("abc"));
+
+        // ~3 m away from both stops
+        Location nearPickup = new Location(19.83352, 45.26712);
+        Location nearDestination = new Location(19.84508, 45.25498);
+        OSRMResult result = cache.get(List.of(nearPickup, nearDestination), osrm("other"));
+
+        assertEquals("abc", result.getGeometry());
+        assertEquals(1, osrmCalls.get());
+    }
+
+    @Test
+    @DisplayName("Should treat the reverse trip as a different route")
+    void get_ShouldMiss_ForReversedStops() {
+        RouteCache cache = new RouteCache(100, 60);
+        cache.get(List.of(pickup, destination), osrm("there"));
+
+        OSRMResult result = cache.get(List.of(destination, pickup), osrm("back"));
+
+        assertEquals("back", result.getGeometry());
+        assertEquals(2, osrmCalls.get());
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used route")
+    void get_ShouldEvictLeastRecentlyUsed() {
+        RouteCache cache = new RouteCache(2, 60);
+        Location third = new Location(19.8000, 45.2400);
+        cache.get(List.of(pickup, destination), osrm("a"));
+        cache.get(List.of(pickup, third), osrm("b"));
+        cache.get(List.of(pickup, destination), osrm("a")); // a is now most recent
+        cache.get(List.of(destination, third), osrm("c")); // evicts b
+
+        cache.get(List.of(pickup, destination), osrm("a"));
+        cache.get(List.of(pickup, third), osrm("b"));
+
+        assertEquals(4, osrmCalls.get());
+        assertEquals(2, cache.stats().size());
+    }
+
+    @Test
+    @DisplayName("Should load again once the route expired")
+    void get_ShouldMiss_WhenExpired() {
+        RouteCache cache = new RouteCache(100, 0);
+        cache.get(List.of(pickup, destination), osrm("a"));
+        cache.get(List.of(pickup, destination), osrm("a"));
+
+        assertEquals(2, osrmCalls.get());
+    }
+
+    @Test
+    @DisplayName("Should bypass the cache for stops without coordinates")
+    void get_ShouldBypass_WhenStopNotLocated() {
+        RouteCache cache = new RouteCache(100, 60);
+        Location unknown = new Location(null, null);
+        cache.get(List.of(pickup, unknown), osrm("a"));
+        cache.get(List.of(pickup, unknown), osrm("a"));
+
+        assertEquals(2, osrmCalls.get());
+        assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    @DisplayName("Should report the hit ratio")
+    void stats_ShouldReportHitRatio() {
+        RouteCache cache = new RouteCache(100, 60);
+        for (int i = 0; i < 4; i++) {
+            cache.get(List.of(pickup, destination), osrm("a"));
+        }
+
+        CacheStatsResponse stats = cache.stats();
+
+        assertEquals(3, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.75, stats.hitRatio(), 1e-9);
+    }
+}
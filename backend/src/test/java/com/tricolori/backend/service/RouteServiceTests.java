@@ -0,0 +1,179 @@
+package com.tricolori.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.tricolori.backend.dto.ride.NominatimResponse;
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.entity.Route;
+import com.tricolori.backend.entity.Stop;
+import com.tricolori.backend.exception.BadAddressException;
+import com.tricolori.backend.infrastructure.presentation.dtos.Route.OSRMResult;
+import com.tricolori.backend.repository.RouteRepository;
+
+@ExtendWith(MockitoExtension.class)
+class RouteServiceTests {
+
+    @Mock
+    private RouteRepository routeRepository;
+
+    @Mock
+    private OSRMService osrmService;
+
+    @Mock
+    private GeocodingService geocodingService;
+
+    @Spy
+    private RouteCache routeCache = new RouteCache(100, 60);
+
+    @InjectMocks
+    private RouteService routeService;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(osrmService.analyzeRouteStops(any())).thenReturn(new OSRMResult(5.0, 600, "geometry"));
+        lenient().when(routeRepository.findByGeometryHash(anyString())).thenReturn(Optional.empty());
+        lenient().when(routeRepository.save(any(Route.class))).thenAnswer(i -> i.getArgument(0));
+    }
+
+    // "Stop 3" is geocoded to 45.3, 19.3. Each lookup waits until the given number of lookups
+    // have started, or gives up after 5 seconds when they run one after another
+    private void givenSlowGeocoding(int lookups) {
+        CountDownLatch started = new CountDownLatch(lookups);
+        when(geocodingService.getAddressCoordinates(anyString())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            started.countDown();
+            try {
+                started.await(5, TimeUnit.SECONDS);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            String address = invocation.getArgument(0);
+            int n = Integer.parseInt(address.substring(address.length() - 1));
+            NominatimResponse response = new NominatimResponse();
+            response.setLat(String.valueOf(45 + n / 10.0));
+            response.setLon(String.valueOf(19 + n / 10.0));
+            response.setDisplay_name(address + ", Novi Sad");
+            return response;
+        });
+    }
+
+    private Stop unlocatedStop(int n) {
+        return new Stop("Stop " + n, new Location(0.0, 0.0));
+    }
+
+    @Test
+    @DisplayName("Should geocode all stops at once and keep their order")
+    void createRoute_ShouldGeocodeStopsConcurrently() {
+        givenSlowGeocoding(5);
+        List<Stop> middle = new ArrayList<>(List.of(unlocatedStop(2), unlocatedStop(3), unlocatedStop(4)));
+
+        Route route = routeService.createRoute(unlocatedStop(1), unlocatedStop(5), middle);
+
+        assertEquals(5, maxInFlight.get());
+        for (int n = 1; n <= 5; n++) {
+            Stop stop = route.getStops().get(n - 1);
+            assertEquals("Stop " + n + ", Novi Sad", stop.getAddress());
+            assertEquals(45 + n / 10.0, stop.getLocation().getLatitude(), 1e-9);
+        }
+    }
+
+    @Test
+    @DisplayName("Should only geocode stops without coordinates")
+    void createRoute_ShouldSkipLocatedStops() {
+        givenSlowGeocoding(1);
+        Stop located = new Stop("Trg slobode", new Location(19.8451, 45.2550));
+
+        routeService.createRoute(located, unlocatedStop(5), new ArrayList<>());
+
+        verify(geocodingService, times(1)).getAddressCoordinates(anyString());
+        assertEquals(45.2550, located.getLocation().getLatitude());
+    }
+
+    @Test
+    @DisplayName("Should reuse the stored route with the same geometry hash")
+    void createRoute_ShouldReuseRoute_WhenGeometryHashMatches() {
+        Route existing = new Route();
+        existing.setRouteGeometry("geometry");
+        when(routeRepository.findByGeometryHash(RouteService.geometryHash("geometry"))).thenReturn(Optional.of(existing));
+        Stop pickup = new Stop("Trg slobode", new Location(19.8451, 45.2550));
+        Stop destination = new Stop("Zeleznicka stanica", new Location(19.8335, 45.2671));
+
+        Route route = routeService.createRoute(pickup, destination, new ArrayList<>());
+
+        assertSame(existing, route);
+        verify(routeRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should reuse the route of a parallel order that saved the same geometry first")
+    void createRoute_ShouldReuseRoute_WhenParallelOrderSavedItFirst() {
+        Route saved = new Route();
+        saved.setRouteGeometry("geometry");
+        when(routeRepository.findByGeometryHash(RouteService.geometryHash("geometry")))
+            .thenReturn(Optional.empty(), Optional.of(saved));
+        when(routeRepository.save(any(Route.class)))
+            .thenThrow(new DataIntegrityViolationException("uk_routes_geometry_hash"));
+        Stop pickup = new Stop("Trg slobode", new Location(19.8451, 45.2550));
+        Stop destination = new Stop("Zeleznicka stanica", new Location(19.8335, 45.2671));
+
+        Route route = routeService.createRoute(pickup, destination, new ArrayList<>());
+
+        assertSame(saved, route);
+    }
+
+    @Test
+    @DisplayName("Should store new routes with a fixed-length geometry hash")
+    void createRoute_ShouldSetGeometryHash() {
+        Stop pickup = new Stop("Trg slobode", new Location(19.8451, 45.2550));
+        Stop destination = new Stop("Zeleznicka stanica", new Location(19.8335, 45.2671));
+
+        Route route = routeService.createRoute(pickup, destination, new ArrayList<>());
+
+        assertEquals(32, route.getGeometryHash().length());
+        assertEquals(RouteService.geometryHash("geometry"), route.getGeometryHash());
+        assertNotEquals(RouteService.geometryHash("geometry2"), route.getGeometryHash());
+    }
+
+    @Test
+    @DisplayName("Should fail the route when any stop can't be geocoded")
+    void createRoute_ShouldThrow_WhenOneStopIsUnknown() {
+        when(geocodingService.getAddressCoordinates(anyString())).thenAnswer(invocation -> {
+            if ("Stop 2".equals(invocation.getArgument(0))) {
+                throw new BadAddressException("Couldn't find lat and lng for address: Stop 2");
+            }
+            NominatimResponse response = new NominatimResponse();
+            response.setLat("45.25");
+            response.setLon("19.84");
+            response.setDisplay_name("Novi Sad");
+            return response;
+        });
+
+        assertThrows(BadAddressException.class, () ->
+            routeService.createRoute(unlocatedStop(1), unlocatedStop(3), new ArrayList<>(List.of(unlocatedStop(2))))
+        );
+        verifyNoInteractions(osrmService, routeRepository);
+    }
+}
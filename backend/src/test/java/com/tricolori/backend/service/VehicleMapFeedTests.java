@@ -0,0 +1,151 @@
+package com.tricolori.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tricolori.backend.dto.vehicle.MapBounds;
+import com.tricolori.backend.dto.vehicle.VehicleFeedResponse;
+import com.tricolori.backend.dto.vehicle.VehicleLocationResponse;
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.entity.Vehicle;
+import com.tricolori.backend.repository.VehicleRepository;
+import com.tricolori.backend.util.TestObjectFactory;
+
+@ExtendWith(MockitoExtension.class)
+class VehicleMapFeedTests {
+
+    // Novi Sad city centre
+    private static final MapBounds CENTRE = new MapBounds(45.25, 19.83, 45.26, 19.85);
+
+    @Mock
+    private VehicleRepository vehicleRepository;
+
+    private static Vehicle vehicle(long id, double latitude, double longitude) {
+        Vehicle vehicle = TestObjectFactory.createTestVehicle();
+        vehicle.setId(id);
+        vehicle.setLocation(new Location(longitude, latitude));
+        return vehicle;
+    }
+
+    private static List<Long> ids(List<VehicleLocationResponse> vehicles) {
+        return vehicles.stream().map(VehicleLocationResponse::getVehicleId).sorted().toList();
+    }
+
+    @Test
+    @DisplayName("Should list only the vehicles inside the map bounds")
+    void snapshot_ShouldFilterByBounds() {
+        when(vehicleRepository.findAllWithLocation()).thenReturn(List.of(
+            vehicle(1, 45.255, 19.84), vehicle(2, 45.259, 19.849), vehicle(3, 45.30, 19.84), vehicle(4, 44.81, 20.46)));
+        VehicleMapFeed feed = new VehicleMapFeed(vehicleRepository, 100);
+
+        assertEquals(List.of(1L, 2L), ids(feed.snapshot(CENTRE).vehicles()));
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(feed.snapshot(null).vehicles()));
+        assertTrue(feed.snapshot(CENTRE).full());
+    }
+
+    @Test
+    @DisplayName("Should return only vehicles that moved, appeared or disappeared since a version")
+    void changesSince_ShouldReturnOnlyChanges() {
+        Vehicle leaving = vehicle(3, 45.257, 19.84);
+        when(vehicleRepository.findAllWithLocation())
+            .thenReturn(List.of(vehicle(1, 45.255, 19.84), vehicle(2, 45.259, 19.849), leaving))
+            .thenReturn(List.of(vehicle(1, 45.255, 19.84), vehicle(2, 45.259, 19.849), vehicle(5, 45.251, 19.831)));
+        VehicleMapFeed feed = new VehicleMapFeed(vehicleRepository, 100);
+        long seen = feed.snapshot(CENTRE).version();
+
+        assertEquals(0, feed.changesSince(seen, CENTRE).vehicles().size());
+
+        feed.move(1L, 45.256, 19.841);
+        // not on the map, ignored until a refresh adds it
+        feed.move(9L, 45.256, 19.841);
+        feed.setAvailable(2L, false);
+        feed.refresh();
+
+        VehicleFeedResponse changes = feed.changesSince(seen, CENTRE);
+        assertFalse(changes.full());
+        assertEquals(List.of(1L, 2L, 5L), ids(changes.vehicles()));
+        assertEquals(List.of(3L), changes.removed());
+        assertEquals(45.256, changes.vehicles().getFirst().getLatitude());
+        assertTrue(changes.version() > seen);
+
+        // moving out of the viewport removes it from the client's map
+        feed.move(2L, 45.30, 19.849);
+        VehicleFeedResponse next = feed.changesSince(changes.version(), CENTRE);
+        assertEquals(List.of(), next.vehicles());
+        assertEquals(List.of(2L), next.removed());
+    }
+
+    @Test
+    @DisplayName("Should remove a vehicle that drove out of the viewport without leaving its grid cell")
+    void changesSince_ShouldRemoveVehicle_WhenItLeavesBoundsWithinEdgeCell() {
+        // cuts through the middle of the 0.01 degree cells on every side
+        MapBounds viewport = new MapBounds(45.253, 19.833, 45.257, 19.847);
+        when(vehicleRepository.findAllWithLocation()).thenReturn(List.of(vehicle(1, 45.256, 19.84)));
+        VehicleMapFeed feed = new VehicleMapFeed(vehicleRepository, 100);
+        long seen = feed.snapshot(viewport).version();
+
+        // still in the cell of 45.25-45.26, outside the viewport
+        feed.move(1L, 45.2585, 19.84);
+
+        VehicleFeedResponse changes = feed.changesSince(seen, viewport);
+        assertEquals(List.of(), changes.vehicles());
+        assertEquals(List.of(1L), changes.removed());
+    }
+
+    @Test
+    @DisplayName("Should send a snapshot to clients behind the remembered removals or ahead of the feed")
+    void changesSince_ShouldFallBackToSnapshot() {
+        List<Vehicle> stored = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            stored.add(vehicle(id, 45.255, 19.84));
+        }
+        when(vehicleRepository.findAllWithLocation()).thenReturn(stored, List.of(stored.getFirst()));
+        VehicleMapFeed feed = new VehicleMapFeed(vehicleRepository, 2);
+        long seen = feed.snapshot(null).version();
+
+        // four removals, only the last two are remembered
+        feed.refresh();
+
+        VehicleFeedResponse behind = feed.changesSince(seen, null);
+        assertTrue(behind.full());
+        assertEquals(List.of(1L), ids(behind.vehicles()));
+        assertTrue(feed.changesSince(feed.version() + 10, null).full());
+    }
+
+    @Test
+    @DisplayName("Should send a small fraction of the full list to a polling viewport")
+    void changesSince_ShouldCutPayload_ComparedToFullList() {
+        Random random = new Random(11);
+        List<Vehicle> stored = new ArrayList<>();
+        // 5000 vehicles around Novi Sad, about a 20 km square
+        for (long id = 1; id <= 5_000; id++) {
+            stored.add(vehicle(id, 45.17 + random.nextDouble() * 0.18, 19.71 + random.nextDouble() * 0.25));
+        }
+        when(vehicleRepository.findAllWithLocation()).thenReturn(stored);
+        VehicleMapFeed feed = new VehicleMapFeed(vehicleRepository, 100);
+        long seen = feed.snapshot(CENTRE).version();
+
+        // a 3 second poll interval, a third of the vehicles report a position meanwhile
+        for (Vehicle vehicle : stored.subList(0, 1_700)) {
+            feed.move(vehicle.getId(), vehicle.getLocation().getLatitude() + 1e-4, vehicle.getLocation().getLongitude());
+        }
+
+        int full = feed.snapshot(null).vehicles().size();
+        VehicleFeedResponse changes = feed.changesSince(seen, CENTRE);
+        int sent = changes.vehicles().size() + changes.removed().size();
+
+        assertEquals(5_000, full);
+        assertTrue(sent > 0 && sent < full / 50, sent + " sent");
+        verify(vehicleRepository, times(1)).findAllWithLocation();
+    }
+}
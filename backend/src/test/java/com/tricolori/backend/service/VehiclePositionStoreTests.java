@@ -0,0 +1,139 @@
+package com.tricolori.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.entity.Vehicle;
+import com.tricolori.backend.entity.VehicleSpecification;
+import com.tricolori.backend.util.TestObjectFactory;
+
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Import({VehiclePositionStore.class, DriverLocationIndex.class, VehicleMapFeed.class})
+class VehiclePositionStoreTests {
+
+    private final VehiclePositionStore store;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Autowired
+    VehiclePositionStoreTests(VehiclePositionStore store, JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.store = store;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @BeforeEach
+    void setUp() {
+        // the store outlives the rolled back test transactions
+        store.flush();
+    }
+
+    private List<Vehicle> persistVehicles(int count) {
+        VehicleSpecification specification = TestObjectFactory.createTestVehicleSpecification();
+        entityManager.persist(specification);
+
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Vehicle vehicle = TestObjectFactory.createTestVehicle(specification);
+            vehicle.setPlateNum("NS-" + i + "-PS");
+            entityManager.persist(vehicle);
+            vehicles.add(vehicle);
+        }
+        entityManager.flush();
+        return vehicles;
+    }
+
+    private double[] storedPosition(Long vehicleId) {
+        return jdbcTemplate.queryForObject(
+            "SELECT latitude, longitude FROM vehicles WHERE id = ?",
+            (row, n) -> new double[] {row.getDouble(1), row.getDouble(2)},
+            vehicleId
+        );
+    }
+
+    @Test
+    void update_ShouldAnswerReads_BeforeAnyFlush() {
+        Vehicle vehicle = persistVehicles(1).getFirst();
+
+        store.update(vehicle.getId(), 45.26, 19.83);
+
+        assertEquals(new Location(19.83, 45.26), store.get(vehicle.getId()));
+        assertEquals(new Location(19.83, 45.26), store.locationOf(vehicle));
+        assertNotEquals(45.26, storedPosition(vehicle.getId())[0]);
+    }
+
+    @Test
+    void flush_ShouldWriteOnlyTheLastPingOfEachVehicle() {
+        List<Vehicle> vehicles = persistVehicles(200);
+
+        // 50 pings per vehicle between two flushes
+        for (int ping = 0; ping < 50; ping++) {
+            for (Vehicle vehicle : vehicles) {
+                store.update(vehicle.getId(), 45.0 + ping * 0.001, 19.0 + vehicle.getId() * 0.001);
+            }
+        }
+
+        assertEquals(200, store.unflushedCount());
+        assertEquals(200, store.flush());
+        assertEquals(0, store.unflushedCount());
+        assertEquals(0, store.flush());
+
+        for (Vehicle vehicle : vehicles) {
+            double[] stored = storedPosition(vehicle.getId());
+            assertEquals(45.049, stored[0], 1e-9);
+            assertEquals(19.0 + vehicle.getId() * 0.001, stored[1], 1e-9);
+        }
+    }
+
+    @Test
+    void save_ShouldNotOverwriteFlushedPosition() {
+        Vehicle vehicle = persistVehicles(1).getFirst();
+        store.update(vehicle.getId(), 45.26, 19.83);
+        store.flush();
+
+        // the entity still holds the position it was loaded with
+        vehicle.setAvailable(false);
+        entityManager.flush();
+
+        double[] stored = storedPosition(vehicle.getId());
+        assertEquals(45.26, stored[0]);
+        assertEquals(19.83, stored[1]);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void update_ShouldSustainThousandsOfPingsPerSecond() {
+        List<Vehicle> vehicles = persistVehicles(1000);
+        int pings = 200_000;
+
+        long started = System.nanoTime();
+        for (int i = 0; i < pings; i++) {
+            Vehicle vehicle = vehicles.get(i % vehicles.size());
+            store.update(vehicle.getId(), 45.0 + i * 1e-7, 19.0);
+            // a flush every 2 seconds at 10k pings per second
+            if ((i + 1) % 20_000 == 0) {
+                store.flush();
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        double pingsPerSecond = pings / seconds;
+        assertTrue(pingsPerSecond > 10_000, pingsPerSecond + " pings/s");
+    }
+}
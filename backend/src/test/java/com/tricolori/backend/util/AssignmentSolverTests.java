@@ -0,0 +1,69 @@
+package com.tricolori.backend.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class AssignmentSolverTests {
+
+    private static final double X = AssignmentSolver.FORBIDDEN;
+
+    @Test
+    @DisplayName("Should find minimum cost assignment of a square matrix")
+    void solve_ShouldMinimizeTotalCost() {
+        double[][] cost = {
+            {4, 1, 3},
+            {2, 0, 5},
+            {3, 2, 2}
+        };
+
+        assertArrayEquals(new int[] {1, 0, 2}, AssignmentSolver.solve(cost));
+    }
+
+    @Test
+    @DisplayName("Should leave extra rows unmatched when there are fewer columns")
+    void solve_ShouldLeaveRowsUnmatched_WhenMoreRowsThanColumns() {
+        double[][] cost = {
+            {1, 9},
+            {5, 2},
+            {3, 3}
+        };
+
+        assertArrayEquals(new int[] {0, 1, -1}, AssignmentSolver.solve(cost));
+    }
+
+    @Test
+    @DisplayName("Should pick the cheapest columns when there are more columns than rows")
+    void solve_ShouldPickCheapestColumns_WhenMoreColumnsThanRows() {
+        double[][] cost = {
+            {7, 1, 8, 9},
+            {6, 2, 9, 3}
+        };
+
+        assertArrayEquals(new int[] {1, 3}, AssignmentSolver.solve(cost));
+    }
+
+    @Test
+    @DisplayName("Should never match forbidden pairs")
+    void solve_ShouldNotMatchForbiddenPairs() {
+        double[][] cost = {
+            {1, X},
+            {2, X}
+        };
+
+        int[] assignment = AssignmentSolver.solve(cost);
+
+        assertEquals(1, Arrays.stream(assignment).filter(c -> c == 0).count());
+        assertTrue(Arrays.stream(assignment).noneMatch(c -> c == 1));
+    }
+
+    @Test
+    @DisplayName("Should handle empty input")
+    void solve_ShouldHandleEmptyMatrix() {
+        assertArrayEquals(new int[0], AssignmentSolver.solve(new double[0][0]));
+        assertArrayEquals(new int[] {-1, -1}, AssignmentSolver.solve(new double[2][0]));
+    }
+}
@@ -0,0 +1,165 @@
+package com.tricolori.backend.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.tricolori.backend.entity.Location;
+
+class GeoDistanceTests {
+
+    private final Location noviSad = new Location(19.8335, 45.2671);
+    private final Location beograd = new Location(20.4612, 44.8125);
+
+    @Test
+    @DisplayName("Should compute haversine distance in meters")
+    void haversineMeters_ShouldMatchKnownDistance() {
+        double meters = GeoDistance.meters(noviSad, beograd);
+
+        // Novi Sad - Beograd, as the crow flies
+        assertEquals(70_500, meters, 1_000);
+    }
+
+    @Test
+    @DisplayName("Equirectangular should stay within 0.1% of haversine at city scale")
+    void equirectangularMeters_ShouldApproximateHaversine() {
+        Random random = new Random(7);
+        for (int i = 0; i < 1_000; i++) {
+            double lat = 45.2671 + (random.nextDouble() - 0.5) * 0.2;
+            double lng = 19.8335 + (random.nextDouble() - 0.5) * 0.2;
+
+            double exact = GeoDistance.haversineMeters(45.2671, 19.8335, lat, lng);
+            double fast = GeoDistance.equirectangularMeters(45.2671, 19.8335, lat, lng);
+
+            assertEquals(exact, fast, exact * 0.001 + 0.01);
+        }
+    }
+
+    @Test
+    @DisplayName("Should rank by meters, not by raw degrees")
+    void orderByDistance_ShouldAccountForLongitudeScale() {
+        // 0.010 degrees of longitude is ~785 m here, 0.008 degrees of latitude is ~890 m
+        double[] lats = {45.2671 + 0.008, 45.2671};
+        double[] lngs = {19.8335, 19.8335 + 0.010};
+
+        int[] order = GeoDistance.orderByDistance(lats, lngs, 2, 45.2671, 19.8335);
+
+        assertArrayEquals(new int[] {1, 0}, order);
+    }
+
+    @Test
+    @DisplayName("Should keep the original order of equally distant positions")
+    void orderByDistance_ShouldBeStable() {
+        int count = 100;
+        double[] lats = new double[count];
+        double[] lngs = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = 45.2671 + (i % 3) * 0.001;
+            lngs[i] = 19.8335;
+        }
+
+        int[] order = GeoDistance.orderByDistance(lats, lngs, count, 45.2671, 19.8335);
+
+        for (int i = 1; i < count; i++) {
+            int previous = order[i - 1];
+            int current = order[i];
+            assertTrue(previous % 3 < current % 3 || (previous % 3 == current % 3 && previous < current));
+        }
+    }
+
+    @Test
+    @DisplayName("Should put items without a position last")
+    void sortByDistance_ShouldPutMissingPositionsLast() {
+        List<Location> items = new ArrayList<>();
+        items.add(null);
+        items.add(beograd);
+        items.add(noviSad);
+
+        List<Location> sorted = GeoDistance.sortByDistance(items, location -> location, noviSad);
+
+        assertEquals(noviSad, sorted.get(0));
+        assertEquals(beograd, sorted.get(1));
+        assertNull(sorted.get(2));
+    }
+
+    /*
+     * Benchmark: ordering 10k driver positions by distance from a pickup.
+     * "stream" is the previous approach, a stream sort with a comparator calling the
+     * boxed Math.pow/sqrt degree distance on every comparison. "array" is the primitive
+     * batch path working on lat/lng arrays with reused buffers. Both are warmed up before measuring.
+     */
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Array batch ordering should rank by meters while allocating less")
+    void benchmark_ArrayBatchVersusStreamComparator() {
+        final int drivers = 10_000;
+        final int warmup = 200;
+        final int rounds = 200;
+        Random random = new Random(42);
+
+        List<Location> positions = new ArrayList<>(drivers);
+        double[] lats = new double[drivers];
+        double[] lngs = new double[drivers];
+        for (int i = 0; i < drivers; i++) {
+            lats[i] = 45.2671 + (random.nextDouble() - 0.5) * 0.1;
+            lngs[i] = 19.8335 + (random.nextDouble() - 0.5) * 0.1;
+            positions.add(new Location(lngs[i], lats[i]));
+        }
+
+        double[] distances = new double[drivers];
+        int[] order = new int[drivers];
+        for (int i = 0; i < warmup; i++) {
+            streamSort(positions, noviSad);
+            GeoDistance.orderByDistance(lats, lngs, drivers, noviSad.getLatitude(), noviSad.getLongitude(), distances, order);
+        }
+
+        long streamBytes = allocatedBytes();
+        for (int i = 0; i < rounds; i++) {
+            streamSort(positions, noviSad);
+        }
+        streamBytes = (allocatedBytes() - streamBytes) / rounds;
+
+        long arrayBytes = allocatedBytes();
+        for (int i = 0; i < rounds; i++) {
+            GeoDistance.orderByDistance(lats, lngs, drivers, noviSad.getLatitude(), noviSad.getLongitude(), distances, order);
+        }
+        arrayBytes = (allocatedBytes() - arrayBytes) / rounds;
+
+        // ordered by real distance, up to the equirectangular error
+        for (int i = 1; i < drivers; i++) {
+            double previous = GeoDistance.meters(positions.get(order[i - 1]), noviSad);
+            double current = GeoDistance.meters(positions.get(order[i]), noviSad);
+            assertTrue(previous <= current * 1.001 + 0.01);
+        }
+        if (streamBytes > 0) {
+            assertTrue(arrayBytes < streamBytes);
+        }
+    }
+
+    private static List<Location> streamSort(List<Location> positions, Location pickup) {
+        return positions.stream()
+            .sorted(Comparator.comparingDouble(l -> degreeDistance(l, pickup)))
+            .toList();
+    }
+
+    // the distance Location.calculateDistance used before
+    private static double degreeDistance(Location l1, Location l2) {
+        return Math.sqrt(Math.pow(l1.getLatitude() - l2.getLatitude(), 2) +
+                         Math.pow(l1.getLongitude() - l2.getLongitude(), 2));
+    }
+
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean) {
+            return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,63 @@
+package com.tricolori.backend.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class HistogramTests {
+
+    @Test
+    @DisplayName("Should report percentiles within the bucket precision")
+    void snapshot_ShouldApproximatePercentiles() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(10_000, snapshot.count());
+        assertEquals(5_000.5, snapshot.mean(), 0.001);
+        assertEquals(5_000, snapshot.p50(), 5_000 * 0.125);
+        assertEquals(9_000, snapshot.p90(), 9_000 * 0.125);
+        assertEquals(9_900, snapshot.p99(), 9_900 * 0.125);
+        assertEquals(10_000, snapshot.max());
+    }
+
+    @Test
+    @DisplayName("Should keep small values exact")
+    void snapshot_ShouldBeExactForSmallValues() {
+        Histogram histogram = new Histogram();
+        histogram.record(0);
+        histogram.record(3);
+        histogram.record(3);
+        histogram.record(5);
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(3, snapshot.p50());
+        assertEquals(5, snapshot.p99());
+    }
+
+    @Test
+    @DisplayName("Should map every bucket back to its lower bound")
+    void indexOf_ShouldMatchLowerBound() {
+        for (long value : new long[] {0, 7, 8, 9, 15, 16, 1_000, 123_456_789L, Long.MAX_VALUE}) {
+            int index = Histogram.indexOf(value);
+            assertTrue(Histogram.lowerBound(index) <= value);
+            if (value < Long.MAX_VALUE) {
+                assertTrue(Histogram.indexOf(Histogram.lowerBound(index + 1)) == index + 1);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should return an empty snapshot before any value")
+    void snapshot_ShouldBeEmptyWithoutValues() {
+        Histogram.Snapshot snapshot = new Histogram().snapshot();
+
+        assertEquals(0, snapshot.count());
+        assertEquals(0, snapshot.p99());
+    }
+}
@@ -0,0 +1,167 @@
+package com.tricolori.backend.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class RoadGraphTests {
+
+    private RoadGraph graph;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        graph = readTestGraph(4);
+    }
+
+    static RoadGraph readTestGraph(int landmarks) throws IOException {
+        try (Reader reader = new InputStreamReader(
+                RoadGraphTests.class.getResourceAsStream("/routing/test.graph"), StandardCharsets.UTF_8)) {
+            return RoadGraph.read(reader, landmarks);
+        }
+    }
+
+    // node indexes follow the order of the n lines, ids in the file start at 1
+    private int node(int id) {
+        return id - 1;
+    }
+
+    @Test
+    @DisplayName("Should read nodes and both directions of two-way streets")
+    void read_ShouldBuildDirectedEdges() {
+        assertEquals(14, graph.nodeCount());
+        // 17 two-way segments and one oneway segment
+        assertEquals(35, graph.edgeCount());
+    }
+
+    @Test
+    @DisplayName("Should follow oneway streets only in their direction")
+    void route_ShouldRespectOneway() {
+        RoadGraph.Path down = graph.route(node(7), node(3));
+        RoadGraph.Path up = graph.route(node(3), node(7));
+
+        assertArrayEquals(new int[] {node(7), node(3)}, down.nodes());
+        // ~556 m at 30 km/h
+        assertEquals(67, down.seconds(), 2);
+        assertEquals(4, up.nodes().length);
+        assertTrue(up.seconds() > 2 * down.seconds());
+    }
+
+    @Test
+    @DisplayName("Should return no route and infinite durations to a disconnected island")
+    void route_ShouldReturnNull_WhenUnreachable() {
+        assertNull(graph.route(node(1), node(13)));
+
+        double[] seconds = graph.secondsTo(new int[] {node(1), node(14)}, node(13));
+
+        assertTrue(Double.isInfinite(seconds[0]));
+        assertTrue(seconds[1] > 0 && seconds[1] < 30);
+    }
+
+    @Test
+    @DisplayName("Should snap coordinates to the nearest node")
+    void nearestNode_ShouldSnapToClosestNode() {
+        assertEquals(node(6), graph.nearestNode(45.2655, 19.8310));
+        assertEquals(node(13), graph.nearestNode(45.2995, 19.8995));
+        assertEquals(-1, graph.nearestNode(44.0, 21.0));
+    }
+
+    @Test
+    @DisplayName("Landmark search should find the same travel times as plain Dijkstra")
+    void route_WithLandmarks_ShouldMatchDijkstra() throws IOException {
+        String randomGraph = randomGrid(30, new Random(11));
+        RoadGraph dijkstra = RoadGraph.read(new StringReader(randomGraph), 0);
+        RoadGraph alt = RoadGraph.read(new StringReader(randomGraph), 8);
+
+        Random random = new Random(3);
+        for (int i = 0; i < 300; i++) {
+            int from = random.nextInt(dijkstra.nodeCount());
+            int to = random.nextInt(dijkstra.nodeCount());
+
+            RoadGraph.Path expected = dijkstra.route(from, to);
+            RoadGraph.Path actual = alt.route(from, to);
+            double[] table = alt.secondsTo(new int[] {from}, to);
+
+            if (expected == null) {
+                assertNull(actual);
+                assertTrue(Double.isInfinite(table[0]));
+            } else {
+                assertEquals(expected.seconds(), actual.seconds(), 1e-6);
+                assertEquals(expected.seconds(), table[0], 1e-6);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should route correctly from many threads at once and keep a bounded number of search buffers")
+    void route_ShouldShareBoundedSearchBuffers_AcrossThreads() throws Exception {
+        RoadGraph alt = RoadGraph.read(new StringReader(randomGrid(30, new Random(11))), 8);
+        int[][] pairs = new int[500][];
+        double[] expected = new double[pairs.length];
+        Random random = new Random(5);
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = new int[] {random.nextInt(alt.nodeCount()), random.nextInt(alt.nodeCount())};
+            RoadGraph.Path path = alt.route(pairs[i][0], pairs[i][1]);
+            expected[i] = path != null ? path.seconds() : Double.POSITIVE_INFINITY;
+        }
+
+        List<Future<Double>> routes = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int[] pair : pairs) {
+                routes.add(executor.submit(() -> {
+                    RoadGraph.Path path = alt.route(pair[0], pair[1]);
+                    return path != null ? path.seconds() : Double.POSITIVE_INFINITY;
+                }));
+            }
+        }
+
+        for (int i = 0; i < pairs.length; i++) {
+            assertEquals(expected[i], routes.get(i).get(), 1e-6);
+        }
+        assertTrue(alt.idleStateCount() <= Runtime.getRuntime().availableProcessors());
+    }
+
+    // size x size street grid with random speeds and some oneway streets
+    private static String randomGrid(int size, Random random) {
+        StringBuilder graph = new StringBuilder();
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                graph.append(String.format(Locale.ROOT, "n %d %.5f %.5f%n",
+                    r * size + c, 45.24 + r * 0.002, 19.80 + c * 0.003));
+            }
+        }
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                int id = r * size + c;
+                if (c + 1 < size) appendWay(graph, random, id, id + 1);
+                if (r + 1 < size) appendWay(graph, random, id, id + size);
+            }
+        }
+        return graph.toString();
+    }
+
+    private static void appendWay(StringBuilder graph, Random random, int from, int to) {
+        int speed = 20 + random.nextInt(60);
+        boolean oneway = random.nextInt(5) == 0;
+        // oneway streets point either way
+        if (oneway && random.nextBoolean()) {
+            graph.append("w ").append(speed).append(" 1 ").append(to).append(' ').append(from).append('\n');
+        } else {
+            graph.append("w ").append(speed).append(oneway ? " 1 " : " 0 ").append(from).append(' ').append(to).append('\n');
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.tricolori.backend.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.tricolori.backend.entity.Location;
+import com.tricolori.backend.entity.Route;
+import com.tricolori.backend.entity.Stop;
+
+class RouteGeometryLevelsTests {
+
+    // a winding ~12 km drive through Novi Sad with a point every ~5 m, like an OSRM overview=full geometry
+    private static List<Location> windingRoute() {
+        Random random = new Random(9);
+        List<Location> points = new ArrayList<>();
+        double lat = 45.2400;
+        double lng = 19.8000;
+        double heading = 0.6;
+        for (int i = 0; i < 2_500; i++) {
+            heading += (random.nextDouble() - 0.5) * 0.15;
+            lat += Math.cos(heading) * 0.000045;
+            lng += Math.sin(heading) * 0.000064;
+            points.add(new Location(Math.round(lng * 1e5) / 1e5, Math.round(lat * 1e5) / 1e5));
+        }
+        return points;
+    }
+
+    @Test
+    @DisplayName("Should decode the reference polyline")
+    void polylineDecode_ShouldMatchReference() {
+        List<Location> points = Polyline.decode("_p~iF~ps|U_ulLnnqC_mqNvxq`@");
+
+        assertEquals(3, points.size());
+        assertEquals(38.5, points.get(0).getLatitude(), 1e-9);
+        assertEquals(-120.2, points.get(0).getLongitude(), 1e-9);
+        assertEquals(43.252, points.get(2).getLatitude(), 1e-9);
+        assertEquals(-126.453, points.get(2).getLongitude(), 1e-9);
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", Polyline.encode(points));
+    }
+
+    @Test
+    @DisplayName("Simplified geometry should keep the ends and stay within the tolerance")
+    void simplify_ShouldStayWithinTolerance() {
+        List<Location> full = windingRoute();
+
+        List<Location> simplified = RouteGeometryLevels.simplify(full, 20);
+
+        assertTrue(simplified.size() < full.size() / 4);
+        assertEquals(full.getFirst(), simplified.getFirst());
+        assertEquals(full.getLast(), simplified.getLast());
+        for (Location point : full) {
+            assertTrue(distanceToPolyline(point, simplified) <= 20.5);
+        }
+    }
+
+    @Test
+    @DisplayName("Stored levels should decode to the simplified geometries in a fraction of the text size")
+    void encode_ShouldRoundTripLevels() {
+        List<Location> full = windingRoute();
+        String polyline = Polyline.encode(full);
+
+        byte[] levels = RouteGeometryLevels.encode(full);
+
+        for (int level = 0; level < RouteGeometryLevels.TOLERANCES_METERS.length; level++) {
+            List<Location> expected = RouteGeometryLevels.simplify(full, RouteGeometryLevels.TOLERANCES_METERS[level]);
+            List<Location> decoded = RouteGeometryLevels.decode(levels, level);
+            assertEquals(expected.size(), decoded.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getLatitude(), decoded.get(i).getLatitude(), 1e-9);
+                assertEquals(expected.get(i).getLongitude(), decoded.get(i).getLongitude(), 1e-9);
+            }
+        }
+
+
+        assertTrue(levels.length < polyline.length() / 2);
+    }
+
+    @Test
+    @DisplayName("Should pick coarser levels for lower zooms and the full geometry up close")
+    void polyline_ShouldFollowZoom() {
+        List<Location> full = windingRoute();
+        Route route = new Route();
+        route.setStops(new ArrayList<>(List.of(new Stop("Start", full.getFirst()), new Stop("End", full.getLast()))));
+        route.setRouteGeometry(Polyline.encode(full));
+        route.setGeometryLevels(RouteGeometryLevels.encode(full));
+
+        assertEquals(route.getRouteGeometry(), RouteGeometryLevels.polyline(route, null));
+        assertEquals(route.getRouteGeometry(), RouteGeometryLevels.polyline(route, 17));
+        int zoom14 = RouteGeometryLevels.polyline(route, 14).length();
+        int zoom10 = RouteGeometryLevels.polyline(route, 10).length();
+        assertTrue(zoom14 < route.getRouteGeometry().length());
+        assertTrue(zoom10 < zoom14);
+
+        // routes saved before the levels existed are simplified on the fly
+        route.setGeometryLevels(null);
+        assertEquals(zoom10, RouteGeometryLevels.polyline(route, 10).length());
+    }
+
+    private static double distanceToPolyline(Location point, List<Location> line) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = 1; i < line.size(); i++) {
+            best = Math.min(best, distanceToSegment(point, line.get(i - 1), line.get(i)));
+        }
+        return best;
+    }
+
+    private static double distanceToSegment(Location p, Location a, Location b) {
+        double scale = Math.cos(Math.toRadians(p.getLatitude()));
+        double ax = a.getLongitude() * scale, ay = a.getLatitude();
+        double bx = b.getLongitude() * scale, by = b.getLatitude();
+        double px = p.getLongitude() * scale, py = p.getLatitude();
+        double dx = bx - ax, dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        return Math.hypot(px - (ax + t * dx), py - (ay + t * dy)) * GeoDistance.METERS_PER_DEGREE;
+    }
+}
@@ -0,0 +1,110 @@
+package com.tricolori.backend.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.tricolori.backend.entity.Location;
+
+class RouteProgressTests {
+
+    // a winding drive with a point every ~5 m, like an OSRM overview=full geometry
+    private static List<Location> windingRoute(int points) {
+        Random random = new Random(9);
+        List<Location> route = new ArrayList<>();
+        double lat = 45.2400;
+        double lng = 19.8000;
+        double heading = 0.6;
+        for (int i = 0; i < points; i++) {
+            heading += (random.nextDouble() - 0.5) * 0.15;
+            lat += Math.cos(heading) * 0.000045;
+            lng += Math.sin(heading) * 0.000064;
+            route.add(new Location(lng, lat));
+        }
+        return route;
+    }
+
+    private static double pathMeters(List<Location> route, int from, int to) {
+        double meters = 0;
+        for (int i = from + 1; i <= to; i++) {
+            meters += GeoDistance.meters(route.get(i - 1), route.get(i));
+        }
+        return meters;
+    }
+
+    @Test
+    @DisplayName("Should snap positions onto the route and count the remaining distance from there")
+    void advance_ShouldReturnRemainingDistanceAlongRoute() {
+        List<Location> route = windingRoute(2_500);
+        RouteProgress progress = new RouteProgress(route);
+        double total = pathMeters(route, 0, route.size() - 1);
+        assertEquals(total, progress.totalMeters(), total * 0.001);
+
+        Random noise = new Random(3);
+        for (int i = 0; i < route.size(); i += 40) {
+            Location point = route.get(i);
+            // GPS noise of a few meters
+            double remaining = progress.advance(
+                point.getLatitude() + (noise.nextDouble() - 0.5) * 4e-5,
+                point.getLongitude() + (noise.nextDouble() - 0.5) * 4e-5);
+
+            assertEquals(total - pathMeters(route, 0, i), remaining, 25, "at point " + i);
+        }
+
+        Location destination = route.getLast();
+        assertEquals(0, progress.advance(destination.getLatitude(), destination.getLongitude()), 1);
+    }
+
+    @Test
+    @DisplayName("Should check about as many segments per position on a long route as on a short one")
+    void advance_ShouldDoConstantWorkPerPosition() {
+        List<Location> shortRoute = windingRoute(1_000);
+        List<Location> longRoute = windingRoute(20_000);
+        RouteProgress shortProgress = new RouteProgress(shortRoute);
+        RouteProgress longProgress = new RouteProgress(longRoute);
+
+        // a ping every ~15 m
+        for (int i = 0; i < shortRoute.size(); i += 3) {
+            shortProgress.advance(shortRoute.get(i).getLatitude(), shortRoute.get(i).getLongitude());
+        }
+        for (int i = 0; i < longRoute.size(); i += 3) {
+            longProgress.advance(longRoute.get(i).getLatitude(), longRoute.get(i).getLongitude());
+        }
+
+        double shortPerPing = shortProgress.checkedSegments() / (shortRoute.size() / 3.0);
+        double longPerPing = longProgress.checkedSegments() / (longRoute.size() / 3.0);
+        assertTrue(longPerPing < shortPerPing * 1.5, shortPerPing + " vs " + longPerPing + " segments per ping");
+        // the window ahead of the cursor, not the route
+        assertTrue(longPerPing < 150, longPerPing + " segments per ping");
+    }
+
+    @Test
+    @DisplayName("Should find the route again after a jump past the lookahead")
+    void advance_ShouldRescan_WhenPositionIsOffTheRouteAhead() {
+        List<Location> route = windingRoute(2_500);
+        RouteProgress progress = new RouteProgress(route);
+        double total = progress.totalMeters();
+
+        progress.advance(route.getFirst().getLatitude(), route.getFirst().getLongitude());
+        // the app reconnects 8 km further
+        Location later = route.get(1_800);
+        double remaining = progress.advance(later.getLatitude(), later.getLongitude());
+
+        assertEquals(total - pathMeters(route, 0, 1_800), remaining, 10);
+        assertTrue(progress.offRouteMeters() < 1);
+    }
+
+    @Test
+    @DisplayName("Should not track routes without a usable geometry")
+    void fromPolyline_ShouldBeNull_ForUnusableGeometry() {
+        assertNull(RouteProgress.fromPolyline(null));
+        assertNull(RouteProgress.fromPolyline("_p~iF"));
+        assertNull(RouteProgress.fromPolyline(Polyline.encode(List.of(new Location(19.8, 45.2)))));
+        assertNotNull(RouteProgress.fromPolyline(Polyline.encode(windingRoute(10))));
+    }
+}
@@ -0,0 +1,68 @@
+package com.tricolori.backend.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Minimal local Nominatim stand-in for tests. Answers /search and /reverse with a fixed
+ * place after an optional delay and records when every request arrived.
+ */
+public class StubNominatimServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final List<Long> requestNanos = new CopyOnWriteArrayList<>();
+    private final long delayMillis;
+
+    public StubNominatimServer(long delayMillis) throws IOException {
+        this.delayMillis = delayMillis;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/search", exchange -> handle(exchange,
+            "[{\"lat\":\"45.2550\",\"lon\":\"19.8451\",\"display_name\":\"Trg slobode, Novi Sad\"}]"));
+        this.server.createContext("/reverse", exchange -> handle(exchange,
+            "{\"display_name\":\"Trg slobode, Novi Sad\"}"));
+        // requests are answered in parallel so the client side decides the pacing
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    public int requests() {
+        return requestNanos.size();
+    }
+
+    public List<Long> requestNanos() {
+        return List.copyOf(requestNanos);
+    }
+
+    private void handle(HttpExchange exchange, String body) throws IOException {
+        requestNanos.add(System.nanoTime());
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
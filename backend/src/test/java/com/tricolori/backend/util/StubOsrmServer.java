@@ -0,0 +1,89 @@
+package com.tricolori.backend.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.tricolori.backend.entity.Location;
+
+/**
+ * Minimal local OSRM stand-in for tests. Answers /table/v1/driving requests with durations
+ * from the given function (null means no route) and counts the calls it received.
+ */
+public class StubOsrmServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final AtomicInteger tableRequests = new AtomicInteger();
+    private volatile BiFunction<Location, Location, Double> durations;
+    private volatile boolean failing;
+    private volatile int lastSourceCount;
+
+    public StubOsrmServer(BiFunction<Location, Location, Double> durations) throws IOException {
+        this.durations = durations;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/table/v1/driving/", this::handleTable);
+        this.server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    public int tableRequests() {
+        return tableRequests.get();
+    }
+
+    public int lastSourceCount() {
+        return lastSourceCount;
+    }
+
+    public void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    private void handleTable(HttpExchange exchange) throws IOException {
+        tableRequests.incrementAndGet();
+        if (failing) {
+            respond(exchange, 500, "{\"code\":\"InvalidQuery\"}");
+            return;
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        List<Location> locations = Arrays.stream(path.substring(path.lastIndexOf('/') + 1).split(";"))
+            .map(pair -> pair.split(","))
+            .map(lngLat -> new Location(Double.parseDouble(lngLat[0]), Double.parseDouble(lngLat[1])))
+            .toList();
+
+        // sources are every coordinate but the last one, the last one is the destination
+        Location destination = locations.get(locations.size() - 1);
+        List<Location> sources = locations.subList(0, locations.size() - 1);
+        lastSourceCount = sources.size();
+
+        String rows = sources.stream()
+            .map(source -> "[" + durations.apply(source, destination) + "]")
+            .collect(Collectors.joining(","));
+        respond(exchange, 200, "{\"code\":\"Ok\",\"durations\":[" + rows + "]}");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
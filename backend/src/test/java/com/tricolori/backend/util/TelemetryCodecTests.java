@@ -0,0 +1,67 @@
+package com.tricolori.backend.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.tricolori.backend.dto.ride.TelemetryPoint;
+
+class TelemetryCodecTests {
+
+    private static final long START = 1_760_000_000_000L;
+
+    @Test
+    @DisplayName("Should decode the points it encoded to 1e-6 degrees and the millisecond")
+    void decode_ShouldRestoreEncodedPoints() {
+        TelemetryCodec.Encoder encoder = new TelemetryCodec.Encoder();
+        encoder.append(START, 45.2671234, 19.8335678);
+        encoder.append(START + 1_000, 45.2672, 19.8336);
+        // a late ping, older than the previous one
+        encoder.append(START + 500, 45.2670, 19.8334);
+
+        List<TelemetryPoint> points = TelemetryCodec.decode(encoder.toByteArray());
+
+        assertEquals(3, points.size());
+        assertEquals(START, points.get(0).timestamp().toEpochMilli());
+        assertEquals(45.267123, points.get(0).latitude(), 1e-9);
+        assertEquals(19.833568, points.get(0).longitude(), 1e-9);
+        assertEquals(START + 500, points.get(2).timestamp().toEpochMilli());
+        assertEquals(45.2670, points.get(2).latitude(), 1e-9);
+        assertEquals(START, encoder.firstMillis());
+        assertEquals(START + 500, encoder.lastMillis());
+    }
+
+    @Test
+    @DisplayName("Should store a ping a second in city traffic in under 8 bytes")
+    void encode_ShouldBeCompact() {
+        TelemetryCodec.Encoder encoder = new TelemetryCodec.Encoder();
+        double lat = 45.2671;
+        double lng = 19.8335;
+        for (int i = 0; i < 600; i++) {
+            // about 12 m/s north-east
+            lat += 0.00008;
+            lng += 0.00011;
+            encoder.append(START + i * 1_000L, lat, lng);
+        }
+
+        int bytes = encoder.toByteArray().length;
+
+        assertEquals(600, encoder.size());
+        assertTrue(bytes < 600 * 8, bytes + " bytes");
+    }
+
+    @Test
+    @DisplayName("Should reject a chunk cut in the middle of a point")
+    void decode_ShouldThrow_ForTruncatedChunk() {
+        TelemetryCodec.Encoder encoder = new TelemetryCodec.Encoder();
+        encoder.append(START, 45.2671, 19.8335);
+        byte[] chunk = encoder.toByteArray();
+
+        assertThrows(IllegalArgumentException.class,
+            () -> TelemetryCodec.decode(Arrays.copyOf(chunk, chunk.length - 1)));
+    }
+}
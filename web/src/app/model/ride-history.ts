@@ -46,6 +46,8 @@ export interface RideDetailResponse {
   status: string;
   totalPrice: number;
   distance: number;
+  // km of the recorded GPS track, admin details only
+  drivenDistance?: number | null;
   duration: number;
   createdAt: string;
   acceptedAt: string;